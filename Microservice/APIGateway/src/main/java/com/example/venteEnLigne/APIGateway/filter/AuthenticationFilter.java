@@ -29,6 +29,7 @@ public class AuthenticationFilter implements Filter {
         "/api/produits/disponibles",
         "/api/produits/search",
         "/api/produits/categorie",
+        "/api/images/files",
         "/actuator"
     );
 
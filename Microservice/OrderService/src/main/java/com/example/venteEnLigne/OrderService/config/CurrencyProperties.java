@@ -0,0 +1,23 @@
+package com.example.venteEnLigne.OrderService.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Taux de change des commandes (mêmes clés que ProduitService)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "currency")
+@Data
+public class CurrencyProperties {
+    private String base = "USD";
+    private String provider = "static";
+    private long refreshIntervalMs = 3_600_000;
+    private long maxAgeMinutes = 1440;
+    private Map<String, BigDecimal> staticRates = new HashMap<>(Map.of("CDF", new BigDecimal("2800")));
+}
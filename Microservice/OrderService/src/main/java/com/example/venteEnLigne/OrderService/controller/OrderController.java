@@ -7,10 +7,12 @@ import com.example.venteEnLigne.OrderService.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -31,6 +33,16 @@ public class OrderController {
         return ResponseEntity.status(HttpStatus.CREATED).body(order);
     }
 
+    /**
+     * Créer des commandes en masse (imports des places de marché), tout ou rien
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkCreateOrdersResponseDTO> createOrders(@Valid @RequestBody BulkCreateOrdersDTO bulkDTO) {
+        log.info("Requête reçue pour importer {} commandes", bulkDTO.getOrders().size());
+        BulkCreateOrdersResponseDTO response = orderService.createOrders(bulkDTO.getOrders());
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
     /**
      * Récupérer toutes les commandes
      */
@@ -55,12 +67,34 @@ public class OrderController {
      * Récupérer les commandes d'un utilisateur
      */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<OrderResponseDTO>> getOrdersByUserId(@PathVariable String userId) {
+    public ResponseEntity<List<OrderResponseDTO>> getOrdersByUserId(
+            @PathVariable String userId,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir) {
         log.info("Requête reçue pour récupérer les commandes de l'utilisateur: {}", userId);
-        List<OrderResponseDTO> orders = orderService.getOrdersByUserId(userId);
+        List<OrderResponseDTO> orders = orderService.getOrdersByUserId(userId, currency, sortBy, sortDir);
         return ResponseEntity.ok(orders);
     }
 
+    /**
+     * Récupérer l'historique paginé d'un utilisateur (curseur), plus récentes d'abord ;
+     * summary=true omet les lignes et l'adresse de livraison
+     */
+    @GetMapping("/user/{userId}/history")
+    public ResponseEntity<CursorPageDTO<?>> getOrderHistory(
+            @PathVariable String userId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) OrderStatus orderStatus,
+            @RequestParam(defaultValue = "false") boolean summary) {
+        log.info("Requête reçue pour récupérer l'historique des commandes de l'utilisateur: {}", userId);
+        CursorPageDTO<?> page = summary
+            ? orderService.getOrderHistorySummary(userId, after, size, orderStatus)
+            : orderService.getOrderHistory(userId, after, size, orderStatus);
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * Récupérer les commandes par statut de commande
      */
@@ -114,15 +148,29 @@ public class OrderController {
     }
 
     /**
-     * Obtenir les statistiques des commandes
+     * Obtenir les statistiques des commandes, éventuellement sur une plage de création [from, to)
      */
     @GetMapping("/stats")
-    public ResponseEntity<OrderStatsDTO> getOrderStats() {
+    public ResponseEntity<OrderStatsDTO> getOrderStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
         log.info("Requête reçue pour obtenir les statistiques des commandes");
-        OrderStatsDTO stats = orderService.getOrderStats();
+        OrderStatsDTO stats = orderService.getOrderStats(from, to);
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Récupérer les paniers créés après une position, lus par ProduitService pour les produits achetés ensemble
+     */
+    @GetMapping("/baskets")
+    public ResponseEntity<BasketPageDTO> getBaskets(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterCreatedAt,
+            @RequestParam(required = false) String afterId,
+            @RequestParam(defaultValue = "500") int limit) {
+        BasketPageDTO page = orderService.getBaskets(afterCreatedAt, afterId, limit);
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * Health check
      */
@@ -0,0 +1,19 @@
+package com.example.venteEnLigne.OrderService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BasketDTO {
+    private String orderId;
+    private LocalDateTime createdAt;
+    private List<String> produitIds;
+}
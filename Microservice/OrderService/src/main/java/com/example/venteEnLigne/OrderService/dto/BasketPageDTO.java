@@ -0,0 +1,19 @@
+package com.example.venteEnLigne.OrderService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BasketPageDTO {
+    private List<BasketDTO> baskets;
+    private LocalDateTime nextCreatedAt; // Position à renvoyer pour le lot suivant
+    private String nextId;
+}
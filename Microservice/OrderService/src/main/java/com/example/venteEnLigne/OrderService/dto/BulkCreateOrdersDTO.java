@@ -0,0 +1,26 @@
+package com.example.venteEnLigne.OrderService.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO pour l'import de commandes en masse (places de marché)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCreateOrdersDTO {
+
+    @NotEmpty(message = "L'import doit contenir au moins une commande")
+    @Size(max = 1000, message = "Un import contient au plus 1000 commandes")
+    @Valid
+    private List<CreateOrderDTO> orders;
+}
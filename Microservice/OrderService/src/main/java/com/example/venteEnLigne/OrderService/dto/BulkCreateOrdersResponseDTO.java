@@ -0,0 +1,17 @@
+package com.example.venteEnLigne.OrderService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCreateOrdersResponseDTO {
+    private int created;
+    private List<String> orderIds; // Dans l'ordre des commandes reçues
+}
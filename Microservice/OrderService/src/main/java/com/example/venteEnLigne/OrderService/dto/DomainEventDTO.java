@@ -0,0 +1,24 @@
+package com.example.venteEnLigne.OrderService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Événement de domaine échangé entre services par le broker
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DomainEventDTO {
+    private String id;              // Identifiant de la ligne d'outbox, clé d'idempotence
+    private String type;            // COMMANDE_CREEE, PAIEMENT_CONFIRME...
+    private String aggregateType;
+    private String aggregateId;
+    private String payload;         // JSON
+    private LocalDateTime occurredAt;
+}
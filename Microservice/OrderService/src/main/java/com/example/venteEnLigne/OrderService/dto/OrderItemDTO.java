@@ -34,6 +34,8 @@ public class OrderItemDTO {
     @Positive(message = "Le prix unitaire doit être positif")
     private BigDecimal prixUnitaire;
 
+    private String currency; // Devise du prix unitaire, par défaut celle de la commande
+
     @Min(value = 1, message = "La quantité doit être au moins 1")
     private int quantite;
 
@@ -2,6 +2,7 @@ package com.example.venteEnLigne.OrderService.dto;
 
 import com.example.venteEnLigne.OrderService.model.OrderStatus;
 import com.example.venteEnLigne.OrderService.model.PaiementStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -24,6 +25,10 @@ public class OrderResponseDTO {
     private String userId;
     private BigDecimal montantTotal;
     private String currency;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private BigDecimal montantTotalOrigine; // Renseigné si le montant a été converti
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String currencyOrigine;
     private PaiementStatus paiementStatus;
     private OrderStatus orderStatus;
     private AdresseLivraisonDTO adresseLivraison;
@@ -1,11 +1,13 @@
 package com.example.venteEnLigne.OrderService.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Data
 @Builder
@@ -19,4 +21,9 @@ public class OrderStatsDTO {
     private Long livre;
     private Long annule;
     private BigDecimal revenus;
+    private String currency; // Devise des revenus (devise de base)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime from; // Plage de création demandée, [from, to)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime to;
 }
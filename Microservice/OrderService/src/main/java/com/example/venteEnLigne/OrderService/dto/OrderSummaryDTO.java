@@ -0,0 +1,28 @@
+package com.example.venteEnLigne.OrderService.dto;
+
+import com.example.venteEnLigne.OrderService.model.OrderStatus;
+import com.example.venteEnLigne.OrderService.model.PaiementStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Résumé d'une commande pour l'historique : sans lignes ni adresse de livraison
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDTO {
+    private String id;
+    private BigDecimal montantTotal;
+    private String currency;
+    private PaiementStatus paiementStatus;
+    private OrderStatus orderStatus;
+    private long nombreArticles; // Nombre de lignes de la commande
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,34 @@
+package com.example.venteEnLigne.OrderService.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Nombre de commandes et montant cumulé par (statut, statut de paiement, devise),
+ * tenus à jour dans la transaction de chaque écriture sur une commande
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "order_stats")
+public class OrderStatsCounter {
+
+    @EmbeddedId
+    private OrderStatsKey id;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "montant_total", nullable = false, precision = 19, scale = 2)
+    private BigDecimal montantTotal;
+}
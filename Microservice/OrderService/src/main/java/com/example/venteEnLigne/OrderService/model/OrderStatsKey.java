@@ -0,0 +1,34 @@
+package com.example.venteEnLigne.OrderService.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Clé d'un compteur de statistiques : une combinaison de statuts et de devise
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class OrderStatsKey implements Serializable {
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "order_status", nullable = false)
+    private OrderStatus orderStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "paiement_status", nullable = false)
+    private PaiementStatus paiementStatus;
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+}
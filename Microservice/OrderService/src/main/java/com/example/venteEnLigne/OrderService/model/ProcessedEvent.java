@@ -0,0 +1,42 @@
+package com.example.venteEnLigne.OrderService.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Événement reçu d'un autre service et déjà appliqué, enregistré dans la transaction
+ * de son effet : une nouvelle livraison du même événement est ignorée
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "processed_events")
+public class ProcessedEvent implements Persistable<String> {
+
+    @Id
+    @Column(name = "event_id", length = 36)
+    private String eventId;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+
+    @Override
+    public String getId() {
+        return eventId;
+    }
+
+    // Toujours inséré sans lecture préalable : un doublon viole la clé primaire
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
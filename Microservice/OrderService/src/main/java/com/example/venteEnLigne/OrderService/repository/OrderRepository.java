@@ -3,32 +3,52 @@ package com.example.venteEnLigne.OrderService.repository;
 import com.example.venteEnLigne.OrderService.model.Order;
 import com.example.venteEnLigne.OrderService.model.OrderStatus;
 import com.example.venteEnLigne.OrderService.model.PaiementStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, String> {
+
+    // Les listes chargent les lignes dans la même requête (jointure) : sans cela,
+    // chaque commande convertie en DTO déclenche sa propre requête sur order_items
+
+    /**
+     * Récupérer toutes les commandes avec leurs lignes
+     */
+    @Override
+    @EntityGraph(attributePaths = "items")
+    List<Order> findAll();
     
     /**
      * Récupérer toutes les commandes d'un utilisateur
      */
+    @EntityGraph(attributePaths = "items")
     List<Order> findByUserId(String userId);
     
     /**
      * Récupérer les commandes par statut de commande
      */
+    @EntityGraph(attributePaths = "items")
     List<Order> findByOrderStatus(OrderStatus orderStatus);
     
     /**
      * Récupérer les commandes par statut de paiement
      */
+    @EntityGraph(attributePaths = "items")
     List<Order> findByPaiementStatus(PaiementStatus paiementStatus);
     
     /**
      * Récupérer les commandes d'un utilisateur par statut
      */
+    @EntityGraph(attributePaths = "items")
     List<Order> findByUserIdAndOrderStatus(String userId, OrderStatus orderStatus);
     
     /**
@@ -40,4 +60,75 @@ public interface OrderRepository extends JpaRepository<Order, String> {
      * Vérifier si une commande existe pour un utilisateur
      */
     boolean existsByIdAndUserId(String id, String userId);
+
+    /**
+     * Récupérer (id, createdAt) des commandes créées après la position (createdAt, id)
+     * et au plus tard à {@code until}, hors statut {@code excluded}
+     */
+    @Query("SELECT o.id, o.createdAt FROM Order o WHERE o.orderStatus <> :excluded AND o.createdAt <= :until"
+            + " AND (o.createdAt > :afterCreatedAt OR (o.createdAt = :afterCreatedAt AND o.id > :afterId))"
+            + " ORDER BY o.createdAt, o.id")
+    List<Object[]> findBasketHeadsAfter(@Param("excluded") OrderStatus excluded,
+                                        @Param("until") LocalDateTime until,
+                                        @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                        @Param("afterId") String afterId,
+                                        Pageable pageable);
+
+    /**
+     * Récupérer la première page de l'historique d'un utilisateur, plus récentes d'abord,
+     * éventuellement limitée à un statut (idx_orders_user_created_at_id)
+     */
+    @Query("SELECT o FROM Order o WHERE o.userId = :userId"
+            + " AND (:orderStatus IS NULL OR o.orderStatus = :orderStatus)"
+            + " ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findHistory(@Param("userId") String userId,
+                            @Param("orderStatus") OrderStatus orderStatus,
+                            Pageable pageable);
+
+    /**
+     * Récupérer la page suivante de l'historique, après la position (createdAt, id)
+     */
+    @Query("SELECT o FROM Order o WHERE o.userId = :userId"
+            + " AND (:orderStatus IS NULL OR o.orderStatus = :orderStatus)"
+            + " AND (o.createdAt < :beforeCreatedAt OR (o.createdAt = :beforeCreatedAt AND o.id < :beforeId))"
+            + " ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findHistoryBefore(@Param("userId") String userId,
+                                  @Param("orderStatus") OrderStatus orderStatus,
+                                  @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                  @Param("beforeId") String beforeId,
+                                  Pageable pageable);
+
+    /**
+     * Récupérer des commandes avec leurs lignes, en une requête
+     */
+    @EntityGraph(attributePaths = "items")
+    List<Order> findWithItemsByIdIn(Collection<String> ids);
+
+    /**
+     * Compter les lignes de chaque commande donnée : paires (order_id, nombre)
+     */
+    @Query("SELECT i.order.id, COUNT(i) FROM OrderItem i WHERE i.order.id IN :orderIds GROUP BY i.order.id")
+    List<Object[]> countItemsByOrderIds(@Param("orderIds") Collection<String> orderIds);
+
+    /**
+     * Compter les commandes et sommer leurs montants par (statut, statut de paiement, devise)
+     */
+    @Query("SELECT o.orderStatus, o.paiementStatus, o.currency, COUNT(o), SUM(o.montantTotal) FROM Order o"
+            + " GROUP BY o.orderStatus, o.paiementStatus, o.currency")
+    List<Object[]> aggregateStats();
+
+    /**
+     * Même agrégat, limité aux commandes créées dans [from, to) (idx_orders_created_at)
+     */
+    @Query("SELECT o.orderStatus, o.paiementStatus, o.currency, COUNT(o), SUM(o.montantTotal) FROM Order o"
+            + " WHERE o.createdAt >= :from AND o.createdAt < :to"
+            + " GROUP BY o.orderStatus, o.paiementStatus, o.currency")
+    List<Object[]> aggregateStatsCreatedBetween(@Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to);
+
+    /**
+     * Récupérer les paires (order_id, produit_id) des commandes données
+     */
+    @Query("SELECT i.order.id, i.produitId FROM OrderItem i WHERE i.order.id IN :orderIds")
+    List<Object[]> findProduitIdsByOrderIds(@Param("orderIds") Collection<String> orderIds);
 }
@@ -0,0 +1,44 @@
+package com.example.venteEnLigne.OrderService.repository;
+
+import com.example.venteEnLigne.OrderService.model.OrderStatsCounter;
+import com.example.venteEnLigne.OrderService.model.OrderStatsKey;
+import com.example.venteEnLigne.OrderService.model.OrderStatus;
+import com.example.venteEnLigne.OrderService.model.PaiementStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface OrderStatsRepository extends JpaRepository<OrderStatsCounter, OrderStatsKey> {
+
+    /**
+     * Ajouter {@code count} commandes et {@code montant} à un compteur, sans le lire
+     * (mise à jour atomique de la ligne)
+     */
+    @Modifying
+    @Query("UPDATE OrderStatsCounter c SET c.orderCount = c.orderCount + :count,"
+            + " c.montantTotal = c.montantTotal + :montant"
+            + " WHERE c.id.orderStatus = :orderStatus AND c.id.paiementStatus = :paiementStatus"
+            + " AND c.id.currency = :currency")
+    int increment(@Param("orderStatus") OrderStatus orderStatus,
+                  @Param("paiementStatus") PaiementStatus paiementStatus,
+                  @Param("currency") String currency,
+                  @Param("count") long count,
+                  @Param("montant") BigDecimal montant);
+
+    /**
+     * Récupérer tous les compteurs en les verrouillant jusqu'à la fin de la transaction,
+     * dans l'ordre des clés suivi aussi par les écritures (OrderStatsService)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM OrderStatsCounter c"
+            + " ORDER BY c.id.orderStatus, c.id.paiementStatus, c.id.currency")
+    List<OrderStatsCounter> findAllForUpdate();
+}
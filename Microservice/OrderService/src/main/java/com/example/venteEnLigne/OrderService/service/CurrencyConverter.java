@@ -0,0 +1,172 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import com.example.venteEnLigne.OrderService.config.CurrencyProperties;
+import com.example.venteEnLigne.OrderService.dto.OrderItemDTO;
+import com.example.venteEnLigne.OrderService.dto.OrderResponseDTO;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Conversion des montants entre devises (CDF, USD) à partir d'une table de taux
+ * en mémoire, remplacée d'un bloc à chaque rafraîchissement. La première table est
+ * chargée avant la mise en service du bean ; tant qu'aucune n'a pu l'être, une
+ * conversion vers une autre devise que la base échoue.
+ */
+@Component
+@Slf4j
+public class CurrencyConverter {
+
+    private final CurrencyProperties properties;
+    private final ExchangeRateProvider provider;
+    private volatile RateTable table;
+
+    public CurrencyConverter(CurrencyProperties properties, ExchangeRateProvider provider) {
+        this.properties = properties;
+        this.provider = provider;
+        this.table = RateTable.of(normalize(properties.getBase()), Map.of(), Instant.EPOCH);
+    }
+
+    @PostConstruct
+    void loadRates() {
+        refresh();
+    }
+
+    /**
+     * Rafraîchir la table des taux ; en cas d'échec la table précédente est conservée
+     */
+    @Scheduled(initialDelayString = "${currency.refresh-interval-ms:3600000}",
+            fixedDelayString = "${currency.refresh-interval-ms:3600000}")
+    public void refresh() {
+        try {
+            table = RateTable.of(normalize(properties.getBase()), provider.fetchRates(), Instant.now());
+            log.info("Taux de change rafraîchis: {}", table.currencies());
+        } catch (Exception e) {
+            Duration age = Duration.between(table.fetchedAt(), Instant.now());
+            if (age.toMinutes() > properties.getMaxAgeMinutes()) {
+                log.error("Taux de change non rafraîchis depuis {} min: {}", age.toMinutes(), e.getMessage());
+            } else {
+                log.warn("Rafraîchissement des taux impossible, table précédente conservée: {}", e.getMessage());
+            }
+        }
+    }
+
+    public String baseCurrency() {
+        return table.base();
+    }
+
+    /**
+     * Vérifier qu'une devise est connue de la table
+     */
+    public String requireSupported(String currency) {
+        return requireSupported(table, currency);
+    }
+
+    /**
+     * Convertir un montant, arrondi au centime
+     */
+    public BigDecimal convert(BigDecimal amount, String from, String to) {
+        RateTable snapshot = table;
+        String source = requireSupported(snapshot, from);
+        String target = requireSupported(snapshot, to);
+        if (source.equals(target)) {
+            return amount;
+        }
+        return round(amount.multiply(snapshot.factors().get(target).get(source)));
+    }
+
+    /**
+     * Convertir sur place les montants d'une liste de commandes vers {@code currency},
+     * avec un seul instantané de la table pour toute la liste
+     */
+    public void convertOrders(List<OrderResponseDTO> orders, String currency) {
+        RateTable snapshot = table;
+        String target = requireSupported(snapshot, currency);
+        Map<String, BigDecimal> toTarget = snapshot.factors().get(target);
+        for (OrderResponseDTO order : orders) {
+            String source = normalize(order.getCurrency());
+            BigDecimal factor = source == null ? null : toTarget.get(source);
+            if (target.equals(source) || factor == null) {
+                continue;
+            }
+            order.setMontantTotalOrigine(order.getMontantTotal());
+            order.setCurrencyOrigine(order.getCurrency());
+            order.setMontantTotal(round(order.getMontantTotal().multiply(factor)));
+            order.setCurrency(target);
+            if (order.getItems() != null) {
+                for (OrderItemDTO item : order.getItems()) {
+                    item.setPrixUnitaire(round(item.getPrixUnitaire().multiply(factor)));
+                    if (item.getSousTotal() != null) {
+                        item.setSousTotal(round(item.getSousTotal().multiply(factor)));
+                    }
+                    item.setCurrency(target);
+                }
+            }
+        }
+    }
+
+    private static String requireSupported(RateTable snapshot, String currency) {
+        String code = normalize(currency);
+        if (code != null && !snapshot.factors().containsKey(code) && !snapshot.loaded()) {
+            throw new IllegalStateException("Taux de change pas encore chargés, conversion en " + code + " indisponible");
+        }
+        if (code == null || !snapshot.factors().containsKey(code)) {
+            throw new IllegalArgumentException("Devise non supportée: " + currency
+                    + " (disponibles: " + String.join(", ", snapshot.currencies()) + ")");
+        }
+        return code;
+    }
+
+    static String normalize(String currency) {
+        return currency == null ? null : currency.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static BigDecimal round(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Facteurs précalculés pour chaque couple (devise cible -> devise source -> facteur)
+     */
+    record RateTable(String base, Map<String, Map<String, BigDecimal>> factors, Instant fetchedAt) {
+
+        static RateTable of(String base, Map<String, BigDecimal> rates, Instant fetchedAt) {
+            Map<String, BigDecimal> unitsPerBase = new HashMap<>();
+            rates.forEach((currency, rate) -> {
+                if (rate != null && rate.signum() > 0) {
+                    unitsPerBase.put(normalize(currency), rate);
+                }
+            });
+            unitsPerBase.put(base, BigDecimal.ONE);
+
+            Map<String, Map<String, BigDecimal>> factors = new HashMap<>();
+            unitsPerBase.forEach((target, targetRate) -> {
+                Map<String, BigDecimal> fromSource = new HashMap<>();
+                unitsPerBase.forEach((source, sourceRate) ->
+                        fromSource.put(source, targetRate.divide(sourceRate, MathContext.DECIMAL64)));
+                factors.put(target, Map.copyOf(fromSource));
+            });
+            return new RateTable(base, Map.copyOf(factors), fetchedAt);
+        }
+
+        Set<String> currencies() {
+            return factors.keySet();
+        }
+
+        boolean loaded() {
+            return !Instant.EPOCH.equals(fetchedAt);
+        }
+    }
+}
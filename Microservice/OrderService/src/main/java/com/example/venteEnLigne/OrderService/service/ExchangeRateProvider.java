@@ -0,0 +1,15 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Source des taux de change utilisés par {@link CurrencyConverter}
+ */
+public interface ExchangeRateProvider {
+
+    /**
+     * @return pour chaque devise, le nombre d'unités valant une unité de la devise de base
+     */
+    Map<String, BigDecimal> fetchRates();
+}
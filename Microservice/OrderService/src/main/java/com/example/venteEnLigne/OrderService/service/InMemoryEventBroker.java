@@ -0,0 +1,81 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import com.example.venteEnLigne.OrderService.dto.DomainEventDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Broker en mémoire, mêmes garanties que Redis Streams dans un seul processus :
+ * pour les tests et le développement local sans Redis (events.broker=memory)
+ */
+@Component
+@ConditionalOnProperty(name = "events.broker", havingValue = "memory")
+public class InMemoryEventBroker implements EventBroker {
+
+    private static final class Group {
+        private int next;                                                     // Prochain message jamais livré
+        private final Map<String, DomainEventDTO> pending = new LinkedHashMap<>(); // Livrés, non acquittés
+        private final Map<String, Long> deliveryCounts = new HashMap<>();
+    }
+
+    private final Map<String, List<DomainEventDTO>> streams = new HashMap<>();
+    private final Map<String, Group> groups = new HashMap<>();
+
+    @Override
+    public synchronized void publish(String stream, List<DomainEventDTO> events) {
+        streams.computeIfAbsent(stream, key -> new ArrayList<>()).addAll(events);
+    }
+
+    @Override
+    public synchronized List<Delivery> poll(String stream, String group, String consumer, int max) {
+        Group state = groups.computeIfAbsent(stream + "|" + group, key -> new Group());
+        List<Delivery> deliveries = new ArrayList<>();
+        if (!state.pending.isEmpty()) {
+            state.pending.forEach((id, event) -> {
+                if (deliveries.size() < max) {
+                    deliveries.add(new Delivery(id, event, state.deliveryCounts.merge(id, 1L, Long::sum)));
+                }
+            });
+            return deliveries;
+        }
+        List<DomainEventDTO> events = streams.getOrDefault(stream, List.of());
+        while (state.next < events.size() && deliveries.size() < max) {
+            String deliveryId = String.valueOf(state.next);
+            DomainEventDTO event = events.get(state.next++);
+            state.pending.put(deliveryId, event);
+            state.deliveryCounts.put(deliveryId, 1L);
+            deliveries.add(new Delivery(deliveryId, event, 1));
+        }
+        return deliveries;
+    }
+
+    @Override
+    public synchronized void ack(String stream, String group, List<String> deliveryIds) {
+        Group state = groups.get(stream + "|" + group);
+        if (state != null) {
+            deliveryIds.forEach(id -> {
+                state.pending.remove(id);
+                state.deliveryCounts.remove(id);
+            });
+        }
+    }
+
+    @Override
+    public synchronized void deadLetter(String stream, String group, Delivery delivery, String deadLetterStream) {
+        streams.computeIfAbsent(deadLetterStream, key -> new ArrayList<>()).add(delivery.event());
+        ack(stream, group, List.of(delivery.deliveryId()));
+    }
+
+    /**
+     * Événements publiés sur un flux, dans l'ordre
+     */
+    public synchronized List<DomainEventDTO> published(String stream) {
+        return List.copyOf(streams.getOrDefault(stream, List.of()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import com.example.venteEnLigne.OrderService.model.Order;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position dans l'historique d'un utilisateur : (createdAt, id) de la dernière
+ * commande renvoyée, encodée en Base64 URL opaque.
+ */
+record OrderCursor(LocalDateTime createdAt, String id) {
+
+    static OrderCursor of(Order order) {
+        return new OrderCursor(order.getCreatedAt(), order.getId());
+    }
+
+    String encode() {
+        String plain = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static OrderCursor decode(String token) {
+        try {
+            String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = plain.split("\\|", 2);
+            if (parts.length != 2 || parts[1].isEmpty()) {
+                throw new IllegalArgumentException("Format de curseur inconnu");
+            }
+            return new OrderCursor(LocalDateTime.parse(parts[0]), parts[1]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Curseur invalide: " + token, e);
+        }
+    }
+}
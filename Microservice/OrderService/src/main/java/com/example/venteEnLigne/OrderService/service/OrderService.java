@@ -3,14 +3,24 @@ package com.example.venteEnLigne.OrderService.service;
 import com.example.venteEnLigne.OrderService.dto.*;
 import com.example.venteEnLigne.OrderService.model.*;
 import com.example.venteEnLigne.OrderService.repository.OrderRepository;
+import com.example.venteEnLigne.OrderService.repository.ProcessedEventRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,7 +29,27 @@ import java.util.stream.Collectors;
 @Transactional
 public class OrderService {
 
+    private static final int MAX_BASKET_PAGE = 1000;
+    private static final int MAX_HISTORY_PAGE = 100;
+    // Multiple de hibernate.jdbc.batch_size : chaque vidage n'envoie que des lots pleins
+    private static final int BULK_FLUSH_SIZE = 100;
+
     private final OrderRepository orderRepository;
+    private final CurrencyConverter currencyConverter;
+    private final OrderStatsService orderStatsService;
+    private final OutboxService outboxService;
+    private final ProcessedEventRepository processedEventRepository;
+    private final EntityManager entityManager;
+
+    // Une commande validée par une transaction encore ouverte peut porter une date
+    // antérieure à la position déjà lue : les dernières secondes attendent le lot suivant.
+    // Limite : une transaction plus longue que cette fenêtre (import en masse lent, verrou)
+    // valide derrière le curseur (createdAt, id) et sa commande n'est jamais lue par
+    // RelatedProduitsIndex ni HotProduitsTracker avant leur redémarrage. La fenêtre doit
+    // donc dépasser la plus longue transaction de création ; elle retarde d'autant les
+    // paniers, lus toutes les 30 à 60 s.
+    @Value("${order.baskets.settle-seconds:30}")
+    private long basketSettleSeconds;
 
     /**
      * Créer une nouvelle commande
@@ -27,6 +57,59 @@ public class OrderService {
     public OrderResponseDTO createOrder(CreateOrderDTO createOrderDTO) {
         log.info("Création d'une nouvelle commande pour l'utilisateur: {}", createOrderDTO.getUserId());
 
+        Order savedOrder = orderRepository.save(toOrder(createOrderDTO));
+        orderStatsService.recordCreated(savedOrder);
+        outboxService.orderCreated(savedOrder);
+        
+        log.info("Commande créée avec succès: {}", savedOrder.getId());
+        return convertToDTO(savedOrder);
+    }
+
+    /**
+     * Créer des commandes en masse (imports des vendeurs), en une transaction : tout ou
+     * rien. Les INSERT partent par lots JDBC (hibernate.jdbc.batch_size), vidés toutes
+     * les BULK_FLUSH_SIZE commandes pour borner le contexte de persistance.
+     */
+    public BulkCreateOrdersResponseDTO createOrders(List<CreateOrderDTO> createOrderDTOs) {
+        log.info("Création en masse de {} commandes", createOrderDTOs.size());
+
+        List<String> orderIds = new ArrayList<>(createOrderDTOs.size());
+        List<OrderStatsService.Snapshot> snapshots = new ArrayList<>(createOrderDTOs.size());
+        List<Order> lot = new ArrayList<>(BULK_FLUSH_SIZE);
+        for (CreateOrderDTO createOrderDTO : createOrderDTOs) {
+            lot.add(toOrder(createOrderDTO));
+            if (lot.size() == BULK_FLUSH_SIZE) {
+                flushBulk(lot, orderIds, snapshots);
+            }
+        }
+        flushBulk(lot, orderIds, snapshots);
+        orderStatsService.recordCreated(snapshots);
+
+        log.info("{} commandes créées en masse", orderIds.size());
+        return BulkCreateOrdersResponseDTO.builder()
+            .created(orderIds.size())
+            .orderIds(orderIds)
+            .build();
+    }
+
+    private void flushBulk(List<Order> lot, List<String> orderIds, List<OrderStatsService.Snapshot> snapshots) {
+        if (lot.isEmpty()) {
+            return;
+        }
+        orderRepository.saveAll(lot);
+        // Identifiants attribués à la persistance : les événements partent dans le même vidage
+        lot.forEach(outboxService::orderCreated);
+        entityManager.flush();
+        for (Order order : lot) {
+            orderIds.add(order.getId());
+            snapshots.add(OrderStatsService.Snapshot.of(order));
+        }
+        entityManager.clear();
+        lot.clear();
+    }
+
+    // Commande et lignes prêtes à persister (identifiants générés à l'insertion)
+    private Order toOrder(CreateOrderDTO createOrderDTO) {
         // Créer l'adresse de livraison
         AdresseLivraison adresse = AdresseLivraison.builder()
             .pays(createOrderDTO.getAdresseLivraison().getPays())
@@ -41,23 +124,29 @@ public class OrderService {
             .build();
 
         // Créer la commande
+        String currency = createOrderDTO.getCurrency() != null
+            ? currencyConverter.requireSupported(createOrderDTO.getCurrency())
+            : "USD";
         Order order = Order.builder()
             .userId(createOrderDTO.getUserId())
-            .currency(createOrderDTO.getCurrency() != null ? createOrderDTO.getCurrency() : "USD")
+            .currency(currency)
             .adresseLivraison(adresse)
             .notes(createOrderDTO.getNotes())
             .montantTotal(BigDecimal.ZERO)
             .build();
 
-        // Ajouter les items
+        // Ajouter les items, prix convertis dans la devise de la commande au taux du jour
         if (createOrderDTO.getItems() != null) {
             for (OrderItemDTO itemDTO : createOrderDTO.getItems()) {
+                BigDecimal prixUnitaire = itemDTO.getCurrency() != null
+                    ? currencyConverter.convert(itemDTO.getPrixUnitaire(), itemDTO.getCurrency(), currency)
+                    : itemDTO.getPrixUnitaire();
                 OrderItem item = OrderItem.builder()
                     .produitId(itemDTO.getProduitId())
                     .produitTitre(itemDTO.getProduitTitre())
                     .produitImage(itemDTO.getProduitImage())
                     .quantite(itemDTO.getQuantite())
-                    .prixUnitaire(itemDTO.getPrixUnitaire())
+                    .prixUnitaire(prixUnitaire)
                     .build();
                 item.calculateSousTotal();
                 order.addItem(item);
@@ -65,10 +154,7 @@ public class OrderService {
         }
 
         order.recalculerMontantTotal();
-        Order savedOrder = orderRepository.save(order);
-        
-        log.info("Commande créée avec succès: {}", savedOrder.getId());
-        return convertToDTO(savedOrder);
+        return order;
     }
 
     /**
@@ -101,6 +187,117 @@ public class OrderService {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Récupérer les commandes d'un utilisateur, montants présentés dans {@code currency}
+     * et triés sur le montant converti si {@code sortBy} vaut montantTotal
+     */
+    @Transactional(readOnly = true)
+    public List<OrderResponseDTO> getOrdersByUserId(String userId, String currency, String sortBy, String sortDir) {
+        List<OrderResponseDTO> orders = getOrdersByUserId(userId);
+        if (currency != null) {
+            currencyConverter.convertOrders(orders, currency);
+        }
+        if (sortBy == null) {
+            return orders;
+        }
+        if (!"montantTotal".equals(sortBy)) {
+            throw new IllegalArgumentException("Champ de tri non supporté: " + sortBy);
+        }
+        // Sans devise demandée, les montants sont ramenés à la devise de base pour la comparaison
+        String reference = currency != null
+            ? currencyConverter.requireSupported(currency)
+            : currencyConverter.baseCurrency();
+        Map<String, BigDecimal> montants = new HashMap<>();
+        orders.forEach(order -> montants.put(order.getId(),
+            currencyConverter.convert(order.getMontantTotal(), order.getCurrency(), reference)));
+        Comparator<OrderResponseDTO> comparator = Comparator.comparing(order -> montants.get(order.getId()));
+        orders.sort("desc".equalsIgnoreCase(sortDir) ? comparator.reversed() : comparator);
+        return orders;
+    }
+
+    /**
+     * Récupérer l'historique d'un utilisateur page par page, plus récentes d'abord, à
+     * partir du curseur {@code after} renvoyé par la page précédente
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<OrderResponseDTO> getOrderHistory(String userId, String after, int size,
+                                                           OrderStatus orderStatus) {
+        List<Order> page = findHistoryPage(userId, after, size, orderStatus);
+        int pageSize = clampHistorySize(size);
+        boolean hasNext = page.size() > pageSize;
+        if (hasNext) {
+            page = page.subList(0, pageSize);
+        }
+
+        // Lignes de toute la page en une requête, puis remises dans l'ordre de l'historique
+        Map<String, Order> withItems = new HashMap<>();
+        if (!page.isEmpty()) {
+            orderRepository.findWithItemsByIdIn(page.stream().map(Order::getId).toList())
+                .forEach(order -> withItems.put(order.getId(), order));
+        }
+        List<OrderResponseDTO> content = page.stream()
+            .map(order -> convertToDTO(withItems.getOrDefault(order.getId(), order)))
+            .collect(Collectors.toList());
+        return toCursorPage(content, page, pageSize, hasNext);
+    }
+
+    /**
+     * Récupérer l'historique d'un utilisateur en mode résumé : ni lignes ni adresse,
+     * seulement le nombre d'articles de chaque commande
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<OrderSummaryDTO> getOrderHistorySummary(String userId, String after, int size,
+                                                                 OrderStatus orderStatus) {
+        List<Order> page = findHistoryPage(userId, after, size, orderStatus);
+        int pageSize = clampHistorySize(size);
+        boolean hasNext = page.size() > pageSize;
+        if (hasNext) {
+            page = page.subList(0, pageSize);
+        }
+
+        Map<String, Long> nombreArticles = new HashMap<>();
+        if (!page.isEmpty()) {
+            for (Object[] row : orderRepository.countItemsByOrderIds(page.stream().map(Order::getId).toList())) {
+                nombreArticles.put((String) row[0], (Long) row[1]);
+            }
+        }
+        List<OrderSummaryDTO> content = page.stream()
+            .map(order -> OrderSummaryDTO.builder()
+                .id(order.getId())
+                .montantTotal(order.getMontantTotal())
+                .currency(order.getCurrency())
+                .paiementStatus(order.getPaiementStatus())
+                .orderStatus(order.getOrderStatus())
+                .nombreArticles(nombreArticles.getOrDefault(order.getId(), 0L))
+                .createdAt(order.getCreatedAt())
+                .build())
+            .collect(Collectors.toList());
+        return toCursorPage(content, page, pageSize, hasNext);
+    }
+
+    // Une commande de plus que la page : sa présence indique qu'une page suivante existe
+    private List<Order> findHistoryPage(String userId, String after, int size, OrderStatus orderStatus) {
+        PageRequest limit = PageRequest.of(0, clampHistorySize(size) + 1);
+        if (after == null || after.isBlank()) {
+            return orderRepository.findHistory(userId, orderStatus, limit);
+        }
+        OrderCursor cursor = OrderCursor.decode(after);
+        return orderRepository.findHistoryBefore(userId, orderStatus, cursor.createdAt(), cursor.id(), limit);
+    }
+
+    private static int clampHistorySize(int size) {
+        return Math.max(1, Math.min(size, MAX_HISTORY_PAGE));
+    }
+
+    private static <T> CursorPageDTO<T> toCursorPage(List<T> content, List<Order> page, int size, boolean hasNext) {
+        return CursorPageDTO.<T>builder()
+            .content(content)
+            .size(size)
+            .hasNext(hasNext)
+            .nextCursor(hasNext ? OrderCursor.of(page.get(page.size() - 1)).encode() : null)
+            .build();
+    }
+
     /**
      * Récupérer les commandes par statut de commande
      */
@@ -129,6 +326,9 @@ public class OrderService {
         
         Order order = orderRepository.findById(id)
             .orElseThrow(() -> new EntityNotFoundException("Commande non trouvée avec l'ID: " + id));
+        OrderStatsService.Snapshot before = OrderStatsService.Snapshot.of(order);
+        boolean annulation = updateDTO.getOrderStatus() == OrderStatus.ANNULE
+            && order.getOrderStatus() != OrderStatus.ANNULE;
 
         if (updateDTO.getOrderStatus() != null) {
             order.setOrderStatus(updateDTO.getOrderStatus());
@@ -139,6 +339,10 @@ public class OrderService {
         }
 
         Order updatedOrder = orderRepository.save(order);
+        orderStatsService.recordChanged(before, updatedOrder);
+        if (annulation) {
+            outboxService.orderCancelled(updatedOrder);
+        }
         log.info("Statut de la commande mis à jour: {}", id);
         
         return convertToDTO(updatedOrder);
@@ -157,54 +361,109 @@ public class OrderService {
             throw new IllegalStateException("Impossible d'annuler une commande déjà livrée");
         }
 
+        OrderStatsService.Snapshot before = OrderStatsService.Snapshot.of(order);
+        boolean annulation = order.getOrderStatus() != OrderStatus.ANNULE;
         order.setOrderStatus(OrderStatus.ANNULE);
         Order cancelledOrder = orderRepository.save(order);
+        orderStatsService.recordChanged(before, cancelledOrder);
+        if (annulation) {
+            outboxService.orderCancelled(cancelledOrder);
+        }
         
         log.info("Commande annulée: {}", id);
         return convertToDTO(cancelledOrder);
     }
 
+    /**
+     * Appliquer le résultat d'un paiement publié par le service paiement. Idempotent :
+     * l'événement est inséré avant tout effet, une livraison répétée ou concurrente viole
+     * la clé primaire et lève DataIntegrityViolationException (transaction annulée, voir
+     * PaiementEventConsumer). Un paiement réussi n'est pas remplacé par l'échec d'une
+     * autre tentative.
+     */
+    public void applyPaiementResult(String eventId, String orderId, PaiementStatus paiementStatus) {
+        processedEventRepository.saveAndFlush(new ProcessedEvent(eventId, LocalDateTime.now()));
+
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) {
+            log.warn("Paiement reçu pour une commande inconnue: {}", orderId);
+            return;
+        }
+        if (order.getPaiementStatus() == paiementStatus || order.getPaiementStatus() == PaiementStatus.PAYE) {
+            return;
+        }
+
+        OrderStatsService.Snapshot before = OrderStatsService.Snapshot.of(order);
+        order.setPaiementStatus(paiementStatus);
+        orderStatsService.recordChanged(before, order);
+        log.info("Statut de paiement de la commande {} mis à jour: {}", orderId, paiementStatus);
+    }
+
     /**
      * Supprimer une commande
      */
     public void deleteOrder(String id) {
         log.info("Suppression de la commande: {}", id);
         
-        if (!orderRepository.existsById(id)) {
-            throw new EntityNotFoundException("Commande non trouvée avec l'ID: " + id);
-        }
+        Order order = orderRepository.findById(id)
+            .orElseThrow(() -> new EntityNotFoundException("Commande non trouvée avec l'ID: " + id));
 
-        orderRepository.deleteById(id);
+        orderRepository.delete(order);
+        orderStatsService.recordDeleted(order);
         log.info("Commande supprimée: {}", id);
     }
 
     /**
-     * Obtenir les statistiques des commandes
+     * Obtenir les statistiques des commandes, lues dans les compteurs tenus à jour ;
+     * avec from et/ou to, limitées aux commandes créées dans la plage
      */
     @Transactional(readOnly = true)
-    public OrderStatsDTO getOrderStats() {
-        List<Order> allOrders = orderRepository.findAll();
-        
-        long totalOrders = allOrders.size();
-        long enAttente = allOrders.stream().filter(o -> o.getOrderStatus() == OrderStatus.EN_ATTENTE).count();
-        long enCours = allOrders.stream().filter(o -> o.getOrderStatus() == OrderStatus.EN_COURS).count();
-        long enRoute = allOrders.stream().filter(o -> o.getOrderStatus() == OrderStatus.EN_ROUTE).count();
-        long livre = allOrders.stream().filter(o -> o.getOrderStatus() == OrderStatus.LIVRE).count();
-        long annule = allOrders.stream().filter(o -> o.getOrderStatus() == OrderStatus.ANNULE).count();
-        
-        BigDecimal revenus = allOrders.stream()
-            .filter(o -> o.getPaiementStatus() == PaiementStatus.PAYE)
-            .map(Order::getMontantTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        return OrderStatsDTO.builder()
-            .totalOrders(totalOrders)
-            .enAttente(enAttente)
-            .enCours(enCours)
-            .enRoute(enRoute)
-            .livre(livre)
-            .annule(annule)
-            .revenus(revenus)
+    public OrderStatsDTO getOrderStats(LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return orderStatsService.getStats();
+        }
+        return orderStatsService.getStats(from, to);
+    }
+
+    /**
+     * Récupérer les paniers (produits de chaque commande non annulée) créés après la
+     * position (afterCreatedAt, afterId), pour les recommandations de ProduitService
+     */
+    @Transactional(readOnly = true)
+    public BasketPageDTO getBaskets(LocalDateTime afterCreatedAt, String afterId, int limit) {
+        LocalDateTime after = afterCreatedAt != null ? afterCreatedAt : LocalDateTime.of(1970, 1, 1, 0, 0);
+        String id = afterCreatedAt != null && afterId != null ? afterId : "";
+        List<Object[]> heads = orderRepository.findBasketHeadsAfter(OrderStatus.ANNULE,
+                LocalDateTime.now().minusSeconds(basketSettleSeconds), after, id,
+                PageRequest.of(0, Math.max(1, Math.min(limit, MAX_BASKET_PAGE))));
+
+        Map<String, BasketDTO> baskets = new LinkedHashMap<>();
+        for (Object[] head : heads) {
+            baskets.put((String) head[0], BasketDTO.builder()
+                .orderId((String) head[0])
+                .createdAt((LocalDateTime) head[1])
+                .produitIds(new ArrayList<>())
+                .build());
+        }
+        if (!baskets.isEmpty()) {
+            // Une seule requête pour les lignes du lot (idx_order_items_order_id)
+            for (Object[] row : orderRepository.findProduitIdsByOrderIds(baskets.keySet())) {
+                baskets.get((String) row[0]).getProduitIds().add((String) row[1]);
+            }
+        }
+
+        if (heads.isEmpty()) {
+            return BasketPageDTO.builder()
+                .baskets(List.of())
+                .nextCreatedAt(afterCreatedAt)
+                .nextId(afterId)
+                .build();
+        }
+        Object[] last = heads.get(heads.size() - 1);
+        return BasketPageDTO.builder()
+            .baskets(new ArrayList<>(baskets.values()))
+            .nextCreatedAt((LocalDateTime) last[1])
+            .nextId((String) last[0])
             .build();
     }
 
@@ -231,6 +490,7 @@ public class OrderService {
                 .produitImage(item.getProduitImage())
                 .quantite(item.getQuantite())
                 .prixUnitaire(item.getPrixUnitaire())
+                .currency(order.getCurrency())
                 .sousTotal(item.getSousTotal())
                 .build())
             .collect(Collectors.toList());
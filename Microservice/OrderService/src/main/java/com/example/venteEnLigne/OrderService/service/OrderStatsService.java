@@ -0,0 +1,268 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import com.example.venteEnLigne.OrderService.dto.OrderStatsDTO;
+import com.example.venteEnLigne.OrderService.model.Order;
+import com.example.venteEnLigne.OrderService.model.OrderStatsCounter;
+import com.example.venteEnLigne.OrderService.model.OrderStatsKey;
+import com.example.venteEnLigne.OrderService.model.OrderStatus;
+import com.example.venteEnLigne.OrderService.model.PaiementStatus;
+import com.example.venteEnLigne.OrderService.repository.OrderRepository;
+import com.example.venteEnLigne.OrderService.repository.OrderStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Statistiques des commandes tenues à jour au fil des écritures : chaque création,
+ * changement de statut, annulation ou suppression déplace la commande d'un compteur
+ * à l'autre dans la même transaction. /stats lit ces quelques lignes au lieu de
+ * charger toutes les commandes. Un recalcul périodique corrige toute dérive.
+ * Les compteurs touchés par une écriture sont mis à jour une fois chacun, dans l'ordre
+ * de leur clé (celui de findAllForUpdate) : deux transactions verrouillent leurs lignes
+ * communes dans le même ordre et ne peuvent pas s'interbloquer.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class OrderStatsService {
+
+    /**
+     * Ce qui place une commande dans un compteur, relevé avant une modification
+     */
+    public record Snapshot(OrderStatus orderStatus, PaiementStatus paiementStatus, String currency,
+                           BigDecimal montantTotal) {
+
+        public static Snapshot of(Order order) {
+            return new Snapshot(order.getOrderStatus(), order.getPaiementStatus(), order.getCurrency(),
+                order.getMontantTotal());
+        }
+    }
+
+    // Même ordre que le ORDER BY de OrderStatsRepository.findAllForUpdate
+    private static final Comparator<OrderStatsKey> ORDRE_VERROUILLAGE = Comparator
+        .comparing((OrderStatsKey key) -> key.getOrderStatus().name())
+        .thenComparing(key -> key.getPaiementStatus().name())
+        .thenComparing(OrderStatsKey::getCurrency);
+
+    // Variation d'un compteur : nombre de commandes et montant cumulé
+    private record Delta(long count, BigDecimal montant) {
+
+        Delta plus(Delta other) {
+            return new Delta(count + other.count, montant.add(other.montant));
+        }
+    }
+
+    private final OrderRepository orderRepository;
+    private final OrderStatsRepository orderStatsRepository;
+    private final CurrencyConverter currencyConverter;
+
+    /**
+     * Compter une nouvelle commande
+     */
+    public void recordCreated(Order order) {
+        Map<OrderStatsKey, Delta> deltas = new TreeMap<>(ORDRE_VERROUILLAGE);
+        add(deltas, Snapshot.of(order), 1);
+        apply(deltas);
+    }
+
+    /**
+     * Compter des commandes créées en masse : une mise à jour par compteur touché
+     */
+    public void recordCreated(Collection<Snapshot> snapshots) {
+        Map<OrderStatsKey, Delta> deltas = new TreeMap<>(ORDRE_VERROUILLAGE);
+        snapshots.forEach(snapshot -> add(deltas, snapshot, 1));
+        apply(deltas);
+    }
+
+    /**
+     * Déplacer une commande modifiée de son ancien compteur vers le nouveau
+     */
+    public void recordChanged(Snapshot before, Order order) {
+        Snapshot after = Snapshot.of(order);
+        if (!before.equals(after)) {
+            Map<OrderStatsKey, Delta> deltas = new TreeMap<>(ORDRE_VERROUILLAGE);
+            add(deltas, before, -1);
+            add(deltas, after, 1);
+            apply(deltas);
+        }
+    }
+
+    /**
+     * Retirer une commande supprimée
+     */
+    public void recordDeleted(Order order) {
+        Map<OrderStatsKey, Delta> deltas = new TreeMap<>(ORDRE_VERROUILLAGE);
+        add(deltas, Snapshot.of(order), -1);
+        apply(deltas);
+    }
+
+    // count commandes de montant snapshot.montantTotal ; count < 0 pour les retirer
+    private static void add(Map<OrderStatsKey, Delta> deltas, Snapshot snapshot, long count) {
+        BigDecimal montant = montantOf(snapshot);
+        deltas.merge(new OrderStatsKey(snapshot.orderStatus(), snapshot.paiementStatus(), snapshot.currency()),
+            new Delta(count, count < 0 ? montant.negate() : montant), Delta::plus);
+    }
+
+    // Une mise à jour par compteur, dans l'ordre des clés
+    private void apply(Map<OrderStatsKey, Delta> deltas) {
+        deltas.forEach((key, delta) -> {
+            if (delta.count() == 0 && delta.montant().signum() == 0) {
+                return;
+            }
+            int updated = orderStatsRepository.increment(key.getOrderStatus(), key.getPaiementStatus(),
+                key.getCurrency(), delta.count(), delta.montant());
+            if (updated == 0) {
+                // Première commande de cette combinaison (les compteurs existants sont créés par le recalcul)
+                orderStatsRepository.saveAndFlush(OrderStatsCounter.builder()
+                    .id(key)
+                    .orderCount(delta.count())
+                    .montantTotal(delta.montant())
+                    .build());
+            }
+        });
+    }
+
+    private static BigDecimal montantOf(Snapshot snapshot) {
+        return Objects.requireNonNullElse(snapshot.montantTotal(), BigDecimal.ZERO);
+    }
+
+    /**
+     * Obtenir les statistiques de toutes les commandes, lues dans les compteurs
+     */
+    @Transactional(readOnly = true)
+    public OrderStatsDTO getStats() {
+        return toStats(orderStatsRepository.findAll());
+    }
+
+    /**
+     * Obtenir les statistiques des commandes créées dans [from, to), agrégées par la
+     * base sur la plage (idx_orders_created_at) sans charger les commandes
+     */
+    @Transactional(readOnly = true)
+    public OrderStatsDTO getStats(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime debut = from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime fin = to != null ? to : LocalDateTime.now().plusDays(1);
+        if (!debut.isBefore(fin)) {
+            throw new IllegalArgumentException("La date de début doit précéder la date de fin");
+        }
+        OrderStatsDTO stats = toStats(toCounters(orderRepository.aggregateStatsCreatedBetween(debut, fin)));
+        stats.setFrom(from);
+        stats.setTo(to);
+        return stats;
+    }
+
+    // Premier démarrage : les compteurs sont remplis depuis les commandes existantes
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.warn("Recalcul des statistiques au démarrage impossible, prochain essai planifié: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recalculer les compteurs depuis la table orders. Les compteurs sont verrouillés
+     * d'abord : une écriture déjà comptée est validée avant l'agrégat, une écriture
+     * en cours attend la fin du recalcul pour s'appliquer.
+     */
+    @Scheduled(fixedDelayString = "${order.stats.reconcile-interval-ms:3600000}",
+            initialDelayString = "${order.stats.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        Map<OrderStatsKey, OrderStatsCounter> counters = new HashMap<>();
+        orderStatsRepository.findAllForUpdate().forEach(counter -> counters.put(counter.getId(), counter));
+
+        int corriges = 0;
+        Map<OrderStatsKey, OrderStatsCounter> expected = new HashMap<>();
+        toCounters(orderRepository.aggregateStats()).forEach(counter -> expected.put(counter.getId(), counter));
+        for (OrderStatsCounter counter : counters.values()) {
+            OrderStatsCounter attendu = expected.remove(counter.getId());
+            long count = attendu != null ? attendu.getOrderCount() : 0;
+            BigDecimal montant = attendu != null ? attendu.getMontantTotal() : BigDecimal.ZERO;
+            if (counter.getOrderCount() != count || counter.getMontantTotal().compareTo(montant) != 0) {
+                counter.setOrderCount(count);
+                counter.setMontantTotal(montant);
+                corriges++;
+            }
+        }
+        // Compteurs à zéro pour chaque combinaison de statuts des devises connues : la
+        // première commande d'une combinaison n'aura pas à créer sa ligne
+        Set<String> currencies = new HashSet<>();
+        currencies.add(currencyConverter.baseCurrency());
+        counters.keySet().forEach(key -> currencies.add(key.getCurrency()));
+        expected.keySet().forEach(key -> currencies.add(key.getCurrency()));
+        for (String currency : currencies) {
+            for (OrderStatus orderStatus : OrderStatus.values()) {
+                for (PaiementStatus paiementStatus : PaiementStatus.values()) {
+                    OrderStatsKey key = new OrderStatsKey(orderStatus, paiementStatus, currency);
+                    if (!counters.containsKey(key)) {
+                        expected.putIfAbsent(key, new OrderStatsCounter(key, 0, BigDecimal.ZERO));
+                    }
+                }
+            }
+        }
+        orderStatsRepository.saveAll(expected.values());
+        corriges += (int) expected.values().stream().filter(counter -> counter.getOrderCount() != 0).count();
+
+        if (corriges > 0) {
+            log.warn("Statistiques des commandes recalculées: {} compteurs corrigés", corriges);
+        }
+    }
+
+    private static List<OrderStatsCounter> toCounters(List<Object[]> rows) {
+        List<OrderStatsCounter> counters = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            counters.add(OrderStatsCounter.builder()
+                .id(new OrderStatsKey((OrderStatus) row[0], (PaiementStatus) row[1], (String) row[2]))
+                .orderCount((Long) row[3])
+                .montantTotal(row[4] != null ? (BigDecimal) row[4] : BigDecimal.ZERO)
+                .build());
+        }
+        return counters;
+    }
+
+    private OrderStatsDTO toStats(Collection<OrderStatsCounter> counters) {
+        Map<OrderStatus, Long> parStatut = new HashMap<>();
+        long total = 0;
+        // Revenus en devise de base : une commande en CDF ne s'additionne pas telle quelle à une commande en USD
+        String base = currencyConverter.baseCurrency();
+        BigDecimal revenus = BigDecimal.ZERO;
+        for (OrderStatsCounter counter : counters) {
+            total += counter.getOrderCount();
+            parStatut.merge(counter.getId().getOrderStatus(), counter.getOrderCount(), Long::sum);
+            if (counter.getId().getPaiementStatus() == PaiementStatus.PAYE) {
+                revenus = revenus.add(currencyConverter.convert(counter.getMontantTotal(),
+                    counter.getId().getCurrency(), base));
+            }
+        }
+
+        return OrderStatsDTO.builder()
+            .totalOrders(total)
+            .enAttente(parStatut.getOrDefault(OrderStatus.EN_ATTENTE, 0L))
+            .enCours(parStatut.getOrDefault(OrderStatus.EN_COURS, 0L))
+            .enRoute(parStatut.getOrDefault(OrderStatus.EN_ROUTE, 0L))
+            .livre(parStatut.getOrDefault(OrderStatus.LIVRE, 0L))
+            .annule(parStatut.getOrDefault(OrderStatus.ANNULE, 0L))
+            .revenus(revenus)
+            .currency(base)
+            .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import com.example.venteEnLigne.OrderService.config.EventsProperties;
+import com.example.venteEnLigne.OrderService.dto.DomainEventDTO;
+import com.example.venteEnLigne.OrderService.model.OutboxEvent;
+import com.example.venteEnLigne.OrderService.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Publie les événements de l'outbox par lots, dans l'ordre d'écriture. Un lot est
+ * marqué publié après l'envoi : un arrêt entre les deux le republie, les
+ * consommateurs ignorent les doublons (livraison au moins une fois).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final EventBroker eventBroker;
+    private final EventsProperties eventsProperties;
+
+    /**
+     * Publier le prochain lot d'événements en attente
+     *
+     * @return nombre d'événements publiés
+     */
+    @Scheduled(fixedDelayString = "${events.relay-interval-ms:500}")
+    public int publishBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.findUnpublishedForUpdate(
+            PageRequest.of(0, eventsProperties.getBatchSize()));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            eventBroker.publish(eventsProperties.getPublishStream(), batch.stream().map(this::toEvent).toList());
+        } catch (DataAccessException e) {
+            log.warn("Publication de {} événements impossible, nouvel essai au prochain passage: {}",
+                batch.size(), e.getMessage());
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        batch.forEach(event -> event.setPublishedAt(now));
+        log.debug("{} événements publiés sur {}", batch.size(), eventsProperties.getPublishStream());
+        return batch.size();
+    }
+
+    /**
+     * Supprimer les événements publiés depuis plus de events.outbox-retention-hours
+     */
+    @Scheduled(fixedDelay = 3_600_000, initialDelay = 3_600_000)
+    public void purge() {
+        int supprimes = outboxEventRepository.deletePublishedBefore(
+            LocalDateTime.now().minusHours(eventsProperties.getOutboxRetentionHours()));
+        if (supprimes > 0) {
+            log.info("{} événements publiés supprimés de l'outbox", supprimes);
+        }
+    }
+
+    private DomainEventDTO toEvent(OutboxEvent event) {
+        return DomainEventDTO.builder()
+            .id(event.getId())
+            .type(event.getEventType())
+            .aggregateType(event.getAggregateType())
+            .aggregateId(event.getAggregateId())
+            .payload(event.getPayload())
+            .occurredAt(event.getCreatedAt())
+            .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import com.example.venteEnLigne.OrderService.model.Order;
+import com.example.venteEnLigne.OrderService.model.OutboxEvent;
+import com.example.venteEnLigne.OrderService.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Événements publiés par les commandes, écrits dans l'outbox au sein de la transaction
+ * de la modification : ils partent (OutboxRelay) si et seulement si elle est validée
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    public static final String AGGREGATE_ORDER = "Order";
+    public static final String COMMANDE_CREEE = "COMMANDE_CREEE";
+    public static final String COMMANDE_ANNULEE = "COMMANDE_ANNULEE";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Annoncer une commande créée (identifiant déjà attribué)
+     */
+    public void orderCreated(Order order) {
+        record(order, COMMANDE_CREEE);
+    }
+
+    /**
+     * Annoncer une commande annulée : les paiements en attente sont abandonnés
+     */
+    public void orderCancelled(Order order) {
+        record(order, COMMANDE_ANNULEE);
+    }
+
+    private void record(Order order, String eventType) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("userId", order.getUserId());
+        payload.put("montantTotal", order.getMontantTotal());
+        payload.put("currency", order.getCurrency());
+        payload.put("orderStatus", order.getOrderStatus());
+        payload.put("paiementStatus", order.getPaiementStatus());
+
+        outboxEventRepository.save(OutboxEvent.builder()
+            .aggregateType(AGGREGATE_ORDER)
+            .aggregateId(order.getId())
+            .eventType(eventType)
+            .payload(toJson(payload))
+            .createdAt(LocalDateTime.now())
+            .build());
+    }
+
+    private String toJson(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Événement non sérialisable", e);
+        }
+    }
+}
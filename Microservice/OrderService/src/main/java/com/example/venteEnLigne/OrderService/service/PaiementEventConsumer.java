@@ -0,0 +1,140 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import com.example.venteEnLigne.OrderService.config.EventsProperties;
+import com.example.venteEnLigne.OrderService.dto.DomainEventDTO;
+import com.example.venteEnLigne.OrderService.model.PaiementStatus;
+import com.example.venteEnLigne.OrderService.repository.ProcessedEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reporte sur les commandes le résultat des paiements publiés par le service paiement :
+ * le statut de paiement d'une commande suit sans appel du client à PATCH /status.
+ * Chaque événement est appliqué dans sa propre transaction puis acquitté.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaiementEventConsumer {
+
+    public static final String PAIEMENT_CONFIRME = "PAIEMENT_CONFIRME";
+    public static final String PAIEMENT_ECHOUE = "PAIEMENT_ECHOUE";
+
+    private final EventBroker eventBroker;
+    private final OrderService orderService;
+    private final ProcessedEventRepository processedEventRepository;
+    private final EventsProperties eventsProperties;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Traiter les prochains événements du flux paiement
+     */
+    @Scheduled(fixedDelayString = "${events.poll-interval-ms:1000}")
+    public void poll() {
+        String stream = eventsProperties.getSubscribeStream();
+        String group = eventsProperties.getConsumerGroup();
+        List<EventBroker.Delivery> deliveries;
+        try {
+            deliveries = eventBroker.poll(stream, group, eventsProperties.getConsumerName(),
+                eventsProperties.getBatchSize());
+        } catch (DataAccessException e) {
+            log.warn("Lecture du flux {} impossible: {}", stream, e.getMessage());
+            return;
+        }
+
+        List<String> traites = new ArrayList<>(deliveries.size());
+        for (EventBroker.Delivery delivery : deliveries) {
+            try {
+                handle(delivery.event());
+            } catch (IllegalArgumentException e) {
+                // Message illisible : le relivrer n'y changerait rien
+                log.warn("Événement {} ignoré: {}", delivery.event().getId(), e.getMessage());
+            } catch (DataIntegrityViolationException e) {
+                // Événement déjà enregistré par une autre livraison : rien n'a été appliqué
+                if (!processedEventRepository.existsById(delivery.event().getId())) {
+                    if (!ecarter(stream, group, delivery, e)) {
+                        break;
+                    }
+                    continue;
+                }
+                log.debug("Événement {} déjà traité", delivery.event().getId());
+            } catch (RuntimeException e) {
+                if (!ecarter(stream, group, delivery, e)) {
+                    break;
+                }
+                continue;
+            }
+            traites.add(delivery.deliveryId());
+        }
+        if (!traites.isEmpty()) {
+            eventBroker.ack(stream, group, traites);
+        }
+    }
+
+    // Échec : après events.max-deliveries livraisons le message est écarté vers le flux
+    // des messages en échec, sinon les suivants restent en attente et seront relivrés
+    // dans l'ordre
+    private boolean ecarter(String stream, String group, EventBroker.Delivery delivery, RuntimeException e) {
+        String eventId = delivery.event().getId();
+        if (delivery.deliveryCount() < eventsProperties.getMaxDeliveries()) {
+            log.error("Traitement de l'événement {} impossible (livraison {}), nouvel essai au prochain passage",
+            eventId, delivery.deliveryCount(), e);
+            return false;
+        }
+        log.error("Événement {} en échec après {} livraisons, déplacé vers {}",
+            eventId, delivery.deliveryCount(), eventsProperties.getDeadLetterStream(), e);
+        try {
+            eventBroker.deadLetter(stream, group, delivery, eventsProperties.getDeadLetterStream());
+            return true;
+        } catch (DataAccessException ex) {
+            log.warn("Événement {} non déplacé vers {}: {}", eventId, eventsProperties.getDeadLetterStream(),
+            ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Oublier les événements traités depuis plus de events.processed-retention-days
+     */
+    @Scheduled(fixedDelay = 3_600_000, initialDelay = 3_600_000)
+    @Transactional
+    public void purge() {
+        processedEventRepository.deleteProcessedBefore(
+            LocalDateTime.now().minusDays(eventsProperties.getProcessedRetentionDays()));
+    }
+
+    private void handle(DomainEventDTO event) {
+        PaiementStatus paiementStatus = switch (Objects.requireNonNullElse(event.getType(), "")) {
+            case PAIEMENT_CONFIRME -> PaiementStatus.PAYE;
+            case PAIEMENT_ECHOUE -> PaiementStatus.ECHOUE;
+            default -> null;  // Autres événements du flux paiement
+        };
+        if (paiementStatus != null) {
+            orderService.applyPaiementResult(event.getId(), readOrderId(event), paiementStatus);
+        }
+    }
+
+    private String readOrderId(DomainEventDTO event) {
+        try {
+            String orderId = objectMapper.readTree(event.getPayload()).path("orderId").asText(null);
+            if (orderId == null) {
+                throw new IllegalArgumentException("orderId absent de l'événement " + event.getType());
+            }
+            return orderId;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Contenu JSON invalide: " + e.getOriginalMessage());
+        }
+    }
+}
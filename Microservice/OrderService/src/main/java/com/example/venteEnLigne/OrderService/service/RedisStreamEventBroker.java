@@ -0,0 +1,176 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import com.example.venteEnLigne.OrderService.config.EventsProperties;
+import com.example.venteEnLigne.OrderService.dto.DomainEventDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redis Streams (le Redis du cluster) : XADD par lot en pipeline, lecture par
+ * XREADGROUP, acquittement par XACK. Les messages en attente chez un consommateur
+ * inactif depuis events.claim-min-idle-ms sont repris par XCLAIM. Les flux sont rognés
+ * à events.max-stream-length.
+ */
+@Component
+@ConditionalOnProperty(name = "events.broker", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class RedisStreamEventBroker implements EventBroker {
+
+    private final StringRedisTemplate redisTemplate;
+    private final EventsProperties eventsProperties;
+
+    private final Set<String> groups = ConcurrentHashMap.newKeySet();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void publish(String stream, List<DomainEventDTO> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        // Un aller-retour pour tout le lot
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redis = (RedisOperations<String, String>) operations;
+                for (DomainEventDTO event : events) {
+                    redis.opsForStream().add(StreamRecords.string(toFields(event)).withStreamKey(stream));
+                }
+                redis.opsForStream().trim(stream, eventsProperties.getMaxStreamLength(), true);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public List<Delivery> poll(String stream, String group, String consumer, int max) {
+        ensureGroup(stream, group);
+        StreamOperations<String, Object, Object> streams = redisTemplate.opsForStream();
+        Duration minIdle = Duration.ofMillis(eventsProperties.getClaimMinIdleMs());
+
+        // XPENDING : livraisons déjà faites de chaque message en attente (ceux de ce
+        // consommateur, puis les plus anciens du groupe) et messages laissés par un
+        // consommateur disparu (redémarrage, nouveau nom d'hôte)
+        Map<String, Long> deliveryCounts = new HashMap<>();
+        for (PendingMessage message : streams.pending(stream, Consumer.from(group, consumer), Range.unbounded(), max)) {
+            deliveryCounts.put(message.getIdAsString(), message.getTotalDeliveryCount());
+        }
+        List<RecordId> abandoned = new ArrayList<>();
+        for (PendingMessage message : streams.pending(stream, group, Range.unbounded(), max)) {
+            deliveryCounts.put(message.getIdAsString(), message.getTotalDeliveryCount());
+            if (!consumer.equals(message.getConsumerName())
+                && message.getElapsedTimeSinceLastDelivery().compareTo(minIdle) >= 0) {
+                abandoned.add(message.getId());
+            }
+        }
+
+        List<MapRecord<String, Object, Object>> records = new ArrayList<>();
+        if (!abandoned.isEmpty()) {
+            // XCLAIM revérifie l'inactivité : un message repris entre-temps n'est pas volé
+            records.addAll(orEmpty(streams.claim(stream, group, consumer, minIdle, abandoned.toArray(RecordId[]::new))));
+        }
+        // Messages reçus avant un arrêt et jamais acquittés, puis les nouveaux
+        if (records.size() < max) {
+            records.addAll(orEmpty(streams.read(Consumer.from(group, consumer),
+                StreamReadOptions.empty().count(max - records.size()), StreamOffset.create(stream, ReadOffset.from("0")))));
+        }
+        if (records.isEmpty()) {
+            records.addAll(orEmpty(streams.read(Consumer.from(group, consumer),
+                StreamReadOptions.empty().count(max), StreamOffset.create(stream, ReadOffset.lastConsumed()))));
+        }
+
+        List<Delivery> deliveries = new ArrayList<>(records.size());
+        for (MapRecord<String, Object, Object> record : records) {
+            String id = record.getId().getValue();
+            deliveries.add(new Delivery(id, toEvent(record.getValue()), deliveryCounts.getOrDefault(id, 0L) + 1));
+        }
+        return deliveries;
+    }
+
+    @Override
+    public void ack(String stream, String group, List<String> deliveryIds) {
+        if (!deliveryIds.isEmpty()) {
+            redisTemplate.opsForStream().acknowledge(stream, group, deliveryIds.toArray(String[]::new));
+        }
+    }
+
+    @Override
+    public void deadLetter(String stream, String group, Delivery delivery, String deadLetterStream) {
+        Map<String, String> fields = toFields(delivery.event());
+        fields.put("sourceStream", stream);
+        fields.put("deliveryId", delivery.deliveryId());
+        fields.put("deliveryCount", String.valueOf(delivery.deliveryCount()));
+        // Copie d'abord : acquitté seulement une fois le message conservé
+        redisTemplate.opsForStream().add(StreamRecords.string(fields).withStreamKey(deadLetterStream));
+        ack(stream, group, List.of(delivery.deliveryId()));
+    }
+
+    private static List<MapRecord<String, Object, Object>> orEmpty(List<MapRecord<String, Object, Object>> records) {
+        return records == null ? List.of() : records;
+    }
+
+    // Groupe créé au début du flux (et le flux avec lui) : rien de publié avant le premier démarrage n'est perdu
+    private void ensureGroup(String stream, String group) {
+        if (groups.contains(stream + "|" + group)) {
+            return;
+        }
+        try {
+            redisTemplate.opsForStream().createGroup(stream, ReadOffset.from("0"), group);
+        } catch (DataAccessException e) {
+            String message = e.getMostSpecificCause().getMessage();
+            if (message == null || !message.contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+        groups.add(stream + "|" + group);
+        log.info("Groupe {} prêt sur le flux {}", group, stream);
+    }
+
+    private static Map<String, String> toFields(DomainEventDTO event) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("id", event.getId());
+        fields.put("type", event.getType());
+        fields.put("aggregateType", event.getAggregateType());
+        fields.put("aggregateId", event.getAggregateId());
+        fields.put("payload", event.getPayload());
+        fields.put("occurredAt", event.getOccurredAt().toString());
+        return fields;
+    }
+
+    private static DomainEventDTO toEvent(Map<Object, Object> fields) {
+        Object occurredAt = fields.get("occurredAt");
+        return DomainEventDTO.builder()
+            .id((String) fields.get("id"))
+            .type((String) fields.get("type"))
+            .aggregateType((String) fields.get("aggregateType"))
+            .aggregateId((String) fields.get("aggregateId"))
+            .payload((String) fields.get("payload"))
+            .occurredAt(occurredAt != null ? LocalDateTime.parse((String) occurredAt) : null)
+            .build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import com.example.venteEnLigne.OrderService.config.CurrencyProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Taux fixés en configuration (currency.static-rates)
+ */
+@Component
+@ConditionalOnProperty(name = "currency.provider", havingValue = "static", matchIfMissing = true)
+@RequiredArgsConstructor
+public class StaticExchangeRateProvider implements ExchangeRateProvider {
+
+    private final CurrencyProperties currencyProperties;
+
+    @Override
+    public Map<String, BigDecimal> fetchRates() {
+        return Map.copyOf(currencyProperties.getStaticRates());
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import com.example.venteEnLigne.OrderService.config.AppConfig;
+import com.example.venteEnLigne.OrderService.config.EventsProperties;
+import com.example.venteEnLigne.OrderService.dto.AdresseLivraisonDTO;
+import com.example.venteEnLigne.OrderService.dto.CreateOrderDTO;
+import com.example.venteEnLigne.OrderService.dto.DomainEventDTO;
+import com.example.venteEnLigne.OrderService.dto.OrderItemDTO;
+import com.example.venteEnLigne.OrderService.dto.OrderResponseDTO;
+import com.example.venteEnLigne.OrderService.model.OrderStatsKey;
+import com.example.venteEnLigne.OrderService.model.OrderStatus;
+import com.example.venteEnLigne.OrderService.model.OutboxEvent;
+import com.example.venteEnLigne.OrderService.model.PaiementStatus;
+import com.example.venteEnLigne.OrderService.repository.OrderRepository;
+import com.example.venteEnLigne.OrderService.repository.OrderStatsRepository;
+import com.example.venteEnLigne.OrderService.repository.OutboxEventRepository;
+import com.example.venteEnLigne.OrderService.repository.ProcessedEventRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Outbox des commandes publiée par le relais, résultats des paiements appliqués une
+ * seule fois, sur le broker en mémoire
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "events.broker=memory"
+})
+@Import({OrderService.class, OrderStatsService.class, OutboxService.class, OutboxRelay.class,
+        PaiementEventConsumer.class, InMemoryEventBroker.class, EventsProperties.class, AppConfig.class})
+class OrderEventsTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private PaiementEventConsumer paiementEventConsumer;
+
+    @Autowired
+    private InMemoryEventBroker eventBroker;
+
+    @Autowired
+    private EventsProperties eventsProperties;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderStatsRepository orderStatsRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ProcessedEventRepository processedEventRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private CurrencyConverter currencyConverter;
+
+    @Test
+    void publishBatch_PublishesOutboxInOrderOnce() {
+        OrderResponseDTO order = orderService.createOrder(order("40.00"));
+        orderService.cancelOrder(order.getId());
+        orderService.cancelOrder(order.getId()); // Déjà annulée : pas de second événement
+        entityManager.flush();
+
+        List<OutboxEvent> outbox = outboxEventRepository.findAll();
+        assertEquals(2, outbox.size());
+        assertTrue(outbox.stream().allMatch(event -> event.getPublishedAt() == null));
+
+        assertEquals(2, outboxRelay.publishBatch());
+        assertEquals(0, outboxRelay.publishBatch());
+
+        List<DomainEventDTO> published = eventBroker.published(eventsProperties.getPublishStream());
+        assertEquals(List.of(OutboxService.COMMANDE_CREEE, OutboxService.COMMANDE_ANNULEE),
+            published.stream().map(DomainEventDTO::getType).toList());
+        published.forEach(event -> {
+            assertEquals(order.getId(), event.getAggregateId());
+            assertTrue(event.getPayload().contains(order.getId()));
+        });
+        assertTrue(outboxEventRepository.findAll().stream().allMatch(event -> event.getPublishedAt() != null));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void poll_AppliesPaiementConfirmeOnceWhenDeliveredTwice() {
+        // Hors transaction de test : chaque livraison valide ou annule sa propre transaction
+        try {
+            OrderResponseDTO order = orderService.createOrder(order("40.00"));
+            DomainEventDTO confirme = paiementEvent(PaiementEventConsumer.PAIEMENT_CONFIRME, order.getId());
+            eventBroker.publish(eventsProperties.getSubscribeStream(), List.of(confirme, confirme));
+
+            paiementEventConsumer.poll();
+
+            assertEquals(PaiementStatus.PAYE, orderRepository.findById(order.getId()).orElseThrow().getPaiementStatus());
+            assertEquals(1, processedEventRepository.count());
+            // Commande déplacée une seule fois d'un compteur à l'autre
+            assertEquals(0, counter(PaiementStatus.EN_ATTENTE));
+            assertEquals(1, counter(PaiementStatus.PAYE));
+            // Les deux livraisons sont acquittées, la seconde comme déjà traitée
+            assertTrue(eventBroker.poll(eventsProperties.getSubscribeStream(), eventsProperties.getConsumerGroup(),
+                eventsProperties.getConsumerName(), 10).isEmpty());
+        } finally {
+            orderRepository.deleteAll();
+            orderStatsRepository.deleteAll();
+            outboxEventRepository.deleteAll();
+            processedEventRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void poll_KeepsPayeWhenLaterAttemptFails() {
+        OrderResponseDTO order = orderService.createOrder(order("40.00"));
+        eventBroker.publish(eventsProperties.getSubscribeStream(), List.of(
+            paiementEvent(PaiementEventConsumer.PAIEMENT_CONFIRME, order.getId()),
+            paiementEvent(PaiementEventConsumer.PAIEMENT_ECHOUE, order.getId()),
+            paiementEvent(PaiementEventConsumer.PAIEMENT_ECHOUE, "commande-inconnue")));
+
+        paiementEventConsumer.poll();
+
+        assertEquals(PaiementStatus.PAYE, orderRepository.findById(order.getId()).orElseThrow().getPaiementStatus());
+        assertEquals(OrderStatus.EN_ATTENTE, orderRepository.findById(order.getId()).orElseThrow().getOrderStatus());
+        assertEquals(3, processedEventRepository.count());
+    }
+
+    private long counter(PaiementStatus paiementStatus) {
+        return orderStatsRepository.findById(new OrderStatsKey(OrderStatus.EN_ATTENTE, paiementStatus, "USD"))
+            .map(counter -> counter.getOrderCount())
+            .orElse(0L);
+    }
+
+    private static DomainEventDTO paiementEvent(String type, String orderId) {
+        return DomainEventDTO.builder()
+            .id(UUID.randomUUID().toString())
+            .type(type)
+            .aggregateType("Paiement")
+            .aggregateId(UUID.randomUUID().toString())
+            .payload("{\"orderId\":\"" + orderId + "\"}")
+            .occurredAt(LocalDateTime.now())
+            .build();
+    }
+
+    private static CreateOrderDTO order(String prix) {
+        return CreateOrderDTO.builder()
+            .userId("user-1")
+            .adresseLivraison(AdresseLivraisonDTO.builder().pays("RDC").ville("Kinshasa").build())
+            .items(List.of(OrderItemDTO.builder()
+                .produitId("produit-1")
+                .produitTitre("Produit 1")
+                .prixUnitaire(new BigDecimal(prix))
+                .quantite(1)
+                .build()))
+            .build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import com.example.venteEnLigne.OrderService.config.AppConfig;
+import com.example.venteEnLigne.OrderService.dto.CursorPageDTO;
+import com.example.venteEnLigne.OrderService.dto.OrderResponseDTO;
+import com.example.venteEnLigne.OrderService.dto.OrderSummaryDTO;
+import com.example.venteEnLigne.OrderService.model.AdresseLivraison;
+import com.example.venteEnLigne.OrderService.model.Order;
+import com.example.venteEnLigne.OrderService.model.OrderItem;
+import com.example.venteEnLigne.OrderService.model.OrderStatus;
+import com.example.venteEnLigne.OrderService.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.cloud.config.enabled=false")
+@Import({OrderService.class, OrderStatsService.class, OutboxService.class, AppConfig.class})
+class OrderHistoryTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private CurrencyConverter currencyConverter;
+
+    @Test
+    void getOrderHistory_WalksAllPagesNewestFirst() {
+        List<Order> orders = createOrders("user-1", 7, OrderStatus.EN_ATTENTE);
+        createOrders("user-2", 3, OrderStatus.EN_ATTENTE);
+
+        List<String> ids = new ArrayList<>();
+        String after = null;
+        int pages = 0;
+        do {
+            CursorPageDTO<OrderResponseDTO> page = orderService.getOrderHistory("user-1", after, 3, null);
+            page.getContent().forEach(order -> {
+                assertEquals(2, order.getItems().size());
+                assertNotNull(order.getAdresseLivraison());
+                ids.add(order.getId());
+            });
+            after = page.getNextCursor();
+            assertEquals(page.isHasNext(), after != null);
+            pages++;
+        } while (after != null);
+
+        List<String> expected = orders.stream()
+            .sorted(Comparator.comparing(Order::getCreatedAt).thenComparing(Order::getId).reversed())
+            .map(Order::getId)
+            .toList();
+        assertEquals(3, pages);
+        assertEquals(expected, ids);
+    }
+
+    @Test
+    void getOrderHistorySummary_FiltersOnStatusAndCountsItems() {
+        createOrders("user-1", 2, OrderStatus.EN_ATTENTE);
+        createOrders("user-1", 3, OrderStatus.LIVRE);
+
+        CursorPageDTO<OrderSummaryDTO> page = orderService.getOrderHistorySummary("user-1", null, 10, OrderStatus.LIVRE);
+
+        assertEquals(3, page.getContent().size());
+        assertFalse(page.isHasNext());
+        page.getContent().forEach(order -> {
+            assertEquals(OrderStatus.LIVRE, order.getOrderStatus());
+            assertEquals(2, order.getNombreArticles());
+        });
+    }
+
+    @Test
+    void getOrderHistory_RejectsInvalidCursor() {
+        assertThrows(IllegalArgumentException.class,
+            () -> orderService.getOrderHistory("user-1", "pas-un-curseur", 10, null));
+    }
+
+    private List<Order> createOrders(String userId, int count, OrderStatus status) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Order order = Order.builder()
+                .userId(userId)
+                .orderStatus(status)
+                .montantTotal(BigDecimal.ZERO)
+                .adresseLivraison(AdresseLivraison.builder().pays("RDC").ville("Kinshasa").build())
+                .build();
+            for (int j = 0; j < 2; j++) {
+                order.addItem(OrderItem.builder()
+                    .produitId("produit-" + j)
+                    .produitTitre("Produit " + j)
+                    .quantite(1)
+                    .prixUnitaire(new BigDecimal("5.00"))
+                    .sousTotal(new BigDecimal("5.00"))
+                    .build());
+            }
+            orders.add(orderRepository.save(order));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return orders;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import com.example.venteEnLigne.OrderService.dto.AdresseLivraisonDTO;
+import com.example.venteEnLigne.OrderService.dto.BulkCreateOrdersResponseDTO;
+import com.example.venteEnLigne.OrderService.dto.CreateOrderDTO;
+import com.example.venteEnLigne.OrderService.dto.OrderItemDTO;
+import com.example.venteEnLigne.OrderService.model.Order;
+import com.example.venteEnLigne.OrderService.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Débit de création de commandes (commandes/s) selon le nombre de lignes, une par
+ * une (POST /api/orders) et en masse (POST /api/orders/bulk). Nécessite un PostgreSQL
+ * réel : exécuté seulement si ORDER_BENCHMARK=true (avec SPRING_DATASOURCE_URL, dont
+ * reWriteBatchedInserts=true).
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "ORDER_BENCHMARK", matches = "true")
+class OrderInsertBenchmarkTest {
+
+    private static final int[] LIGNES = {1, 10, 50};
+    private static final int LIGNES_PAR_MESURE = 20_000; // Même volume de lignes pour chaque taille
+    private static final int IMPORT = 500;               // Commandes par appel en masse
+
+    private final String userId = "bench-" + UUID.randomUUID();
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderStatsService orderStatsService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @AfterEach
+    void tearDown() {
+        // Les lignes suivent par ON DELETE CASCADE ; les compteurs sont recalculés ensuite
+        List<String> ids = orderRepository.findByUserId(userId).stream().map(Order::getId).toList();
+        for (int i = 0; i < ids.size(); i += 1000) {
+            orderRepository.deleteAllByIdInBatch(ids.subList(i, Math.min(i + 1000, ids.size())));
+        }
+        orderStatsService.reconcile();
+    }
+
+    @Test
+    void createOrder_ThroughputByLineCount() {
+        // Préchauffage : JIT, pool de connexions, plans des requêtes
+        for (int i = 0; i < 50; i++) {
+            orderService.createOrder(order(10));
+        }
+        orderService.createOrders(orders(10, 100));
+
+        System.out.println("Lignes | une par une (commandes/s) | en masse (commandes/s)");
+        for (int lignes : LIGNES) {
+            int commandes = LIGNES_PAR_MESURE / lignes;
+
+            List<CreateOrderDTO> uneParUne = orders(lignes, commandes);
+            long debut = System.nanoTime();
+            uneParUne.forEach(orderService::createOrder);
+            double unitaire = commandes / ((System.nanoTime() - debut) / 1e9);
+
+            List<CreateOrderDTO> enMasse = orders(lignes, commandes);
+            int creees = 0;
+            debut = System.nanoTime();
+            for (int i = 0; i < enMasse.size(); i += IMPORT) {
+                BulkCreateOrdersResponseDTO response =
+                    orderService.createOrders(enMasse.subList(i, Math.min(i + IMPORT, enMasse.size())));
+                creees += response.getCreated();
+            }
+            double masse = commandes / ((System.nanoTime() - debut) / 1e9);
+
+            System.out.printf("%6d | %25.0f | %22.0f%n", lignes, unitaire, masse);
+            assertEquals(commandes, creees);
+        }
+    }
+
+    private List<CreateOrderDTO> orders(int lignes, int count) {
+        List<CreateOrderDTO> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(order(lignes));
+        }
+        return orders;
+    }
+
+    private CreateOrderDTO order(int lignes) {
+        List<OrderItemDTO> items = new ArrayList<>(lignes);
+        for (int i = 0; i < lignes; i++) {
+            items.add(OrderItemDTO.builder()
+                .produitId("produit-" + i)
+                .produitTitre("Produit " + i)
+                .prixUnitaire(new BigDecimal("12.50"))
+                .quantite(1 + i % 3)
+                .build());
+        }
+        return CreateOrderDTO.builder()
+            .userId(userId)
+            .adresseLivraison(AdresseLivraisonDTO.builder().pays("RDC").ville("Kinshasa").build())
+            .items(items)
+            .build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import com.example.venteEnLigne.OrderService.config.AppConfig;
+import com.example.venteEnLigne.OrderService.dto.OrderResponseDTO;
+import com.example.venteEnLigne.OrderService.model.AdresseLivraison;
+import com.example.venteEnLigne.OrderService.model.Order;
+import com.example.venteEnLigne.OrderService.model.OrderItem;
+import com.example.venteEnLigne.OrderService.model.OrderStatus;
+import com.example.venteEnLigne.OrderService.model.PaiementStatus;
+import com.example.venteEnLigne.OrderService.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Les listes de commandes doivent coûter le même nombre de requêtes quel que soit
+ * le nombre de commandes renvoyées (pas de N+1 sur les lignes).
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({OrderService.class, OrderStatsService.class, OutboxService.class, AppConfig.class})
+class OrderServiceQueryCountTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private CurrencyConverter currencyConverter;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void getAllOrders_ConstantQueryCount() {
+        assertConstantQueryCount(() -> orderService.getAllOrders(), "user-1");
+    }
+
+    @Test
+    void getOrdersByUserId_ConstantQueryCount() {
+        assertConstantQueryCount(() -> orderService.getOrdersByUserId("user-1"), "user-1");
+    }
+
+    @Test
+    void getOrdersByStatus_ConstantQueryCount() {
+        assertConstantQueryCount(() -> orderService.getOrdersByStatus(OrderStatus.EN_ATTENTE), "user-1");
+    }
+
+    @Test
+    void getOrdersByPaiementStatus_ConstantQueryCount() {
+        assertConstantQueryCount(() -> orderService.getOrdersByPaiementStatus(PaiementStatus.EN_ATTENTE), "user-1");
+    }
+
+    private void assertConstantQueryCount(Supplier<List<OrderResponseDTO>> lecture, String userId) {
+        createOrders(userId, 1);
+        long requetesUneCommande = countQueries(lecture, 1);
+
+        createOrders(userId, 24);
+        long requetesVingtCinqCommandes = countQueries(lecture, 25);
+
+        assertEquals(1, requetesUneCommande);
+        assertEquals(requetesUneCommande, requetesVingtCinqCommandes);
+    }
+
+    private long countQueries(Supplier<List<OrderResponseDTO>> lecture, int commandesAttendues) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<OrderResponseDTO> orders = lecture.get();
+
+        assertEquals(commandesAttendues, orders.size());
+        // Chaque commande garde ses lignes, sans doublon dû à la jointure
+        orders.forEach(order -> assertEquals(3, order.getItems().size()));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createOrders(String userId, int count) {
+        for (int i = 0; i < count; i++) {
+            Order order = Order.builder()
+                .userId(userId)
+                .montantTotal(BigDecimal.ZERO)
+                .adresseLivraison(AdresseLivraison.builder()
+                    .pays("RDC")
+                    .ville("Kinshasa")
+                    .commune("Gombe")
+                    .build())
+                .build();
+            for (int j = 0; j < 3; j++) {
+                order.addItem(OrderItem.builder()
+                    .produitId("produit-" + j)
+                    .produitTitre("Produit " + j)
+                    .quantite(j + 1)
+                    .prixUnitaire(new BigDecimal("10.00"))
+                    .sousTotal(new BigDecimal("10.00").multiply(BigDecimal.valueOf(j + 1)))
+                    .build());
+            }
+            orderRepository.save(order);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import com.example.venteEnLigne.OrderService.config.AppConfig;
+import com.example.venteEnLigne.OrderService.dto.AdresseLivraisonDTO;
+import com.example.venteEnLigne.OrderService.dto.CreateOrderDTO;
+import com.example.venteEnLigne.OrderService.dto.OrderItemDTO;
+import com.example.venteEnLigne.OrderService.dto.OrderResponseDTO;
+import com.example.venteEnLigne.OrderService.dto.OrderStatsDTO;
+import com.example.venteEnLigne.OrderService.dto.UpdateOrderStatusDTO;
+import com.example.venteEnLigne.OrderService.model.Order;
+import com.example.venteEnLigne.OrderService.model.OrderStatsCounter;
+import com.example.venteEnLigne.OrderService.model.OrderStatsKey;
+import com.example.venteEnLigne.OrderService.model.OrderStatus;
+import com.example.venteEnLigne.OrderService.model.PaiementStatus;
+import com.example.venteEnLigne.OrderService.repository.OrderStatsRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = "spring.cloud.config.enabled=false")
+@Import({OrderService.class, OrderStatsService.class, OutboxService.class, AppConfig.class})
+class OrderStatsServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderStatsService orderStatsService;
+
+    @Autowired
+    private OrderStatsRepository orderStatsRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private CurrencyConverter currencyConverter;
+
+    @BeforeEach
+    void setUp() {
+        // 1 USD = 2800 CDF
+        when(currencyConverter.baseCurrency()).thenReturn("USD");
+        when(currencyConverter.requireSupported(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(currencyConverter.convert(any(), anyString(), anyString())).thenAnswer(invocation -> {
+            BigDecimal amount = invocation.getArgument(0);
+            return "CDF".equals(invocation.getArgument(1)) && "USD".equals(invocation.getArgument(2))
+                ? amount.divide(new BigDecimal("2800"), 2, RoundingMode.HALF_UP)
+                : amount;
+        });
+    }
+
+    @Test
+    void getOrderStats_FollowsCreateUpdateCancelAndDelete() {
+        OrderResponseDTO payee = orderService.createOrder(order("USD", "40.00"));
+        OrderResponseDTO livree = orderService.createOrder(order("CDF", "28000.00"));
+        OrderResponseDTO annulee = orderService.createOrder(order("USD", "15.00"));
+        OrderResponseDTO supprimee = orderService.createOrder(order("USD", "99.00"));
+
+        orderService.updateOrderStatus(payee.getId(), new UpdateOrderStatusDTO(OrderStatus.EN_COURS, PaiementStatus.PAYE));
+        orderService.updateOrderStatus(livree.getId(), new UpdateOrderStatusDTO(OrderStatus.LIVRE, PaiementStatus.PAYE));
+        orderService.cancelOrder(annulee.getId());
+        orderService.deleteOrder(supprimee.getId());
+
+        OrderStatsDTO stats = readStats();
+        assertEquals(3, stats.getTotalOrders());
+        assertEquals(0, stats.getEnAttente());
+        assertEquals(1, stats.getEnCours());
+        assertEquals(1, stats.getLivre());
+        assertEquals(1, stats.getAnnule());
+        // 40 USD + 28 000 CDF (10 USD)
+        assertEquals(0, new BigDecimal("50.00").compareTo(stats.getRevenus()));
+        assertEquals("USD", stats.getCurrency());
+    }
+
+    @Test
+    void reconcile_RepairsDriftedCounters() {
+        orderService.createOrder(order("USD", "20.00"));
+        orderService.createOrder(order("USD", "30.00"));
+        entityManager.flush();
+
+        // Dérive : compteur faussé et compteur fantôme
+        OrderStatsKey enAttente = new OrderStatsKey(OrderStatus.EN_ATTENTE, PaiementStatus.EN_ATTENTE, "USD");
+        OrderStatsCounter counter = orderStatsRepository.findById(enAttente).orElseThrow();
+        counter.setOrderCount(7);
+        orderStatsRepository.save(new OrderStatsCounter(
+            new OrderStatsKey(OrderStatus.LIVRE, PaiementStatus.PAYE, "CDF"), 3, new BigDecimal("100.00")));
+        entityManager.flush();
+        entityManager.clear();
+
+        orderStatsService.reconcile();
+
+        OrderStatsDTO stats = readStats();
+        assertEquals(2, stats.getTotalOrders());
+        assertEquals(2, stats.getEnAttente());
+        assertEquals(0, stats.getLivre());
+        assertEquals(0, BigDecimal.ZERO.compareTo(stats.getRevenus()));
+        OrderStatsCounter repare = orderStatsRepository.findById(enAttente).orElseThrow();
+        assertEquals(0, new BigDecimal("50.00").compareTo(repare.getMontantTotal()));
+    }
+
+    @Test
+    void getOrderStats_DateRangeCountsOnlyOrdersCreatedInside() {
+        orderService.createOrder(order("USD", "20.00"));
+        entityManager.flush();
+        LocalDateTime now = LocalDateTime.now();
+
+        OrderStatsDTO inside = orderService.getOrderStats(now.minusHours(1), now.plusHours(1));
+        OrderStatsDTO before = orderService.getOrderStats(null, now.minusHours(1));
+
+        assertEquals(1, inside.getTotalOrders());
+        assertEquals(now.minusHours(1), inside.getFrom());
+        assertEquals(0, before.getTotalOrders());
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrderStats(now, now.minusDays(1)));
+    }
+
+    @Test
+    void recordChanged_UpdatesCountersInKeyOrderWhicheverTheDirection() {
+        OrderStatsRepository repository = mock(OrderStatsRepository.class);
+        when(repository.increment(any(), any(), any(), anyLong(), any())).thenReturn(1);
+        OrderStatsService service = new OrderStatsService(null, repository, currencyConverter);
+        Order order = Order.builder()
+            .orderStatus(OrderStatus.EN_ATTENTE).paiementStatus(PaiementStatus.EN_ATTENTE)
+            .currency("USD").montantTotal(new BigDecimal("10.00"))
+            .build();
+
+        // EN_ATTENTE -> LIVRE puis LIVRE -> EN_ATTENTE : EN_ATTENTE verrouillé en premier les deux fois
+        OrderStatsService.Snapshot enAttente = OrderStatsService.Snapshot.of(order);
+        order.setOrderStatus(OrderStatus.LIVRE);
+        service.recordChanged(enAttente, order);
+        OrderStatsService.Snapshot livre = OrderStatsService.Snapshot.of(order);
+        order.setOrderStatus(OrderStatus.EN_ATTENTE);
+        service.recordChanged(livre, order);
+
+        InOrder ordre = inOrder(repository);
+        ordre.verify(repository).increment(OrderStatus.EN_ATTENTE, PaiementStatus.EN_ATTENTE, "USD", -1,
+            new BigDecimal("-10.00"));
+        ordre.verify(repository).increment(OrderStatus.LIVRE, PaiementStatus.EN_ATTENTE, "USD", 1,
+            new BigDecimal("10.00"));
+        ordre.verify(repository).increment(OrderStatus.EN_ATTENTE, PaiementStatus.EN_ATTENTE, "USD", 1,
+            new BigDecimal("10.00"));
+        ordre.verify(repository).increment(OrderStatus.LIVRE, PaiementStatus.EN_ATTENTE, "USD", -1,
+            new BigDecimal("-10.00"));
+    }
+
+    private OrderStatsDTO readStats() {
+        entityManager.flush();
+        entityManager.clear(); // Les compteurs sont modifiés par des UPDATE directs
+        return orderService.getOrderStats(null, null);
+    }
+
+    private static CreateOrderDTO order(String currency, String prix) {
+        return CreateOrderDTO.builder()
+            .userId("user-1")
+            .currency(currency)
+            .adresseLivraison(AdresseLivraisonDTO.builder().pays("RDC").ville("Kinshasa").build())
+            .items(List.of(OrderItemDTO.builder()
+                .produitId("produit-1")
+                .produitTitre("Produit 1")
+                .prixUnitaire(new BigDecimal(prix))
+                .quantite(1)
+                .build()))
+            .build();
+    }
+}
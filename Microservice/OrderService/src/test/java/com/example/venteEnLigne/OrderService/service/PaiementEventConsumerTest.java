@@ -0,0 +1,95 @@
+package com.example.venteEnLigne.OrderService.service;
+
+import com.example.venteEnLigne.OrderService.config.EventsProperties;
+import com.example.venteEnLigne.OrderService.dto.DomainEventDTO;
+import com.example.venteEnLigne.OrderService.model.PaiementStatus;
+import com.example.venteEnLigne.OrderService.repository.ProcessedEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Message en échec : relivré dans l'ordre, puis écarté vers le flux des messages en
+ * échec après events.max-deliveries livraisons
+ */
+@ExtendWith(MockitoExtension.class)
+class PaiementEventConsumerTest {
+
+    @Mock
+    private EventBroker eventBroker;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private ProcessedEventRepository processedEventRepository;
+
+    private EventsProperties eventsProperties;
+    private PaiementEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        eventsProperties = new EventsProperties();
+        consumer = new PaiementEventConsumer(eventBroker, orderService, processedEventRepository, eventsProperties,
+            new ObjectMapper());
+    }
+
+    @Test
+    void poll_DeadLettersMessageFailingAtLastDeliveryAndGoesOn() {
+        EventBroker.Delivery poison = delivery("1-0", "commande-cassee", eventsProperties.getMaxDeliveries());
+        EventBroker.Delivery suivant = delivery("2-0", "commande-1", 1);
+        whenPolled(poison, suivant);
+        doThrow(new IllegalStateException("panne")).when(orderService)
+            .applyPaiementResult(eq(poison.event().getId()), eq("commande-cassee"), any());
+
+        consumer.poll();
+
+        verify(eventBroker).deadLetter(eventsProperties.getSubscribeStream(), eventsProperties.getConsumerGroup(),
+            poison, eventsProperties.getDeadLetterStream());
+        verify(orderService).applyPaiementResult(suivant.event().getId(), "commande-1", PaiementStatus.PAYE);
+        verify(eventBroker).ack(eventsProperties.getSubscribeStream(), eventsProperties.getConsumerGroup(),
+            List.of("2-0"));
+    }
+
+    @Test
+    void poll_KeepsFailingMessagePendingBeforeLastDelivery() {
+        EventBroker.Delivery echec = delivery("1-0", "commande-cassee", eventsProperties.getMaxDeliveries() - 1);
+        EventBroker.Delivery suivant = delivery("2-0", "commande-1", 1);
+        whenPolled(echec, suivant);
+        doThrow(new IllegalStateException("panne")).when(orderService)
+            .applyPaiementResult(eq(echec.event().getId()), eq("commande-cassee"), any());
+
+        consumer.poll();
+
+        // Les suivants attendent : l'ordre du flux est conservé
+        verify(orderService, never()).applyPaiementResult(eq(suivant.event().getId()), any(), any());
+        verify(eventBroker, never()).deadLetter(any(), any(), any(), any());
+        verify(eventBroker, never()).ack(any(), any(), any());
+    }
+
+    private void whenPolled(EventBroker.Delivery... deliveries) {
+        when(eventBroker.poll(eventsProperties.getSubscribeStream(), eventsProperties.getConsumerGroup(),
+            eventsProperties.getConsumerName(), eventsProperties.getBatchSize())).thenReturn(List.of(deliveries));
+    }
+
+    private static EventBroker.Delivery delivery(String deliveryId, String orderId, long deliveryCount) {
+        return new EventBroker.Delivery(deliveryId, DomainEventDTO.builder()
+            .id(UUID.randomUUID().toString())
+            .type(PaiementEventConsumer.PAIEMENT_CONFIRME)
+            .aggregateType("Paiement")
+            .aggregateId(UUID.randomUUID().toString())
+            .payload("{\"orderId\":\"" + orderId + "\"}")
+            .occurredAt(LocalDateTime.now())
+            .build(), deliveryCount);
+    }
+}
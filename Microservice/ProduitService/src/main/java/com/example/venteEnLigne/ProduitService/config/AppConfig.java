@@ -3,6 +3,7 @@ package com.example.venteEnLigne.ProduitService.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -20,4 +21,64 @@ public class AppConfig {
     public ObjectMapper objectMapper() {
         return new ObjectMapper();
     }
+
+    @Bean
+    public ThreadPoolTaskExecutor exportExecutor(ExportProperties exportProperties) {
+        // Pool borné : au-delà de la file, les exports sont refusés plutôt que d'épuiser la mémoire
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(exportProperties.getMaxConcurrentExports());
+        executor.setMaxPoolSize(exportProperties.getMaxConcurrentExports());
+        executor.setQueueCapacity(exportProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("produit-export-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor imageUploadExecutor(ImageUploadProperties imageUploadProperties) {
+        // Envois vers le backend de stockage, hors des threads Tomcat
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(imageUploadProperties.getWorkerThreads());
+        executor.setMaxPoolSize(imageUploadProperties.getWorkerThreads());
+        executor.setQueueCapacity(imageUploadProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("image-upload-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor imageProcessingExecutor(ImageProcessingProperties imageProcessingProperties) {
+        // Décodage et redimensionnement, gourmands en CPU et en mémoire : peu de threads
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(imageProcessingProperties.getThreads());
+        executor.setMaxPoolSize(imageProcessingProperties.getThreads());
+        executor.setQueueCapacity(imageProcessingProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("image-processing-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor importExecutor(ImportProperties importProperties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(importProperties.getMaxConcurrentImports());
+        executor.setMaxPoolSize(importProperties.getMaxConcurrentImports());
+        executor.setQueueCapacity(importProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("produit-import-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor changeFeedExecutor(ChangeFeedProperties changeFeedProperties) {
+        // Un thread par abonné SSE, sans file : au-delà, l'abonnement est refusé (503)
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(changeFeedProperties.getMaxSubscribers());
+        executor.setMaxPoolSize(changeFeedProperties.getMaxSubscribers());
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("produit-changes-sse-");
+        executor.initialize();
+        return executor;
+    }
 }
@@ -0,0 +1,23 @@
+package com.example.venteEnLigne.ProduitService.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "produit.changes")
+@Data
+public class ChangeFeedProperties {
+    private String mode = "auto";             // auto, change-stream ou polling
+    private int bufferSize = 10_000;          // Derniers événements gardés en mémoire
+    private long pollIntervalMs = 1000;       // Mode polling
+    private long pollLagMs = 2000;            // Marge pour les écritures en vol et les horloges décalées
+    private int pollBatchSize = 500;
+    private int defaultLimit = 100;
+    private int maxLimit = 1000;
+    private long defaultTimeoutMs = 25_000;   // Long-poll
+    private long maxTimeoutMs = 60_000;
+    private int maxSubscribers = 32;          // Flux SSE simultanés
+    private long heartbeatMs = 15_000;        // Commentaire SSE envoyé en l'absence d'événement
+    private long tombstoneRetentionHours = 168;
+}
@@ -0,0 +1,21 @@
+package com.example.venteEnLigne.ProduitService.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "currency")
+@Data
+public class CurrencyProperties {
+    private String base = "USD";
+    private String provider = "static";             // static (taux fixés ici) ou http
+    private long refreshIntervalMs = 3_600_000;     // Rafraîchissement de la table des taux
+    private long maxAgeMinutes = 1440;              // Au-delà, la table est signalée comme périmée
+    private Map<String, BigDecimal> staticRates = new HashMap<>(Map.of("CDF", new BigDecimal("2800")));
+    private String httpUrl;                         // GET -> {"rates": {"CDF": 2850.5}}, unités pour 1 base
+}
@@ -0,0 +1,16 @@
+package com.example.venteEnLigne.ProduitService.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "produit.export")
+@Data
+public class ExportProperties {
+    private int defaultBatchSize = 500;   // Documents lus par getMore et écrits par flush
+    private int maxBatchSize = 5000;
+    private long timeoutMs = 600_000;
+    private int maxConcurrentExports = 4; // Threads dédiés aux exports en flux
+    private int queueCapacity = 16;
+}
@@ -0,0 +1,22 @@
+package com.example.venteEnLigne.ProduitService.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "produit.hot")
+@Data
+public class HotProduitsProperties {
+    private boolean enabled = true;
+    private int sketchDepth = 4;              // Probabilité d'erreur e^-depth
+    private int sketchWidth = 8192;           // Erreur au plus e/width du total
+    private int topK = 100;                   // Produits gardés par catégorie
+    private double halfLifeHours = 24;        // Un événement vaut moitié moins après une demi-vie
+    private long publishIntervalMs = 1000;    // Délai de visibilité des classements
+    private long ventesIntervalMs = 30_000;   // Lecture des nouveaux paniers (OrderService)
+    private int batchSize = 500;
+    private long snapshotIntervalMs = 60_000; // Oubli progressif et sauvegarde Redis
+    private String redisKey = "produit:hot:snapshots"; // Hash : une sauvegarde par instance
+    private String instanceId;                // Champ de l'instance dans le hash (défaut : nom d'hôte)
+}
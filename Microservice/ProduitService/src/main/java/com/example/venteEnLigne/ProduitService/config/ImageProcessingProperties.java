@@ -0,0 +1,15 @@
+package com.example.venteEnLigne.ProduitService.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "image.processing")
+@Data
+public class ImageProcessingProperties {
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int queueCapacity = 20;
+    private float jpegQuality = 0.82f;
+    private long maxPixels = 40_000_000L; // Refuse les images plus grandes (bombes de décompression)
+}
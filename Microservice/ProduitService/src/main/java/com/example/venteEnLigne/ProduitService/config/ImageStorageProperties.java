@@ -0,0 +1,14 @@
+package com.example.venteEnLigne.ProduitService.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "image.storage")
+@Data
+public class ImageStorageProperties {
+    private String type = "github";                  // github ou local
+    private String localRootDir = "images-store";    // Racine du backend local
+    private String localBaseUrl = "http://localhost:8082/api/images/files/"; // Servi par ImageFileController
+}
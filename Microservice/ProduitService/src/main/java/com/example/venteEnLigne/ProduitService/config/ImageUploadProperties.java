@@ -0,0 +1,16 @@
+package com.example.venteEnLigne.ProduitService.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "image.upload")
+@Data
+public class ImageUploadProperties {
+    private String spoolDir = System.getProperty("java.io.tmpdir") + "/produit-uploads";
+    private int workerThreads = 4;     // Envois simultanés vers le backend de stockage
+    private int queueCapacity = 50;    // Au-delà, les uploads asynchrones sont refusés (503)
+    private long jobRetentionHours = 24;
+    private int hashIndexLocalSize = 10000; // Empreintes gardées en mémoire devant MongoDB
+}
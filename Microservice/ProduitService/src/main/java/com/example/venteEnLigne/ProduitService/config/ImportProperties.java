@@ -0,0 +1,19 @@
+package com.example.venteEnLigne.ProduitService.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "produit.import")
+@Data
+public class ImportProperties {
+    private String spoolDir = System.getProperty("java.io.tmpdir") + "/produit-imports";
+    private long maxFileSizeBytes = 200L * 1024 * 1024;
+    private int batchSize = 500;            // Lignes validées puis insérées par insertMany
+    private int validationParallelism = 4;  // Threads de validation d'un lot
+    private int maxConcurrentImports = 2;
+    private int queueCapacity = 10;
+    private int maxErrors = 1000;           // Erreurs par ligne conservées sur le job
+    private long jobRetentionHours = 72;
+}
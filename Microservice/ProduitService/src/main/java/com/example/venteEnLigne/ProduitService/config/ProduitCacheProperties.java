@@ -0,0 +1,17 @@
+package com.example.venteEnLigne.ProduitService.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "produit.cache")
+@Data
+public class ProduitCacheProperties {
+    private boolean enabled = true;
+    private long localMaxSize = 10_000;   // Nombre max de produits en mémoire par instance
+    private long localTtlSeconds = 60;    // Borne la durée d'une incohérence si une invalidation est perdue
+    private long redisTtlSeconds = 600;
+    private String keyPrefix = "produit:";
+    private String invalidationChannel = "produits:invalidation";
+}
@@ -0,0 +1,18 @@
+package com.example.venteEnLigne.ProduitService.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "produit.related")
+@Data
+public class RelatedProduitsProperties {
+    private boolean enabled = true;
+    private long refreshIntervalMs = 60_000;
+    private int batchSize = 500;       // Paniers lus par appel à OrderService
+    private int maxBasketSize = 50;    // Au-delà (commandes en gros), le panier est ignoré
+    private int maxNeighbors = 200;    // Voisins comptés par produit, les moins fréquents sont élagués
+    private int topK = 20;             // Voisins publiés par produit
+    private int minCoAchats = 2;       // Paires plus rares ignorées (bruit)
+}
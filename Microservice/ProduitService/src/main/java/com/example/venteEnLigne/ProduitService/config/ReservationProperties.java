@@ -0,0 +1,16 @@
+package com.example.venteEnLigne.ProduitService.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "produit.reservation")
+@Data
+public class ReservationProperties {
+    private long defaultTtlSeconds = 900;     // 15 minutes pour finaliser le paiement
+    private long maxTtlSeconds = 3600;
+    private long sweepIntervalMs = 30_000;
+    private int sweepBatchSize = 100;         // Réservations expirées traitées par passage
+    private long retentionHours = 24;         // Conservation des réservations terminées
+}
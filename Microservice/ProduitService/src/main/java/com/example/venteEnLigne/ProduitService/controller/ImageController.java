@@ -1,8 +1,11 @@
 package com.example.venteEnLigne.ProduitService.controller;
 
+import com.example.venteEnLigne.ProduitService.dto.ImageUploadJobResponse;
 import com.example.venteEnLigne.ProduitService.dto.ImageUploadResponse;
+import com.example.venteEnLigne.ProduitService.exception.ProduitNotFoundException;
 import com.example.venteEnLigne.ProduitService.service.ImageUploadService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,12 +22,17 @@ public class ImageController {
     private final ImageUploadService imageUploadService;
 
     @PostMapping("/upload")
-    public ResponseEntity<?> uploadImage(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> uploadImage(@RequestParam("file") MultipartFile file,
+                                         @RequestParam(required = false) String produitId) {
         try {
-            ImageUploadResponse response = imageUploadService.uploadImage(file);
+            ImageUploadResponse response = imageUploadService.uploadImage(file, produitId);
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (ProduitNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Too many images being processed"));
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Upload failed"));
         } catch (Exception e) {
@@ -32,6 +40,33 @@ public class ImageController {
         }
     }
 
+    /**
+     * Upload asynchrone : répond 202 avec l'ID du job dès que le fichier est sur disque.
+     */
+    @PostMapping("/upload/async")
+    public ResponseEntity<?> uploadImageAsync(@RequestParam("file") MultipartFile file,
+                                              @RequestParam(required = false) String produitId) {
+        try {
+            ImageUploadJobResponse response = imageUploadService.submitUpload(file, produitId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header("Location", "/api/images/upload/jobs/" + response.getJobId())
+                    .body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (ProduitNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Too many uploads in progress"));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Upload failed"));
+        }
+    }
+
+    @GetMapping("/upload/jobs/{jobId}")
+    public ResponseEntity<ImageUploadJobResponse> getUploadJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(imageUploadService.getJob(jobId));
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Image service is running");
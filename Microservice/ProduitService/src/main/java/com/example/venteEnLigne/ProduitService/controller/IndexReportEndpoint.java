@@ -0,0 +1,22 @@
+package com.example.venteEnLigne.ProduitService.controller;
+
+import com.example.venteEnLigne.ProduitService.dto.IndexUsageReport;
+import com.example.venteEnLigne.ProduitService.service.ProduitIndexVerifier;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+// Rapport d'utilisation des index de la collection produits : /actuator/indexes
+@Component
+@Endpoint(id = "indexes")
+@RequiredArgsConstructor
+public class IndexReportEndpoint {
+
+    private final ProduitIndexVerifier produitIndexVerifier;
+
+    @ReadOperation
+    public IndexUsageReport indexes() {
+        return produitIndexVerifier.usageReport();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.venteEnLigne.ProduitService.controller;
+
+import com.example.venteEnLigne.ProduitService.dto.ProduitChangesResponse;
+import com.example.venteEnLigne.ProduitService.exception.ChangeTokenExpiredException;
+import com.example.venteEnLigne.ProduitService.service.ProduitChangeFeed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+/**
+ * Flux des changements du catalogue. Le client garde le dernier jeton reçu et le renvoie
+ * dans after (ou Last-Event-ID en SSE) : il ne reçoit que les changements suivants.
+ */
+@RestController
+@RequestMapping("/api/produits/changes")
+@RequiredArgsConstructor
+@Slf4j
+public class ProduitChangeController {
+
+    private final ProduitChangeFeed changeFeed;
+    private final ThreadPoolTaskExecutor changeFeedExecutor;
+
+    /**
+     * Long-poll : répond dès qu'un changement suit le jeton, ou après timeoutMs avec
+     * une liste vide. Sans jeton, renvoie immédiatement le jeton de tête.
+     */
+    @GetMapping
+    public DeferredResult<ProduitChangesResponse> getChanges(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long timeoutMs) {
+        return changeFeed.poll(after, limit, timeoutMs);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestParam(required = false) String after,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        String from = lastEventId != null ? lastEventId : after;
+        SseEmitter emitter = new SseEmitter(0L); // Sans limite : fermé par le client
+
+        try {
+            changeFeedExecutor.execute(() -> {
+                try {
+                    changeFeed.stream(from, emitter);
+                    emitter.complete();
+                } catch (ChangeTokenExpiredException | IllegalArgumentException e) {
+                    // Jeton refusé : l'erreur est envoyée comme événement, l'en-tête 200 est déjà parti
+                    sendError(emitter, e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    emitter.complete();
+                } catch (Exception e) {
+                    log.debug("Flux SSE des changements fermé: {}", e.getMessage());
+                    emitter.completeWithError(e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("Trop d'abonnés au flux de changements, requête refusée");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    private static void sendError(SseEmitter emitter, String message) {
+        try {
+            emitter.send(SseEmitter.event().name("ERREUR").data(Map.of("error", message)));
+            emitter.complete();
+        } catch (Exception e) {
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.example.venteEnLigne.ProduitService.controller;
 
+import com.example.venteEnLigne.ProduitService.config.ExportProperties;
 import com.example.venteEnLigne.ProduitService.dto.*;
+import com.example.venteEnLigne.ProduitService.model.ClassementType;
 import com.example.venteEnLigne.ProduitService.model.ProductStatus;
+import com.example.venteEnLigne.ProduitService.service.CurrencyConverter;
+import com.example.venteEnLigne.ProduitService.service.HotProduitsTracker;
+import com.example.venteEnLigne.ProduitService.service.ProduitFields;
 import com.example.venteEnLigne.ProduitService.service.ProduitService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -10,12 +15,23 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/produits")
@@ -23,7 +39,13 @@ import java.util.Map;
 @Slf4j
 public class ProduitController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ProduitService produitService;
+    private final ExportProperties exportProperties;
+    private final ThreadPoolTaskExecutor exportExecutor;
+    private final CurrencyConverter currencyConverter;
+    private final HotProduitsTracker hotProduitsTracker;
 
     @PostMapping
     public ResponseEntity<ProduitResponse> createProduit(@Valid @RequestBody ProduitCreateRequest request) {
@@ -36,6 +58,7 @@ public class ProduitController {
     public ResponseEntity<ProduitResponse> getProduitById(@PathVariable String id) {
         log.info("Requête de récupération du produit: {}", id);
         ProduitResponse response = produitService.getProduitById(id);
+        hotProduitsTracker.recordView(response.getId(), response.getCategorie());
         return ResponseEntity.ok(response);
     }
 
@@ -46,12 +69,20 @@ public class ProduitController {
         return ResponseEntity.ok(produits);
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> streamAllProduits(
+            @RequestParam(required = false) Integer batchSize) {
+        log.info("Export en flux de tous les produits");
+        return streamNdjson(batchSize, produitService::streamAllProduits);
+    }
+
     @GetMapping("/paginated")
     public ResponseEntity<Page<ProduitResponse>> getAllProduitsPaginated(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String currency) {
         
         Sort sort = sortDir.equalsIgnoreCase("asc") 
                 ? Sort.by(sortBy).ascending() 
@@ -59,6 +90,58 @@ public class ProduitController {
         Pageable pageable = PageRequest.of(page, size, sort);
         
         Page<ProduitResponse> produits = produitService.getAllProduits(pageable);
+        convertPrices(produits.getContent(), currency);
+        return ResponseEntity.ok(produits);
+    }
+
+    // Variante projetée : GET /paginated?fields=id,titre,prix,image,stock
+    @GetMapping(value = "/paginated", params = "fields")
+    public ResponseEntity<Page<Map<String, Object>>> getAllProduitsPaginatedProjected(
+            @RequestParam String fields,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String currency) {
+
+        Sort sort = sortDir.equalsIgnoreCase("asc")
+                ? Sort.by(sortBy).ascending()
+                : Sort.by(sortBy).descending();
+        Pageable pageable = PageRequest.of(page, size, sort);
+
+        Page<Map<String, Object>> produits = produitService.getAllProduits(pageable, fields(fields, currency));
+        convertViews(produits.getContent(), currency);
+        return ResponseEntity.ok(produits);
+    }
+
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<ProduitResponse>> getAllProduitsByCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @RequestParam(required = false) String currency) {
+
+        CursorPage<ProduitResponse> produits = produitService.getAllProduits(
+                after, clampPageSize(size), sortBy, sortDir, withTotal);
+        convertPrices(produits.getContent(), currency);
+        return ResponseEntity.ok(produits);
+    }
+
+    @GetMapping(value = "/cursor", params = "fields")
+    public ResponseEntity<CursorPage<Map<String, Object>>> getAllProduitsByCursorProjected(
+            @RequestParam String fields,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @RequestParam(required = false) String currency) {
+
+        CursorPage<Map<String, Object>> produits = produitService.getAllProduits(
+                after, clampPageSize(size), sortBy, sortDir, withTotal, fields(fields, currency));
+        convertViews(produits.getContent(), currency);
         return ResponseEntity.ok(produits);
     }
 
@@ -73,10 +156,60 @@ public class ProduitController {
     public ResponseEntity<Page<ProduitResponse>> getProduitsByVendeurPaginated(
             @PathVariable String vendeurId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String currency) {
         
         Pageable pageable = PageRequest.of(page, size);
         Page<ProduitResponse> produits = produitService.getProduitsByVendeur(vendeurId, pageable);
+        convertPrices(produits.getContent(), currency);
+        return ResponseEntity.ok(produits);
+    }
+
+    @GetMapping(value = "/vendeur/{vendeurId}/paginated", params = "fields")
+    public ResponseEntity<Page<Map<String, Object>>> getProduitsByVendeurPaginatedProjected(
+            @PathVariable String vendeurId,
+            @RequestParam String fields,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String currency) {
+
+        Pageable pageable = PageRequest.of(page, size);
+        Page<Map<String, Object>> produits = produitService.getProduitsByVendeur(
+                vendeurId, pageable, fields(fields, currency));
+        convertViews(produits.getContent(), currency);
+        return ResponseEntity.ok(produits);
+    }
+
+    @GetMapping("/vendeur/{vendeurId}/cursor")
+    public ResponseEntity<CursorPage<ProduitResponse>> getProduitsByVendeurByCursor(
+            @PathVariable String vendeurId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @RequestParam(required = false) String currency) {
+
+        CursorPage<ProduitResponse> produits = produitService.getProduitsByVendeur(
+                vendeurId, after, clampPageSize(size), sortBy, sortDir, withTotal);
+        convertPrices(produits.getContent(), currency);
+        return ResponseEntity.ok(produits);
+    }
+
+    @GetMapping(value = "/vendeur/{vendeurId}/cursor", params = "fields")
+    public ResponseEntity<CursorPage<Map<String, Object>>> getProduitsByVendeurByCursorProjected(
+            @PathVariable String vendeurId,
+            @RequestParam String fields,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @RequestParam(required = false) String currency) {
+
+        CursorPage<Map<String, Object>> produits = produitService.getProduitsByVendeur(
+                vendeurId, after, clampPageSize(size), sortBy, sortDir, withTotal, fields(fields, currency));
+        convertViews(produits.getContent(), currency);
         return ResponseEntity.ok(produits);
     }
 
@@ -87,18 +220,96 @@ public class ProduitController {
         return ResponseEntity.ok(produits);
     }
 
+    @GetMapping(value = "/categorie/{categorie}", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getProduitsByCategorieProjected(
+            @PathVariable String categorie,
+            @RequestParam String fields,
+            @RequestParam(required = false) String currency) {
+        log.info("Requête de récupération des produits par catégorie: {} (champs: {})", categorie, fields);
+        List<Map<String, Object>> produits = produitService.getProduitsByCategorie(categorie, fields(fields, currency));
+        convertViews(produits, currency);
+        return ResponseEntity.ok(produits);
+    }
+
+    @GetMapping(value = "/categorie/{categorie}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> streamProduitsByCategorie(
+            @PathVariable String categorie,
+            @RequestParam(required = false) Integer batchSize) {
+        log.info("Export en flux des produits de la catégorie: {}", categorie);
+        return streamNdjson(batchSize, (size, consumer) ->
+                produitService.streamProduitsByCategorie(categorie, size, consumer));
+    }
+
     @GetMapping("/search")
     public ResponseEntity<Page<ProduitResponse>> searchProduits(
             @RequestParam String keyword,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String currency) {
         
         log.info("Recherche de produits avec le mot-clé: {}", keyword);
         Pageable pageable = PageRequest.of(page, size);
         Page<ProduitResponse> produits = produitService.searchProduits(keyword, pageable);
+        convertPrices(produits.getContent(), currency);
+        return ResponseEntity.ok(produits);
+    }
+
+    @GetMapping(value = "/search", params = "fields")
+    public ResponseEntity<Page<Map<String, Object>>> searchProduitsProjected(
+            @RequestParam String keyword,
+            @RequestParam String fields,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String currency) {
+
+        log.info("Recherche de produits avec le mot-clé: {} (champs: {})", keyword, fields);
+        Pageable pageable = PageRequest.of(page, size);
+        Page<Map<String, Object>> produits = produitService.searchProduits(keyword, pageable, fields(fields, currency));
+        convertViews(produits.getContent(), currency);
         return ResponseEntity.ok(produits);
     }
 
+    @GetMapping("/prix")
+    public ResponseEntity<Page<ProduitResponse>> getProduitsByPrix(
+            @RequestParam(required = false) BigDecimal min,
+            @RequestParam(required = false) BigDecimal max,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String currency) {
+
+        // Avec currency, les bornes et le tri portent sur le prix converti dans cette devise
+        Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Pageable pageable = PageRequest.of(page, clampPageSize(size), Sort.by(direction, "prix", "id"));
+        return ResponseEntity.ok(produitService.getProduitsByPrix(min, max, currency, pageable));
+    }
+
+    @GetMapping("/browse")
+    public ResponseEntity<FacetedBrowseResponse> browseProduits(@ModelAttribute FacetedBrowseRequest request) {
+        request.setPage(Math.max(0, request.getPage()));
+        request.setSize(clampPageSize(request.getSize()));
+        return ResponseEntity.ok(produitService.browseProduits(request));
+    }
+
+    // Lu dans la table précalculée par RelatedProduitsIndex ; details=true ajoute les produits (cache)
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<RelatedProduitResponse>> getRelatedProduits(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "false") boolean details) {
+        return ResponseEntity.ok(produitService.getRelatedProduits(id, clampPageSize(limit), details));
+    }
+
+    // Classements publiés par HotProduitsTracker ; sans categorie, toutes catégories confondues
+    @GetMapping("/hot")
+    public ResponseEntity<List<HotProduitResponse>> getHotProduits(
+            @RequestParam(defaultValue = "VENTES") ClassementType type,
+            @RequestParam(required = false) String categorie,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "false") boolean details) {
+        return ResponseEntity.ok(produitService.getHotProduits(type, categorie, clampPageSize(limit), details));
+    }
+
     @GetMapping("/status/{status}")
     public ResponseEntity<List<ProduitResponse>> getProduitsByStatus(@PathVariable ProductStatus status) {
         log.info("Requête de récupération des produits par statut: {}", status);
@@ -106,6 +317,26 @@ public class ProduitController {
         return ResponseEntity.ok(produits);
     }
 
+    @GetMapping(value = "/status/{status}", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getProduitsByStatusProjected(
+            @PathVariable ProductStatus status,
+            @RequestParam String fields,
+            @RequestParam(required = false) String currency) {
+        log.info("Requête de récupération des produits par statut: {} (champs: {})", status, fields);
+        List<Map<String, Object>> produits = produitService.getProduitsByStatus(status, fields(fields, currency));
+        convertViews(produits, currency);
+        return ResponseEntity.ok(produits);
+    }
+
+    @GetMapping(value = "/status/{status}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> streamProduitsByStatus(
+            @PathVariable ProductStatus status,
+            @RequestParam(required = false) Integer batchSize) {
+        log.info("Export en flux des produits par statut: {}", status);
+        return streamNdjson(batchSize, (size, consumer) ->
+                produitService.streamProduitsByStatus(status, size, consumer));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ProduitResponse> updateProduit(
             @PathVariable String id,
@@ -157,9 +388,91 @@ public class ProduitController {
         return ResponseEntity.ok(produits);
     }
 
+    @GetMapping(value = "/rupture", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> streamProduitsEnRupture(
+            @RequestParam(required = false) Integer batchSize) {
+        log.info("Export en flux des produits en rupture de stock");
+        return streamNdjson(batchSize, produitService::streamProduitsEnRupture);
+    }
+
     @GetMapping("/vendeur/{vendeurId}/count")
     public ResponseEntity<Map<String, Long>> countProduitsByVendeur(@PathVariable String vendeurId) {
         long count = produitService.countProduitsByVendeur(vendeurId);
         return ResponseEntity.ok(Map.of("count", count));
     }
+
+    // Écrit chaque produit sur sa propre ligne JSON via les convertisseurs MVC, avec un
+    // flush par lot : l'écriture bloque quand le client ralentit, ce qui suspend la
+    // lecture du curseur MongoDB (mémoire bornée à un lot)
+    private ResponseEntity<ResponseBodyEmitter> streamNdjson(
+            Integer batchSize, BiConsumer<Integer, Consumer<ProduitResponse>> source) {
+        int effectiveBatchSize = batchSize == null
+                ? exportProperties.getDefaultBatchSize()
+                : Math.max(1, Math.min(batchSize, exportProperties.getMaxBatchSize()));
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(exportProperties.getTimeoutMs());
+
+        try {
+            exportExecutor.execute(() -> {
+                List<ResponseBodyEmitter.DataWithMediaType> batch = new ArrayList<>(effectiveBatchSize * 2);
+                try {
+                    source.accept(effectiveBatchSize, produit -> {
+                        batch.add(new ResponseBodyEmitter.DataWithMediaType(produit, MediaType.APPLICATION_JSON));
+                        batch.add(new ResponseBodyEmitter.DataWithMediaType("\n", MediaType.TEXT_PLAIN));
+                        if (batch.size() >= effectiveBatchSize * 2) {
+                            flush(emitter, batch);
+                        }
+                    });
+                    flush(emitter, batch);
+                    emitter.complete();
+                } catch (Exception e) {
+                    log.warn("Export en flux interrompu: {}", e.getMessage());
+                    emitter.completeWithError(e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("Trop d'exports simultanés, requête refusée");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(emitter);
+    }
+
+    // send() n'accepte qu'un Set : copie ordonnée du lot, jamais modifiée ensuite. Aucun
+    // élément n'est perdu, DataWithMediaType gardant l'égalité par identité et chaque
+    // ligne ayant sa propre instance de séparateur
+    private static void flush(ResponseBodyEmitter emitter, List<ResponseBodyEmitter.DataWithMediaType> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            emitter.send(new LinkedHashSet<>(batch));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        batch.clear();
+    }
+
+    private void convertPrices(List<ProduitResponse> produits, String currency) {
+        if (currency != null && !currency.isBlank()) {
+            currencyConverter.convertPrices(produits, currency);
+        }
+    }
+
+    // Avec currency, la devise source est lue en plus du prix pour pouvoir le convertir
+    private static ProduitFields fields(String fields, String currency) {
+        ProduitFields parsed = ProduitFields.parse(fields);
+        return currency != null && !currency.isBlank() ? parsed.withCurrency() : parsed;
+    }
+
+    private void convertViews(List<Map<String, Object>> produits, String currency) {
+        if (currency != null && !currency.isBlank()) {
+            currencyConverter.convertViews(produits, currency);
+        }
+    }
+
+    private static int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
 }
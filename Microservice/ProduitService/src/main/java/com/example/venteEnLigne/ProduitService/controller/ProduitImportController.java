@@ -0,0 +1,60 @@
+package com.example.venteEnLigne.ProduitService.controller;
+
+import com.example.venteEnLigne.ProduitService.dto.ProduitImportJobResponse;
+import com.example.venteEnLigne.ProduitService.model.ImportFormat;
+import com.example.venteEnLigne.ProduitService.service.ProduitImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Import en masse : le corps de la requête est le fichier lui-même (text/csv ou
+ * application/x-ndjson), lu en flux sans passer par multipart.
+ */
+@RestController
+@RequestMapping("/api/produits/import")
+@RequiredArgsConstructor
+@Slf4j
+public class ProduitImportController {
+
+    private static final String TEXT_CSV = "text/csv";
+
+    private final ProduitImportService produitImportService;
+
+    @PostMapping(consumes = TEXT_CSV)
+    public ResponseEntity<ProduitImportJobResponse> importerCsv(@RequestParam String vendeurId, InputStream body)
+            throws IOException {
+        return importer(vendeurId, ImportFormat.CSV, body);
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ProduitImportJobResponse> importerNdjson(@RequestParam String vendeurId, InputStream body)
+            throws IOException {
+        return importer(vendeurId, ImportFormat.NDJSON, body);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ProduitImportJobResponse> getImport(@PathVariable String jobId) {
+        return ResponseEntity.ok(produitImportService.getJob(jobId));
+    }
+
+    private ResponseEntity<ProduitImportJobResponse> importer(String vendeurId, ImportFormat format, InputStream body)
+            throws IOException {
+        try {
+            ProduitImportJobResponse job = produitImportService.soumettre(vendeurId, format, body);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header("Location", "/api/produits/import/" + job.getJobId())
+                    .body(job);
+        } catch (TaskRejectedException e) {
+            log.warn("Trop d'imports en attente, requête refusée");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.venteEnLigne.ProduitService.controller;
+
+import com.example.venteEnLigne.ProduitService.dto.StockReservationRequest;
+import com.example.venteEnLigne.ProduitService.dto.StockReservationResponse;
+import com.example.venteEnLigne.ProduitService.service.ReservationStockService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/produits/stock/reservations")
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationStockController {
+
+    private final ReservationStockService reservationStockService;
+
+    @PostMapping
+    public ResponseEntity<StockReservationResponse> reserver(@Valid @RequestBody StockReservationRequest request) {
+        log.info("Requête de réservation groupée: {} ligne(s), référence {}",
+                request.getLignes().size(), request.getReference());
+        StockReservationResponse response = reservationStockService.reserver(request);
+        return ResponseEntity.status(response.isReservee() ? HttpStatus.CREATED : HttpStatus.CONFLICT).body(response);
+    }
+
+    @GetMapping("/{reservationId}")
+    public ResponseEntity<StockReservationResponse> getReservation(@PathVariable String reservationId) {
+        return ResponseEntity.ok(reservationStockService.getReservation(reservationId));
+    }
+
+    @PostMapping("/{reservationId}/confirm")
+    public ResponseEntity<StockReservationResponse> confirmer(@PathVariable String reservationId) {
+        log.info("Confirmation de la réservation: {}", reservationId);
+        return ResponseEntity.ok(reservationStockService.confirmer(reservationId));
+    }
+
+    @PostMapping("/{reservationId}/release")
+    public ResponseEntity<StockReservationResponse> liberer(@PathVariable String reservationId) {
+        log.info("Libération de la réservation: {}", reservationId);
+        return ResponseEntity.ok(reservationStockService.liberer(reservationId));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FacetedBrowseRequest {
+    // Plusieurs valeurs d'un même champ : OU ; champs différents : ET
+    private List<String> categorie;
+    private List<String> sousCategorie;
+    private List<String> marque;
+    private List<String> currency;
+    private List<String> status;
+    private List<String> specification; // Clés de spécifications requises
+    private BigDecimal prixMin;
+    private BigDecimal prixMax;
+    @Builder.Default
+    private int page = 0;
+    @Builder.Default
+    private int size = 20;
+}
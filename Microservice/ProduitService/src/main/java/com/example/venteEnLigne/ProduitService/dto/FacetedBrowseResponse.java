@@ -0,0 +1,21 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FacetedBrowseResponse {
+    private List<ProduitResponse> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private Map<String, Map<String, Integer>> facettes; // champ -> valeur -> nombre de produits
+}
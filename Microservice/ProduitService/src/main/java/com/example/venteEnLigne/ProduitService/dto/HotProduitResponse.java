@@ -0,0 +1,18 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HotProduitResponse {
+    private String produitId;
+    private long score;              // Nombre estimé, pondéré par l'ancienneté (demi-vie)
+    private ProduitResponse produit; // Renseigné seulement avec details=true
+}
@@ -0,0 +1,28 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import com.example.venteEnLigne.ProduitService.model.ImageUploadStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageUploadJobResponse {
+    private String jobId;
+    private ImageUploadStatus status;
+    private String fileName;
+    private String produitId;
+    private String url;
+    private Map<String, String> variants;
+    private boolean replaced;
+    private boolean deduplicated;
+    private String erreur;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
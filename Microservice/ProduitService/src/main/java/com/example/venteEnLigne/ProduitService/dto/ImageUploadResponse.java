@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,4 +16,6 @@ public class ImageUploadResponse {
     private String fileName;
     private String message;
     private boolean replaced;
+    private boolean deduplicated; // Image identique déjà stockée, réutilisée telle quelle
+    private Map<String, String> variants; // URL par variante (thumbnail, card, detail)
 }
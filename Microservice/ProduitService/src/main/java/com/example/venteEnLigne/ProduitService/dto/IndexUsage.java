@@ -0,0 +1,19 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IndexUsage {
+    private String nom;
+    private String cle;
+    private long operations; // Utilisations depuis "depuis" (remis à zéro au redémarrage de mongod)
+    private Date depuis;
+}
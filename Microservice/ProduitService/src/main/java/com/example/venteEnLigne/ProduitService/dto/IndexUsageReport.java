@@ -0,0 +1,18 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IndexUsageReport {
+    private List<QueryPlanReport> requetes;
+    private List<IndexUsage> index;
+    private List<String> indexInutilises;
+}
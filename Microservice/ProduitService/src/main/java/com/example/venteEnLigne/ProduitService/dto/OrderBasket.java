@@ -0,0 +1,22 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Panier d'une commande, tel que renvoyé par OrderService (GET /api/orders/baskets).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderBasket {
+    private String orderId;
+    private LocalDateTime createdAt;
+    private List<String> produitIds;
+}
@@ -0,0 +1,19 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderBasketPage {
+    private List<OrderBasket> baskets;
+    private LocalDateTime nextCreatedAt; // Position du dernier panier, à renvoyer au prochain appel
+    private String nextId;
+}
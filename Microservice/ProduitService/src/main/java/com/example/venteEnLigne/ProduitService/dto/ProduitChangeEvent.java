@@ -0,0 +1,23 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import com.example.venteEnLigne.ProduitService.model.ProduitChangeType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProduitChangeEvent {
+    private String token;            // Position juste après cet événement, à renvoyer dans after
+    private ProduitChangeType type;
+    private String produitId;
+    private LocalDateTime at;
+    private ProduitResponse produit; // État après le changement ; absent pour une suppression
+}
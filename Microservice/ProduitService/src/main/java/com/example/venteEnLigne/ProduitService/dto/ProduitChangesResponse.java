@@ -0,0 +1,18 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProduitChangesResponse {
+    private List<ProduitChangeEvent> events;
+    private String nextToken; // Jeton à passer dans after pour l'appel suivant
+    private String mode;      // CHANGE_STREAM ou POLLING
+}
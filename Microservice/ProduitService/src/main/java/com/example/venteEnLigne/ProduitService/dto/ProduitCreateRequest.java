@@ -47,6 +47,8 @@ public class ProduitCreateRequest {
     private ProductStatus status = ProductStatus.DISPONIBLE;
 
     private String image;
+
+    private Map<String, String> imageVariants;
     
     // Setter pour accepter imageUrl comme alias de image
     public void setImageUrl(String imageUrl) {
@@ -0,0 +1,32 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import com.example.venteEnLigne.ProduitService.model.ImportFormat;
+import com.example.venteEnLigne.ProduitService.model.ImportStatus;
+import com.example.venteEnLigne.ProduitService.model.LigneRejetee;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProduitImportJobResponse {
+    private String jobId;
+    private String vendeurId;
+    private ImportFormat format;
+    private ImportStatus status;
+    private long taille;
+    private long lignesLues;
+    private long lignesImportees;
+    private long lignesRejetees;
+    private List<LigneRejetee> erreurs;
+    private String erreur;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime termineAt;
+}
@@ -1,6 +1,7 @@
 package com.example.venteEnLigne.ProduitService.dto;
 
 import com.example.venteEnLigne.ProduitService.model.ProductStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,14 +21,20 @@ public class ProduitResponse {
     private String titre;
     private String description;
     private BigDecimal prix;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private BigDecimal prixOrigine; // Renseigné si le prix a été converti dans une autre devise
     private String categorie;
     private String sousCategorie;
     private String marque;
     private String currency;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String currencyOrigine;
     private Map<String, String> specifications;
     private ProductStatus status;
     private String image;
+    private Map<String, String> imageVariants;
     private Integer stock;
+    private Integer stockReserve;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
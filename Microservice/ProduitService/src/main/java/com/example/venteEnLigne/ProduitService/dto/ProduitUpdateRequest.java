@@ -24,5 +24,6 @@ public class ProduitUpdateRequest {
     private Map<String, String> specifications;
     private ProductStatus status;
     private String image;
+    private Map<String, String> imageVariants;
     private Integer stock;
 }
@@ -0,0 +1,20 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QueryPlanReport {
+    private String requete;       // Méthode du repository concernée
+    private String filtre;
+    private String tri;
+    private List<String> index;   // Index retenus par le plan gagnant
+    private boolean collscan;
+}
@@ -0,0 +1,19 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RelatedProduitResponse {
+    private String produitId;
+    private double score;            // Similarité cosinus des paniers, entre 0 et 1
+    private int coAchats;            // Paniers contenant les deux produits
+    private ProduitResponse produit; // Renseigné seulement avec details=true
+}
@@ -0,0 +1,20 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StockReservationLineResult {
+    private String produitId;
+    private Integer quantite;
+    private String statut; // RESERVE, ANNULE, STOCK_INSUFFISANT, PRODUIT_INTROUVABLE
+    private Integer stockDisponible;
+    private String message;
+}
@@ -0,0 +1,29 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservationRequest {
+
+    private String reference; // Référence de la commande
+
+    @Min(value = 1, message = "La durée de réservation doit être positive")
+    private Long ttlSeconds; // Durée de validité, défaut configuré côté service
+
+    @NotEmpty(message = "Au moins une ligne est obligatoire")
+    @Size(max = 200, message = "Au plus 200 lignes par réservation")
+    @Valid
+    private List<StockReservationLine> lignes;
+}
@@ -0,0 +1,25 @@
+package com.example.venteEnLigne.ProduitService.dto;
+
+import com.example.venteEnLigne.ProduitService.model.ReservationStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StockReservationResponse {
+    private String reservationId;
+    private String reference;
+    private boolean reservee; // true si toutes les lignes ont été réservées
+    private ReservationStatus statut;
+    private LocalDateTime expiresAt;
+    private List<StockReservationLineResult> lignes;
+}
@@ -0,0 +1,7 @@
+package com.example.venteEnLigne.ProduitService.exception;
+
+public class ImageUploadJobNotFoundException extends RuntimeException {
+    public ImageUploadJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.venteEnLigne.ProduitService.exception;
+
+public class ReservationNotFoundException extends RuntimeException {
+    public ReservationNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.venteEnLigne.ProduitService.exception;
+
+public class ReservationStateException extends RuntimeException {
+    public ReservationStateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.venteEnLigne.ProduitService.model;
+
+public enum ClassementType {
+    VUES,    // Consultations de la fiche produit
+    VENTES   // Commandes contenant le produit
+}
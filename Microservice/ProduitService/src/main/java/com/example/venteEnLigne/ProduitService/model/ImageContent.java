@@ -0,0 +1,30 @@
+package com.example.venteEnLigne.ProduitService.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Image déjà stockée, identifiée par l'empreinte SHA-256 de l'upload d'origine.
+ */
+@Document(collection = "image_contents")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageContent {
+
+    @Id
+    private String id; // SHA-256 hexadécimal
+
+    private String url;
+    private Map<String, String> variants;
+    private long size;
+    private LocalDateTime createdAt;
+}
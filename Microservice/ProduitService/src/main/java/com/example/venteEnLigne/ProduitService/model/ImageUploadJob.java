@@ -0,0 +1,54 @@
+package com.example.venteEnLigne.ProduitService.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Suivi d'un upload asynchrone. Stocké dans MongoDB pour que n'importe quelle
+ * instance puisse répondre au polling, quelle que soit celle qui traite l'envoi.
+ */
+@Document(collection = "image_upload_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageUploadJob {
+
+    @Id
+    private String id;
+
+    @Builder.Default
+    private ImageUploadStatus status = ImageUploadStatus.EN_ATTENTE;
+
+    private String fileName;
+    private String originalFileName;
+    private String contentType;
+    private long size;
+
+    private String produitId; // Produit auquel rattacher l'image, ou null
+
+    private String url;
+    private Map<String, String> variants;
+    private boolean replaced;
+    private boolean deduplicated; // Image déjà connue : aucun envoi au stockage
+    private String erreur;
+
+    @Indexed(expireAfterSeconds = 0) // Purge automatique après la période de rétention
+    private LocalDateTime purgeAt;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+}
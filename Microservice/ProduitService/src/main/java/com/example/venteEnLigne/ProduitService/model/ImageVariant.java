@@ -0,0 +1,26 @@
+package com.example.venteEnLigne.ProduitService.model;
+
+/**
+ * Variantes générées pour chaque image, du plus grand au plus petit côté.
+ */
+public enum ImageVariant {
+    DETAIL("detail", 1200),
+    CARD("card", 480),
+    THUMBNAIL("thumbnail", 160);
+
+    private final String key;
+    private final int maxSize; // Plus grand côté, en pixels
+
+    ImageVariant(String key, int maxSize) {
+        this.key = key;
+        this.maxSize = maxSize;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.venteEnLigne.ProduitService.model;
+
+public enum ImportFormat {
+    CSV,
+    NDJSON
+}
@@ -0,0 +1,8 @@
+package com.example.venteEnLigne.ProduitService.model;
+
+public enum ImportStatus {
+    EN_ATTENTE,
+    EN_COURS,
+    TERMINE,
+    ECHEC
+}
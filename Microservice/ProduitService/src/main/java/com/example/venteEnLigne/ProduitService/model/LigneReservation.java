@@ -0,0 +1,15 @@
+package com.example.venteEnLigne.ProduitService.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LigneReservation {
+    private String produitId;
+    private Integer quantite;
+}
@@ -8,14 +8,37 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Document(collection = "produits")
+@CompoundIndexes({
+        // Pagination par curseur : plage sur (clé de tri, _id)
+        @CompoundIndex(name = "createdAt_id_idx", def = "{'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "vendeur_createdAt_id_idx", def = "{'vendeurId': 1, 'createdAt': -1, '_id': -1}"),
+        // findByCategorie / countByCategorie, filtrés par statut et triés par date
+        @CompoundIndex(name = "categorie_status_createdAt_idx", def = "{'categorie': 1, 'status': 1, 'createdAt': -1}"),
+        // findByStatus et listes par statut triées par date
+        @CompoundIndex(name = "status_createdAt_idx", def = "{'status': 1, 'createdAt': -1}"),
+        // findByVendeurIdAndStatus
+        @CompoundIndex(name = "vendeur_status_idx", def = "{'vendeurId': 1, 'status': 1}"),
+        // Plages de prix triées par prix, départage par _id (Decimal128 : comparaison numérique)
+        @CompoundIndex(name = "prix_id_idx", def = "{'prix': 1, '_id': 1}"),
+        // Pagination par curseur triée par titre ou par stock
+        @CompoundIndex(name = "titre_id_idx", def = "{'titre': 1, '_id': 1}"),
+        @CompoundIndex(name = "stock_id_idx", def = "{'stock': 1, '_id': 1}"),
+        // Flux de changements en mode polling : plage sur (updatedAt, _id)
+        @CompoundIndex(name = "updatedAt_id_idx", def = "{'updatedAt': 1, '_id': 1}")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -32,12 +55,15 @@ public class Produit {
 
     private String description;
 
+    @Field(targetType = FieldType.DECIMAL128) // Stocké en chaîne par défaut, voir ProduitPrixMigration
     private BigDecimal prix;
 
     private String categorie;
 
+    @Indexed
     private String sousCategorie;
 
+    @Indexed
     private String marque;
 
     @Builder.Default
@@ -50,9 +76,18 @@ public class Produit {
 
     private String image; // URL de l'image
 
+    private Map<String, String> imageVariants; // URL par variante (thumbnail, card, detail)
+
+    @Indexed
     @Builder.Default
     private Integer stock = 0; // Quantité en stock (transactionnel)
 
+    @Builder.Default
+    private Integer stockReserve = 0; // Quantité retenue par des réservations en attente
+
+    // Réservations groupées en cours d'application (marqueur temporaire, voir ReservationStockService)
+    private List<String> reservationsEnCours;
+
     @Version
     private Long version; // Pour le contrôle de concurrence optimiste
 
@@ -61,4 +96,6 @@ public class Produit {
 
     @LastModifiedDate
     private LocalDateTime updatedAt;
+
+    private LocalDateTime stockUpdatedAt; // Égal à updatedAt quand la dernière écriture ne touchait que le stock
 }
@@ -0,0 +1,8 @@
+package com.example.venteEnLigne.ProduitService.model;
+
+public enum ProduitChangeType {
+    CREATION,
+    MODIFICATION,
+    SUPPRESSION,
+    STOCK        // Écriture limitée au stock, à la réserve et au statut qui en découle
+}
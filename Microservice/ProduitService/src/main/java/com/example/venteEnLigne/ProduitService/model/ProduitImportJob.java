@@ -0,0 +1,54 @@
+package com.example.venteEnLigne.ProduitService.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Import en masse d'un catalogue. Les compteurs et erreurs sont mis à jour après
+ * chaque lot, ce qui permet de suivre la progression par polling.
+ */
+@Document(collection = "produit_import_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProduitImportJob {
+
+    @Id
+    private String id;
+
+    private String vendeurId;
+    private ImportFormat format;
+    private long taille; // Octets reçus
+
+    @Builder.Default
+    private ImportStatus status = ImportStatus.EN_ATTENTE;
+
+    private long lignesLues;
+    private long lignesImportees;
+    private long lignesRejetees;
+
+    @Builder.Default
+    private List<LigneRejetee> erreurs = new ArrayList<>(); // Tronquée à produit.import.max-errors
+
+    private String erreur; // Échec global (fichier illisible...)
+
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime purgeAt;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+    private LocalDateTime termineAt;
+}
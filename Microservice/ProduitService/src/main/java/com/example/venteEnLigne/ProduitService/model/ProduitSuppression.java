@@ -0,0 +1,35 @@
+package com.example.venteEnLigne.ProduitService.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trace d'un produit supprimé, pour que le flux de changements en mode polling
+ * puisse émettre la suppression : le document produit n'existe plus.
+ */
+@Document(collection = "produit_suppressions")
+@CompoundIndex(name = "deletedAt_id_idx", def = "{'deletedAt': 1, '_id': 1}") // Lecture par position
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProduitSuppression {
+
+    @Id
+    private String id;
+
+    private String produitId;
+
+    private LocalDateTime deletedAt;
+
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime purgeAt; // Au-delà, un jeton plus ancien n'est plus rejouable
+}
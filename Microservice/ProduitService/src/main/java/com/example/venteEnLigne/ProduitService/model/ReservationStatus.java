@@ -0,0 +1,9 @@
+package com.example.venteEnLigne.ProduitService.model;
+
+public enum ReservationStatus {
+    EN_PREPARATION, // Enregistrée avant le retrait du stock ; compensée par le balayage si elle y reste
+    EN_ATTENTE,     // Stock retenu, en attente de confirmation
+    CONFIRMEE,      // Commande confirmée, stock définitivement consommé
+    LIBEREE,        // Réservation annulée, stock rendu
+    EXPIREE         // Délai dépassé, stock rendu par le balayage planifié
+}
@@ -0,0 +1,44 @@
+package com.example.venteEnLigne.ProduitService.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Document(collection = "stock_reservations")
+@CompoundIndex(name = "statut_expiresAt_idx", def = "{'statut': 1, 'expiresAt': 1}") // Balayage des expirées
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservationStock {
+
+    @Id
+    private String id;
+
+    private String reference; // Référence de la commande
+
+    private List<LigneReservation> lignes;
+
+    @Builder.Default
+    private ReservationStatus statut = ReservationStatus.EN_ATTENTE;
+
+    private LocalDateTime expiresAt; // Au-delà, la réservation ne peut plus être confirmée
+
+    // Renseigné une fois la réservation terminée : l'index TTL purge alors le document.
+    // Absent tant qu'elle est en attente, pour que MongoDB ne la supprime jamais avant
+    // que son stock ait été rendu.
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime purgeAt;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+}
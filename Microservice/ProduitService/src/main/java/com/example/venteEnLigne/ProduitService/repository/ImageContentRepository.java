@@ -0,0 +1,9 @@
+package com.example.venteEnLigne.ProduitService.repository;
+
+import com.example.venteEnLigne.ProduitService.model.ImageContent;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImageContentRepository extends MongoRepository<ImageContent, String> {
+}
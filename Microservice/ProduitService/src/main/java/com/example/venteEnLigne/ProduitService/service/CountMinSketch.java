@@ -0,0 +1,118 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Count-Min Sketch : fréquences approchées en mémoire fixe (depth x width compteurs).
+ * Une estimation ne sous-estime jamais ; elle surestime d'au plus e/width du total
+ * avec une probabilité 1 - e^-depth. Compteurs décimaux pour l'oubli progressif
+ * (decay). Non thread-safe : l'appelant synchronise.
+ */
+final class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final double[][] counts;
+
+    CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        this.width = width;
+        this.counts = new double[depth][width];
+    }
+
+    /**
+     * @return l'estimation de {@code key} après l'ajout
+     */
+    double add(String key, double amount) {
+        long h1 = mix(key.hashCode());
+        long h2 = fnv(key) | 1; // Impair : les lignes parcourent des colonnes différentes
+        double estimate = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int column = column(h1, h2, row);
+            counts[row][column] += amount;
+            estimate = Math.min(estimate, counts[row][column]);
+        }
+        return estimate;
+    }
+
+    double estimate(String key) {
+        long h1 = mix(key.hashCode());
+        long h2 = fnv(key) | 1;
+        double estimate = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row][column(h1, h2, row)]);
+        }
+        return estimate;
+    }
+
+    void decay(double factor) {
+        for (double[] row : counts) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] *= factor;
+            }
+        }
+    }
+
+    /**
+     * Ajoute les compteurs de {@code other}, cellule par cellule : le résultat est le
+     * sketch des deux flux réunis. Les dimensions doivent être identiques.
+     */
+    void merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Dimensions de sketch différentes");
+        }
+        for (int row = 0; row < depth; row++) {
+            for (int i = 0; i < width; i++) {
+                counts[row][i] += other.counts[row][i];
+            }
+        }
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(depth);
+        out.writeInt(width);
+        for (double[] row : counts) {
+            for (double count : row) {
+                out.writeDouble(count);
+            }
+        }
+    }
+
+    /**
+     * Relit un sketch écrit par {@link #write}, ignoré (null) si ses dimensions diffèrent
+     */
+    static CountMinSketch read(DataInput in, int depth, int width) throws IOException {
+        int savedDepth = in.readInt();
+        int savedWidth = in.readInt();
+        CountMinSketch sketch = new CountMinSketch(savedDepth, savedWidth);
+        for (double[] row : sketch.counts) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = in.readDouble();
+            }
+        }
+        return savedDepth == depth && savedWidth == width ? sketch : null;
+    }
+
+    // Double hachage (Kirsch-Mitzenmacher) : h1 + row * h2
+    private int column(long h1, long h2, int row) {
+        return (int) Math.floorMod(h1 + row * h2, (long) width);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long fnv(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
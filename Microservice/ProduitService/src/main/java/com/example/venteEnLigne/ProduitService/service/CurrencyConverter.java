@@ -0,0 +1,201 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.CurrencyProperties;
+import com.example.venteEnLigne.ProduitService.dto.ProduitResponse;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Conversion des prix entre devises (CDF, USD) à partir d'une table de taux en
+ * mémoire. La table est remplacée d'un bloc à chaque rafraîchissement : une page
+ * est convertie avec un seul instantané, sans appel au fournisseur ni verrou.
+ * Fournisseur indisponible : la dernière table valide reste en service.
+ * La première table est chargée avant la mise en service du bean : tant qu'aucune n'a
+ * pu l'être, une conversion vers une autre devise que la base échoue au lieu d'être
+ * refusée comme devise inconnue.
+ */
+@Component
+@Slf4j
+public class CurrencyConverter {
+
+    private final CurrencyProperties properties;
+    private final ExchangeRateProvider provider;
+    private volatile RateTable table;
+
+    public CurrencyConverter(CurrencyProperties properties, ExchangeRateProvider provider) {
+        this.properties = properties;
+        this.provider = provider;
+        this.table = RateTable.of(normalize(properties.getBase()), Map.of(), Instant.EPOCH);
+    }
+
+    @PostConstruct
+    void loadRates() {
+        refresh();
+    }
+
+    // Premier passage au démarrage (loadRates), puis à intervalle fixe
+    @Scheduled(initialDelayString = "${currency.refresh-interval-ms:3600000}",
+            fixedDelayString = "${currency.refresh-interval-ms:3600000}")
+    public void refresh() {
+        try {
+            table = RateTable.of(normalize(properties.getBase()), provider.fetchRates(), Instant.now());
+            log.info("Taux de change rafraîchis: {}", table.currencies());
+        } catch (Exception e) {
+            Duration age = Duration.between(table.fetchedAt(), Instant.now());
+            if (age.toMinutes() > properties.getMaxAgeMinutes()) {
+                log.error("Taux de change non rafraîchis depuis {} min: {}", age.toMinutes(), e.getMessage());
+            } else {
+                log.warn("Rafraîchissement des taux impossible, table précédente conservée: {}", e.getMessage());
+            }
+        }
+    }
+
+    public RateTable rates() {
+        return table;
+    }
+
+    /**
+     * @return le code devise normalisé
+     * @throws IllegalArgumentException si la devise n'est pas dans la table
+     * @throws IllegalStateException si aucune table de taux n'a encore été chargée
+     */
+    public String requireSupported(String currency) {
+        String code = normalize(currency);
+        if (code != null && !table.currencies().contains(code) && !table.loaded()) {
+            throw new IllegalStateException("Taux de change pas encore chargés, conversion en " + code + " indisponible");
+        }
+        if (code == null || !table.currencies().contains(code)) {
+            throw new IllegalArgumentException("Devise non supportée: " + currency
+                    + " (disponibles: " + String.join(", ", table.currencies()) + ")");
+        }
+        return code;
+    }
+
+    /**
+     * Convertit sur place les prix d'une page vers {@code currency}. Le prix et la devise
+     * d'origine sont conservés dans prixOrigine / currencyOrigine. Les réponses doivent
+     * être propres à la requête (jamais une instance du cache produit).
+     */
+    public void convertPrices(List<ProduitResponse> produits, String currency) {
+        String target = requireSupported(currency);
+        Map<String, BigDecimal> toTarget = table.factorsTo(target);
+        for (ProduitResponse produit : produits) {
+            BigDecimal converted = convert(produit.getPrix(), produit.getCurrency(), target, toTarget);
+            if (converted != null) {
+                produit.setPrixOrigine(produit.getPrix());
+                produit.setCurrencyOrigine(produit.getCurrency());
+                produit.setPrix(converted);
+                produit.setCurrency(target);
+            }
+        }
+    }
+
+    /**
+     * Même conversion pour les vues projetées ({@code fields=}) : prix, currency,
+     * prixOrigine et currencyOrigine y ont les mêmes valeurs que dans une réponse complète.
+     * La vue doit contenir la devise source (voir {@link ProduitFields#withCurrency}).
+     */
+    public void convertViews(List<Map<String, Object>> views, String currency) {
+        String target = requireSupported(currency);
+        Map<String, BigDecimal> toTarget = table.factorsTo(target);
+        for (Map<String, Object> view : views) {
+            if (!(view.get("prix") instanceof BigDecimal prix) || !(view.get("currency") instanceof String source)) {
+                continue;
+            }
+            BigDecimal converted = convert(prix, source, target, toTarget);
+            if (converted != null) {
+                view.put("prix", converted);
+                view.put("currency", target);
+                view.put("prixOrigine", prix);
+                view.put("currencyOrigine", source);
+            }
+        }
+    }
+
+    // null si rien à convertir : prix absent, même devise, ou devise inconnue de la table
+    private static BigDecimal convert(BigDecimal prix, String currency, String target, Map<String, BigDecimal> toTarget) {
+        String source = normalize(currency);
+        if (prix == null || source == null || target.equals(source)) {
+            return null;
+        }
+        BigDecimal factor = toTarget.get(source);
+        return factor == null ? null : RateTable.round(prix.multiply(factor));
+    }
+
+    static String normalize(String currency) {
+        return currency == null ? null : currency.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Facteurs de conversion précalculés pour chaque couple de devises.
+     */
+    public record RateTable(String base, Map<String, Map<String, BigDecimal>> factors, Instant fetchedAt) {
+
+        static RateTable of(String base, Map<String, BigDecimal> rates, Instant fetchedAt) {
+            Map<String, BigDecimal> unitsPerBase = new HashMap<>();
+            rates.forEach((currency, rate) -> {
+                if (rate != null && rate.signum() > 0) {
+                    unitsPerBase.put(normalize(currency), rate);
+                }
+            });
+            unitsPerBase.put(base, BigDecimal.ONE);
+
+            Map<String, Map<String, BigDecimal>> factors = new HashMap<>();
+            unitsPerBase.forEach((target, targetRate) -> {
+                Map<String, BigDecimal> fromSource = new HashMap<>();
+                unitsPerBase.forEach((source, sourceRate) ->
+                        fromSource.put(source, targetRate.divide(sourceRate, MathContext.DECIMAL64)));
+                factors.put(target, Map.copyOf(fromSource));
+            });
+            return new RateTable(base, Map.copyOf(factors), fetchedAt);
+        }
+
+        public Set<String> currencies() {
+            return factors.keySet();
+        }
+
+        boolean loaded() {
+            return !Instant.EPOCH.equals(fetchedAt);
+        }
+
+        /**
+         * @return facteur multiplicatif de chaque devise source vers {@code target}
+         */
+        public Map<String, BigDecimal> factorsTo(String target) {
+            Map<String, BigDecimal> fromSource = factors.get(target);
+            if (fromSource == null) {
+                throw new IllegalArgumentException("Devise non supportée: " + target);
+            }
+            return fromSource;
+        }
+
+        public BigDecimal factor(String source, String target) {
+            BigDecimal factor = factorsTo(normalize(target)).get(normalize(source));
+            if (factor == null) {
+                throw new IllegalArgumentException("Devise non supportée: " + source);
+            }
+            return factor;
+        }
+
+        public BigDecimal convert(BigDecimal amount, String source, String target) {
+            return round(amount.multiply(factor(source, target)));
+        }
+
+        static BigDecimal round(BigDecimal amount) {
+            return amount.setScale(2, RoundingMode.HALF_EVEN);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.GitHubProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.*;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+/**
+ * Stockage via l'API contents de GitHub, servi par jsDelivr.
+ */
+@Component
+@ConditionalOnProperty(name = "image.storage.type", havingValue = "github", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class GitHubImageStorage implements ImageStorage {
+
+    private final GitHubProperties gitHubProperties;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public StoredImage store(String path, Path source, String contentType) throws IOException {
+        String url = String.format("%s/repos/%s/%s/contents/%s",
+                gitHubProperties.getApiUrl(),
+                gitHubProperties.getOwner(),
+                gitHubProperties.getRepo(),
+                path);
+
+        log.info("Uploading image to GitHub: {}", url);
+        URI uri = UriComponentsBuilder.fromUriString(url).build().encode().toUri();
+        try {
+            // Corps JSON écrit en flux : le fichier est encodé en Base64 à la volée,
+            // sans jamais être chargé entièrement en mémoire
+            restTemplate.execute(uri, HttpMethod.PUT, request -> {
+                request.getHeaders().addAll(createHeaders());
+                request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                OutputStream body = request.getBody();
+                String head = "{\"message\":" + objectMapper.writeValueAsString("Upload image " + path)
+                        + ",\"branch\":" + objectMapper.writeValueAsString(gitHubProperties.getBranch())
+                        + ",\"content\":\"";
+                body.write(head.getBytes(StandardCharsets.UTF_8));
+                try (OutputStream base64 = Base64.getEncoder().wrap(new NonClosingOutputStream(body))) {
+                    Files.copy(source, base64);
+                }
+                body.write("\"}".getBytes(StandardCharsets.UTF_8));
+            }, response -> null);
+        } catch (HttpClientErrorException e) {
+            // Chemin adressé par contenu : GitHub refuse (422, sha manquant) d'écraser un fichier
+            // présent sans son sha, et ce fichier est identique. Pas de GET préalable, ImageHashIndex
+            // résout d'abord les doublons
+            if (e.getStatusCode().value() == 422 && e.getResponseBodyAsString().contains("sha")) {
+                log.info("File already on GitHub: {}", path);
+                return new StoredImage(cdnUrl(path), true);
+            }
+            log.error("Error uploading to GitHub", e);
+            throw new RuntimeException("Failed to upload image to GitHub: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Error uploading to GitHub", e);
+            throw new RuntimeException("Failed to upload image to GitHub: " + e.getMessage());
+        }
+
+        return new StoredImage(cdnUrl(path), false);
+    }
+
+    // Generate jsDelivr URL
+    private String cdnUrl(String path) {
+        return String.format("https://cdn.jsdelivr.net/gh/%s/%s@%s/%s",
+                gitHubProperties.getOwner(),
+                gitHubProperties.getRepo(),
+                gitHubProperties.getBranch(),
+                path);
+    }
+
+    private HttpHeaders createHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "token " + gitHubProperties.getToken());
+        headers.set("Accept", "application/vnd.github.v3+json");
+        return headers;
+    }
+
+    // Fermer l'encodeur Base64 écrit son padding sans fermer le corps de la requête
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.HotProduitsProperties;
+import com.example.venteEnLigne.ProduitService.dto.OrderBasket;
+import com.example.venteEnLigne.ProduitService.dto.OrderBasketPage;
+import com.example.venteEnLigne.ProduitService.model.ClassementType;
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Produits les plus vus et les plus vendus, au global et par catégorie. Chaque
+ * événement incrémente un Count-Min Sketch (mémoire fixe quel que soit le nombre de
+ * produits) et l'estimation obtenue alimente un Top-K par catégorie. Les classements
+ * sont republiés chaque seconde en listes immuables : une lecture n'est qu'un accès
+ * à une table. Les scores s'estompent avec une demi-vie, et l'état est sauvegardé
+ * dans Redis pour survivre à un redémarrage.
+ * Les ventes viennent des paniers de OrderService, lus par position comme pour
+ * RelatedProduitsIndex : chaque instance les voit toutes. Les vues sont propres à
+ * l'instance ; chaque instance sauvegarde son état dans son propre champ d'un hash
+ * Redis, et relit à chaque sauvegarde les sketchs de vues des autres pour les sommer
+ * aux siens (un Count-Min Sketch s'additionne cellule par cellule).
+ */
+@Component
+@Slf4j
+public class HotProduitsTracker {
+
+    public static final String TOUTES = "*"; // Classement toutes catégories
+
+    private static final int SNAPSHOT_VERSION = 2;
+
+    private final HotProduitsProperties properties;
+    private final OrderServiceClient orderServiceClient;
+    private final MongoTemplate mongoTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String instanceId;
+
+    private final Map<ClassementType, Board> boards = new EnumMap<>(ClassementType.class);
+    // Classements publiés : type -> catégorie -> produits par score décroissant
+    private final Map<ClassementType, Map<String, List<TopK.Entry>>> published = new EnumMap<>(ClassementType.class);
+
+    // Position dans les paniers : lue et écrite par le seul thread des ventes, et
+    // sauvegardée avec les compteurs pour ne compter aucun panier deux fois
+    private volatile LocalDateTime ventesAfterCreatedAt;
+    private volatile String ventesAfterId;
+    private volatile boolean ready;
+
+    public HotProduitsTracker(HotProduitsProperties properties,
+                              OrderServiceClient orderServiceClient,
+                              MongoTemplate mongoTemplate,
+                              StringRedisTemplate stringRedisTemplate) {
+        this.properties = properties;
+        this.orderServiceClient = orderServiceClient;
+        this.mongoTemplate = mongoTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.instanceId = properties.getInstanceId() == null || properties.getInstanceId().isBlank()
+                ? defaultInstanceId()
+                : properties.getInstanceId();
+        for (ClassementType type : ClassementType.values()) {
+            boards.put(type, new Board(new CountMinSketch(properties.getSketchDepth(), properties.getSketchWidth())));
+            published.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (!restore()) {
+            // Premier démarrage : quatre demi-vies d'historique, pondérées par leur ancienneté
+            ventesAfterCreatedAt = LocalDateTime.now().minus(halfLife().multipliedBy(4));
+        }
+        ready = true;
+    }
+
+    public void recordView(String produitId, String categorie) {
+        if (ready && produitId != null) {
+            boards.get(ClassementType.VUES).add(produitId, categorie, 1);
+        }
+    }
+
+    public List<TopK.Entry> top(ClassementType type, String categorie, int limit) {
+        List<TopK.Entry> classement = published.get(type).getOrDefault(categorie == null ? TOUTES : categorie, List.of());
+        return classement.size() <= limit ? classement : classement.subList(0, limit);
+    }
+
+    @Scheduled(fixedDelayString = "${produit.hot.publish-interval-ms:1000}")
+    public void publish() {
+        boards.forEach((type, board) -> board.publishTo(published.get(type)));
+    }
+
+    @Scheduled(fixedDelayString = "${produit.hot.ventes-interval-ms:30000}")
+    public void refreshVentes() {
+        if (!ready) {
+            return;
+        }
+        try {
+            OrderBasketPage page;
+            do {
+                page = orderServiceClient.getBaskets(ventesAfterCreatedAt, ventesAfterId, properties.getBatchSize());
+                List<OrderBasket> baskets = page.getBaskets() == null ? List.of() : page.getBaskets();
+                recordVentes(baskets);
+                if (!baskets.isEmpty()) {
+                    ventesAfterCreatedAt = page.getNextCreatedAt();
+                    ventesAfterId = page.getNextId();
+                }
+            } while (page.getBaskets() != null && page.getBaskets().size() >= properties.getBatchSize());
+        } catch (Exception e) {
+            log.warn("Lecture des paniers impossible, classement des ventes inchangé: {}", e.getMessage());
+        }
+    }
+
+    // Oubli progressif puis sauvegarde, au même rythme
+    @Scheduled(fixedDelayString = "${produit.hot.snapshot-interval-ms:60000}",
+            initialDelayString = "${produit.hot.snapshot-interval-ms:60000}")
+    public void maintain() {
+        if (!ready) {
+            return;
+        }
+        double factor = decayFactor(Duration.ofMillis(properties.getSnapshotIntervalMs()));
+        boards.values().forEach(board -> board.decay(factor));
+        try {
+            stringRedisTemplate.opsForHash().put(properties.getRedisKey(), instanceId, snapshot());
+        } catch (Exception e) {
+            log.warn("Sauvegarde des classements dans Redis impossible: {}", e.getMessage());
+        }
+        try {
+            mergeAutresInstances();
+        } catch (Exception e) {
+            log.warn("Lecture des vues des autres instances impossible: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Somme les sketchs de vues sauvegardés par les autres instances, chacun estompé
+     * selon son âge. Les ventes ne sont pas sommées : chaque instance lit déjà tous les
+     * paniers. Une sauvegarde plus vieille que quatre demi-vies (instance arrêtée) est
+     * supprimée.
+     */
+    private void mergeAutresInstances() throws IOException {
+        long now = System.currentTimeMillis();
+        CountMinSketch autres = null;
+        Map<String, Set<String>> candidats = new HashMap<>();
+        for (Map.Entry<Object, Object> saved : stringRedisTemplate.opsForHash().entries(properties.getRedisKey()).entrySet()) {
+            if (instanceId.equals(saved.getKey())) {
+                continue;
+            }
+            Snapshot snapshot = parse((String) saved.getValue());
+            if (snapshot == null) {
+                continue; // Autre version ou autres dimensions : ignorée
+            }
+            Duration age = Duration.ofMillis(Math.max(0, now - snapshot.savedAt()));
+            if (age.compareTo(halfLife().multipliedBy(4)) > 0) {
+                stringRedisTemplate.opsForHash().delete(properties.getRedisKey(), saved.getKey());
+                continue;
+            }
+            SavedBoard vues = snapshot.boards().get(ClassementType.VUES);
+            vues.sketch().decay(decayFactor(age));
+            if (autres == null) {
+                autres = vues.sketch();
+            } else {
+                autres.merge(vues.sketch());
+            }
+            vues.tops().forEach((categorie, entries) -> entries.forEach(entry ->
+                    candidats.computeIfAbsent(categorie, key -> new HashSet<>()).add(entry.key())));
+        }
+        boards.get(ClassementType.VUES).setAutres(autres, candidats);
+    }
+
+    private void recordVentes(List<OrderBasket> baskets) {
+        Set<String> produitIds = new HashSet<>();
+        baskets.forEach(basket -> {
+            if (basket.getProduitIds() != null) {
+                produitIds.addAll(basket.getProduitIds());
+            }
+        });
+        if (produitIds.isEmpty()) {
+            return;
+        }
+        // Une requête par lot pour les catégories ; un produit supprimé n'a que le classement global
+        Query query = new Query(Criteria.where("id").in(produitIds));
+        query.fields().include("categorie");
+        Map<String, String> categories = new HashMap<>();
+        for (Produit produit : mongoTemplate.find(query, Produit.class)) {
+            if (produit.getCategorie() != null) {
+                categories.put(produit.getId(), produit.getCategorie());
+            }
+        }
+
+        Board ventes = boards.get(ClassementType.VENTES);
+        LocalDateTime now = LocalDateTime.now();
+        for (OrderBasket basket : baskets) {
+            if (basket.getProduitIds() == null) {
+                continue;
+            }
+            double poids = basket.getCreatedAt() == null || basket.getCreatedAt().isAfter(now)
+                    ? 1
+                    : decayFactor(Duration.between(basket.getCreatedAt(), now));
+            for (String produitId : new LinkedHashSet<>(basket.getProduitIds())) {
+                if (produitId != null) {
+                    ventes.add(produitId, categories.get(produitId), poids);
+                }
+            }
+        }
+    }
+
+    private Duration halfLife() {
+        return Duration.ofMinutes(Math.round(properties.getHalfLifeHours() * 60));
+    }
+
+    private double decayFactor(Duration elapsed) {
+        return Math.pow(0.5, (double) elapsed.toMillis() / halfLife().toMillis());
+    }
+
+    // ---- Sauvegarde Redis (binaire, en Base64) ----
+
+    private String snapshot() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeUTF(ventesAfterCreatedAt == null ? "" : ventesAfterCreatedAt.toString());
+            out.writeUTF(ventesAfterId == null ? "" : ventesAfterId);
+            for (ClassementType type : ClassementType.values()) {
+                boards.get(type).write(out);
+            }
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    private record SavedBoard(CountMinSketch sketch, Map<String, List<TopK.Entry>> tops) {
+    }
+
+    private record Snapshot(long savedAt, LocalDateTime ventesAfterCreatedAt, String ventesAfterId,
+                            Map<ClassementType, SavedBoard> boards) {
+    }
+
+    // null si la sauvegarde est d'une autre version ou d'autres dimensions de sketch
+    private Snapshot parse(String saved) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(saved)))) {
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                return null;
+            }
+            long savedAt = in.readLong();
+            String createdAt = in.readUTF();
+            String id = in.readUTF();
+            Map<ClassementType, SavedBoard> savedBoards = new EnumMap<>(ClassementType.class);
+            for (ClassementType type : ClassementType.values()) {
+                CountMinSketch sketch = CountMinSketch.read(in, properties.getSketchDepth(), properties.getSketchWidth());
+                Map<String, List<TopK.Entry>> tops = new HashMap<>();
+                int categories = in.readInt();
+                for (int i = 0; i < categories; i++) {
+                    String categorie = in.readUTF();
+                    int entries = in.readInt();
+                    List<TopK.Entry> lues = new ArrayList<>(entries);
+                    for (int j = 0; j < entries; j++) {
+                        lues.add(new TopK.Entry(in.readUTF(), in.readDouble()));
+                    }
+                    tops.put(categorie, lues);
+                }
+                if (sketch == null) {
+                    return null;
+                }
+                savedBoards.put(type, new SavedBoard(sketch, tops));
+            }
+            return new Snapshot(savedAt, createdAt.isEmpty() ? null : LocalDateTime.parse(createdAt),
+                    id.isEmpty() ? null : id, savedBoards);
+        }
+    }
+
+    private boolean restore() {
+        try {
+            Object saved = stringRedisTemplate.opsForHash().get(properties.getRedisKey(), instanceId);
+            if (saved == null) {
+                return false;
+            }
+            Snapshot snapshot = parse((String) saved);
+            if (snapshot == null) {
+                log.info("Sauvegarde d'une autre version ou dimensions du sketch modifiées, classements repartis de zéro");
+                return false;
+            }
+            snapshot.boards().forEach((type, board) -> boards.get(type).apply(board));
+            ventesAfterCreatedAt = snapshot.ventesAfterCreatedAt();
+            ventesAfterId = snapshot.ventesAfterId();
+            publish();
+            log.info("Classements des produits restaurés depuis Redis (instance {})", instanceId);
+            return true;
+        } catch (Exception e) {
+            log.warn("Restauration des classements impossible, départ à zéro: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static String defaultInstanceId() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    /**
+     * Sketch et Top-K par catégorie d'un type de classement, sous un même verrou.
+     */
+    private final class Board {
+
+        private CountMinSketch sketch;
+        private final Map<String, TopK> tops = new HashMap<>();
+        private final Set<String> dirty = new HashSet<>();
+        // Sketchs des autres instances, sommés, et leurs candidats par catégorie (null : aucune)
+        private CountMinSketch autres;
+        private Map<String, Set<String>> candidatsAutres = Map.of();
+
+        Board(CountMinSketch sketch) {
+            this.sketch = sketch;
+        }
+
+        synchronized void add(String produitId, String categorie, double amount) {
+            double estimate = sketch.add(produitId, amount);
+            offer(TOUTES, produitId, estimate);
+            if (categorie != null) {
+                offer(categorie, produitId, estimate);
+            }
+        }
+
+        private void offer(String categorie, String produitId, double estimate) {
+            tops.computeIfAbsent(categorie, key -> new TopK(properties.getTopK())).offer(produitId, estimate);
+            dirty.add(categorie);
+        }
+
+        synchronized void decay(double factor) {
+            sketch.decay(factor);
+            tops.forEach((categorie, top) -> top.decay(factor));
+            dirty.addAll(tops.keySet());
+        }
+
+        synchronized void setAutres(CountMinSketch autres, Map<String, Set<String>> candidats) {
+            dirty.addAll(candidatsAutres.keySet());
+            this.autres = autres;
+            this.candidatsAutres = candidats;
+            dirty.addAll(tops.keySet());
+            dirty.addAll(candidats.keySet());
+        }
+
+        void publishTo(Map<String, List<TopK.Entry>> target) {
+            Map<String, List<TopK.Entry>> classements = new HashMap<>();
+            synchronized (this) {
+                for (String categorie : dirty) {
+                    classements.put(categorie, List.copyOf(classement(categorie)));
+                }
+                dirty.clear();
+            }
+            target.putAll(classements);
+        }
+
+        // Candidats locaux et des autres instances, réestimés sur la somme des sketchs
+        private List<TopK.Entry> classement(String categorie) {
+            TopK top = tops.get(categorie);
+            if (autres == null) {
+                return top == null ? List.of() : top.sorted();
+            }
+            Set<String> candidats = new HashSet<>(candidatsAutres.getOrDefault(categorie, Set.of()));
+            if (top != null) {
+                top.sorted().forEach(entry -> candidats.add(entry.key()));
+            }
+            return candidats.stream()
+                    .map(key -> new TopK.Entry(key, sketch.estimate(key) + autres.estimate(key)))
+                    .sorted(Comparator.comparingDouble(TopK.Entry::score).reversed().thenComparing(TopK.Entry::key))
+                    .limit(properties.getTopK())
+                    .toList();
+        }
+
+        synchronized void write(DataOutputStream out) throws IOException {
+            sketch.write(out);
+            out.writeInt(tops.size());
+            for (Map.Entry<String, TopK> top : tops.entrySet()) {
+                out.writeUTF(top.getKey());
+                List<TopK.Entry> entries = top.getValue().sorted();
+                out.writeInt(entries.size());
+                for (TopK.Entry entry : entries) {
+                    out.writeUTF(entry.key());
+                    out.writeDouble(entry.score());
+                }
+            }
+        }
+
+        synchronized void apply(SavedBoard saved) {
+            sketch = saved.sketch();
+            tops.clear();
+            saved.tops().forEach((categorie, entries) -> {
+                TopK top = new TopK(properties.getTopK());
+                entries.forEach(entry -> top.offer(entry.key(), entry.score()));
+                tops.put(categorie, top);
+            });
+            dirty.addAll(tops.keySet());
+        }
+    }
+}
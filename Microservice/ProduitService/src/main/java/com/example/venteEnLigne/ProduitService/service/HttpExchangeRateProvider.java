@@ -0,0 +1,34 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.CurrencyProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Taux lus sur un service HTTP (currency.http-url) renvoyant {"rates": {"CDF": 2850.5}}.
+ */
+@Component
+@ConditionalOnProperty(name = "currency.provider", havingValue = "http")
+@RequiredArgsConstructor
+public class HttpExchangeRateProvider implements ExchangeRateProvider {
+
+    private final CurrencyProperties currencyProperties;
+    private final RestTemplate restTemplate;
+
+    @Override
+    public Map<String, BigDecimal> fetchRates() {
+        RatesPayload payload = restTemplate.getForObject(currencyProperties.getHttpUrl(), RatesPayload.class);
+        if (payload == null || payload.rates() == null) {
+            throw new IllegalStateException("Réponse sans taux de change: " + currencyProperties.getHttpUrl());
+        }
+        return payload.rates();
+    }
+
+    record RatesPayload(Map<String, BigDecimal> rates) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.ImageUploadProperties;
+import com.example.venteEnLigne.ProduitService.model.ImageContent;
+import com.example.venteEnLigne.ProduitService.repository.ImageContentRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Index empreinte SHA-256 → URLs des images déjà stockées. Un upload identique est
+ * résolu ici (mémoire locale, puis MongoDB) sans aucun appel au backend de stockage.
+ */
+@Component
+@Slf4j
+public class ImageHashIndex {
+
+    private final ImageContentRepository imageContentRepository;
+    private final Cache<String, ImageContent> local;
+
+    public ImageHashIndex(ImageContentRepository imageContentRepository, ImageUploadProperties properties) {
+        this.imageContentRepository = imageContentRepository;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(properties.getHashIndexLocalSize())
+                .build();
+    }
+
+    public Optional<ImageContent> lookup(String sha256) {
+        ImageContent cached = local.getIfPresent(sha256);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<ImageContent> stored = imageContentRepository.findById(sha256);
+        stored.ifPresent(content -> local.put(sha256, content));
+        return stored;
+    }
+
+    public void record(String sha256, String url, Map<String, String> variants, long size) {
+        ImageContent content = ImageContent.builder()
+                .id(sha256)
+                .url(url)
+                .variants(variants)
+                .size(size)
+                .createdAt(LocalDateTime.now())
+                .build();
+        imageContentRepository.save(content);
+        local.put(sha256, content);
+        log.debug("Image {} indexée: {}", sha256, url);
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.ImageProcessingProperties;
+import com.example.venteEnLigne.ProduitService.model.ImageVariant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.*;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Décode une image une seule fois et en produit les variantes JPEG, sans métadonnées
+ * (EXIF, GPS...). Le décodage est sous-échantillonné dès la lecture quand l'original
+ * est bien plus grand que la plus grande variante, puis chaque variante est réduite
+ * depuis la précédente. Les variantes ne portant plus d'EXIF, l'orientation de l'original
+ * est appliquée aux pixels avant la réduction. Le travail s'exécute sur le pool borné
+ * image-processing.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImageProcessor {
+
+    private static final String EXIF_HEADER = "Exif\0\0";
+
+    private final ImageProcessingProperties properties;
+    private final ThreadPoolTaskExecutor imageProcessingExecutor;
+
+    /**
+     * Génère les variantes sur le pool de traitement et attend le résultat.
+     *
+     * @throws IllegalArgumentException si le fichier n'est pas une image lisible
+     */
+    public ProcessedImage process(Path source) throws IOException {
+        try {
+            return imageProcessingExecutor.submit(() -> generate(source)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Traitement d'image interrompu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException iae) {
+                throw iae;
+            }
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            throw new IOException("Échec du traitement d'image", e.getCause());
+        }
+    }
+
+    ProcessedImage generate(Path source) throws IOException {
+        BufferedImage image = orient(decode(source), readOrientation(source));
+        Map<ImageVariant, Path> files = new EnumMap<>(ImageVariant.class);
+        try {
+            for (ImageVariant variant : ImageVariant.values()) {
+                image = scale(image, variant.getMaxSize());
+                Path file = Files.createTempFile(source.getParent(), variant.getKey() + "-", ".jpg");
+                files.put(variant, file);
+                writeJpeg(image, file);
+            }
+        } catch (IOException | RuntimeException e) {
+            new ProcessedImage(files).deleteFiles();
+            throw e;
+        }
+        return new ProcessedImage(files);
+    }
+
+    private BufferedImage decode(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Unreadable image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true); // Métadonnées ignorées, l'orientation est lue à part
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > properties.getMaxPixels()) {
+                    throw new IllegalArgumentException("Image dimensions too large");
+                }
+                // Sous-échantillonnage en gardant au moins 2x la plus grande variante
+                int subsampling = Math.max(1, Math.max(width, height) / (2 * ImageVariant.DETAIL.getMaxSize()));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IIOException e) {
+            throw new IllegalArgumentException("Unreadable image", e);
+        }
+    }
+
+    /**
+     * Lit le tag EXIF Orientation (0x0112) du segment APP1 d'un JPEG, sans décoder l'image.
+     *
+     * @return la valeur du tag, ou 1 (aucune transformation) si absent ou illisible
+     */
+    static int readOrientation(Path source) throws IOException {
+        try (InputStream raw = Files.newInputStream(source);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+            if (in.readUnsignedShort() != 0xFFD8) {
+                return 1; // Pas un JPEG
+            }
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return 1; // Début des données compressées : plus de métadonnées à lire
+                }
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) {
+                    return 1;
+                }
+                if (marker != 0xFFE1) {
+                    in.skipNBytes(length);
+                    continue;
+                }
+                byte[] segment = in.readNBytes(length);
+                if (segment.length < 6 || !EXIF_HEADER.equals(new String(segment, 0, 6, StandardCharsets.ISO_8859_1))) {
+                    continue; // APP1 XMP
+                }
+                return orientationFromTiff(ByteBuffer.wrap(segment, 6, segment.length - 6).slice());
+            }
+        } catch (EOFException e) {
+            return 1;
+        }
+    }
+
+    private static int orientationFromTiff(ByteBuffer tiff) {
+        try {
+            short byteOrder = tiff.getShort(0);
+            if (byteOrder == 0x4949) {
+                tiff.order(ByteOrder.LITTLE_ENDIAN);
+            } else if (byteOrder != 0x4D4D) {
+                return 1;
+            }
+            int ifd = tiff.getInt(4);
+            int entries = tiff.getShort(ifd) & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if ((tiff.getShort(entry) & 0xFFFF) == 0x0112) {
+                    int orientation = tiff.getShort(entry + 8) & 0xFFFF;
+                    return orientation >= 1 && orientation <= 8 ? orientation : 1;
+                }
+            }
+            return 1;
+        } catch (IndexOutOfBoundsException e) {
+            return 1; // EXIF tronqué : l'image reste telle qu'encodée
+        }
+    }
+
+    // Applique l'orientation EXIF : 2-4 miroirs/demi-tour, 5-8 quart de tour (largeur et hauteur échangées)
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);
+            default -> null;
+        };
+        if (transform == null) {
+            return image;
+        }
+        boolean quarterTurn = orientation >= 5;
+        BufferedImage oriented = new BufferedImage(quarterTurn ? h : w, quarterTurn ? w : h,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = oriented.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, oriented.getWidth(), oriented.getHeight());
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return oriented;
+    }
+
+    // Réduit sur un fond blanc opaque (le JPEG n'a pas de canal alpha), sans agrandir
+    private static BufferedImage scale(BufferedImage image, int maxSize) {
+        double ratio = Math.min(1.0, (double) maxSize / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        if (ratio == 1.0 && image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(properties.getJpegQuality());
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Fichiers temporaires des variantes, à supprimer par l'appelant une fois stockés.
+     */
+    public record ProcessedImage(Map<ImageVariant, Path> files) {
+
+        public void deleteFiles() {
+            files.values().forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Variante temporaire {} non supprimée: {}", file, e.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Backend de stockage des images. L'implémentation est choisie par image.storage.type.
+ */
+public interface ImageStorage {
+
+    /**
+     * Stocke le fichier local {@code source} sous le chemin relatif {@code path}. Les
+     * chemins sont adressés par contenu : un fichier déjà présent est identique et
+     * n'est pas réécrit ({@code replaced} vaut alors true).
+     */
+    StoredImage store(String path, Path source, String contentType) throws IOException;
+
+    record StoredImage(String url, boolean replaced) {
+    }
+}
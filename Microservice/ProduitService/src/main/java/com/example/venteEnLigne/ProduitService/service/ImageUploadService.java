@@ -1,18 +1,32 @@
 package com.example.venteEnLigne.ProduitService.service;
 
-import com.example.venteEnLigne.ProduitService.config.GitHubProperties;
+import com.example.venteEnLigne.ProduitService.config.ImageUploadProperties;
+import com.example.venteEnLigne.ProduitService.dto.ImageUploadJobResponse;
 import com.example.venteEnLigne.ProduitService.dto.ImageUploadResponse;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.venteEnLigne.ProduitService.dto.ProduitUpdateRequest;
+import com.example.venteEnLigne.ProduitService.exception.ImageUploadJobNotFoundException;
+import com.example.venteEnLigne.ProduitService.model.ImageContent;
+import com.example.venteEnLigne.ProduitService.model.ImageUploadJob;
+import com.example.venteEnLigne.ProduitService.model.ImageUploadStatus;
+import com.example.venteEnLigne.ProduitService.model.ImageVariant;
+import com.example.venteEnLigne.ProduitService.repository.ImageUploadJobRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.*;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Service
@@ -20,80 +34,210 @@ import java.util.*;
 @Slf4j
 public class ImageUploadService {
 
-    private final GitHubProperties gitHubProperties;
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private final ImageStorage imageStorage;
+    private final ImageProcessor imageProcessor;
+    private final ImageHashIndex imageHashIndex;
+    private final ProduitService produitService;
+    private final ImageUploadJobRepository imageUploadJobRepository;
+    private final ThreadPoolTaskExecutor imageUploadExecutor;
+    private final ImageUploadProperties imageUploadProperties;
 
     private static final List<String> ALLOWED_CONTENT_TYPES = Arrays.asList("image/jpeg", "image/png", "image/gif");
     private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+    private static final String VARIANT_CONTENT_TYPE = "image/jpeg";
 
     public ImageUploadResponse uploadImage(MultipartFile file) throws IOException {
+        return uploadImage(file, null);
+    }
+
+    /**
+     * @param produitId produit auquel rattacher l'image et ses variantes, ou null
+     */
+    public ImageUploadResponse uploadImage(MultipartFile file, String produitId) throws IOException {
+        validateFile(file);
+        if (produitId != null) {
+            produitService.getProduitById(produitId); // ProduitNotFoundException avant tout traitement
+        }
+
+        Spooled spooled = spool(file);
+        try {
+            StoredVariants stored = storeVariants(spooled);
+            attach(produitId, stored);
+            return ImageUploadResponse.builder()
+                    .url(stored.url())
+                    .fileName(spooled.sha256())
+                    .message(stored.deduplicated() ? "Image already uploaded" : "Image uploaded successfully")
+                    .replaced(stored.replaced())
+                    .deduplicated(stored.deduplicated())
+                    .variants(stored.variants())
+                    .build();
+        } finally {
+            Files.deleteIfExists(spooled.path());
+        }
+    }
+
+    /**
+     * Écrit le fichier sur disque et rend la main aussitôt : l'envoi vers le stockage
+     * est fait par le pool image-upload. Le statut se consulte avec {@link #getJob}.
+     *
+     * @throws TaskRejectedException si la file du pool est pleine
+     */
+    public ImageUploadJobResponse submitUpload(MultipartFile file, String produitId) throws IOException {
         validateFile(file);
+        if (produitId != null) {
+            produitService.getProduitById(produitId);
+        }
+
+        Spooled spooled = spool(file);
+        Optional<ImageContent> known = imageHashIndex.lookup(spooled.sha256());
+        if (known.isPresent()) {
+            // Doublon : terminé immédiatement, sans passer par le pool
+            Files.deleteIfExists(spooled.path());
+            StoredVariants stored = StoredVariants.deduplicated(known.get());
+            attach(produitId, stored);
+            ImageUploadJob job = imageUploadJobRepository.save(ImageUploadJob.builder()
+                    .status(ImageUploadStatus.TERMINE)
+                    .fileName(spooled.sha256())
+                    .originalFileName(file.getOriginalFilename())
+                    .contentType(file.getContentType())
+                    .size(file.getSize())
+                    .produitId(produitId)
+                    .url(stored.url())
+                    .variants(stored.variants())
+                    .deduplicated(true)
+                    .purgeAt(LocalDateTime.now().plusHours(imageUploadProperties.getJobRetentionHours()))
+                    .build());
+            log.info("Upload {} dédupliqué: {}", job.getId(), stored.url());
+            return mapToResponse(job);
+        }
 
-        String originalFilename = file.getOriginalFilename();
-        String extension = originalFilename != null && originalFilename.contains(".")
-                ? originalFilename.substring(originalFilename.lastIndexOf("."))
-                : ".jpg";
-        
-        String fileName = UUID.randomUUID().toString() + extension;
-        String path = "images/" + fileName; // Store in images folder
-        
-        String url = String.format("%s/repos/%s/%s/contents/%s",
-                gitHubProperties.getApiUrl(),
-                gitHubProperties.getOwner(),
-                gitHubProperties.getRepo(),
-                path);
-
-        log.info("Uploading image to GitHub: {}", url);
-
-        // Check if file exists (should not happen with UUID but good practice for the "replacement" requirement logic)
-        String sha = null;
+        ImageUploadJob job = null;
         try {
-            ResponseEntity<String> existingFile = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    new HttpEntity<>(createHeaders()),
-                    String.class
-            );
-            if (existingFile.getStatusCode() == HttpStatus.OK) {
-                JsonNode root = objectMapper.readTree(existingFile.getBody());
-                sha = root.path("sha").asText();
-                log.info("File exists, sha: {}", sha);
+            job = imageUploadJobRepository.save(ImageUploadJob.builder()
+                    .fileName(spooled.sha256())
+                    .originalFileName(file.getOriginalFilename())
+                    .contentType(file.getContentType())
+                    .size(file.getSize())
+                    .produitId(produitId)
+                    // Purgé même si l'instance s'arrête avant la fin de l'envoi
+                    .purgeAt(LocalDateTime.now().plusHours(imageUploadProperties.getJobRetentionHours()))
+                    .build());
+            String jobId = job.getId();
+            imageUploadExecutor.execute(() -> process(jobId, spooled));
+        } catch (RuntimeException e) {
+            // File pleine : ni fichier orphelin ni job bloqué en attente
+            Files.deleteIfExists(spooled.path());
+            if (job != null) {
+                imageUploadJobRepository.deleteById(job.getId());
             }
-        } catch (HttpClientErrorException.NotFound e) {
-            // File doesn't exist, proceed
+            throw e;
         }
 
-        Map<String, Object> body = new HashMap<>();
-        body.put("message", "Upload image " + fileName);
-        body.put("content", Base64.getEncoder().encodeToString(file.getBytes()));
-        body.put("branch", gitHubProperties.getBranch());
-        if (sha != null) {
-            body.put("sha", sha);
+        log.info("Upload {} mis en file ({} octets)", job.getId(), file.getSize());
+        return mapToResponse(job);
+    }
+
+    public ImageUploadJobResponse getJob(String jobId) {
+        return imageUploadJobRepository.findById(jobId)
+                .map(this::mapToResponse)
+                .orElseThrow(() -> new ImageUploadJobNotFoundException("Upload non trouvé avec l'ID: " + jobId));
+    }
+
+    private void process(String jobId, Spooled spooled) {
+        ImageUploadJob job = imageUploadJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            deleteQuietly(spooled.path());
+            return;
         }
+        job.setStatus(ImageUploadStatus.EN_COURS);
+        job = imageUploadJobRepository.save(job);
 
-        HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(body, createHeaders());
-        
         try {
-            restTemplate.exchange(url, HttpMethod.PUT, requestEntity, String.class);
+            StoredVariants stored = storeVariants(spooled);
+            attach(job.getProduitId(), stored);
+            job.setStatus(ImageUploadStatus.TERMINE);
+            job.setUrl(stored.url());
+            job.setVariants(stored.variants());
+            job.setReplaced(stored.replaced());
+            job.setDeduplicated(stored.deduplicated());
+            log.info("Upload {} terminé: {}", jobId, stored.url());
         } catch (Exception e) {
-            log.error("Error uploading to GitHub", e);
-            throw new RuntimeException("Failed to upload image to GitHub: " + e.getMessage());
-        }
-
-        // Generate jsDelivr URL
-        String cdnUrl = String.format("https://cdn.jsdelivr.net/gh/%s/%s@%s/%s",
-                gitHubProperties.getOwner(),
-                gitHubProperties.getRepo(),
-                gitHubProperties.getBranch(),
-                path);
-
-        return ImageUploadResponse.builder()
-                .url(cdnUrl)
-                .fileName(fileName)
-                .message("Image uploaded successfully")
-                .replaced(sha != null)
-                .build();
+            job.setStatus(ImageUploadStatus.ECHEC);
+            job.setErreur(e.getMessage());
+            log.error("Échec de l'upload {}", jobId, e);
+        } finally {
+            deleteQuietly(spooled.path());
+        }
+        job.setPurgeAt(LocalDateTime.now().plusHours(imageUploadProperties.getJobRetentionHours()));
+        imageUploadJobRepository.save(job);
+    }
+
+    // Un décodage, puis une écriture par variante : images/{sha256}/{variante}.jpg.
+    // L'index est consulté d'abord, y compris sur le pool : un doublon envoyé entre-temps
+    // par un autre upload ne repasse ni par le traitement ni par le stockage
+    private StoredVariants storeVariants(Spooled spooled) throws IOException {
+        Optional<ImageContent> known = imageHashIndex.lookup(spooled.sha256());
+        if (known.isPresent()) {
+            return StoredVariants.deduplicated(known.get());
+        }
+        ImageProcessor.ProcessedImage processed = imageProcessor.process(spooled.path());
+        try {
+            Map<String, String> variants = new LinkedHashMap<>();
+            boolean replaced = false;
+            for (Map.Entry<ImageVariant, Path> variant : processed.files().entrySet()) {
+                String key = variant.getKey().getKey();
+                ImageStorage.StoredImage stored = imageStorage.store(
+                        "images/" + spooled.sha256() + "/" + key + ".jpg", variant.getValue(), VARIANT_CONTENT_TYPE);
+                variants.put(key, stored.url());
+                replaced |= stored.replaced();
+            }
+            String url = variants.get(ImageVariant.DETAIL.getKey());
+            imageHashIndex.record(spooled.sha256(), url, variants, spooled.size());
+            return new StoredVariants(url, variants, replaced, false);
+        } finally {
+            processed.deleteFiles();
+        }
+    }
+
+    private void attach(String produitId, StoredVariants stored) {
+        if (produitId != null) {
+            produitService.updateProduit(produitId, ProduitUpdateRequest.builder()
+                    .image(stored.url())
+                    .imageVariants(stored.variants())
+                    .build());
+        }
+    }
+
+    // Le corps multipart est copié en flux vers un fichier, jamais chargé en mémoire,
+    // et haché au passage
+    private Spooled spool(MultipartFile file) throws IOException {
+        Path spoolDir = Paths.get(imageUploadProperties.getSpoolDir());
+        Files.createDirectories(spoolDir);
+        Path spooled = Files.createTempFile(spoolDir, "upload-", ".tmp");
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            long size = Files.copy(in, spooled, StandardCopyOption.REPLACE_EXISTING);
+            return new Spooled(spooled, HexFormat.of().formatHex(digest.digest()), size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Fichier temporaire {} non supprimé: {}", path, e.getMessage());
+        }
     }
 
     private void validateFile(MultipartFile file) {
@@ -108,10 +252,29 @@ public class ImageUploadService {
         }
     }
 
-    private HttpHeaders createHeaders() {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "token " + gitHubProperties.getToken());
-        headers.set("Accept", "application/vnd.github.v3+json");
-        return headers;
+    private record Spooled(Path path, String sha256, long size) {
+    }
+
+    private record StoredVariants(String url, Map<String, String> variants, boolean replaced, boolean deduplicated) {
+
+        static StoredVariants deduplicated(ImageContent content) {
+            return new StoredVariants(content.getUrl(), content.getVariants(), false, true);
+        }
+    }
+
+    private ImageUploadJobResponse mapToResponse(ImageUploadJob job) {
+        return ImageUploadJobResponse.builder()
+                .jobId(job.getId())
+                .status(job.getStatus())
+                .fileName(job.getFileName())
+                .url(job.getUrl())
+                .variants(job.getVariants())
+                .produitId(job.getProduitId())
+                .replaced(job.isReplaced())
+                .deduplicated(job.isDeduplicated())
+                .erreur(job.getErreur())
+                .createdAt(job.getCreatedAt())
+                .updatedAt(job.getUpdatedAt())
+                .build();
     }
 }
@@ -0,0 +1,68 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.ImageStorageProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Stockage sur disque local, sans réseau : tests, environnements hors ligne et tests
+ * de charge. Les fichiers sont écrits par FileChannel dans un fichier temporaire du
+ * même répertoire puis renommés atomiquement : un lecteur ne voit jamais de fichier
+ * partiel. Ils sont servis par ImageFileController.
+ */
+@Component
+@ConditionalOnProperty(name = "image.storage.type", havingValue = "local")
+@RequiredArgsConstructor
+@Slf4j
+public class LocalImageStorage implements ImageStorage {
+
+    private final ImageStorageProperties properties;
+
+    @Override
+    public StoredImage store(String path, Path source, String contentType) throws IOException {
+        Path target = resolve(path);
+        String url = properties.getLocalBaseUrl() + path;
+        if (Files.exists(target)) {
+            return new StoredImage(url, true);
+        }
+
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try {
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long size = in.size();
+                long position = 0;
+                while (position < size) {
+                    position += out.transferFrom(in, position, size - position);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Même contenu écrit en parallèle par un autre upload
+            return new StoredImage(url, true);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        log.info("Image stockée localement: {}", target);
+        return new StoredImage(url, false);
+    }
+
+    /**
+     * Chemin absolu d'une image, refusé s'il sort de la racine du stockage.
+     */
+    public Path resolve(String path) {
+        Path root = Paths.get(properties.getLocalRootDir()).toAbsolutePath().normalize();
+        Path target = root.resolve(path).normalize();
+        if (!target.startsWith(root) || target.equals(root)) {
+            throw new IllegalArgumentException("Chemin d'image invalide: " + path);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.dto.OrderBasketPage;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.time.LocalDateTime;
+
+@FeignClient(name = "OrderService", path = "/api/orders")
+public interface OrderServiceClient {
+
+    // Paniers des commandes non annulées, après la position (afterCreatedAt, afterId)
+    @GetMapping("/baskets")
+    OrderBasketPage getBaskets(
+            @RequestParam(value = "afterCreatedAt", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterCreatedAt,
+            @RequestParam(value = "afterId", required = false) String afterId,
+            @RequestParam("limit") int limit);
+}
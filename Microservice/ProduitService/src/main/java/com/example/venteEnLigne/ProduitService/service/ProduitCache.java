@@ -0,0 +1,190 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.ProduitCacheProperties;
+import com.example.venteEnLigne.ProduitService.dto.ProduitResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Cache de lecture des produits à deux niveaux : un cache local borné (taille + TTL)
+ * devant un cache Redis partagé entre instances. Les écritures invalident les deux
+ * niveaux en un seul script Redis et diffusent les IDs (un par ligne) sur un canal
+ * pub/sub pour que les autres instances purgent leur cache local. Redis indisponible :
+ * lecture directe depuis MongoDB.
+ * Chaque invalidation incrémente une génération par ID ; un chargement n'écrit dans
+ * Redis que si la génération lue avant d'interroger MongoDB n'a pas changé, sinon
+ * une lecture lente réécrirait une valeur périmée après l'invalidation.
+ */
+@Component
+@Slf4j
+public class ProduitCache implements MessageListener {
+
+    // SET conditionnel : KEYS[1] valeur, KEYS[2] génération ; ARGV génération lue, valeur, TTL
+    private static final RedisScript<Long> WRITE_IF_GENERATION = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '0') == ARGV[1] then "
+                    + "redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3]) return 1 end return 0",
+            Long.class);
+
+    // Invalidation groupée en un aller-retour : KEYS par paires (génération, valeur) ;
+    // ARGV TTL de la génération, canal, IDs séparés par des sauts de ligne
+    private static final RedisScript<Long> INVALIDATE = new DefaultRedisScript<>(
+            "for i = 1, #KEYS, 2 do "
+                    + "redis.call('INCR', KEYS[i]) "
+                    + "redis.call('EXPIRE', KEYS[i], ARGV[1]) "
+                    + "redis.call('DEL', KEYS[i + 1]) end "
+                    + "redis.call('PUBLISH', ARGV[2], ARGV[3]) return #KEYS / 2",
+            Long.class);
+
+    private final ProduitCacheProperties properties;
+    private final RedisTemplate<String, ProduitResponse> produitRedisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Cache<String, ProduitResponse> local;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final Counter redisErrors;
+
+    public ProduitCache(ProduitCacheProperties properties,
+                        RedisTemplate<String, ProduitResponse> produitRedisTemplate,
+                        StringRedisTemplate stringRedisTemplate,
+                        RedisMessageListenerContainer listenerContainer,
+                        MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.produitRedisTemplate = produitRedisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(properties.getLocalTtlSeconds()))
+                .recordStats()
+                .build();
+
+        // Hits, misses et évictions du niveau local exposés sous cache.* (actuator/metrics)
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "produits.local");
+        this.redisHits = Counter.builder("produits.cache.redis").tag("result", "hit").register(meterRegistry);
+        this.redisMisses = Counter.builder("produits.cache.redis").tag("result", "miss").register(meterRegistry);
+        this.redisErrors = Counter.builder("produits.cache.redis").tag("result", "error").register(meterRegistry);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(properties.getInvalidationChannel()));
+    }
+
+    /**
+     * Renvoie le produit depuis le cache local, puis Redis, puis le loader. Un seul
+     * chargement par ID à la fois sur l'instance (les lecteurs concurrents attendent).
+     */
+    public ProduitResponse get(String id, Function<String, ProduitResponse> loader) {
+        if (!properties.isEnabled()) {
+            return loader.apply(id);
+        }
+        return local.get(id, key -> {
+            ProduitResponse cached = readRedis(key);
+            if (cached != null) {
+                return cached;
+            }
+            String generation = readGeneration(key);
+            ProduitResponse loaded = loader.apply(key);
+            if (generation != null) {
+                writeRedis(key, loaded, generation);
+            }
+            return loaded;
+        });
+    }
+
+    public void invalidate(String id) {
+        invalidateAll(List.of(id));
+    }
+
+    public void invalidateAll(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        local.invalidateAll(ids);
+        List<String> keys = new ArrayList<>(ids.size() * 2);
+        for (String id : ids) {
+            // Génération d'abord : un chargement en cours n'écrira plus sa valeur
+            keys.add(generationKey(id));
+            keys.add(properties.getKeyPrefix() + id);
+        }
+        try {
+            stringRedisTemplate.execute(INVALIDATE, keys,
+                    String.valueOf(2 * properties.getRedisTtlSeconds()),
+                    properties.getInvalidationChannel(),
+                    String.join("\n", ids));
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("Invalidation Redis de {} produit(s) impossible: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    // Invalidation reçue d'une autre instance (ou de celle-ci, sans effet)
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        local.invalidateAll(List.of(new String(message.getBody(), StandardCharsets.UTF_8).split("\n")));
+    }
+
+    private ProduitResponse readRedis(String id) {
+        try {
+            ProduitResponse cached = produitRedisTemplate.opsForValue().get(properties.getKeyPrefix() + id);
+            (cached != null ? redisHits : redisMisses).increment();
+            return cached;
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.debug("Lecture Redis du produit {} impossible: {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    // null si Redis est indisponible : le chargement n'est alors pas écrit
+    private String readGeneration(String id) {
+        try {
+            String generation = stringRedisTemplate.opsForValue().get(generationKey(id));
+            return generation == null ? "0" : generation;
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.debug("Lecture de la génération du produit {} impossible: {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeRedis(String id, ProduitResponse produit, String generation) {
+        try {
+            byte[] value = ((RedisSerializer<Object>) produitRedisTemplate.getValueSerializer()).serialize(produit);
+            Long written = produitRedisTemplate.execute(WRITE_IF_GENERATION, RedisSerializer.byteArray(),
+                    new GenericToStringSerializer<>(Long.class),
+                    List.of(properties.getKeyPrefix() + id, generationKey(id)),
+                    generation.getBytes(StandardCharsets.UTF_8), value,
+                    String.valueOf(properties.getRedisTtlSeconds()).getBytes(StandardCharsets.UTF_8));
+            if (written == null || written == 0) {
+                log.debug("Produit {} invalidé pendant son chargement, non écrit dans Redis", id);
+            }
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.debug("Écriture Redis du produit {} impossible: {}", id, e.getMessage());
+        }
+    }
+
+    private String generationKey(String id) {
+        return properties.getKeyPrefix() + "gen:" + id;
+    }
+}
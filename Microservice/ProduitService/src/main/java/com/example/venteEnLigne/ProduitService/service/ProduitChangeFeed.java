@@ -0,0 +1,620 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.ChangeFeedProperties;
+import com.example.venteEnLigne.ProduitService.dto.ProduitChangeEvent;
+import com.example.venteEnLigne.ProduitService.dto.ProduitChangesResponse;
+import com.example.venteEnLigne.ProduitService.exception.ChangeTokenExpiredException;
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import com.example.venteEnLigne.ProduitService.model.ProduitChangeType;
+import com.example.venteEnLigne.ProduitService.model.ProduitSuppression;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Flux incrémental des changements du catalogue : création, modification, suppression
+ * et écritures de stock. Source : change stream MongoDB quand le serveur le permet
+ * (replica set ou mongos), sinon lecture périodique de updatedAt et des traces de
+ * suppression. Les derniers événements sont gardés dans un tampon circulaire servi aux
+ * abonnés (long-poll et SSE) ; un jeton plus ancien que le tampon, ou émis avant un
+ * redémarrage, est rejoué depuis MongoDB. Livraison au moins une fois : un consommateur
+ * doit tolérer un événement reçu deux fois.
+ */
+@Component
+@Slf4j
+public class ProduitChangeFeed {
+
+    enum Mode { CHANGE_STREAM, POLLING }
+
+    // Champs écrits par StockUpdates, la confirmation et le marquage des réservations
+    static final Set<String> STOCK_FIELDS = Set.of(
+            "stock", "stockReserve", "status", "version", "updatedAt", "stockUpdatedAt", "reservationsEnCours");
+
+    // ChangeStreamHistoryLost, ChangeStreamFatalError, InvalidResumeToken
+    private static final Set<Integer> EXPIRED_CODES = Set.of(286, 280, 260);
+
+    private static final List<Bson> PIPELINE = List.of(Aggregates.match(
+            Filters.in("operationType", "insert", "update", "replace", "delete")));
+
+    private static final int HEAD_TOKENS = 1024;
+
+    private final MongoTemplate mongoTemplate;
+    private final ChangeFeedProperties properties;
+
+    // Tampon circulaire : l'événement de séquence s est dans buffer[s % buffer.length]
+    private final Object lock = new Object();
+    private final ProduitChangeEvent[] buffer;
+    private final Map<String, Long> eventSeqs = new HashMap<>();
+    private final Map<String, Long> headSeqs;
+    private final Set<Waiter> waiters = new HashSet<>();
+    // Abonnés internes (index en mémoire), appelés hors verrou par le thread de la source
+    private final List<Consumer<List<ProduitChangeEvent>>> listeners = new CopyOnWriteArrayList<>();
+    private long lastSeq;
+    private String headToken;
+
+    private volatile Mode mode;
+    private volatile boolean running;
+    private Thread watcher;
+    private ProduitChangeToken pollHead; // Lu et écrit par le seul thread du polling
+
+    public ProduitChangeFeed(MongoTemplate mongoTemplate, ChangeFeedProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.buffer = new ProduitChangeEvent[Math.max(1, properties.getBufferSize())];
+        // Jetons de tête émis sans événement (curseur inactif), les plus récents seulement
+        this.headSeqs = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > HEAD_TOKENS;
+            }
+        };
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        mode = resolveMode();
+        running = true;
+        if (mode == Mode.CHANGE_STREAM) {
+            watcher = new Thread(this::watch, "produit-changes");
+            watcher.setDaemon(true);
+            watcher.start();
+        } else {
+            long debut = System.currentTimeMillis() - properties.getPollLagMs();
+            pollHead = ProduitChangeToken.position(debut, ProduitChangeToken.MIN_ID, debut, ProduitChangeToken.MIN_ID);
+            publish(List.of(), pollHead.encode());
+        }
+        log.info("Flux de changements produits démarré en mode {}", mode);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    public void addListener(Consumer<List<ProduitChangeEvent>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Trace la suppression pour le mode polling ; le change stream la voit de lui-même.
+     * Écrite dans tous les modes : le mode peut changer d'un démarrage à l'autre.
+     */
+    public void recordDeletion(String produitId) {
+        LocalDateTime now = LocalDateTime.now();
+        mongoTemplate.insert(ProduitSuppression.builder()
+                .produitId(produitId)
+                .deletedAt(now)
+                .purgeAt(now.plusHours(properties.getTombstoneRetentionHours()))
+                .build());
+    }
+
+    /**
+     * Long-poll : répond dès qu'au moins un événement suit {@code after}, sinon à
+     * l'expiration du délai avec une liste vide et le même jeton. L'attente ne retient
+     * aucun thread : les requêtes en attente sont complétées par le thread de la source.
+     * Sans jeton : réponse immédiate, sans événement, avec le jeton de tête.
+     *
+     * @throws ChangeTokenExpiredException si le jeton n'est plus rejouable
+     */
+    public DeferredResult<ProduitChangesResponse> poll(String after, Integer limit, Long timeoutMs) {
+        int n = limit(limit);
+        long timeout = timeoutMs == null
+                ? properties.getDefaultTimeoutMs()
+                : Math.max(0, Math.min(timeoutMs, properties.getMaxTimeoutMs()));
+        Page page = page(after, n);
+        DeferredResult<ProduitChangesResponse> result = new DeferredResult<>(timeout);
+        if (after == null || !page.events().isEmpty() || timeout == 0) {
+            result.setResult(response(page));
+            return result;
+        }
+
+        Waiter waiter = new Waiter(page.seq(), page.nextToken(), n, result);
+        result.onTimeout(() -> {
+            forget(waiter);
+            result.setResult(response(page));
+        });
+        result.onError(e -> forget(waiter));
+        Page ready = null;
+        synchronized (lock) {
+            if (lastSeq > page.seq()) {
+                ready = slice(page.seq(), page.nextToken(), n); // Publié entre la lecture et l'inscription
+            } else {
+                waiters.add(waiter);
+            }
+        }
+        if (ready != null) {
+            result.setResult(response(ready));
+        }
+        return result;
+    }
+
+    /**
+     * Envoie les événements sur le flux SSE jusqu'à la déconnexion du client, avec
+     * l'identifiant SSE égal au jeton (Last-Event-ID à la reconnexion). Bloque le
+     * thread appelant, à exécuter sur changeFeedExecutor.
+     */
+    public void stream(String after, SseEmitter emitter) throws IOException, InterruptedException {
+        String token = after;
+        if (token == null) {
+            token = page(null, 0).nextToken();
+            emitter.send(SseEmitter.event().name("POSITION").id(token).data(token));
+        }
+        while (running) {
+            Page page = page(token, properties.getDefaultLimit());
+            for (ProduitChangeEvent event : page.events()) {
+                emitter.send(SseEmitter.event().name(event.getType().name()).id(event.getToken()).data(event));
+            }
+            token = page.nextToken();
+            if (page.events().isEmpty() && !awaitAfter(page.seq(), properties.getHeartbeatMs())) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        }
+    }
+
+    // ---- Lecture du tampon ----
+
+    private Page page(String after, int limit) {
+        Mode current = mode;
+        if (current == null) {
+            throw new IllegalStateException("Flux de changements pas encore démarré");
+        }
+        long headSeq;
+        synchronized (lock) {
+            if (after == null) {
+                if (headToken == null) {
+                    throw new IllegalStateException("Flux de changements pas encore démarré");
+                }
+                return new Page(List.of(), headToken, lastSeq);
+            }
+            Long seq = eventSeqs.get(after);
+            if (seq == null) {
+                seq = headSeqs.get(after);
+            }
+            if (seq != null && seq >= oldestSeq() - 1) {
+                return slice(seq, after, limit);
+            }
+            headSeq = lastSeq;
+        }
+
+        // Jeton hors du tampon (ancien, ou émis avant un redémarrage) : rejeu depuis MongoDB
+        ProduitChangeToken from = ProduitChangeToken.decode(after);
+        Batch batch = current == Mode.CHANGE_STREAM ? replay(from, limit) : fetchSince(from, limit);
+        if (batch.events().isEmpty()) {
+            // Rien après ce jeton dans MongoDB : tout ce que le tampon publiera ensuite le suit
+            synchronized (lock) {
+                headSeqs.put(after, headSeq);
+            }
+            return new Page(List.of(), after, headSeq);
+        }
+        return new Page(batch.events(), batch.next().encode(), -1);
+    }
+
+    // Appelé sous le verrou
+    private Page slice(long seq, String token, int limit) {
+        if (seq < oldestSeq() - 1) {
+            return new Page(List.of(), token, seq); // Écrasé depuis : le prochain appel rejouera
+        }
+        long last = Math.min(lastSeq, seq + limit);
+        List<ProduitChangeEvent> events = new ArrayList<>((int) (last - seq));
+        for (long s = seq + 1; s <= last; s++) {
+            events.add(buffer[slot(s)]);
+        }
+        String next = events.isEmpty()
+                ? (seq == lastSeq ? headToken : token)
+                : events.get(events.size() - 1).getToken();
+        return new Page(events, next, last);
+    }
+
+    private boolean awaitAfter(long seq, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (lock) {
+            while (running && lastSeq <= seq) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                lock.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    private void publish(List<ProduitChangeEvent> events, String head) {
+        List<Waiter> ready = List.of();
+        List<Page> pages = new ArrayList<>();
+        synchronized (lock) {
+            for (ProduitChangeEvent event : events) {
+                lastSeq++;
+                ProduitChangeEvent evicted = buffer[slot(lastSeq)];
+                if (evicted != null) {
+                    eventSeqs.remove(evicted.getToken());
+                }
+                buffer[slot(lastSeq)] = event;
+                eventSeqs.put(event.getToken(), lastSeq);
+            }
+            if (head != null && !head.equals(headToken)) {
+                headToken = head;
+                headSeqs.put(head, lastSeq);
+            }
+            if (!events.isEmpty()) {
+                lock.notifyAll();
+                ready = new ArrayList<>(waiters);
+                waiters.clear();
+                for (Waiter waiter : ready) {
+                    pages.add(slice(waiter.seq(), waiter.token(), waiter.limit()));
+                }
+            }
+        }
+        for (int i = 0; i < ready.size(); i++) {
+            ready.get(i).result().setResult(response(pages.get(i)));
+        }
+        if (!events.isEmpty()) {
+            for (Consumer<List<ProduitChangeEvent>> listener : listeners) {
+                try {
+                    listener.accept(events);
+                } catch (RuntimeException e) {
+                    log.warn("Abonné au flux de changements en échec: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void forget(Waiter waiter) {
+        synchronized (lock) {
+            waiters.remove(waiter);
+        }
+    }
+
+    private long oldestSeq() {
+        return Math.max(1, lastSeq - buffer.length + 1);
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % buffer.length);
+    }
+
+    private int limit(Integer limit) {
+        return limit == null ? properties.getDefaultLimit() : Math.max(1, Math.min(limit, properties.getMaxLimit()));
+    }
+
+    private ProduitChangesResponse response(Page page) {
+        return ProduitChangesResponse.builder()
+                .events(page.events())
+                .nextToken(page.nextToken())
+                .mode(mode.name())
+                .build();
+    }
+
+    // ---- Source : change stream ----
+
+    private Mode resolveMode() {
+        switch (properties.getMode().trim().toLowerCase(Locale.ROOT)) {
+            case "change-stream":
+                return Mode.CHANGE_STREAM;
+            case "polling":
+                return Mode.POLLING;
+            default:
+                try {
+                    // Les change streams exigent un replica set (setName) ou un routeur mongos
+                    Document hello = mongoTemplate.getDb().runCommand(new Document("hello", 1));
+                    return hello.containsKey("setName") || "isdbgrid".equals(hello.getString("msg"))
+                            ? Mode.CHANGE_STREAM
+                            : Mode.POLLING;
+                } catch (Exception e) {
+                    log.warn("Topologie MongoDB indéterminée, flux de changements en polling: {}", e.getMessage());
+                    return Mode.POLLING;
+                }
+        }
+    }
+
+    private void watch() {
+        BsonDocument resumeToken = null;
+        while (running) {
+            ChangeStreamIterable<Document> stream = collection().watch(PIPELINE)
+                    .fullDocument(FullDocument.UPDATE_LOOKUP)
+                    .maxAwaitTime(1, TimeUnit.SECONDS);
+            if (resumeToken != null) {
+                stream = stream.resumeAfter(resumeToken);
+            }
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+                while (running) {
+                    List<ProduitChangeEvent> events = new ArrayList<>();
+                    ChangeStreamDocument<Document> change;
+                    while (events.size() < properties.getPollBatchSize() && (change = cursor.tryNext()) != null) {
+                        events.add(toEvent(change));
+                    }
+                    // Sans événement, le jeton de fin de lot avance quand même : un abonné à
+                    // jour reprend de là plutôt que de son dernier événement
+                    BsonDocument token = cursor.getResumeToken();
+                    if (token != null) {
+                        resumeToken = token;
+                        publish(events, ProduitChangeToken.resume(token).encode());
+                    }
+                }
+            } catch (MongoException e) {
+                if (!running) {
+                    return;
+                }
+                if (EXPIRED_CODES.contains(e.getCode())) {
+                    log.error("Historique du change stream perdu, reprise à partir de maintenant: {}", e.getMessage());
+                    resumeToken = null;
+                } else {
+                    log.warn("Change stream produits interrompu, reprise: {}", e.getMessage());
+                }
+                pause();
+            } catch (RuntimeException e) {
+                log.error("Erreur du flux de changements produits", e);
+                pause();
+            }
+        }
+    }
+
+    private Batch replay(ProduitChangeToken from, int limit) {
+        if (!from.isResume()) {
+            throw new ChangeTokenExpiredException("Jeton émis en mode polling, reprendre sans jeton");
+        }
+        ChangeStreamIterable<Document> stream = collection().watch(PIPELINE)
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .resumeAfter(from.resumeToken())
+                .batchSize(limit)
+                .maxAwaitTime(100, TimeUnit.MILLISECONDS);
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            List<ProduitChangeEvent> events = new ArrayList<>();
+            ChangeStreamDocument<Document> change;
+            while (events.size() < limit && (change = cursor.tryNext()) != null) {
+                events.add(toEvent(change));
+            }
+            BsonDocument next = cursor.getResumeToken();
+            return new Batch(events, next == null ? from : ProduitChangeToken.resume(next));
+        } catch (MongoException e) {
+            if (EXPIRED_CODES.contains(e.getCode())) {
+                throw new ChangeTokenExpiredException("Jeton sorti de l'historique MongoDB, reprendre sans jeton");
+            }
+            throw e;
+        }
+    }
+
+    private ProduitChangeEvent toEvent(ChangeStreamDocument<Document> change) {
+        ProduitChangeType type = switch (change.getOperationType()) {
+            case INSERT -> ProduitChangeType.CREATION;
+            case DELETE -> ProduitChangeType.SUPPRESSION;
+            case UPDATE -> stockOnly(change.getUpdateDescription())
+                    ? ProduitChangeType.STOCK
+                    : ProduitChangeType.MODIFICATION;
+            default -> ProduitChangeType.MODIFICATION;
+        };
+        // Document relu après la modification ; absent si le produit a été supprimé depuis
+        Document full = change.getFullDocument();
+        return ProduitChangeEvent.builder()
+                .token(ProduitChangeToken.resume(change.getResumeToken()).encode())
+                .type(type)
+                .produitId(change.getDocumentKey() == null ? null : idOf(change.getDocumentKey().get("_id")))
+                .at(at(change))
+                .produit(type == ProduitChangeType.SUPPRESSION || full == null
+                        ? null
+                        : ProduitServiceImpl.mapToResponse(mongoTemplate.getConverter().read(Produit.class, full)))
+                .build();
+    }
+
+    static boolean stockOnly(UpdateDescription description) {
+        return description != null
+                && description.getUpdatedFields() != null
+                && STOCK_FIELDS.containsAll(description.getUpdatedFields().keySet())
+                && (description.getRemovedFields() == null || STOCK_FIELDS.containsAll(description.getRemovedFields()));
+    }
+
+    private static String idOf(BsonValue id) {
+        if (id == null) {
+            return null;
+        }
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private static LocalDateTime at(ChangeStreamDocument<Document> change) {
+        if (change.getWallTime() != null) {
+            return toLocal(change.getWallTime().getValue());
+        }
+        return change.getClusterTime() == null ? null : toLocal(change.getClusterTime().getTime() * 1000L);
+    }
+
+    private MongoCollection<Document> collection() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Produit.class));
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    // ---- Source : polling sur updatedAt ----
+
+    @Scheduled(fixedDelayString = "${produit.changes.poll-interval-ms:1000}")
+    public void pollChanges() {
+        if (mode != Mode.POLLING || !running) {
+            return;
+        }
+        try {
+            Batch batch;
+            do {
+                batch = fetchSince(pollHead, properties.getPollBatchSize());
+                pollHead = batch.next();
+                publish(batch.events(), pollHead.encode());
+            } while (batch.events().size() == properties.getPollBatchSize());
+        } catch (Exception e) {
+            log.warn("Lecture des changements produits impossible: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Produits modifiés et traces de suppression après la position, fusionnés par date.
+     * Les écritures des {@code pollLagMs} dernières millisecondes sont laissées au passage
+     * suivant : une écriture en vol peut encore arriver avec une date un peu plus ancienne.
+     */
+    private Batch fetchSince(ProduitChangeToken from, int limit) {
+        if (from.isResume()) {
+            throw new ChangeTokenExpiredException("Jeton émis par le change stream, reprendre sans jeton");
+        }
+        long retention = TimeUnit.HOURS.toMillis(properties.getTombstoneRetentionHours());
+        if (from.deletedAt() < System.currentTimeMillis() - retention) {
+            throw new ChangeTokenExpiredException("Jeton plus ancien que la rétention des suppressions, reprendre sans jeton");
+        }
+        Date upper = new Date(System.currentTimeMillis() - properties.getPollLagMs());
+        List<Produit> produits = mongoTemplate.find(
+                after("updatedAt", from.updatedAt(), from.updatedId(), upper, limit), Produit.class);
+        List<ProduitSuppression> suppressions = mongoTemplate.find(
+                after("deletedAt", from.deletedAt(), from.deletedId(), upper, limit), ProduitSuppression.class);
+
+        long updatedAt = from.updatedAt();
+        String updatedId = from.updatedId();
+        long deletedAt = from.deletedAt();
+        String deletedId = from.deletedId();
+        List<ProduitChangeEvent> events = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (events.size() < limit) {
+            // Une liste tronquée à limit et épuisée : la suite de la fusion est inconnue
+            boolean produitsEpuises = i == produits.size();
+            boolean suppressionsEpuisees = j == suppressions.size();
+            if ((produitsEpuises && produits.size() == limit) || (suppressionsEpuisees && suppressions.size() == limit)
+                    || (produitsEpuises && suppressionsEpuisees)) {
+                break;
+            }
+            if (!produitsEpuises && (suppressionsEpuisees
+                    || millis(produits.get(i).getUpdatedAt()) <= millis(suppressions.get(j).getDeletedAt()))) {
+                Produit produit = produits.get(i++);
+                updatedAt = millis(produit.getUpdatedAt());
+                updatedId = produit.getId();
+                events.add(ProduitChangeEvent.builder()
+                        .token(ProduitChangeToken.position(updatedAt, updatedId, deletedAt, deletedId).encode())
+                        .type(typeOf(produit))
+                        .produitId(produit.getId())
+                        .at(produit.getUpdatedAt())
+                        .produit(ProduitServiceImpl.mapToResponse(produit))
+                        .build());
+            } else {
+                ProduitSuppression suppression = suppressions.get(j++);
+                deletedAt = millis(suppression.getDeletedAt());
+                deletedId = suppression.getId();
+                events.add(ProduitChangeEvent.builder()
+                        .token(ProduitChangeToken.position(updatedAt, updatedId, deletedAt, deletedId).encode())
+                        .type(ProduitChangeType.SUPPRESSION)
+                        .produitId(suppression.getProduitId())
+                        .at(suppression.getDeletedAt())
+                        .build());
+            }
+        }
+        if (j == suppressions.size() && suppressions.size() < limit) {
+            // Toutes les traces jusqu'à upper sont lues : la position avance même sans
+            // suppression, sans quoi elle finirait plus ancienne que la rétention
+            deletedAt = upper.getTime();
+            deletedId = ProduitChangeToken.MAX_ID;
+        }
+        return new Batch(events, ProduitChangeToken.position(updatedAt, updatedId, deletedAt, deletedId));
+    }
+
+    // (date, _id) strictement après la position, sur l'index {date: 1, _id: 1}
+    private static Query after(String field, long millis, String id, Date upper, int limit) {
+        Date at = new Date(millis);
+        return new Query(new Criteria().orOperator(
+                        Criteria.where(field).gt(at),
+                        Criteria.where(field).is(at).and("id").gt(new ObjectId(id))))
+                .addCriteria(Criteria.where(field).lte(upper))
+                .with(Sort.by(Sort.Direction.ASC, field, "id"))
+                .limit(limit);
+    }
+
+    static ProduitChangeType typeOf(Produit produit) {
+        if (Objects.equals(produit.getCreatedAt(), produit.getUpdatedAt())) {
+            return ProduitChangeType.CREATION;
+        }
+        // StockUpdates et la confirmation des réservations écrivent la même date dans les deux champs
+        return Objects.equals(produit.getStockUpdatedAt(), produit.getUpdatedAt())
+                ? ProduitChangeType.STOCK
+                : ProduitChangeType.MODIFICATION;
+    }
+
+    private static long millis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocal(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private record Page(List<ProduitChangeEvent> events, String nextToken, long seq) {
+    }
+
+    private record Batch(List<ProduitChangeEvent> events, ProduitChangeToken next) {
+    }
+
+    private record Waiter(long seq, String token, int limit, DeferredResult<ProduitChangesResponse> result) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position dans le flux de changements, encodée en Base64 URL opaque. Deux formes :
+ * jeton de reprise du change stream (resumeData), ou position du polling, soit la
+ * dernière paire (updatedAt, _id) lue sur les produits et la dernière paire
+ * (deletedAt, _id) lue sur les traces de suppression.
+ */
+record ProduitChangeToken(String resumeData, long updatedAt, String updatedId, long deletedAt, String deletedId) {
+
+    static final String MIN_ID = "000000000000000000000000"; // Plus petit ObjectId
+    static final String MAX_ID = "ffffffffffffffffffffffff";
+
+    static ProduitChangeToken resume(BsonDocument resumeToken) {
+        return new ProduitChangeToken(resumeToken.getString("_data").getValue(), 0, null, 0, null);
+    }
+
+    static ProduitChangeToken position(long updatedAt, String updatedId, long deletedAt, String deletedId) {
+        return new ProduitChangeToken(null, updatedAt, updatedId, deletedAt, deletedId);
+    }
+
+    boolean isResume() {
+        return resumeData != null;
+    }
+
+    BsonDocument resumeToken() {
+        return new BsonDocument("_data", new BsonString(resumeData));
+    }
+
+    String encode() {
+        String plain = isResume()
+                ? "C:" + resumeData
+                : String.join(":", "P", Long.toString(updatedAt), updatedId, Long.toString(deletedAt), deletedId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ProduitChangeToken decode(String token) {
+        try {
+            String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (plain.startsWith("C:") && plain.length() > 2) {
+                return new ProduitChangeToken(plain.substring(2), 0, null, 0, null);
+            }
+            String[] parts = plain.split(":");
+            if (parts.length != 5 || !parts[0].equals("P")
+                    || !parts[2].matches("[0-9a-f]{24}") || !parts[4].matches("[0-9a-f]{24}")) {
+                throw new IllegalArgumentException("Format de jeton inconnu");
+            }
+            return position(Long.parseLong(parts[1]), parts[2], Long.parseLong(parts[3]), parts[4]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Jeton de changements invalide: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Position dans une liste triée de produits : valeur de la clé de tri du dernier
+ * élément renvoyé et son _id (départage). Encodée en Base64 URL opaque. Chaque champ
+ * triable a son index composé (champ, _id) sur Produit.
+ */
+record ProduitCursor(String sortBy, boolean ascending, Object value, String id) {
+
+    static final Set<String> SORTABLE_FIELDS = Set.of("createdAt", "updatedAt", "titre", "prix", "stock");
+
+    static ProduitCursor of(Produit produit, String sortBy, boolean ascending) {
+        Object value = switch (sortBy) {
+            case "createdAt" -> produit.getCreatedAt();
+            case "updatedAt" -> produit.getUpdatedAt();
+            case "titre" -> produit.getTitre();
+            case "prix" -> produit.getPrix();
+            case "stock" -> produit.getStock();
+            default -> throw new IllegalArgumentException("Champ de tri non supporté: " + sortBy);
+        };
+        return new ProduitCursor(sortBy, ascending, value, produit.getId());
+    }
+
+    /**
+     * Éléments strictement après le curseur dans l'ordre (clé de tri, _id) : à clé égale,
+     * seul l'_id départage, ce qui évite doublons et trous entre deux pages.
+     */
+    Criteria after() {
+        Criteria sameKey = value == null
+                ? Criteria.where(sortBy).is(null)
+                : Criteria.where(sortBy).is(value);
+        Criteria nextId = ascending
+                ? Criteria.where("id").gt(id)
+                : Criteria.where("id").lt(id);
+        Criteria tieBreak = new Criteria().andOperator(sameKey, nextId);
+
+        // MongoDB trie null avant toute valeur : en ordre croissant les null viennent
+        // en premier, en ordre décroissant ils viennent en dernier
+        if (value == null) {
+            return ascending
+                    ? new Criteria().orOperator(tieBreak, Criteria.where(sortBy).ne(null))
+                    : tieBreak;
+        }
+        if (ascending) {
+            return new Criteria().orOperator(Criteria.where(sortBy).gt(value), tieBreak);
+        }
+        return new Criteria().orOperator(
+                Criteria.where(sortBy).lt(value), tieBreak, Criteria.where(sortBy).is(null));
+    }
+
+    String encode() {
+        String type;
+        String raw;
+        if (value == null) {
+            type = "Z";
+            raw = "";
+        } else if (value instanceof LocalDateTime) {
+            type = "D";
+            raw = value.toString();
+        } else if (value instanceof BigDecimal decimal) {
+            type = "N";
+            raw = decimal.toPlainString();
+        } else if (value instanceof Integer) {
+            type = "I";
+            raw = value.toString();
+        } else {
+            type = "S";
+            raw = value.toString();
+        }
+        String plain = String.join(":", sortBy, ascending ? "asc" : "desc", type, id, raw);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ProduitCursor decode(String token, String sortBy, boolean ascending) {
+        try {
+            String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = plain.split(":", 5);
+            if (parts.length != 5 || !parts[0].equals(sortBy) || parts[1].equals("asc") != ascending) {
+                throw new IllegalArgumentException("Le curseur ne correspond pas au tri demandé");
+            }
+            Object value = switch (parts[2]) {
+                case "Z" -> null;
+                case "D" -> LocalDateTime.parse(parts[4]);
+                case "N" -> new BigDecimal(parts[4]);
+                case "I" -> Integer.valueOf(parts[4]);
+                case "S" -> parts[4];
+                default -> throw new IllegalArgumentException("Type de curseur inconnu");
+            };
+            return new ProduitCursor(parts[0], ascending, value, parts[3]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Curseur invalide: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index bitmap en mémoire pour la navigation à facettes : un BitSet par valeur de
+ * facette, indexé par un docId interne. Les filtres d'un même champ sont combinés
+ * en OU, ceux de champs différents en ET ; les comptes d'un champ ignorent son
+ * propre filtre (sélection multiple). Tout est calculé sans requête MongoDB.
+ * Les prix sont ramenés dans la devise de base (CurrencyConverter) avant le
+ * découpage en tranches et le filtre par plage : les bornes sont exprimées dans
+ * cette devise. Un tableau des prix triés sert les plages par recherche
+ * dichotomique ; il est recalculé après un changement de prix ou de taux.
+ */
+@Component
+@Slf4j
+public class ProduitFacetIndex {
+
+    public static final String CATEGORIE = "categorie";
+    public static final String SOUS_CATEGORIE = "sousCategorie";
+    public static final String MARQUE = "marque";
+    public static final String CURRENCY = "currency";
+    public static final String STATUS = "status";
+    public static final String SPECIFICATION = "specification"; // Clés de spécifications présentes
+    public static final String PRIX = "prix";                   // Tranches de prix
+
+    private static final double[] TRANCHES_PRIX = {10, 50, 100, 500, 1000}; // En devise de base
+    private static final int MIN_COMPACTION = 1024; // docIds libérés avant de compacter
+
+    private final CurrencyConverter currencyConverter;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Map<String, BitSet>> facets = new HashMap<>();
+    private final Map<String, Integer> docIdsByProduitId = new HashMap<>();
+    private final List<String> produitIdsByDocId = new ArrayList<>();
+    private final List<Map<String, List<String>>> valuesByDocId = new ArrayList<>(); // pour la mise à jour
+    private final BitSet live = new BitSet();
+    private double[] prix = new double[64];             // En devise de base, NaN si inconnu
+    private BigDecimal[] prixOrigine = new BigDecimal[64];
+
+    // Prix triés et docIds correspondants ; à recalculer si prixTable n'est plus la table en service
+    private double[] prixTries = new double[0];
+    private int[] docsTries = new int[0];
+    private boolean prixTriesPerimes;
+    private CurrencyConverter.RateTable prixTable;
+    private volatile boolean ready;
+
+    public ProduitFacetIndex(CurrencyConverter currencyConverter) {
+        this.currencyConverter = currencyConverter;
+        this.prixTable = currencyConverter.rates();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reconstruit l'index. Les produits doivent arriver du plus ancien au plus récent :
+     * l'ordre des docIds sert d'ordre de tri (plus récents d'abord).
+     */
+    public void rebuild(Iterator<Produit> produits) {
+        lock.writeLock().lock();
+        try {
+            facets.clear();
+            docIdsByProduitId.clear();
+            produitIdsByDocId.clear();
+            valuesByDocId.clear();
+            live.clear();
+            prix = new double[64];
+            prixOrigine = new BigDecimal[64];
+            prixTable = currencyConverter.rates();
+            prixTriesPerimes = true;
+            while (produits.hasNext()) {
+                indexLocked(produits.next());
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Index de facettes construit: {} produits", live.cardinality());
+    }
+
+    public void index(Produit produit) {
+        if (produit == null || produit.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            indexLocked(produit);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String produitId) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIdsByProduitId.remove(produitId);
+            if (docId != null) {
+                clearValues(docId);
+                live.clear(docId);
+                produitIdsByDocId.set(docId, null);
+                prixOrigine[docId] = null;
+                prix[docId] = Double.NaN;
+                compactIfNeededLocked();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // docIds alloués, vivants ou libérés (borne mémoire, vérifiée par les tests)
+    int allocatedDocIds() {
+        lock.readLock().lock();
+        try {
+            return produitIdsByDocId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param filters valeurs retenues par champ (OU au sein d'un champ, ET entre champs)
+     * @param prixMin borne basse incluse, ou null
+     * @param prixMax borne haute incluse, ou null
+     */
+    public BrowseResult browse(Map<String, ? extends Collection<String>> filters,
+                               BigDecimal prixMin, BigDecimal prixMax, int offset, int limit) {
+        rafraichirPrix(prixMin != null || prixMax != null);
+        lock.readLock().lock();
+        try {
+            Map<String, BitSet> fieldMatches = new LinkedHashMap<>();
+            filters.forEach((field, values) -> {
+                if (values != null && !values.isEmpty()) {
+                    BitSet match = new BitSet();
+                    Map<String, BitSet> byValue = facets.getOrDefault(field, Map.of());
+                    for (String value : values) {
+                        BitSet bits = byValue.get(value);
+                        if (bits != null) {
+                            match.or(bits);
+                        }
+                    }
+                    fieldMatches.put(field, match);
+                }
+            });
+            if (prixMin != null || prixMax != null) {
+                fieldMatches.put(PRIX, prixRange(prixMin, prixMax));
+            }
+
+            BitSet matches = intersect(fieldMatches, null);
+
+            // Un champ sans filtre compte sur matches : une intersection de plus par champ
+            // filtré seulement, et un BitSet de travail pour toutes les valeurs
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            BitSet bits = new BitSet();
+            for (Map.Entry<String, Map<String, BitSet>> facet : facets.entrySet()) {
+                BitSet base = fieldMatches.containsKey(facet.getKey())
+                        ? intersect(fieldMatches, facet.getKey())
+                        : matches;
+                Map<String, Integer> valueCounts = new TreeMap<>();
+                for (Map.Entry<String, BitSet> value : facet.getValue().entrySet()) {
+                    bits.clear();
+                    bits.or(value.getValue());
+                    bits.and(base);
+                    int count = bits.cardinality();
+                    if (count > 0) {
+                        valueCounts.put(value.getKey(), count);
+                    }
+                }
+                counts.put(facet.getKey(), valueCounts);
+            }
+
+            // Plus récents d'abord : parcours des docIds décroissants
+            List<String> ids = new ArrayList<>(Math.min(limit, 256));
+            int skipped = 0;
+            for (int docId = matches.length() - 1; docId >= 0 && ids.size() < limit;
+                 docId = matches.previousSetBit(docId - 1)) {
+                if (skipped++ >= offset) {
+                    ids.add(produitIdsByDocId.get(docId));
+                }
+            }
+            return new BrowseResult(ids, matches.cardinality(), counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet intersect(Map<String, BitSet> fieldMatches, String excludedField) {
+        BitSet result = (BitSet) live.clone();
+        fieldMatches.forEach((field, match) -> {
+            if (!field.equals(excludedField)) {
+                result.and(match);
+            }
+        });
+        return result;
+    }
+
+    // Plage bornes incluses : deux recherches dichotomiques puis parcours de la tranche
+    private BitSet prixRange(BigDecimal prixMin, BigDecimal prixMax) {
+        int from = prixMin == null ? 0 : premierIndex(prixTries, prixMin.doubleValue(), false);
+        int to = prixMax == null ? prixTries.length : premierIndex(prixTries, prixMax.doubleValue(), true);
+        BitSet match = new BitSet();
+        for (int i = from; i < to; i++) {
+            match.set(docsTries[i]);
+        }
+        match.and(live);
+        return match;
+    }
+
+    // Premier indice dont la valeur est >= key (ou > key si strict)
+    private static int premierIndex(double[] sorted, double key, boolean strict) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key || (strict && sorted[mid] == key)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Nouvelle table de taux : prix de base et tranches recalculés pour tous les produits.
+     * Plage demandée et prix modifiés depuis le dernier tri : tableau trié reconstruit.
+     */
+    private void rafraichirPrix(boolean plage) {
+        CurrencyConverter.RateTable table = currencyConverter.rates();
+        lock.readLock().lock();
+        try {
+            if (table == prixTable && !(plage && prixTriesPerimes)) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (table != prixTable) {
+                prixTable = table;
+                for (int docId = live.nextSetBit(0); docId >= 0; docId = live.nextSetBit(docId + 1)) {
+                    indexPrix(docId, valuesByDocId.get(docId));
+                }
+                prixTriesPerimes = true;
+            }
+            if (plage && prixTriesPerimes) {
+                trierPrix();
+                prixTriesPerimes = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void trierPrix() {
+        Integer[] order = live.stream()
+                .filter(docId -> !Double.isNaN(prix[docId]))
+                .boxed()
+                .toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingDouble(docId -> prix[docId]));
+        prixTries = new double[order.length];
+        docsTries = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            docsTries[i] = order[i];
+            prixTries[i] = prix[order[i]];
+        }
+    }
+
+    // Prix en devise de base et tranche correspondante d'un document
+    private void indexPrix(int docId, Map<String, List<String>> values) {
+        List<String> anciennes = values.remove(PRIX);
+        if (anciennes != null) {
+            clearValue(PRIX, anciennes, docId);
+        }
+        List<String> devises = values.get(CURRENCY);
+        prix[docId] = versBase(prixOrigine[docId], devises == null ? null : devises.get(0));
+        String tranche = tranchePrix(prix[docId]);
+        if (tranche != null) {
+            values.put(PRIX, new ArrayList<>(List.of(tranche)));
+            facets.computeIfAbsent(PRIX, k -> new HashMap<>()).computeIfAbsent(tranche, k -> new BitSet()).set(docId);
+        }
+    }
+
+    // Devise absente : devise de base ; devise inconnue de la table : NaN (hors plages et tranches)
+    private double versBase(BigDecimal montant, String devise) {
+        if (montant == null) {
+            return Double.NaN;
+        }
+        String base = prixTable.base();
+        BigDecimal factor = prixTable.factorsTo(base).get(devise == null ? base : CurrencyConverter.normalize(devise));
+        // Arrondi comme les prix affichés : 280000 CDF à 2800 valent 100, pas 99,999...
+        return factor == null ? Double.NaN : CurrencyConverter.RateTable.round(montant.multiply(factor)).doubleValue();
+    }
+
+    private void indexLocked(Produit produit) {
+        Integer existing = docIdsByProduitId.get(produit.getId());
+        int docId;
+        if (existing != null) {
+            docId = existing;
+            clearValues(docId);
+        } else {
+            docId = produitIdsByDocId.size();
+            produitIdsByDocId.add(produit.getId());
+            valuesByDocId.add(Map.of());
+            docIdsByProduitId.put(produit.getId(), docId);
+            if (docId >= prix.length) {
+                prix = Arrays.copyOf(prix, Math.max(prix.length * 2, docId + 1));
+                prixOrigine = Arrays.copyOf(prixOrigine, prix.length);
+            }
+        }
+
+        Map<String, List<String>> values = new HashMap<>();
+        addValue(values, CATEGORIE, produit.getCategorie());
+        addValue(values, SOUS_CATEGORIE, produit.getSousCategorie());
+        addValue(values, MARQUE, produit.getMarque());
+        addValue(values, CURRENCY, produit.getCurrency());
+        addValue(values, STATUS, produit.getStatus() == null ? null : produit.getStatus().name());
+        if (produit.getSpecifications() != null) {
+            produit.getSpecifications().keySet().forEach(key -> addValue(values, SPECIFICATION, key));
+        }
+
+        values.forEach((field, fieldValues) -> fieldValues.forEach(value ->
+                facets.computeIfAbsent(field, k -> new HashMap<>())
+                        .computeIfAbsent(value, k -> new BitSet())
+                        .set(docId)));
+        // Une écriture de stock ne change pas le prix : le tableau trié reste valable
+        double avant = existing == null ? Double.NaN : prix[docId];
+        prixOrigine[docId] = produit.getPrix();
+        indexPrix(docId, values);
+        if (existing == null || Double.compare(avant, prix[docId]) != 0) {
+            prixTriesPerimes = true;
+        }
+        valuesByDocId.set(docId, values);
+        live.set(docId);
+    }
+
+    /**
+     * Renumérote les documents vivants quand les docIds libérés dépassent les vivants
+     * (même règle que ProduitSearchIndex). La renumérotation est croissante : l'ordre
+     * des docIds, qui sert d'ordre de tri, est conservé. Le tableau trié des prix est
+     * reconstruit à la prochaine plage.
+     */
+    private void compactIfNeededLocked() {
+        int allocated = produitIdsByDocId.size();
+        int liveDocs = docIdsByProduitId.size();
+        int freed = allocated - liveDocs;
+        if (freed < MIN_COMPACTION || freed <= liveDocs) {
+            return;
+        }
+        int[] remap = new int[allocated];
+        List<String> produitIds = new ArrayList<>(liveDocs);
+        List<Map<String, List<String>>> values = new ArrayList<>(liveDocs);
+        double[] prixCompactes = new double[Math.max(64, liveDocs)];
+        BigDecimal[] prixOrigineCompactes = new BigDecimal[prixCompactes.length];
+        for (int old = 0; old < allocated; old++) {
+            String produitId = produitIdsByDocId.get(old);
+            if (produitId == null) {
+                continue;
+            }
+            int docId = produitIds.size();
+            remap[old] = docId;
+            produitIds.add(produitId);
+            values.add(valuesByDocId.get(old));
+            prixCompactes[docId] = prix[old];
+            prixOrigineCompactes[docId] = prixOrigine[old];
+            docIdsByProduitId.put(produitId, docId);
+        }
+        for (Map<String, BitSet> byValue : facets.values()) {
+            byValue.replaceAll((value, bits) -> remap(bits, remap));
+        }
+        BitSet liveCompactes = remap(live, remap);
+        live.clear();
+        live.or(liveCompactes);
+        produitIdsByDocId.clear();
+        produitIdsByDocId.addAll(produitIds);
+        valuesByDocId.clear();
+        valuesByDocId.addAll(values);
+        prix = prixCompactes;
+        prixOrigine = prixOrigineCompactes;
+        prixTries = new double[0];
+        docsTries = new int[0];
+        prixTriesPerimes = true;
+        log.debug("Index de facettes compacté: {} docIds libérés", freed);
+    }
+
+    private static BitSet remap(BitSet bits, int[] remap) {
+        BitSet result = new BitSet();
+        for (int docId = bits.nextSetBit(0); docId >= 0; docId = bits.nextSetBit(docId + 1)) {
+            result.set(remap[docId]);
+        }
+        return result;
+    }
+
+    private void clearValues(int docId) {
+        valuesByDocId.get(docId).forEach((field, fieldValues) -> clearValue(field, fieldValues, docId));
+        valuesByDocId.set(docId, Map.of());
+    }
+
+    private void clearValue(String field, List<String> fieldValues, int docId) {
+        Map<String, BitSet> byValue = facets.get(field);
+        for (String value : fieldValues) {
+            BitSet bits = byValue.get(value);
+            bits.clear(docId);
+            if (bits.isEmpty()) {
+                byValue.remove(value);
+            }
+        }
+    }
+
+    private static void addValue(Map<String, List<String>> values, String field, String value) {
+        if (value != null && !value.isBlank()) {
+            values.computeIfAbsent(field, k -> new ArrayList<>(1)).add(value.trim());
+        }
+    }
+
+    static String tranchePrix(double value) {
+        if (Double.isNaN(value)) {
+            return null;
+        }
+        double lower = 0;
+        for (double upper : TRANCHES_PRIX) {
+            if (value < upper) {
+                return format(lower) + "-" + format(upper);
+            }
+            lower = upper;
+        }
+        return format(lower) + "+";
+    }
+
+    private static String format(double value) {
+        return String.valueOf((long) value);
+    }
+
+    public record BrowseResult(List<String> produitIds, long total, Map<String, Map<String, Integer>> facettes) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sous-ensemble de champs demandé par le paramètre {@code fields=} des listes de produits.
+ * La projection est appliquée côté MongoDB et la réponse ne contient que ces champs,
+ * sans passer par {@link com.example.venteEnLigne.ProduitService.dto.ProduitResponse}.
+ */
+public record ProduitFields(Set<String> names) {
+
+    // Ordre de sérialisation, identique à celui de ProduitResponse
+    static final List<String> SELECTABLE_FIELDS = List.of(
+            "id", "vendeurId", "titre", "description", "prix", "categorie", "sousCategorie", "marque",
+            "currency", "specifications", "status", "image", "imageVariants", "stock", "stockReserve",
+            "createdAt", "updatedAt");
+
+    /**
+     * @param fields liste séparée par des virgules, par exemple {@code id,titre,prix,image,stock}
+     * @throws IllegalArgumentException si un champ n'est pas sélectionnable
+     */
+    public static ProduitFields parse(String fields) {
+        Set<String> requested = new LinkedHashSet<>();
+        requested.add("id"); // toujours renvoyé : sert de clé côté client
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!SELECTABLE_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Champ non sélectionnable: " + name
+                        + " (autorisés: " + String.join(", ", SELECTABLE_FIELDS) + ")");
+            }
+            requested.add(name);
+        }
+        Set<String> names = new LinkedHashSet<>();
+        SELECTABLE_FIELDS.stream().filter(requested::contains).forEach(names::add);
+        return new ProduitFields(Set.copyOf(names));
+    }
+
+    /**
+     * Ajoute la devise quand le prix est demandé : nécessaire pour convertir le prix
+     * (paramètre currency), et renvoyée comme dans une réponse complète.
+     */
+    public ProduitFields withCurrency() {
+        if (!names.contains("prix") || names.contains("currency")) {
+            return this;
+        }
+        Set<String> withCurrency = new LinkedHashSet<>(names);
+        withCurrency.add("currency");
+        return new ProduitFields(Set.copyOf(withCurrency));
+    }
+
+    /**
+     * Restreint les champs lus par la requête ; {@code extra} ajoute des champs nécessaires
+     * au service (clé de tri d'un curseur) sans les renvoyer au client.
+     */
+    Query applyTo(Query query, String... extra) {
+        query.fields().include(names.toArray(String[]::new));
+        if (extra.length > 0) {
+            query.fields().include(extra);
+        }
+        return query;
+    }
+
+    Map<String, Object> view(Produit produit) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        for (String name : SELECTABLE_FIELDS) {
+            if (names.contains(name)) {
+                view.put(name, value(produit, name));
+            }
+        }
+        return view;
+    }
+
+    private static Object value(Produit produit, String name) {
+        return switch (name) {
+            case "id" -> produit.getId();
+            case "vendeurId" -> produit.getVendeurId();
+            case "titre" -> produit.getTitre();
+            case "description" -> produit.getDescription();
+            case "prix" -> produit.getPrix();
+            case "categorie" -> produit.getCategorie();
+            case "sousCategorie" -> produit.getSousCategorie();
+            case "marque" -> produit.getMarque();
+            case "currency" -> produit.getCurrency();
+            case "specifications" -> produit.getSpecifications();
+            case "status" -> produit.getStatus();
+            case "image" -> produit.getImage();
+            case "imageVariants" -> produit.getImageVariants();
+            case "stock" -> produit.getStock();
+            case "stockReserve" -> produit.getStockReserve();
+            case "createdAt" -> produit.getCreatedAt();
+            case "updatedAt" -> produit.getUpdatedAt();
+            default -> throw new IllegalArgumentException("Champ non sélectionnable: " + name);
+        };
+    }
+}
@@ -0,0 +1,438 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.ImportProperties;
+import com.example.venteEnLigne.ProduitService.dto.ProduitCreateRequest;
+import com.example.venteEnLigne.ProduitService.dto.ProduitImportJobResponse;
+import com.example.venteEnLigne.ProduitService.exception.ImportJobNotFoundException;
+import com.example.venteEnLigne.ProduitService.model.*;
+import com.example.venteEnLigne.ProduitService.repository.ProduitImportJobRepository;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Import en masse de produits depuis un CSV (ligne d'en-tête, colonnes spec.xxx pour
+ * les spécifications) ou un NDJSON (un ProduitCreateRequest par ligne). Le corps est
+ * écrit sur disque puis relu en flux par le pool produit-import : seul le lot courant
+ * est en mémoire. Chaque lot est validé en parallèle puis inséré par insertMany, et
+ * le job est mis à jour pour suivre la progression.
+ */
+@Service
+@Slf4j
+public class ProduitImportService {
+
+    private static final String SPEC_PREFIX = "spec.";
+
+    private final MongoTemplate mongoTemplate;
+    private final ProduitImportJobRepository importJobRepository;
+    private final ProduitSearchIndex searchIndex;
+    private final ProduitFacetIndex facetIndex;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor importExecutor;
+    private final ImportProperties properties;
+    private final ObjectReader rowReader;
+    private final ForkJoinPool validationPool;
+
+    public ProduitImportService(MongoTemplate mongoTemplate,
+                                ProduitImportJobRepository importJobRepository,
+                                ProduitSearchIndex searchIndex,
+                                ProduitFacetIndex facetIndex,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                ThreadPoolTaskExecutor importExecutor,
+                                ImportProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.importJobRepository = importJobRepository;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.importExecutor = importExecutor;
+        this.properties = properties;
+        // Colonnes inconnues ignorées : un export d'un autre outil reste importable
+        this.rowReader = objectMapper.readerFor(ProduitCreateRequest.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.validationPool = new ForkJoinPool(properties.getValidationParallelism());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        validationPool.shutdown();
+    }
+
+    /**
+     * Écrit le corps sur disque puis planifie l'import.
+     *
+     * @throws TaskRejectedException si trop d'imports sont déjà en attente
+     */
+    public ProduitImportJobResponse soumettre(String vendeurId, ImportFormat format, InputStream body) throws IOException {
+        if (vendeurId == null || vendeurId.isBlank()) {
+            throw new IllegalArgumentException("L'ID du vendeur est obligatoire");
+        }
+        Path spooled = spool(body);
+        ProduitImportJob job = null;
+        try {
+            job = importJobRepository.save(ProduitImportJob.builder()
+                    .vendeurId(vendeurId)
+                    .format(format)
+                    .taille(Files.size(spooled))
+                    .purgeAt(LocalDateTime.now().plusHours(properties.getJobRetentionHours()))
+                    .build());
+            String jobId = job.getId();
+            importExecutor.execute(() -> executer(jobId, vendeurId, format, spooled));
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            if (job != null) {
+                importJobRepository.deleteById(job.getId());
+            }
+            throw e;
+        }
+        log.info("Import {} planifié: {} octets ({}) pour le vendeur {}", job.getId(), job.getTaille(), format, vendeurId);
+        return mapToResponse(job);
+    }
+
+    public ProduitImportJobResponse getJob(String jobId) {
+        return importJobRepository.findById(jobId)
+                .map(this::mapToResponse)
+                .orElseThrow(() -> new ImportJobNotFoundException("Import non trouvé avec l'ID: " + jobId));
+    }
+
+    private void executer(String jobId, String vendeurId, ImportFormat format, Path spooled) {
+        mettreAJour(jobId, new Update().set("status", ImportStatus.EN_COURS));
+        try (BufferedReader reader = Files.newBufferedReader(spooled, StandardCharsets.UTF_8)) {
+            Iterator<LigneImport> lignes = format == ImportFormat.CSV ? lignesCsv(reader) : lignesNdjson(reader);
+            List<LigneImport> lot = new ArrayList<>(properties.getBatchSize());
+            while (lignes.hasNext()) {
+                lot.add(lignes.next());
+                if (lot.size() == properties.getBatchSize()) {
+                    traiterLot(jobId, vendeurId, lot);
+                    lot = new ArrayList<>(properties.getBatchSize());
+                }
+            }
+            if (!lot.isEmpty()) {
+                traiterLot(jobId, vendeurId, lot);
+            }
+            terminer(jobId, ImportStatus.TERMINE, null);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Échec de l'import {}", jobId, e);
+            terminer(jobId, ImportStatus.ECHEC, e instanceof UncheckedIOException u ? u.getCause().getMessage() : e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(spooled);
+            } catch (IOException e) {
+                log.warn("Fichier d'import {} non supprimé: {}", spooled, e.getMessage());
+            }
+        }
+    }
+
+    private void traiterLot(String jobId, String vendeurId, List<LigneImport> lot)
+            throws InterruptedException, ExecutionException {
+        List<LigneValidee> validees = validationPool.submit(() -> lot.parallelStream()
+                .map(ligne -> valider(ligne, vendeurId))
+                .toList()).get();
+
+        List<LigneRejetee> rejets = new ArrayList<>();
+        List<Produit> produits = new ArrayList<>(validees.size());
+        List<Long> numeros = new ArrayList<>(validees.size());
+        for (LigneValidee ligne : validees) {
+            if (ligne.produit() != null) {
+                produits.add(ligne.produit());
+                numeros.add(ligne.numero());
+            } else {
+                rejets.add(new LigneRejetee(ligne.numero(), ligne.erreur()));
+            }
+        }
+
+        List<Produit> inseres = inserer(jobId, produits, numeros, rejets);
+        inseres.forEach(produit -> {
+            searchIndex.index(produit);
+            facetIndex.index(produit);
+        });
+        long importees = inseres.size();
+
+        Update update = new Update()
+                .inc("lignesLues", lot.size())
+                .inc("lignesImportees", importees)
+                .inc("lignesRejetees", rejets.size());
+        if (!rejets.isEmpty()) {
+            update.push("erreurs").slice(properties.getMaxErrors()).each(rejets.toArray());
+        }
+        mettreAJour(jobId, update);
+    }
+
+    /**
+     * insertMany ordonné : en cas d'échec d'un document, ceux qui le précèdent sont
+     * insérés et les suivants non. Le préfixe est compté comme importé, seule la ligne
+     * en échec est rejetée et l'insertion reprend après elle. Les IDs sont attribués
+     * avant l'envoi pour retrouver les documents du préfixe (MongoTemplate ne les
+     * renseigne qu'en cas de succès).
+     */
+    private List<Produit> inserer(String jobId, List<Produit> produits, List<Long> numeros, List<LigneRejetee> rejets) {
+        produits.forEach(produit -> {
+            if (produit.getId() == null) {
+                produit.setId(new ObjectId().toHexString());
+            }
+        });
+        List<Produit> inseres = new ArrayList<>(produits.size());
+        int debut = 0;
+        while (debut < produits.size()) {
+            List<Produit> restants = produits.subList(debut, produits.size());
+            try {
+                mongoTemplate.insert(restants, Produit.class); // insertMany
+                inseres.addAll(restants);
+                break;
+            } catch (RuntimeException e) {
+                BulkWriteError erreur = premiereErreur(e);
+                if (erreur == null) {
+                    // Échec sans détail par document (réseau...) : les lignes restantes sont rejetées
+                    log.warn("Insertion d'un lot de l'import {} impossible: {}", jobId, e.getMessage());
+                    numeros.subList(debut, numeros.size())
+                            .forEach(numero -> rejets.add(new LigneRejetee(numero, "Insertion impossible: " + e.getMessage())));
+                    break;
+                }
+                int echec = debut + erreur.getIndex();
+                inseres.addAll(produits.subList(debut, echec));
+                rejets.add(new LigneRejetee(numeros.get(echec), "Insertion impossible: " + erreur.getMessage()));
+                debut = echec + 1;
+            }
+        }
+        return inseres;
+    }
+
+    // Erreur par document d'un insertMany, quelle que soit la traduction de Spring
+    private static BulkWriteError premiereErreur(RuntimeException e) {
+        if (e instanceof BulkOperationException bulk && !bulk.getErrors().isEmpty()) {
+            return bulk.getErrors().get(0);
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoBulkWriteException bulk && !bulk.getWriteErrors().isEmpty()) {
+                return bulk.getWriteErrors().get(0);
+            }
+        }
+        return null;
+    }
+
+    private LigneValidee valider(LigneImport ligne, String vendeurId) {
+        if (ligne.erreur() != null) {
+            return new LigneValidee(ligne.numero(), null, ligne.erreur());
+        }
+        ProduitCreateRequest request;
+        try {
+            ObjectNode node = ligne.valeurs();
+            node.put("vendeurId", vendeurId); // Le vendeur de l'import prime sur le fichier
+            request = rowReader.readValue(node);
+        } catch (IOException | IllegalArgumentException e) {
+            return new LigneValidee(ligne.numero(), null, "Valeur invalide: " + e.getMessage());
+        }
+        Set<ConstraintViolation<ProduitCreateRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            return new LigneValidee(ligne.numero(), null, message);
+        }
+        return new LigneValidee(ligne.numero(), ProduitServiceImpl.toProduit(request), null);
+    }
+
+    private Iterator<LigneImport> lignesCsv(BufferedReader reader) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader, ',');
+        List<String> entetes = csv.next();
+        if (entetes == null) {
+            return Collections.emptyIterator();
+        }
+        if (!entetes.isEmpty() && entetes.get(0).startsWith("\uFEFF")) {
+            entetes.set(0, entetes.get(0).substring(1)); // BOM ajouté par Excel
+        }
+        List<String> colonnes = entetes.stream().map(String::trim).toList();
+
+        return new LecteurLignes() {
+            @Override
+            LigneImport lire() throws IOException {
+                List<String> champs;
+                do {
+                    champs = csv.next();
+                } while (champs != null && champs.stream().allMatch(String::isBlank));
+                if (champs == null) {
+                    return null;
+                }
+                long numero = csv.recordLine();
+                if (champs.size() > colonnes.size()) {
+                    return new LigneImport(numero, null, "Plus de colonnes que l'en-tête");
+                }
+                ObjectNode valeurs = objectMapper.createObjectNode();
+                ObjectNode specifications = objectMapper.createObjectNode();
+                for (int i = 0; i < champs.size(); i++) {
+                    String valeur = champs.get(i).trim();
+                    if (valeur.isEmpty()) {
+                        continue;
+                    }
+                    String colonne = colonnes.get(i);
+                    if (colonne.startsWith(SPEC_PREFIX)) {
+                        specifications.put(colonne.substring(SPEC_PREFIX.length()), valeur);
+                    } else {
+                        valeurs.put(colonne, valeur);
+                    }
+                }
+                if (!specifications.isEmpty()) {
+                    valeurs.set("specifications", specifications);
+                }
+                return new LigneImport(numero, valeurs, null);
+            }
+        };
+    }
+
+    private Iterator<LigneImport> lignesNdjson(BufferedReader reader) {
+        return new LecteurLignes() {
+            private long numero;
+
+            @Override
+            LigneImport lire() throws IOException {
+                String ligne;
+                do {
+                    ligne = reader.readLine();
+                    numero++;
+                } while (ligne != null && ligne.isBlank());
+                if (ligne == null) {
+                    return null;
+                }
+                try {
+                    JsonNode node = objectMapper.readTree(ligne);
+                    if (!(node instanceof ObjectNode valeurs)) {
+                        return new LigneImport(numero, null, "Objet JSON attendu");
+                    }
+                    return new LigneImport(numero, valeurs, null);
+                } catch (IOException e) {
+                    return new LigneImport(numero, null, "JSON invalide: " + e.getMessage());
+                }
+            }
+        };
+    }
+
+    private Path spool(InputStream body) throws IOException {
+        Path spoolDir = Paths.get(properties.getSpoolDir());
+        Files.createDirectories(spoolDir);
+        Path spooled = Files.createTempFile(spoolDir, "import-", ".tmp");
+        try (InputStream in = body; OutputStream out = Files.newOutputStream(spooled)) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > properties.getMaxFileSizeBytes()) {
+                    throw new IllegalArgumentException("Fichier d'import trop volumineux (max "
+                            + properties.getMaxFileSizeBytes() + " octets)");
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+        return spooled;
+    }
+
+    private void terminer(String jobId, ImportStatus status, String erreur) {
+        Update update = new Update()
+                .set("status", status)
+                .set("termineAt", LocalDateTime.now())
+                .set("purgeAt", LocalDateTime.now().plusHours(properties.getJobRetentionHours()));
+        if (erreur != null) {
+            update.set("erreur", erreur);
+        }
+        mettreAJour(jobId, update);
+    }
+
+    private void mettreAJour(String jobId, Update update) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(jobId)),
+                update.set("updatedAt", LocalDateTime.now()), ProduitImportJob.class);
+    }
+
+    private ProduitImportJobResponse mapToResponse(ProduitImportJob job) {
+        return ProduitImportJobResponse.builder()
+                .jobId(job.getId())
+                .vendeurId(job.getVendeurId())
+                .format(job.getFormat())
+                .status(job.getStatus())
+                .taille(job.getTaille())
+                .lignesLues(job.getLignesLues())
+                .lignesImportees(job.getLignesImportees())
+                .lignesRejetees(job.getLignesRejetees())
+                .erreurs(job.getErreurs())
+                .erreur(job.getErreur())
+                .createdAt(job.getCreatedAt())
+                .updatedAt(job.getUpdatedAt())
+                .termineAt(job.getTermineAt())
+                .build();
+    }
+
+    // Ligne lue : valeurs brutes, ou erreur de lecture
+    private record LigneImport(long numero, ObjectNode valeurs, String erreur) {
+    }
+
+    private record LigneValidee(long numero, Produit produit, String erreur) {
+    }
+
+    // Itérateur paresseux : lire() renvoie null en fin de fichier
+    private abstract static class LecteurLignes implements Iterator<LigneImport> {
+        private LigneImport suivante;
+        private boolean fin;
+
+        abstract LigneImport lire() throws IOException;
+
+        @Override
+        public boolean hasNext() {
+            if (suivante == null && !fin) {
+                try {
+                    suivante = lire();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                fin = suivante == null;
+            }
+            return suivante != null;
+        }
+
+        @Override
+        public LigneImport next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            LigneImport ligne = suivante;
+            suivante = null;
+            return ligne;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.dto.IndexUsage;
+import com.example.venteEnLigne.ProduitService.dto.IndexUsageReport;
+import com.example.venteEnLigne.ProduitService.dto.QueryPlanReport;
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Vérifie au démarrage, via explain(), que chaque forme de requête du repository
+ * est servie par un index. Selon produit.indexes.on-collscan, un COLLSCAN est
+ * signalé (WARN), fait échouer le démarrage (FAIL) ou ignoré (IGNORE).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProduitIndexVerifier {
+
+    // Formes des requêtes de ProduitRepository / ProduitServiceImpl ; seules les clés
+    // et opérateurs comptent pour le plan, les valeurs sont indicatives
+    private static final List<QueryShape> QUERY_SHAPES = List.of(
+            new QueryShape("findByVendeurId", new Document("vendeurId", "v"), null),
+            new QueryShape("findByVendeurId (paginé)", new Document("vendeurId", "v"),
+                    new Document("createdAt", -1).append("_id", -1)),
+            new QueryShape("findByVendeurIdAndStatus", new Document("vendeurId", "v").append("status", "DISPONIBLE"), null),
+            new QueryShape("findByCategorie", new Document("categorie", "c"), null),
+            new QueryShape("findByCategorie (paginé)", new Document("categorie", "c"), new Document("createdAt", -1)),
+            new QueryShape("findBySousCategorie", new Document("sousCategorie", "s"), null),
+            new QueryShape("findByStatus", new Document("status", "DISPONIBLE"), null),
+            new QueryShape("findByStatus (paginé)", new Document("status", "DISPONIBLE"), new Document("createdAt", -1)),
+            new QueryShape("findByMarque", new Document("marque", "m"), null),
+            new QueryShape("findByPrixBetween", new Document("prix", new Document("$gt", 0).append("$lt", 100)), null),
+            new QueryShape("getProduitsByPrix", new Document("prix", new Document("$gte", 0).append("$lte", 100)),
+                    new Document("prix", 1).append("_id", 1)),
+            new QueryShape("findByStockGreaterThan", new Document("stock", new Document("$gt", 0)), null),
+            new QueryShape("findByStockLessThanEqual", new Document("stock", new Document("$lte", 0)), null),
+            new QueryShape("findAll (paginé)", new Document(), new Document("createdAt", -1).append("_id", -1)),
+            new QueryShape("findAll (curseur par titre)", new Document(), new Document("titre", 1).append("_id", 1)),
+            new QueryShape("findAll (curseur par stock)", new Document(), new Document("stock", -1).append("_id", -1)));
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${produit.indexes.on-collscan:WARN}")
+    private String onCollscan;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyIndexes() {
+        if ("IGNORE".equalsIgnoreCase(onCollscan)) {
+            return;
+        }
+
+        List<QueryPlanReport> reports;
+        try {
+            reports = explainQueryShapes();
+        } catch (Exception e) {
+            log.warn("Vérification des index impossible: {}", e.getMessage());
+            return;
+        }
+
+        List<String> collscans = reports.stream()
+                .filter(QueryPlanReport::isCollscan)
+                .map(report -> report.getRequete() + " " + report.getFiltre())
+                .collect(Collectors.toList());
+        if (collscans.isEmpty()) {
+            log.info("Index vérifiés: {} formes de requête servies par un index", reports.size());
+        } else if ("FAIL".equalsIgnoreCase(onCollscan)) {
+            throw new IllegalStateException("Requêtes sans index (COLLSCAN): " + collscans);
+        } else {
+            collscans.forEach(shape -> log.warn("Requête sans index (COLLSCAN): {}", shape));
+        }
+    }
+
+    public List<QueryPlanReport> explainQueryShapes() {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Produit.class));
+        List<QueryPlanReport> reports = new ArrayList<>();
+        for (QueryShape shape : QUERY_SHAPES) {
+            FindIterable<Document> find = collection.find(shape.filter());
+            if (shape.sort() != null) {
+                find = find.sort(shape.sort());
+            }
+            // QUERY_PLANNER : plan choisi sans exécuter la requête (pas de lecture de la collection)
+            Document explain = find.explain(ExplainVerbosity.QUERY_PLANNER);
+            Document queryPlanner = explain.get("queryPlanner", Document.class);
+
+            Set<String> stages = new HashSet<>();
+            Set<String> indexes = new LinkedHashSet<>();
+            collectPlan(queryPlanner == null ? null : queryPlanner.get("winningPlan"), stages, indexes);
+
+            reports.add(QueryPlanReport.builder()
+                    .requete(shape.name())
+                    .filtre(shape.filter().toJson())
+                    .tri(shape.sort() == null ? null : shape.sort().toJson())
+                    .index(new ArrayList<>(indexes))
+                    .collscan(stages.contains("COLLSCAN"))
+                    .build());
+        }
+        return reports;
+    }
+
+    /**
+     * Plans des requêtes déclarées et compteurs $indexStats de la collection.
+     */
+    public IndexUsageReport usageReport() {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Produit.class));
+        List<IndexUsage> usages = new ArrayList<>();
+        for (Document stats : collection.aggregate(List.of(new Document("$indexStats", new Document())))) {
+            Document accesses = stats.get("accesses", Document.class);
+            usages.add(IndexUsage.builder()
+                    .nom(stats.getString("name"))
+                    .cle(stats.get("key", Document.class).toJson())
+                    .operations(accesses == null ? 0 : ((Number) accesses.get("ops")).longValue())
+                    .depuis(accesses == null ? null : accesses.getDate("since"))
+                    .build());
+        }
+        usages.sort(Comparator.comparingLong(IndexUsage::getOperations).reversed());
+
+        return IndexUsageReport.builder()
+                .requetes(explainQueryShapes())
+                .index(usages)
+                .indexInutilises(usages.stream()
+                        .filter(usage -> usage.getOperations() == 0 && !"_id_".equals(usage.getNom()))
+                        .map(IndexUsage::getNom)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    // Parcourt le plan gagnant (y compris queryPlan imbriqué des plans SBE)
+    private static void collectPlan(Object node, Set<String> stages, Set<String> indexes) {
+        if (node instanceof Document document) {
+            if (document.get("stage") instanceof String stage) {
+                stages.add(stage);
+            }
+            if (document.get("indexName") instanceof String indexName) {
+                indexes.add(indexName);
+            }
+            document.values().forEach(value -> collectPlan(value, stages, indexes));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collectPlan(value, stages, indexes));
+        }
+    }
+
+    private record QueryShape(String name, Document filter, Document sort) {
+    }
+}
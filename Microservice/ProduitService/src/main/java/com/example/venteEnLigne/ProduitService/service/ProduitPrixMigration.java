@@ -0,0 +1,75 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Convertit au démarrage les prix stockés en chaîne (représentation par défaut de
+ * BigDecimal) en Decimal128. Tant qu'un prix reste une chaîne, il échappe aux
+ * plages et aux tris numériques sur l'index prix_id_idx.
+ * Idempotent : seuls les documents dont le prix est encore une chaîne sont modifiés.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProduitPrixMigration {
+
+    // Une chaîne non numérique est laissée telle quelle plutôt que de faire échouer la mise à jour
+    private static final List<Document> TO_DECIMAL = List.of(new Document("$set", new Document("prix",
+            new Document("$convert", new Document("input", "$prix")
+                    .append("to", "decimal")
+                    .append("onError", "$prix")))));
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${produit.migration.prix-decimal128:true}")
+    private boolean enabled;
+
+    // Avant la reconstruction des index en mémoire et la vérification des plans
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long converted = convertStringPrices();
+            if (converted > 0) {
+                log.info("Migration des prix: {} produits convertis en Decimal128", converted);
+            }
+            long remaining = collection().countDocuments(stringPrix());
+            if (remaining > 0) {
+                log.warn("Migration des prix: {} produits ont un prix non numérique, laissé en chaîne", remaining);
+            }
+        } catch (Exception e) {
+            log.error("Migration des prix en Decimal128 impossible", e);
+        }
+    }
+
+    private long convertStringPrices() {
+        // Pipeline de mise à jour (MongoDB 4.2+) : conversion côté serveur, sans relire les documents
+        UpdateResult result = collection().updateMany(stringPrix(), TO_DECIMAL);
+        return result.getModifiedCount();
+    }
+
+    private MongoCollection<Document> collection() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Produit.class));
+    }
+
+    private static Document stringPrix() {
+        return new Document("prix", new Document("$type", "string"));
+    }
+}
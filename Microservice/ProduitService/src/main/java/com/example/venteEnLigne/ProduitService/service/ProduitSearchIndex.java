@@ -0,0 +1,473 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.dto.ProduitChangeEvent;
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import com.example.venteEnLigne.ProduitService.model.ProduitChangeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index inversé en mémoire sur titre + description des produits.
+ * Remplace la recherche $regex (scan complet de la collection) par une
+ * intersection de listes de postings et un classement BM25.
+ * Les écritures des autres instances arrivent par le flux de changements
+ * ({@link #apply}) ; les docIds libérés sont récupérés par compaction.
+ */
+@Component
+@Slf4j
+public class ProduitSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITRE_WEIGHT = 2; // Un terme du titre compte double
+    private static final int MIN_COMPACTION = 1024; // docIds libérés avant de compacter
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}']+");
+    private static final Pattern ELISION = Pattern.compile("^(?:l|d|j|m|n|s|t|c|qu|jusqu|lorsqu|puisqu)'");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "le", "la", "les", "un", "une", "des", "du", "de", "au", "aux",
+            "et", "ou", "en", "a", "pour", "par", "sur", "sous", "dans", "avec",
+            "sans", "ce", "ces", "cet", "cette", "son", "sa", "ses", "est", "qui", "que");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Dictionnaire trié pour permettre l'expansion par préfixe du dernier terme
+    private final NavigableMap<String, Posting> postings = new TreeMap<>();
+    private final Map<String, Integer> docIdsByProduitId = new HashMap<>();
+    private final List<String> produitIdsByDocId = new ArrayList<>();
+    private final List<String[]> termsByDocId = new ArrayList<>(); // pour la suppression
+    private int[] docLengths = new int[64];
+    private long totalLength;
+    private int liveDocs;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reconstruit entièrement l'index à partir des produits fournis.
+     */
+    public void rebuild(Iterator<Produit> produits) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docIdsByProduitId.clear();
+            produitIdsByDocId.clear();
+            termsByDocId.clear();
+            docLengths = new int[64];
+            totalLength = 0;
+            liveDocs = 0;
+            while (produits.hasNext()) {
+                Produit produit = produits.next();
+                addLocked(produit.getId(), produit.getTitre(), produit.getDescription());
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Index de recherche construit: {} produits, {} termes", liveDocs, postings.size());
+    }
+
+    /**
+     * Ajoute ou remplace un produit dans l'index.
+     */
+    public void index(Produit produit) {
+        if (produit == null || produit.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(produit.getId());
+            addLocked(produit.getId(), produit.getTitre(), produit.getDescription());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String produitId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(produitId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applique les changements du catalogue reçus du flux, y compris ceux écrits par les
+     * autres instances. Les écritures de stock ne touchent pas au texte et sont ignorées ;
+     * un événement reçu deux fois ne fait que réindexer le produit.
+     */
+    public void apply(List<ProduitChangeEvent> events) {
+        lock.writeLock().lock();
+        try {
+            for (ProduitChangeEvent event : events) {
+                if (event.getType() == ProduitChangeType.SUPPRESSION) {
+                    removeLocked(event.getProduitId());
+                } else if (event.getType() != ProduitChangeType.STOCK && event.getProduit() != null) {
+                    removeLocked(event.getProduitId());
+                    addLocked(event.getProduitId(), event.getProduit().getTitre(), event.getProduit().getDescription());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // docIds alloués, vivants ou libérés (borne mémoire, vérifiée par les tests)
+    int allocatedDocIds() {
+        lock.readLock().lock();
+        try {
+            return produitIdsByDocId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recherche les produits contenant tous les termes de la requête (le dernier
+     * terme est traité comme un préfixe) et les classe par score BM25 décroissant.
+     *
+     * @return les IDs de la page demandée et le nombre total de résultats
+     */
+    public SearchResult search(String keyword, int offset, int limit) {
+        List<String> terms = analyze(keyword);
+        if (terms.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            int n = liveDocs;
+            double avgLength = n == 0 ? 0 : (double) totalLength / n;
+
+            // Chaque terme de la requête devient un groupe de postings (plusieurs si préfixe)
+            List<List<Posting>> groups = new ArrayList<>(terms.size());
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                List<Posting> group;
+                if (i == terms.size() - 1) {
+                    group = new ArrayList<>(postings.subMap(term, true, term + Character.MAX_VALUE, false).values());
+                } else {
+                    Posting posting = postings.get(term);
+                    group = posting == null ? List.of() : List.of(posting);
+                }
+                if (group.isEmpty()) {
+                    return new SearchResult(List.of(), 0);
+                }
+                groups.add(group);
+            }
+
+            // Intersection en partant du groupe le plus sélectif
+            groups.sort(Comparator.comparingInt(ProduitSearchIndex::groupSize));
+            int[] candidates = union(groups.get(0));
+            for (int g = 1; g < groups.size() && candidates.length > 0; g++) {
+                candidates = intersect(candidates, union(groups.get(g)));
+            }
+            if (candidates.length == 0) {
+                return new SearchResult(List.of(), 0);
+            }
+
+            double[] scores = new double[candidates.length];
+            for (List<Posting> group : groups) {
+                for (Posting posting : group) {
+                    double idf = Math.log(1 + (n - posting.size + 0.5) / (posting.size + 0.5));
+                    int p = 0;
+                    for (int c = 0; c < candidates.length && p < posting.size; c++) {
+                        p = advance(posting.docs, p, posting.size, candidates[c]);
+                        if (p < posting.size && posting.docs[p] == candidates[c]) {
+                            double tf = posting.freqs[p];
+                            double norm = K1 * (1 - B + B * docLengths[candidates[c]] / avgLength);
+                            scores[c] += idf * tf * (K1 + 1) / (tf + norm);
+                        }
+                    }
+                }
+            }
+
+            // Seuls les offset + limit meilleurs sont classés : tas borné dont la racine est
+            // le moins bon retenu, O(n log k) sans objet par candidat
+            int k = (int) Math.max(0, Math.min(candidates.length, (long) offset + limit));
+            int[] heap = new int[k];
+            int size = 0;
+            for (int c = 0; c < candidates.length && k > 0; c++) {
+                if (size < k) {
+                    heap[size] = c;
+                    siftUp(heap, size++, scores);
+                } else if (ranksBefore(c, heap[0], scores)) {
+                    heap[0] = c;
+                    siftDown(heap, 0, size, scores);
+                }
+            }
+            int[] ranked = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                ranked[i] = heap[0];
+                heap[0] = heap[i];
+                siftDown(heap, 0, i, scores);
+            }
+
+            List<String> ids = new ArrayList<>(Math.max(0, Math.min(limit, ranked.length - offset)));
+            for (int i = offset; i < ranked.length; i++) {
+                ids.add(produitIdsByDocId.get(candidates[ranked[i]]));
+            }
+            return new SearchResult(ids, candidates.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Découpe un texte en termes normalisés : minuscules, accents retirés,
+     * élisions françaises (l', d', qu'...) supprimées, mots vides ignorés et
+     * pluriel simple (s/x final) ramené au singulier.
+     */
+    static List<String> analyze(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT)
+                .replace('’', '\'');
+        List<String> terms = new ArrayList<>();
+        for (String raw : SEPARATORS.split(folded)) {
+            String token = ELISION.matcher(raw).replaceFirst("").replace("'", "");
+            if (token.isEmpty() || STOP_WORDS.contains(token)) {
+                continue;
+            }
+            if (token.length() > 3 && (token.endsWith("s") || token.endsWith("x"))) {
+                token = token.substring(0, token.length() - 1);
+            }
+            terms.add(token);
+        }
+        return terms;
+    }
+
+    private void addLocked(String produitId, String titre, String description) {
+        Map<String, Integer> freqs = new HashMap<>();
+        int length = 0;
+        for (String term : analyze(titre)) {
+            freqs.merge(term, TITRE_WEIGHT, Integer::sum);
+            length += TITRE_WEIGHT;
+        }
+        for (String term : analyze(description)) {
+            freqs.merge(term, 1, Integer::sum);
+            length++;
+        }
+
+        int docId = produitIdsByDocId.size();
+        produitIdsByDocId.add(produitId);
+        termsByDocId.add(freqs.keySet().toArray(new String[0]));
+        docIdsByProduitId.put(produitId, docId);
+        if (docId >= docLengths.length) {
+            docLengths = Arrays.copyOf(docLengths, docLengths.length * 2);
+        }
+        docLengths[docId] = length;
+        totalLength += length;
+        liveDocs++;
+
+        // Les docIds sont croissants : l'ajout en fin de posting garde l'ordre trié
+        for (Map.Entry<String, Integer> entry : freqs.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new Posting()).append(docId, entry.getValue());
+        }
+    }
+
+    private void removeLocked(String produitId) {
+        Integer docId = docIdsByProduitId.remove(produitId);
+        if (docId == null) {
+            return;
+        }
+        for (String term : termsByDocId.get(docId)) {
+            Posting posting = postings.get(term);
+            if (posting != null && posting.remove(docId) && posting.size == 0) {
+                postings.remove(term);
+            }
+        }
+        // Le docId n'est pas réutilisé (les postings restent triés par ajout en fin) ;
+        // la place est récupérée par compaction
+        termsByDocId.set(docId, new String[0]);
+        produitIdsByDocId.set(docId, null);
+        totalLength -= docLengths[docId];
+        docLengths[docId] = 0;
+        liveDocs--;
+        compactIfNeededLocked();
+    }
+
+    /**
+     * Renumérote les documents vivants quand les docIds libérés dépassent les vivants.
+     * La renumérotation est croissante : les postings restent triés sans nouveau tri.
+     * Coût linéaire, amorti sur au moins autant de suppressions.
+     */
+    private void compactIfNeededLocked() {
+        int allocated = produitIdsByDocId.size();
+        int freed = allocated - liveDocs;
+        if (freed < MIN_COMPACTION || freed <= liveDocs) {
+            return;
+        }
+        int[] remap = new int[allocated];
+        List<String> produitIds = new ArrayList<>(liveDocs);
+        List<String[]> terms = new ArrayList<>(liveDocs);
+        int[] lengths = new int[Math.max(64, liveDocs)];
+        for (int old = 0; old < allocated; old++) {
+            String produitId = produitIdsByDocId.get(old);
+            if (produitId == null) {
+                remap[old] = -1;
+                continue;
+            }
+            int docId = produitIds.size();
+            remap[old] = docId;
+            produitIds.add(produitId);
+            terms.add(termsByDocId.get(old));
+            lengths[docId] = docLengths[old];
+            docIdsByProduitId.put(produitId, docId);
+        }
+        for (Posting posting : postings.values()) {
+            for (int i = 0; i < posting.size; i++) {
+                posting.docs[i] = remap[posting.docs[i]];
+            }
+        }
+        produitIdsByDocId.clear();
+        produitIdsByDocId.addAll(produitIds);
+        termsByDocId.clear();
+        termsByDocId.addAll(terms);
+        docLengths = lengths;
+        log.debug("Index de recherche compacté: {} docIds libérés", freed);
+    }
+
+    // Score décroissant, puis docId croissant (ordre des candidats) à score égal
+    private static boolean ranksBefore(int a, int b, double[] scores) {
+        int cmp = Double.compare(scores[a], scores[b]);
+        return cmp > 0 || (cmp == 0 && a < b);
+    }
+
+    private static void siftUp(int[] heap, int i, double[] scores) {
+        int item = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!ranksBefore(heap[parent], item, scores)) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = item;
+    }
+
+    private static void siftDown(int[] heap, int i, int size, double[] scores) {
+        int item = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && ranksBefore(heap[child], heap[child + 1], scores)) {
+                child++;
+            }
+            if (!ranksBefore(item, heap[child], scores)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+
+    private static int groupSize(List<Posting> group) {
+        int size = 0;
+        for (Posting posting : group) {
+            size += posting.size;
+        }
+        return size;
+    }
+
+    private static int[] union(List<Posting> group) {
+        if (group.size() == 1) {
+            Posting posting = group.get(0);
+            return Arrays.copyOf(posting.docs, posting.size);
+        }
+        int[] merged = new int[groupSize(group)];
+        int length = 0;
+        for (Posting posting : group) {
+            System.arraycopy(posting.docs, 0, merged, length, posting.size);
+            length += posting.size;
+        }
+        Arrays.sort(merged, 0, length);
+        int unique = 0;
+        for (int i = 0; i < length; i++) {
+            if (unique == 0 || merged[unique - 1] != merged[i]) {
+                merged[unique++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, unique);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                result[k++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    // Premier indice >= from tel que docs[indice] >= target
+    private static int advance(int[] docs, int from, int size, int target) {
+        while (from < size && docs[from] < target) {
+            from++;
+        }
+        return from;
+    }
+
+    private static final class Posting {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void append(int docId, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = docId;
+            freqs[size] = freq;
+            size++;
+        }
+
+        boolean remove(int docId) {
+            int index = Arrays.binarySearch(docs, 0, size, docId);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(docs, index + 1, docs, index, size - index - 1);
+            System.arraycopy(freqs, index + 1, freqs, index, size - index - 1);
+            size--;
+            return true;
+        }
+    }
+
+    public record SearchResult(List<String> produitIds, long total) {
+    }
+}
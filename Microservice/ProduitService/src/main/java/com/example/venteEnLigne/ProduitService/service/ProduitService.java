@@ -1,11 +1,15 @@
 package com.example.venteEnLigne.ProduitService.service;
 
 import com.example.venteEnLigne.ProduitService.dto.*;
+import com.example.venteEnLigne.ProduitService.model.ClassementType;
 import com.example.venteEnLigne.ProduitService.model.ProductStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ProduitService {
     
@@ -20,10 +24,35 @@ public interface ProduitService {
     Page<ProduitResponse> getAllProduits(Pageable pageable);
     List<ProduitResponse> getProduitsByVendeur(String vendeurId);
     Page<ProduitResponse> getProduitsByVendeur(String vendeurId, Pageable pageable);
+    CursorPage<ProduitResponse> getAllProduits(String after, int size, String sortBy, String sortDir, boolean withTotal);
+    CursorPage<ProduitResponse> getProduitsByVendeur(String vendeurId, String after, int size,
+                                                     String sortBy, String sortDir, boolean withTotal);
     List<ProduitResponse> getProduitsByCategorie(String categorie);
     Page<ProduitResponse> searchProduits(String keyword, Pageable pageable);
     List<ProduitResponse> getProduitsByStatus(ProductStatus status);
+    Page<ProduitResponse> getProduitsByPrix(BigDecimal prixMin, BigDecimal prixMax, Pageable pageable);
+    Page<ProduitResponse> getProduitsByPrix(BigDecimal prixMin, BigDecimal prixMax, String currency, Pageable pageable);
+    FacetedBrowseResponse browseProduits(FacetedBrowseRequest request);
+    List<RelatedProduitResponse> getRelatedProduits(String produitId, int limit, boolean details);
+    List<HotProduitResponse> getHotProduits(ClassementType type, String categorie, int limit, boolean details);
+
+    // Listes projetées (paramètre fields=) : seuls les champs demandés sont lus et renvoyés
+    Page<Map<String, Object>> getAllProduits(Pageable pageable, ProduitFields fields);
+    Page<Map<String, Object>> getProduitsByVendeur(String vendeurId, Pageable pageable, ProduitFields fields);
+    CursorPage<Map<String, Object>> getAllProduits(String after, int size, String sortBy, String sortDir,
+                                                   boolean withTotal, ProduitFields fields);
+    CursorPage<Map<String, Object>> getProduitsByVendeur(String vendeurId, String after, int size, String sortBy,
+                                                         String sortDir, boolean withTotal, ProduitFields fields);
+    List<Map<String, Object>> getProduitsByCategorie(String categorie, ProduitFields fields);
+    Page<Map<String, Object>> searchProduits(String keyword, Pageable pageable, ProduitFields fields);
+    List<Map<String, Object>> getProduitsByStatus(ProductStatus status, ProduitFields fields);
     
+    // Exports en flux (curseur MongoDB, mémoire bornée)
+    void streamAllProduits(int batchSize, Consumer<ProduitResponse> consumer);
+    void streamProduitsByCategorie(String categorie, int batchSize, Consumer<ProduitResponse> consumer);
+    void streamProduitsByStatus(ProductStatus status, int batchSize, Consumer<ProduitResponse> consumer);
+    void streamProduitsEnRupture(int batchSize, Consumer<ProduitResponse> consumer);
+
     // Gestion du stock (transactionnel)
     ProduitResponse updateStock(StockUpdateRequest request);
     ProduitResponse decrementStock(String produitId, Integer quantite);
@@ -3,18 +3,41 @@ package com.example.venteEnLigne.ProduitService.service;
 import com.example.venteEnLigne.ProduitService.dto.*;
 import com.example.venteEnLigne.ProduitService.exception.InsufficientStockException;
 import com.example.venteEnLigne.ProduitService.exception.ProduitNotFoundException;
+import com.example.venteEnLigne.ProduitService.model.ClassementType;
 import com.example.venteEnLigne.ProduitService.model.Produit;
 import com.example.venteEnLigne.ProduitService.model.ProductStatus;
 import com.example.venteEnLigne.ProduitService.repository.ProduitRepository;
+import com.mongodb.client.MongoCollection;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -22,28 +45,52 @@ import java.util.stream.Collectors;
 public class ProduitServiceImpl implements ProduitService {
 
     private final ProduitRepository produitRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ProduitSearchIndex searchIndex;
+    private final ProduitCache produitCache;
+    private final ProduitFacetIndex facetIndex;
+    private final CurrencyConverter currencyConverter;
+    private final ProduitChangeFeed changeFeed;
+    private final RelatedProduitsIndex relatedIndex;
+    private final HotProduitsTracker hotTracker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildSearchIndex() {
+        // Abonné avant la lecture : une écriture d'une autre instance pendant le rebuild
+        // est appliquée après lui (même verrou)
+        changeFeed.addListener(searchIndex::apply);
+        // Seuls les champs indexés sont lus, via un curseur pour ne pas charger toute la collection
+        Query query = new Query();
+        query.fields().include("titre", "description");
+        try (Stream<Produit> produits = mongoTemplate.stream(query, Produit.class)) {
+            searchIndex.rebuild(produits.iterator());
+        } catch (Exception e) {
+            log.error("Impossible de construire l'index de recherche, repli sur la recherche MongoDB", e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildFacetIndex() {
+        // Du plus ancien au plus récent : l'ordre d'insertion sert de tri par date
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "createdAt"));
+        query.fields().include(ProduitFacetIndex.CATEGORIE, ProduitFacetIndex.SOUS_CATEGORIE,
+                ProduitFacetIndex.MARQUE, ProduitFacetIndex.CURRENCY, ProduitFacetIndex.STATUS,
+                "specifications", "prix");
+        try (Stream<Produit> produits = mongoTemplate.stream(query, Produit.class)) {
+            facetIndex.rebuild(produits.iterator());
+        } catch (Exception e) {
+            log.error("Impossible de construire l'index de facettes, repli sur MongoDB sans comptes", e);
+        }
+    }
 
     @Override
     @Transactional
     public ProduitResponse createProduit(ProduitCreateRequest request) {
         log.info("Création d'un nouveau produit: {}", request.getTitre());
 
-        Produit produit = Produit.builder()
-                .vendeurId(request.getVendeurId())
-                .titre(request.getTitre())
-                .description(request.getDescription())
-                .prix(request.getPrix())
-                .categorie(request.getCategorie())
-                .sousCategorie(request.getSousCategorie())
-                .marque(request.getMarque())
-                .currency(request.getCurrency())
-                .specifications(request.getSpecifications())
-                .status(request.getStatus())
-                .image(request.getImage())
-                .stock(request.getStock())
-                .build();
-
-        Produit savedProduit = produitRepository.save(produit);
+        Produit savedProduit = produitRepository.save(toProduit(request));
+        searchIndex.index(savedProduit);
+        facetIndex.index(savedProduit);
         log.info("Produit créé avec l'ID: {}", savedProduit.getId());
 
         return mapToResponse(savedProduit);
@@ -51,9 +98,9 @@ public class ProduitServiceImpl implements ProduitService {
 
     @Override
     public ProduitResponse getProduitById(String id) {
-        Produit produit = produitRepository.findById(id)
-                .orElseThrow(() -> new ProduitNotFoundException("Produit non trouvé avec l'ID: " + id));
-        return mapToResponse(produit);
+        return produitCache.get(id, key -> produitRepository.findById(key)
+                .map(ProduitServiceImpl::mapToResponse)
+                .orElseThrow(() -> new ProduitNotFoundException("Produit non trouvé avec l'ID: " + key)));
     }
 
     @Override
@@ -74,9 +121,13 @@ public class ProduitServiceImpl implements ProduitService {
         if (request.getSpecifications() != null) produit.setSpecifications(request.getSpecifications());
         if (request.getStatus() != null) produit.setStatus(request.getStatus());
         if (request.getImage() != null) produit.setImage(request.getImage());
+        if (request.getImageVariants() != null) produit.setImageVariants(request.getImageVariants());
         if (request.getStock() != null) produit.setStock(request.getStock());
 
         Produit updatedProduit = produitRepository.save(produit);
+        searchIndex.index(updatedProduit);
+        facetIndex.index(updatedProduit);
+        produitCache.invalidate(id);
         log.info("Produit mis à jour: {}", id);
 
         return mapToResponse(updatedProduit);
@@ -92,55 +143,397 @@ public class ProduitServiceImpl implements ProduitService {
         }
 
         produitRepository.deleteById(id);
+        changeFeed.recordDeletion(id);
+        searchIndex.remove(id);
+        facetIndex.remove(id);
+        produitCache.invalidate(id);
         log.info("Produit supprimé: {}", id);
     }
 
     @Override
     public List<ProduitResponse> getAllProduits() {
         return produitRepository.findAll().stream()
-                .map(this::mapToResponse)
+                .map(ProduitServiceImpl::mapToResponse)
                 .collect(Collectors.toList());
     }
 
     @Override
     public Page<ProduitResponse> getAllProduits(Pageable pageable) {
         return produitRepository.findAll(pageable)
-                .map(this::mapToResponse);
+                .map(ProduitServiceImpl::mapToResponse);
     }
 
     @Override
     public List<ProduitResponse> getProduitsByVendeur(String vendeurId) {
         return produitRepository.findByVendeurId(vendeurId).stream()
-                .map(this::mapToResponse)
+                .map(ProduitServiceImpl::mapToResponse)
                 .collect(Collectors.toList());
     }
 
     @Override
     public Page<ProduitResponse> getProduitsByVendeur(String vendeurId, Pageable pageable) {
         return produitRepository.findByVendeurId(vendeurId, pageable)
-                .map(this::mapToResponse);
+                .map(ProduitServiceImpl::mapToResponse);
+    }
+
+    @Override
+    public CursorPage<ProduitResponse> getAllProduits(String after, int size, String sortBy, String sortDir,
+                                                      boolean withTotal) {
+        return findByCursor(null, after, size, sortBy, sortDir, withTotal, null, ProduitServiceImpl::mapToResponse);
+    }
+
+    @Override
+    public CursorPage<ProduitResponse> getProduitsByVendeur(String vendeurId, String after, int size,
+                                                            String sortBy, String sortDir, boolean withTotal) {
+        return findByCursor(Criteria.where("vendeurId").is(vendeurId), after, size, sortBy, sortDir, withTotal,
+                null, ProduitServiceImpl::mapToResponse);
+    }
+
+    @Override
+    public Page<Map<String, Object>> getAllProduits(Pageable pageable, ProduitFields fields) {
+        return findPage(new Query(), pageable, fields);
+    }
+
+    @Override
+    public Page<Map<String, Object>> getProduitsByVendeur(String vendeurId, Pageable pageable, ProduitFields fields) {
+        return findPage(new Query(Criteria.where("vendeurId").is(vendeurId)), pageable, fields);
+    }
+
+    @Override
+    public CursorPage<Map<String, Object>> getAllProduits(String after, int size, String sortBy, String sortDir,
+                                                          boolean withTotal, ProduitFields fields) {
+        return findByCursor(null, after, size, sortBy, sortDir, withTotal, fields, fields::view);
+    }
+
+    @Override
+    public CursorPage<Map<String, Object>> getProduitsByVendeur(String vendeurId, String after, int size,
+                                                                String sortBy, String sortDir, boolean withTotal,
+                                                                ProduitFields fields) {
+        return findByCursor(Criteria.where("vendeurId").is(vendeurId), after, size, sortBy, sortDir, withTotal,
+                fields, fields::view);
+    }
+
+    @Override
+    public List<Map<String, Object>> getProduitsByCategorie(String categorie, ProduitFields fields) {
+        return findProjected(new Query(Criteria.where("categorie").is(categorie)), fields);
+    }
+
+    @Override
+    public List<Map<String, Object>> getProduitsByStatus(ProductStatus status, ProduitFields fields) {
+        return findProjected(new Query(Criteria.where("status").is(status)), fields);
+    }
+
+    // Le document renvoyé par MongoDB ne contient que les champs demandés ; la vue est
+    // construite directement depuis l'entité partielle
+    private List<Map<String, Object>> findProjected(Query query, ProduitFields fields) {
+        return mongoTemplate.find(fields.applyTo(query), Produit.class).stream()
+                .map(fields::view)
+                .collect(Collectors.toList());
+    }
+
+    private Page<Map<String, Object>> findPage(Query query, Pageable pageable, ProduitFields fields) {
+        Query countQuery = Query.of(query);
+        List<Map<String, Object>> content = findProjected(query.with(pageable), fields);
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> mongoTemplate.count(countQuery, Produit.class));
+    }
+
+    // Pagination par clé : plage sur (clé de tri, _id) au lieu de skip(n), coût constant par page
+    private <T> CursorPage<T> findByCursor(Criteria filter, String after, int size, String sortBy, String sortDir,
+                                           boolean withTotal, ProduitFields fields, Function<Produit, T> mapper) {
+        if (!ProduitCursor.SORTABLE_FIELDS.contains(sortBy)) {
+            throw new IllegalArgumentException("Champ de tri non supporté: " + sortBy);
+        }
+        boolean ascending = "asc".equalsIgnoreCase(sortDir);
+        Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+
+        Query query = filter == null ? new Query() : new Query(filter);
+        if (after != null && !after.isBlank()) {
+            query.addCriteria(ProduitCursor.decode(after, sortBy, ascending).after());
+        }
+        query.with(Sort.by(direction, sortBy).and(Sort.by(direction, "id")));
+        query.limit(size + 1);
+        if (fields != null) {
+            fields.applyTo(query, sortBy); // la clé de tri est lue pour construire le curseur suivant
+        }
+
+        List<Produit> produits = mongoTemplate.find(query, Produit.class);
+        boolean hasNext = produits.size() > size;
+        if (hasNext) {
+            produits = produits.subList(0, size);
+        }
+
+        return CursorPage.<T>builder()
+                .content(produits.stream().map(mapper).collect(Collectors.toList()))
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(hasNext
+                        ? ProduitCursor.of(produits.get(produits.size() - 1), sortBy, ascending).encode()
+                        : null)
+                .totalElements(withTotal
+                        ? mongoTemplate.count(filter == null ? new Query() : new Query(filter), Produit.class)
+                        : null)
+                .build();
     }
 
     @Override
     public List<ProduitResponse> getProduitsByCategorie(String categorie) {
         return produitRepository.findByCategorie(categorie).stream()
-                .map(this::mapToResponse)
+                .map(ProduitServiceImpl::mapToResponse)
                 .collect(Collectors.toList());
     }
 
     @Override
     public Page<ProduitResponse> searchProduits(String keyword, Pageable pageable) {
-        return produitRepository.searchProducts(keyword, pageable)
-                .map(this::mapToResponse);
+        if (!searchIndex.isReady()) {
+            return produitRepository.searchProducts(keyword, pageable)
+                    .map(ProduitServiceImpl::mapToResponse);
+        }
+
+        ProduitSearchIndex.SearchResult result = searchIndex.search(
+                keyword, (int) pageable.getOffset(), pageable.getPageSize());
+
+        // Mongo n'est sollicité que pour hydrater la page, dans l'ordre du classement
+        return new PageImpl<>(hydrate(result.produitIds()), pageable, result.total());
+    }
+
+    @Override
+    public Page<Map<String, Object>> searchProduits(String keyword, Pageable pageable, ProduitFields fields) {
+        if (!searchIndex.isReady()) {
+            // Même filtre que ProduitRepository.searchProducts
+            return findPage(new Query(new Criteria().orOperator(
+                    Criteria.where("titre").regex(keyword, "i"),
+                    Criteria.where("description").regex(keyword, "i"))), pageable, fields);
+        }
+
+        ProduitSearchIndex.SearchResult result = searchIndex.search(
+                keyword, (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(hydrate(result.produitIds(), fields), pageable, result.total());
+    }
+
+    // Charge les produits d'une page en une requête, dans l'ordre des IDs fournis
+    private List<ProduitResponse> hydrate(List<String> produitIds) {
+        return inOrder(produitIds, produitRepository.findAllById(produitIds), ProduitServiceImpl::mapToResponse);
+    }
+
+    private List<Map<String, Object>> hydrate(List<String> produitIds, ProduitFields fields) {
+        Query query = fields.applyTo(new Query(Criteria.where("id").in(produitIds)));
+        return inOrder(produitIds, mongoTemplate.find(query, Produit.class), fields::view);
+    }
+
+    private static <T> List<T> inOrder(List<String> produitIds, Iterable<Produit> produits,
+                                       Function<Produit, T> mapper) {
+        Map<String, Produit> produitsById = new HashMap<>();
+        produits.forEach(produit -> produitsById.put(produit.getId(), produit));
+        return produitIds.stream()
+                .map(produitsById::get)
+                .filter(Objects::nonNull)
+                .map(mapper)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<RelatedProduitResponse> getRelatedProduits(String produitId, int limit, boolean details) {
+        List<RelatedProduitResponse> result = new ArrayList<>();
+        for (RelatedProduitsIndex.Related related : relatedIndex.related(produitId, limit)) {
+            ProduitResponse produit = null;
+            if (details) {
+                try {
+                    produit = getProduitById(related.produitId());
+                } catch (ProduitNotFoundException e) {
+                    continue; // Supprimé depuis l'achat
+                }
+            }
+            result.add(RelatedProduitResponse.builder()
+                    .produitId(related.produitId())
+                    .score(related.score())
+                    .coAchats(related.coAchats())
+                    .produit(produit)
+                    .build());
+        }
+        return result;
+    }
+
+    @Override
+    public List<HotProduitResponse> getHotProduits(ClassementType type, String categorie, int limit, boolean details) {
+        List<HotProduitResponse> result = new ArrayList<>();
+        for (TopK.Entry entry : hotTracker.top(type, categorie, limit)) {
+            ProduitResponse produit = null;
+            if (details) {
+                try {
+                    produit = getProduitById(entry.key());
+                } catch (ProduitNotFoundException e) {
+                    continue; // Supprimé depuis, il sortira du classement avec le temps
+                }
+            }
+            result.add(HotProduitResponse.builder()
+                    .produitId(entry.key())
+                    .score(Math.round(entry.score()))
+                    .produit(produit)
+                    .build());
+        }
+        return result;
+    }
+
+    @Override
+    public FacetedBrowseResponse browseProduits(FacetedBrowseRequest request) {
+        Map<String, List<String>> filters = new LinkedHashMap<>();
+        filters.put(ProduitFacetIndex.CATEGORIE, request.getCategorie());
+        filters.put(ProduitFacetIndex.SOUS_CATEGORIE, request.getSousCategorie());
+        filters.put(ProduitFacetIndex.MARQUE, request.getMarque());
+        filters.put(ProduitFacetIndex.CURRENCY, request.getCurrency());
+        filters.put(ProduitFacetIndex.STATUS, request.getStatus());
+        filters.put(ProduitFacetIndex.SPECIFICATION, request.getSpecification());
+        int offset = request.getPage() * request.getSize();
+
+        if (!facetIndex.isReady()) {
+            Query query = new Query();
+            filters.forEach((field, values) -> {
+                if (values != null && !values.isEmpty()) {
+                    query.addCriteria(ProduitFacetIndex.SPECIFICATION.equals(field)
+                            ? new Criteria().andOperator(values.stream()
+                                    .map(key -> Criteria.where("specifications." + key).exists(true))
+                                    .toArray(Criteria[]::new))
+                            : Criteria.where(field).in(values));
+                }
+            });
+            if (request.getPrixMin() != null || request.getPrixMax() != null) {
+                Criteria prix = Criteria.where("prix");
+                if (request.getPrixMin() != null) prix = prix.gte(request.getPrixMin());
+                if (request.getPrixMax() != null) prix = prix.lte(request.getPrixMax());
+                query.addCriteria(prix);
+            }
+            long total = mongoTemplate.count(query, Produit.class);
+            query.with(Sort.by(Sort.Direction.DESC, "createdAt")).skip(offset).limit(request.getSize());
+            return FacetedBrowseResponse.builder()
+                    .content(mongoTemplate.find(query, Produit.class).stream()
+                            .map(ProduitServiceImpl::mapToResponse)
+                            .collect(Collectors.toList()))
+                    .page(request.getPage())
+                    .size(request.getSize())
+                    .totalElements(total)
+                    .facettes(Map.of())
+                    .build();
+        }
+
+        ProduitFacetIndex.BrowseResult result = facetIndex.browse(
+                filters, request.getPrixMin(), request.getPrixMax(), offset, request.getSize());
+        return FacetedBrowseResponse.builder()
+                .content(hydrate(result.produitIds()))
+                .page(request.getPage())
+                .size(request.getSize())
+                .totalElements(result.total())
+                .facettes(result.facettes())
+                .build();
     }
 
     @Override
     public List<ProduitResponse> getProduitsByStatus(ProductStatus status) {
         return produitRepository.findByStatus(status).stream()
-                .map(this::mapToResponse)
+                .map(ProduitServiceImpl::mapToResponse)
                 .collect(Collectors.toList());
     }
 
+    // Plage bornes incluses, triée par (prix, _id) : parcours de l'index prix_id_idx sans tri en mémoire
+    @Override
+    public Page<ProduitResponse> getProduitsByPrix(BigDecimal prixMin, BigDecimal prixMax, Pageable pageable) {
+        if (prixMin != null && prixMax != null && prixMin.compareTo(prixMax) > 0) {
+            throw new IllegalArgumentException("prixMin doit être inférieur ou égal à prixMax");
+        }
+        Query query = new Query();
+        if (prixMin != null || prixMax != null) {
+            Criteria prix = Criteria.where("prix");
+            if (prixMin != null) prix = prix.gte(prixMin);
+            if (prixMax != null) prix = prix.lte(prixMax);
+            query.addCriteria(prix);
+        }
+        Query countQuery = Query.of(query);
+        List<ProduitResponse> content = mongoTemplate.find(query.with(pageable), Produit.class).stream()
+                .map(ProduitServiceImpl::mapToResponse)
+                .collect(Collectors.toList());
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> mongoTemplate.count(countQuery, Produit.class));
+    }
+
+    // Bornes et tri exprimés dans la devise demandée : chaque devise source reçoit ses
+    // propres bornes (plage sur prix_id_idx), puis le tri se fait sur le prix converti
+    @Override
+    public Page<ProduitResponse> getProduitsByPrix(BigDecimal prixMin, BigDecimal prixMax, String currency,
+                                                   Pageable pageable) {
+        if (currency == null) {
+            return getProduitsByPrix(prixMin, prixMax, pageable);
+        }
+        if (prixMin != null && prixMax != null && prixMin.compareTo(prixMax) > 0) {
+            throw new IllegalArgumentException("prixMin doit être inférieur ou égal à prixMax");
+        }
+        String target = currencyConverter.requireSupported(currency);
+        CurrencyConverter.RateTable rates = currencyConverter.rates();
+
+        List<Document> parDevise = new ArrayList<>();
+        List<Document> facteurs = new ArrayList<>();
+        for (String source : rates.currencies()) {
+            Document filtre = new Document("currency", source);
+            BigDecimal versSource = rates.factor(target, source);
+            Document prix = new Document();
+            if (prixMin != null) prix.append("$gte", new Decimal128(prixMin.multiply(versSource, MathContext.DECIMAL64)));
+            if (prixMax != null) prix.append("$lte", new Decimal128(prixMax.multiply(versSource, MathContext.DECIMAL64)));
+            if (!prix.isEmpty()) filtre.append("prix", prix);
+            parDevise.add(filtre);
+            facteurs.add(new Document("case", new Document("$eq", List.of("$currency", source)))
+                    .append("then", new Decimal128(rates.factor(source, target))));
+        }
+        Document match = new Document("$or", parDevise);
+        Sort.Direction direction = pageable.getSort().stream()
+                .findFirst().map(Sort.Order::getDirection).orElse(Sort.Direction.ASC);
+        int ordre = direction.isAscending() ? 1 : -1;
+
+        List<Document> pipeline = List.of(
+                new Document("$match", match),
+                new Document("$addFields", new Document("prixConverti", new Document("$multiply", List.of(
+                        "$prix", new Document("$switch", new Document("branches", facteurs)))))),
+                new Document("$sort", new Document("prixConverti", ordre).append("_id", ordre)),
+                new Document("$skip", pageable.getOffset()),
+                new Document("$limit", pageable.getPageSize()),
+                new Document("$project", new Document("prixConverti", 0)));
+
+        MongoCollection<Document> collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Produit.class));
+        List<ProduitResponse> content = new ArrayList<>();
+        for (Document document : collection.aggregate(pipeline)) {
+            content.add(mapToResponse(mongoTemplate.getConverter().read(Produit.class, document)));
+        }
+        currencyConverter.convertPrices(content, target);
+        return PageableExecutionUtils.getPage(content, pageable, () -> collection.countDocuments(match));
+    }
+
+    @Override
+    public void streamAllProduits(int batchSize, Consumer<ProduitResponse> consumer) {
+        streamQuery(new Query(), batchSize, consumer);
+    }
+
+    @Override
+    public void streamProduitsByCategorie(String categorie, int batchSize, Consumer<ProduitResponse> consumer) {
+        streamQuery(new Query(Criteria.where("categorie").is(categorie)), batchSize, consumer);
+    }
+
+    @Override
+    public void streamProduitsByStatus(ProductStatus status, int batchSize, Consumer<ProduitResponse> consumer) {
+        streamQuery(new Query(Criteria.where("status").is(status)), batchSize, consumer);
+    }
+
+    @Override
+    public void streamProduitsEnRupture(int batchSize, Consumer<ProduitResponse> consumer) {
+        streamQuery(new Query(Criteria.where("stock").lte(0)), batchSize, consumer);
+    }
+
+    // Le curseur ne récupère le lot suivant (getMore) que lorsque le consommateur a
+    // traité le précédent : un client lent ralentit la lecture au lieu de remplir le heap
+    private void streamQuery(Query query, int batchSize, Consumer<ProduitResponse> consumer) {
+        query.cursorBatchSize(batchSize);
+        try (Stream<Produit> produits = mongoTemplate.stream(query, Produit.class)) {
+            produits.map(ProduitServiceImpl::mapToResponse).forEach(consumer);
+        }
+    }
+
     @Override
     @Transactional
     public ProduitResponse updateStock(StockUpdateRequest request) {
@@ -154,37 +547,45 @@ public class ProduitServiceImpl implements ProduitService {
     }
 
     @Override
-    @Transactional
     public ProduitResponse decrementStock(String produitId, Integer quantite) {
         log.info("Décrémentation du stock pour le produit {} de {} unités", produitId, quantite);
 
-        Produit produit = produitRepository.findById(produitId)
-                .orElseThrow(() -> new ProduitNotFoundException("Produit non trouvé avec l'ID: " + produitId));
-
-        if (produit.getStock() < quantite) {
+        // Un seul aller-retour : la condition stock >= quantite et la décrémentation sont
+        // évaluées atomiquement par MongoDB, sans verrou optimiste ni relecture. Le
+        // parcours en deux temps (réserver, puis confirmer ou libérer) reste exposé par
+        // /api/produits/stock/reservations pour les appelants qui en ont besoin
+        Query query = new Query(Criteria.where("id").is(produitId).and("stock").gte(quantite));
+        Produit updatedProduit = mongoTemplate.findAndModify(
+                query, StockUpdates.stockDelta(-quantite), FindAndModifyOptions.options().returnNew(true), Produit.class);
+
+        if (updatedProduit == null) {
+            Produit produit = produitRepository.findById(produitId)
+                    .orElseThrow(() -> new ProduitNotFoundException("Produit non trouvé avec l'ID: " + produitId));
             throw new InsufficientStockException(
                     String.format("Stock insuffisant pour le produit %s. Stock actuel: %d, Demandé: %d",
                             produit.getTitre(), produit.getStock(), quantite));
         }
 
-        produit.setStock(produit.getStock() - quantite);
-        Produit updatedProduit = produitRepository.save(produit);
-
+        produitCache.invalidate(produitId);
+        facetIndex.index(updatedProduit);
         log.info("Stock décrémenté. Nouveau stock pour {}: {}", produitId, updatedProduit.getStock());
         return mapToResponse(updatedProduit);
     }
 
     @Override
-    @Transactional
     public ProduitResponse incrementStock(String produitId, Integer quantite) {
         log.info("Incrémentation du stock pour le produit {} de {} unités", produitId, quantite);
 
-        Produit produit = produitRepository.findById(produitId)
-                .orElseThrow(() -> new ProduitNotFoundException("Produit non trouvé avec l'ID: " + produitId));
+        Query query = new Query(Criteria.where("id").is(produitId));
+        Produit updatedProduit = mongoTemplate.findAndModify(
+                query, StockUpdates.stockDelta(quantite), FindAndModifyOptions.options().returnNew(true), Produit.class);
 
-        produit.setStock(produit.getStock() + quantite);
-        Produit updatedProduit = produitRepository.save(produit);
+        if (updatedProduit == null) {
+            throw new ProduitNotFoundException("Produit non trouvé avec l'ID: " + produitId);
+        }
 
+        produitCache.invalidate(produitId);
+        facetIndex.index(updatedProduit);
         log.info("Stock incrémenté. Nouveau stock pour {}: {}", produitId, updatedProduit.getStock());
         return mapToResponse(updatedProduit);
     }
@@ -197,11 +598,31 @@ public class ProduitServiceImpl implements ProduitService {
     @Override
     public List<ProduitResponse> getProduitsEnRupture() {
         return produitRepository.findByStockLessThanEqual(0).stream()
-                .map(this::mapToResponse)
+                .map(ProduitServiceImpl::mapToResponse)
                 .collect(Collectors.toList());
     }
 
-    private ProduitResponse mapToResponse(Produit produit) {
+    // Partagé avec l'import en masse (ProduitImportService)
+    static Produit toProduit(ProduitCreateRequest request) {
+        return Produit.builder()
+                .vendeurId(request.getVendeurId())
+                .titre(request.getTitre())
+                .description(request.getDescription())
+                .prix(request.getPrix())
+                .categorie(request.getCategorie())
+                .sousCategorie(request.getSousCategorie())
+                .marque(request.getMarque())
+                .currency(request.getCurrency())
+                .specifications(request.getSpecifications())
+                .status(request.getStatus())
+                .image(request.getImage())
+                .imageVariants(request.getImageVariants())
+                .stock(request.getStock())
+                .build();
+    }
+
+    // Partagé avec le flux de changements (ProduitChangeFeed)
+    static ProduitResponse mapToResponse(Produit produit) {
         return ProduitResponse.builder()
                 .id(produit.getId())
                 .vendeurId(produit.getVendeurId())
@@ -215,7 +636,9 @@ public class ProduitServiceImpl implements ProduitService {
                 .specifications(produit.getSpecifications())
                 .status(produit.getStatus())
                 .image(produit.getImage())
+                .imageVariants(produit.getImageVariants())
                 .stock(produit.getStock())
+                .stockReserve(produit.getStockReserve())
                 .createdAt(produit.getCreatedAt())
                 .updatedAt(produit.getUpdatedAt())
                 .build();
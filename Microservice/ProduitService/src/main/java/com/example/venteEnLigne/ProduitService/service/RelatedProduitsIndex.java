@@ -0,0 +1,160 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.RelatedProduitsProperties;
+import com.example.venteEnLigne.ProduitService.dto.OrderBasket;
+import com.example.venteEnLigne.ProduitService.dto.OrderBasketPage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Produits achetés ensemble, appris des paniers de OrderService. Les co-achats sont
+ * comptés en mémoire au fil des commandes, lues par position (createdAt, id) ; pour
+ * chaque produit d'un nouveau panier, la liste de ses voisins est recalculée et
+ * publiée d'un bloc. Une lecture n'est qu'un accès à cette table.
+ * Score : similarité cosinus co(a, b) / sqrt(n(a) * n(b)), n étant le nombre de
+ * paniers du produit. Un voisin absent des nouveaux paniers garde son score jusqu'à
+ * son prochain achat.
+ */
+@Component
+@Slf4j
+public class RelatedProduitsIndex {
+
+    public record Related(String produitId, double score, int coAchats) {
+    }
+
+    private final OrderServiceClient orderServiceClient;
+    private final RelatedProduitsProperties properties;
+
+    // Comptages et position : lus et écrits par le seul thread de rafraîchissement
+    private final Map<String, Integer> paniers = new HashMap<>();
+    private final Map<String, Map<String, Integer>> coAchats = new HashMap<>();
+    private LocalDateTime afterCreatedAt;
+    private String afterId;
+
+    // Voisins publiés par produit, triés par score décroissant (listes immuables)
+    private final Map<String, List<Related>> related = new ConcurrentHashMap<>();
+
+    public RelatedProduitsIndex(OrderServiceClient orderServiceClient, RelatedProduitsProperties properties) {
+        this.orderServiceClient = orderServiceClient;
+        this.properties = properties;
+    }
+
+    public List<Related> related(String produitId, int limit) {
+        List<Related> voisins = related.getOrDefault(produitId, List.of());
+        return voisins.size() <= limit ? voisins : voisins.subList(0, limit);
+    }
+
+    // Premier passage au démarrage : tout l'historique, puis seulement les nouveaux paniers
+    @Scheduled(fixedDelayString = "${produit.related.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Set<String> touches = new HashSet<>();
+        int lus = 0;
+        try {
+            OrderBasketPage page;
+            do {
+                page = orderServiceClient.getBaskets(afterCreatedAt, afterId, properties.getBatchSize());
+                List<OrderBasket> baskets = page.getBaskets() == null ? List.of() : page.getBaskets();
+                for (OrderBasket basket : baskets) {
+                    ingest(basket.getProduitIds(), touches);
+                }
+                if (!baskets.isEmpty()) {
+                    afterCreatedAt = page.getNextCreatedAt();
+                    afterId = page.getNextId();
+                }
+                lus += baskets.size();
+            } while (page.getBaskets() != null && page.getBaskets().size() >= properties.getBatchSize());
+        } catch (Exception e) {
+            log.warn("Lecture des paniers impossible, recommandations inchangées: {}", e.getMessage());
+        }
+
+        // Aussi après une erreur : les paniers déjà lus sont comptés et la position a avancé
+        touches.forEach(this::publish);
+        if (lus > 0) {
+            log.info("Produits achetés ensemble: {} paniers lus, {} produits mis à jour ({} au total)",
+                    lus, touches.size(), related.size());
+        }
+    }
+
+    private void ingest(List<String> produitIds, Set<String> touches) {
+        if (produitIds == null) {
+            return;
+        }
+        List<String> produits = new ArrayList<>(new LinkedHashSet<>(produitIds));
+        produits.removeIf(Objects::isNull);
+        if (produits.size() > properties.getMaxBasketSize()) {
+            return; // Commande en gros : des paires sans rapport entre elles
+        }
+        for (String produit : produits) {
+            paniers.merge(produit, 1, Integer::sum);
+        }
+        for (int i = 0; i < produits.size(); i++) {
+            for (int j = i + 1; j < produits.size(); j++) {
+                count(produits.get(i), produits.get(j));
+                count(produits.get(j), produits.get(i));
+            }
+        }
+        if (produits.size() > 1) {
+            touches.addAll(produits);
+        }
+    }
+
+    private void count(String produit, String voisin) {
+        Map<String, Integer> voisins = coAchats.computeIfAbsent(produit, key -> new HashMap<>());
+        voisins.merge(voisin, 1, Integer::sum);
+        if (voisins.size() > 2 * properties.getMaxNeighbors()) {
+            prune(voisins);
+        }
+    }
+
+    // Garde exactement maxNeighbors voisins, les plus fréquents ; les ex aequo au seuil sont
+    // départagés par identifiant, sinon une traîne d'ex aequo (souvent à 1) ne serait jamais élaguée
+    private void prune(Map<String, Integer> voisins) {
+        Set<String> gardes = voisins.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(properties.getMaxNeighbors())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+        voisins.keySet().retainAll(gardes);
+    }
+
+    // Voisins comptés pour un produit (borne mémoire, vérifiée par les tests)
+    int voisinsSuivis(String produitId) {
+        return coAchats.getOrDefault(produitId, Map.of()).size();
+    }
+
+    private void publish(String produit) {
+        Map<String, Integer> voisins = coAchats.getOrDefault(produit, Map.of());
+        double n = paniers.getOrDefault(produit, 1);
+        List<Related> top = voisins.entrySet().stream()
+                .filter(e -> e.getValue() >= properties.getMinCoAchats())
+                .map(e -> new Related(e.getKey(),
+                        e.getValue() / Math.sqrt(n * paniers.getOrDefault(e.getKey(), e.getValue())),
+                        e.getValue()))
+                .sorted(Comparator.comparingDouble(Related::score).reversed().thenComparing(Related::produitId))
+                .limit(properties.getTopK())
+                .toList();
+        if (top.isEmpty()) {
+            related.remove(produit);
+        } else {
+            related.put(produit, top);
+        }
+    }
+}
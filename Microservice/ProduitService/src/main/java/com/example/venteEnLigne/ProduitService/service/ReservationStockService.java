@@ -0,0 +1,333 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.ReservationProperties;
+import com.example.venteEnLigne.ProduitService.dto.StockReservationLine;
+import com.example.venteEnLigne.ProduitService.dto.StockReservationLineResult;
+import com.example.venteEnLigne.ProduitService.dto.StockReservationRequest;
+import com.example.venteEnLigne.ProduitService.dto.StockReservationResponse;
+import com.example.venteEnLigne.ProduitService.exception.ReservationNotFoundException;
+import com.example.venteEnLigne.ProduitService.exception.ReservationStateException;
+import com.example.venteEnLigne.ProduitService.model.LigneReservation;
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import com.example.venteEnLigne.ProduitService.model.ReservationStatus;
+import com.example.venteEnLigne.ProduitService.model.ReservationStock;
+import com.example.venteEnLigne.ProduitService.repository.ReservationStockRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Réservations de stock à durée limitée. Réserver déplace les quantités du stock
+ * disponible vers {@code stockReserve} ; la réservation est ensuite confirmée
+ * (stock consommé) ou libérée (stock rendu). Les réservations non finalisées à
+ * échéance sont libérées par un balayage planifié.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationStockService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ReservationStockRepository reservationStockRepository;
+    private final ReservationProperties reservationProperties;
+    private final ProduitCache produitCache;
+    private final ProduitFacetIndex facetIndex;
+
+    /**
+     * Réserve toutes les lignes d'une commande en un seul bulkWrite, ou aucune.
+     * MongoDB étant déployé sans replica set (pas de transaction multi-documents),
+     * la réservation est enregistrée EN_PREPARATION avant le bulkWrite, et chaque mise
+     * à jour conditionnelle pose un marqueur propre à la réservation. En cas d'échec
+     * partiel, les lignes marquées sont compensées ; après un arrêt en cours de route,
+     * le balayage retrouve la réservation à son échéance et compense de même. Le nombre
+     * d'allers-retours reste constant.
+     */
+    public StockReservationResponse reserver(StockReservationRequest request) {
+        String reservationId = UUID.randomUUID().toString();
+        Map<String, Integer> quantites = new LinkedHashMap<>();
+        for (StockReservationLine ligne : request.getLignes()) {
+            quantites.merge(ligne.getProduitId(), ligne.getQuantite(), Integer::sum);
+        }
+        log.info("Réservation groupée {} ({}) de {} produits", reservationId, request.getReference(), quantites.size());
+
+        reservationStockRepository.save(ReservationStock.builder()
+                .id(reservationId)
+                .reference(request.getReference())
+                .lignes(quantites.entrySet().stream()
+                        .map(e -> new LigneReservation(e.getKey(), e.getValue()))
+                        .collect(Collectors.toList()))
+                .statut(ReservationStatus.EN_PREPARATION)
+                .expiresAt(LocalDateTime.now().plusSeconds(ttlSeconds(request.getTtlSeconds())))
+                .build());
+
+        BulkOperations reservation = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Produit.class);
+        quantites.forEach((produitId, quantite) -> reservation.updateOne(
+                new Query(Criteria.where("id").is(produitId).and("stock").gte(quantite)),
+                StockUpdates.reservation(quantite, reservationId)));
+        int reservees = reservation.execute().getMatchedCount();
+
+        if (reservees == quantites.size()) {
+            ReservationStock saved = mongoTemplate.findAndModify(
+                    new Query(Criteria.where("id").is(reservationId).and("statut").is(ReservationStatus.EN_PREPARATION)),
+                    new Update().set("statut", ReservationStatus.EN_ATTENTE),
+                    FindAndModifyOptions.options().returnNew(true),
+                    ReservationStock.class);
+            if (saved != null) {
+                // Marqueurs devenus inutiles ; un arrêt avant ce retrait ne laisse qu'un
+                // marqueur orphelin, retiré à la confirmation, la libération ou l'expiration
+                mongoTemplate.updateMulti(new Query(Criteria.where("id").in(quantites.keySet())),
+                        new Update().pull("reservationsEnCours", reservationId), Produit.class);
+                rafraichir(quantites.keySet());
+
+                log.info("Réservation groupée {} appliquée jusqu'à {}", reservationId, saved.getExpiresAt());
+                return mapToResponse(saved, true, "RESERVE");
+            }
+            // Échue pendant son application et déjà réclamée par le balayage
+            compenser(reservationId, quantites);
+            rafraichir(quantites.keySet());
+            log.warn("Réservation groupée {} expirée avant d'être appliquée", reservationId);
+            return StockReservationResponse.builder()
+                    .reservationId(reservationId)
+                    .reference(request.getReference())
+                    .reservee(false)
+                    .statut(ReservationStatus.EXPIREE)
+                    .lignes(quantites.entrySet().stream()
+                            .map(e -> StockReservationLineResult.builder()
+                                    .produitId(e.getKey())
+                                    .quantite(e.getValue())
+                                    .statut("EXPIRE")
+                                    .message("Réservation expirée avant d'être appliquée")
+                                    .build())
+                            .collect(Collectors.toList()))
+                    .build();
+        }
+
+        // Échec partiel : relire l'état pour le détail par ligne, puis compenser
+        Query etat = new Query(Criteria.where("id").in(quantites.keySet()));
+        etat.fields().include("titre", "stock", "reservationsEnCours");
+        Map<String, Produit> produits = mongoTemplate.find(etat, Produit.class).stream()
+                .collect(Collectors.toMap(Produit::getId, Function.identity()));
+
+        List<StockReservationLineResult> lignes = new ArrayList<>();
+        quantites.forEach((produitId, quantite) -> {
+            Produit produit = produits.get(produitId);
+            StockReservationLineResult.StockReservationLineResultBuilder ligne = StockReservationLineResult.builder()
+                    .produitId(produitId)
+                    .quantite(quantite);
+            if (produit == null) {
+                ligne.statut("PRODUIT_INTROUVABLE").message("Produit non trouvé avec l'ID: " + produitId);
+            } else if (produit.getReservationsEnCours() != null
+                    && produit.getReservationsEnCours().contains(reservationId)) {
+                ligne.statut("ANNULE").message("Réservation annulée car une autre ligne a échoué");
+            } else {
+                ligne.statut("STOCK_INSUFFISANT")
+                        .stockDisponible(produit.getStock())
+                        .message(String.format("Stock insuffisant pour le produit %s. Stock actuel: %d, Demandé: %d",
+                                produit.getTitre(), produit.getStock(), quantite));
+            }
+            lignes.add(ligne.build());
+        });
+        compenser(reservationId, quantites);
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(reservationId).and("statut").is(ReservationStatus.EN_PREPARATION)),
+                terminaison(ReservationStatus.LIBEREE), ReservationStock.class);
+        rafraichir(quantites.keySet());
+
+        log.warn("Réservation groupée {} refusée: {} ligne(s) sur {} disponibles",
+                reservationId, reservees, quantites.size());
+        return StockReservationResponse.builder()
+                .reservationId(reservationId)
+                .reference(request.getReference())
+                .reservee(false)
+                .statut(ReservationStatus.LIBEREE)
+                .lignes(lignes)
+                .build();
+    }
+
+    public StockReservationResponse getReservation(String reservationId) {
+        ReservationStock reservation = reservationStockRepository.findById(reservationId)
+                .orElseThrow(() -> new ReservationNotFoundException("Réservation non trouvée avec l'ID: " + reservationId));
+        return mapToResponse(reservation, reservation.getStatut() == ReservationStatus.EN_ATTENTE
+                || reservation.getStatut() == ReservationStatus.CONFIRMEE, null);
+    }
+
+    /**
+     * Confirme une réservation encore valide : le stock retenu est définitivement consommé.
+     */
+    public StockReservationResponse confirmer(String reservationId) {
+        Query query = new Query(Criteria.where("id").is(reservationId)
+                .and("statut").is(ReservationStatus.EN_ATTENTE)
+                .and("expiresAt").gt(LocalDateTime.now()));
+        ReservationStock reservation = terminer(query, reservationId, ReservationStatus.CONFIRMEE);
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Produit.class);
+        Date now = new Date();
+        for (LigneReservation ligne : reservation.getLignes()) {
+            bulk.updateOne(new Query(Criteria.where("id").is(ligne.getProduitId())),
+                    new Update().inc("stockReserve", -ligne.getQuantite()).inc("version", 1)
+                            .set("updatedAt", now).set("stockUpdatedAt", now)
+                            .pull("reservationsEnCours", reservationId));
+        }
+        bulk.execute();
+        rafraichir(reservation.getLignes().stream().map(LigneReservation::getProduitId).collect(Collectors.toSet()));
+
+        log.info("Réservation {} confirmée", reservationId);
+        return mapToResponse(reservation, true, "CONFIRME");
+    }
+
+    /**
+     * Libère une réservation en attente : le stock retenu redevient disponible.
+     */
+    public StockReservationResponse liberer(String reservationId) {
+        Query query = new Query(Criteria.where("id").is(reservationId)
+                .and("statut").is(ReservationStatus.EN_ATTENTE));
+        ReservationStock reservation = terminer(query, reservationId, ReservationStatus.LIBEREE);
+        rendreStock(List.of(reservation));
+
+        log.info("Réservation {} libérée", reservationId);
+        return mapToResponse(reservation, false, "LIBERE");
+    }
+
+    /**
+     * Rend le stock des réservations échues, par lots bornés. L'index (statut, expiresAt)
+     * évite tout parcours complet de la collection ; chaque réservation est réclamée par
+     * une mise à jour conditionnelle, si bien que plusieurs instances peuvent balayer
+     * en parallèle sans traiter deux fois la même. Une réservation restée EN_PREPARATION
+     * (arrêt pendant {@link #reserver}) n'a retenu que les lignes portant son marqueur :
+     * seules celles-ci sont compensées.
+     */
+    @Scheduled(fixedDelayString = "${produit.reservation.sweep-interval-ms:30000}")
+    public void expirerReservations() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        Query echues = new Query(Criteria.where("statut").in(ReservationStatus.EN_ATTENTE, ReservationStatus.EN_PREPARATION)
+                .and("expiresAt").lte(maintenant))
+                .limit(reservationProperties.getSweepBatchSize());
+        echues.fields().include("id", "statut");
+
+        List<ReservationStock> expirees = new ArrayList<>();
+        List<ReservationStock> interrompues = new ArrayList<>();
+        for (ReservationStock candidate : mongoTemplate.find(echues, ReservationStock.class)) {
+            ReservationStock reservation = mongoTemplate.findAndModify(
+                    new Query(Criteria.where("id").is(candidate.getId()).and("statut").is(candidate.getStatut())),
+                    terminaison(ReservationStatus.EXPIREE),
+                    FindAndModifyOptions.options().returnNew(true),
+                    ReservationStock.class);
+            if (reservation == null) {
+                continue;
+            }
+            if (candidate.getStatut() == ReservationStatus.EN_PREPARATION) {
+                interrompues.add(reservation);
+            } else {
+                expirees.add(reservation);
+            }
+        }
+
+        if (!expirees.isEmpty()) {
+            rendreStock(expirees);
+            log.info("{} réservation(s) expirée(s), stock rendu", expirees.size());
+        }
+        if (!interrompues.isEmpty()) {
+            Set<String> produitIds = new HashSet<>();
+            for (ReservationStock reservation : interrompues) {
+                Map<String, Integer> quantites = new LinkedHashMap<>();
+                reservation.getLignes().forEach(ligne -> quantites.put(ligne.getProduitId(), ligne.getQuantite()));
+                compenser(reservation.getId(), quantites);
+                produitIds.addAll(quantites.keySet());
+            }
+            rafraichir(produitIds);
+            log.warn("{} réservation(s) interrompue(s) pendant leur application, stock marqué rendu",
+                    interrompues.size());
+        }
+    }
+
+    // Rend le stock des seules lignes portant le marqueur de la réservation, en le retirant
+    private void compenser(String reservationId, Map<String, Integer> quantites) {
+        BulkOperations compensation = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Produit.class);
+        quantites.forEach((produitId, quantite) -> compensation.updateOne(
+                new Query(Criteria.where("id").is(produitId).and("reservationsEnCours").is(reservationId)),
+                StockUpdates.compensation(quantite, reservationId)));
+        compensation.execute();
+    }
+
+    private ReservationStock terminer(Query query, String reservationId, ReservationStatus statut) {
+        ReservationStock reservation = mongoTemplate.findAndModify(
+                query, terminaison(statut), FindAndModifyOptions.options().returnNew(true), ReservationStock.class);
+        if (reservation == null) {
+            ReservationStock existante = reservationStockRepository.findById(reservationId)
+                    .orElseThrow(() -> new ReservationNotFoundException("Réservation non trouvée avec l'ID: " + reservationId));
+            throw new ReservationStateException(String.format("La réservation %s ne peut pas passer à %s (statut: %s%s)",
+                    reservationId, statut, existante.getStatut(),
+                    existante.getStatut() == ReservationStatus.EN_ATTENTE ? ", expirée" : ""));
+        }
+        return reservation;
+    }
+
+    private Update terminaison(ReservationStatus statut) {
+        return new Update()
+                .set("statut", statut)
+                .set("purgeAt", LocalDateTime.now().plusHours(reservationProperties.getRetentionHours()));
+    }
+
+    private void rendreStock(List<ReservationStock> reservations) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Produit.class);
+        for (ReservationStock reservation : reservations) {
+            for (LigneReservation ligne : reservation.getLignes()) {
+                bulk.updateOne(new Query(Criteria.where("id").is(ligne.getProduitId())),
+                        StockUpdates.stockDelta(ligne.getQuantite(), -ligne.getQuantite())
+                                .set(StockUpdates.sansMarqueur(reservation.getId())));
+            }
+        }
+        bulk.execute();
+        rafraichir(reservations.stream()
+                .flatMap(reservation -> reservation.getLignes().stream())
+                .map(LigneReservation::getProduitId)
+                .collect(Collectors.toSet()));
+    }
+
+    // Le statut a pu basculer (rupture / disponible) : purge du cache et mise à jour des
+    // facettes à partir d'une seule lecture projetée des produits touchés
+    private void rafraichir(Collection<String> produitIds) {
+        produitCache.invalidateAll(produitIds);
+        Query query = new Query(Criteria.where("id").in(produitIds));
+        query.fields().include(ProduitFacetIndex.CATEGORIE, ProduitFacetIndex.SOUS_CATEGORIE,
+                ProduitFacetIndex.MARQUE, ProduitFacetIndex.CURRENCY, ProduitFacetIndex.STATUS,
+                "specifications", "prix");
+        mongoTemplate.find(query, Produit.class).forEach(facetIndex::index);
+    }
+
+    private long ttlSeconds(Long requested) {
+        if (requested == null) {
+            return reservationProperties.getDefaultTtlSeconds();
+        }
+        return Math.min(requested, reservationProperties.getMaxTtlSeconds());
+    }
+
+    private StockReservationResponse mapToResponse(ReservationStock reservation, boolean reservee, String statutLigne) {
+        return StockReservationResponse.builder()
+                .reservationId(reservation.getId())
+                .reference(reservation.getReference())
+                .reservee(reservee)
+                .statut(reservation.getStatut())
+                .expiresAt(reservation.getExpiresAt())
+                .lignes(reservation.getLignes().stream()
+                        .map(ligne -> StockReservationLineResult.builder()
+                                .produitId(ligne.getProduitId())
+                                .quantite(ligne.getQuantite())
+                                .statut(statutLigne)
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+}
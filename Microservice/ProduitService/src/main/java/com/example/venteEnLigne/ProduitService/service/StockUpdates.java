@@ -0,0 +1,99 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.model.ProductStatus;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.BooleanOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.LiteralOperators;
+import org.springframework.data.mongodb.core.aggregation.SetOperation;
+import org.springframework.data.mongodb.core.aggregation.SetOperators;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Mises à jour de stock par pipeline, appliquées en une seule écriture atomique.
+ */
+final class StockUpdates {
+
+    private StockUpdates() {
+    }
+
+    /**
+     * Applique le delta au stock disponible et ajuste le statut dans la même écriture :
+     * RUPTURE_STOCK quand le stock atteint zéro, DISPONIBLE quand un produit en rupture
+     * est réapprovisionné. Les produits désactivés gardent leur statut. La version est
+     * incrémentée pour que les save() concurrents détectent le changement ; updatedAt et
+     * stockUpdatedAt reçoivent la même date pour que le flux de changements classe
+     * l'écriture en STOCK.
+     */
+    static AggregationUpdate stockDelta(int delta) {
+        return stockDelta(delta, 0);
+    }
+
+    /**
+     * Comme {@link #stockDelta(int)}, en déplaçant en plus {@code reserveDelta} unités
+     * dans (ou hors de) la quantité réservée.
+     */
+    static AggregationUpdate stockDelta(int delta, int reserveDelta) {
+        AggregationExpression newStock = ArithmeticOperators.valueOf("stock").add(delta);
+        AggregationExpression status = ConditionalOperators
+                .when(BooleanOperators.And.and(
+                        ComparisonOperators.valueOf(newStock).lessThanEqualToValue(0),
+                        ComparisonOperators.valueOf("status").notEqualToValue(ProductStatus.DESACTIVE.name())))
+                .then(ProductStatus.RUPTURE_STOCK.name())
+                .otherwiseValueOf(ConditionalOperators
+                        .when(BooleanOperators.And.and(
+                                ComparisonOperators.valueOf(newStock).greaterThanValue(0),
+                                ComparisonOperators.valueOf("status").equalToValue(ProductStatus.RUPTURE_STOCK.name())))
+                        .then(ProductStatus.DISPONIBLE.name())
+                        .otherwiseValueOf("status"));
+
+        Date now = new Date();
+        SetOperation set = SetOperation.builder()
+                .set("stock").toValue(newStock)
+                .and().set("status").toValue(status)
+                .and().set("version").toValue(ArithmeticOperators.valueOf(
+                        ConditionalOperators.ifNull("version").then(0)).add(1))
+                .and().set("updatedAt").toValue(now)
+                .and().set("stockUpdatedAt").toValue(now);
+        if (reserveDelta != 0) {
+            set = set.and().set("stockReserve").toValue(ArithmeticOperators.valueOf(
+                    ConditionalOperators.ifNull("stockReserve").then(0)).add(reserveDelta));
+        }
+        return AggregationUpdate.update().set(set);
+    }
+
+    /**
+     * Retient {@code quantite} unités pour une réservation groupée en posant son marqueur
+     * dans {@code reservationsEnCours} : tant qu'il est présent, la ligne peut être
+     * compensée par {@link #compensation(int, String)}.
+     */
+    static AggregationUpdate reservation(int quantite, String reservationId) {
+        return stockDelta(-quantite, quantite).set(SetOperation.set("reservationsEnCours").toValue(
+                ArrayOperators.arrayOf(List.of(reservationId)).concat(
+                        ConditionalOperators.ifNull("reservationsEnCours").then(List.of()))));
+    }
+
+    /**
+     * Rend les {@code quantite} unités d'une ligne réservée et retire son marqueur dans la
+     * même écriture : appliquée sous la condition que le marqueur soit présent, une
+     * compensation ne peut jamais rendre deux fois le même stock.
+     */
+    static AggregationUpdate compensation(int quantite, String reservationId) {
+        return stockDelta(quantite, -quantite).set(sansMarqueur(reservationId));
+    }
+
+    /**
+     * Retire le marqueur d'une réservation de {@code reservationsEnCours}
+     */
+    static SetOperation sansMarqueur(String reservationId) {
+        return SetOperation.set("reservationsEnCours").toValue(SetOperators
+                .arrayAsSet(ConditionalOperators.ifNull("reservationsEnCours").then(List.of()))
+                .differenceTo(LiteralOperators.valueOf(List.of(reservationId)).asLiteral()));
+    }
+}
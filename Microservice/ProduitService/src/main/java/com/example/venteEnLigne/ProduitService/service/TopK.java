@@ -0,0 +1,63 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Les {@code capacity} clés de plus fort score, dans un tas min : un nouveau score
+ * n'entre qu'en dépassant le plus faible. Non thread-safe : l'appelant synchronise.
+ */
+final class TopK {
+
+    record Entry(String key, double score) {
+    }
+
+    private final int capacity;
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>(Comparator.comparingDouble(Entry::score));
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    TopK(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void offer(String key, double score) {
+        Entry current = entries.get(key);
+        if (current != null) {
+            heap.remove(current); // O(capacity), capacity reste petite
+        } else if (entries.size() >= capacity) {
+            if (heap.isEmpty() || score <= heap.peek().score()) {
+                return;
+            }
+            entries.remove(heap.poll().key());
+        }
+        Entry entry = new Entry(key, score);
+        heap.add(entry);
+        entries.put(key, entry);
+    }
+
+    void decay(double factor) {
+        List<Entry> decayed = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            decayed.add(new Entry(entry.key(), entry.score() * factor));
+        }
+        heap.clear();
+        entries.clear();
+        for (Entry entry : decayed) {
+            heap.add(entry);
+            entries.put(entry.key(), entry);
+        }
+    }
+
+    /**
+     * @return les entrées par score décroissant
+     */
+    List<Entry> sorted() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(Comparator.comparingDouble(Entry::score).reversed().thenComparing(Entry::key));
+        return sorted;
+    }
+}
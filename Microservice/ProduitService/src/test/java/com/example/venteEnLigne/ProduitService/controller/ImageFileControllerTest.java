@@ -0,0 +1,98 @@
+package com.example.venteEnLigne.ProduitService.controller;
+
+import com.example.venteEnLigne.ProduitService.config.ImageStorageProperties;
+import com.example.venteEnLigne.ProduitService.service.LocalImageStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ImageFileControllerTest {
+
+    private static final String CONTENU = "0123456789abcdef";
+
+    @TempDir
+    Path tempDir;
+
+    private LocalImageStorage storage;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ImageStorageProperties properties = new ImageStorageProperties();
+        properties.setLocalRootDir(tempDir.resolve("store").toString());
+        properties.setLocalBaseUrl("http://localhost/api/images/files/");
+        storage = new LocalImageStorage(properties);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ImageFileController(storage)).build();
+
+        Path source = Files.writeString(tempDir.resolve("source.jpg"), CONTENU);
+        storage.store("images/abc/card.jpg", source, "image/jpeg");
+    }
+
+    @Test
+    void serve_ReturnsWholeFileWithValidators() throws Exception {
+        mockMvc.perform(get("/api/images/files/images/abc/card.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().string(CONTENU))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"));
+    }
+
+    @Test
+    void serve_AnswersSingleRangeWithPartialContent() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/images/files/images/abc/card.jpg")
+                        .header(HttpHeaders.RANGE, "bytes=4-7"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 4-7/16"))
+                .andReturn();
+
+        assertEquals("4567", result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(4, result.getResponse().getContentLengthLong());
+    }
+
+    @Test
+    void serve_RejectsUnsatisfiableRange() throws Exception {
+        mockMvc.perform(get("/api/images/files/images/abc/card.jpg").header(HttpHeaders.RANGE, "bytes=100-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */16"));
+    }
+
+    @Test
+    void serve_ReturnsNotModifiedForMatchingEtag() throws Exception {
+        String etag = mockMvc.perform(get("/api/images/files/images/abc/card.jpg"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/images/files/images/abc/card.jpg").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void serve_IgnoresRangeWhenIfRangeIsStale() throws Exception {
+        mockMvc.perform(get("/api/images/files/images/abc/card.jpg")
+                        .header(HttpHeaders.RANGE, "bytes=0-3")
+                        .header(HttpHeaders.IF_RANGE, "\"ancien\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string(CONTENU));
+    }
+
+    @Test
+    void serve_RefusesPathsOutsideTheStore() throws Exception {
+        mockMvc.perform(get("/api/images/files/../source.jpg"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/images/files/images/abc/absent.jpg"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.venteEnLigne.ProduitService.controller;
+
+import com.example.venteEnLigne.ProduitService.config.ExportProperties;
+import com.example.venteEnLigne.ProduitService.dto.ProduitResponse;
+import com.example.venteEnLigne.ProduitService.service.CurrencyConverter;
+import com.example.venteEnLigne.ProduitService.service.HotProduitsTracker;
+import com.example.venteEnLigne.ProduitService.service.ProduitService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProduitControllerTest {
+
+    @Mock
+    private ProduitService produitService;
+
+    @Mock
+    private ThreadPoolTaskExecutor exportExecutor;
+
+    @Mock
+    private CurrencyConverter currencyConverter;
+
+    @Mock
+    private HotProduitsTracker hotProduitsTracker;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ProduitController controller = new ProduitController(produitService, new ExportProperties(), exportExecutor,
+                currencyConverter, hotProduitsTracker);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void streamAllProduits_WritesOneJsonLinePerProduitInOrder() throws Exception {
+        // Export exécuté dans le thread du test
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(exportExecutor).execute(any(Runnable.class));
+        doAnswer(invocation -> {
+            Consumer<ProduitResponse> consumer = invocation.getArgument(1);
+            for (String id : List.of("p1", "p2", "p3")) {
+                consumer.accept(ProduitResponse.builder().id(id).titre("Produit " + id).build());
+            }
+            return null;
+        }).when(produitService).streamAllProduits(eq(2), any());
+
+        MvcResult result = mockMvc.perform(get("/api/produits")
+                        .param("batchSize", "2")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult();
+
+        assertEquals(MediaType.APPLICATION_NDJSON_VALUE, result.getResponse().getContentType());
+        String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        // Un séparateur par produit : 2 lots (2 + 1), aucune ligne fusionnée ni perdue
+        List<String> lignes = body.lines().toList();
+        assertEquals(3, lignes.size());
+        assertTrue(body.endsWith("\n"));
+        for (int i = 0; i < lignes.size(); i++) {
+            assertTrue(lignes.get(i).startsWith("{") && lignes.get(i).contains("\"id\":\"p" + (i + 1) + "\""),
+                    lignes.get(i));
+        }
+    }
+
+    @Test
+    void streamAllProduits_KeepsEqualProduitsOfTheSameBatch() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(exportExecutor).execute(any(Runnable.class));
+        doAnswer(invocation -> {
+            Consumer<ProduitResponse> consumer = invocation.getArgument(1);
+            for (int i = 0; i < 3; i++) {
+                consumer.accept(ProduitResponse.builder().id("p1").titre("Même produit").build());
+            }
+            return null;
+        }).when(produitService).streamAllProduits(eq(10), any());
+
+        MvcResult result = mockMvc.perform(get("/api/produits")
+                        .param("batchSize", "10")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult();
+
+        // Produits égaux (equals Lombok) dans un même lot : aucun n'est dédoublonné
+        assertEquals(3, result.getResponse().getContentAsString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    void streamAllProduits_TooManyExports_ReturnsServiceUnavailable() throws Exception {
+        doThrow(new TaskRejectedException("file pleine")).when(exportExecutor).execute(any(Runnable.class));
+
+        mockMvc.perform(get("/api/produits").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isServiceUnavailable());
+
+        verifyNoInteractions(produitService);
+    }
+}
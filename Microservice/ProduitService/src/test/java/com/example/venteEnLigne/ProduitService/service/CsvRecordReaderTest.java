@@ -0,0 +1,42 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void next_HandlesQuotesEscapesAndEmbeddedNewlines() throws IOException {
+        CsvRecordReader csv = reader("titre,description,prix\r\n"
+                + "Laptop,\"Écran 15\"\", clavier FR\",450\r\n"
+                + "\"Souris\",\"Sans fil\nBluetooth\",12.5\n"
+                + "Clé USB,,8");
+
+        assertEquals(List.of("titre", "description", "prix"), csv.next());
+        assertEquals(List.of("Laptop", "Écran 15\", clavier FR", "450"), csv.next());
+        assertEquals(2, csv.recordLine());
+        assertEquals(List.of("Souris", "Sans fil\nBluetooth", "12.5"), csv.next());
+        assertEquals(3, csv.recordLine());
+        assertEquals(List.of("Clé USB", "", "8"), csv.next());
+        assertEquals(5, csv.recordLine()); // Le champ multiligne compte pour deux lignes
+        assertNull(csv.next());
+    }
+
+    @Test
+    void next_FailsOnUnterminatedQuote() throws IOException {
+        CsvRecordReader csv = reader("titre\n\"non fermé\n");
+
+        csv.next();
+        assertThrows(IOException.class, csv::next);
+    }
+
+    private static CsvRecordReader reader(String content) {
+        return new CsvRecordReader(new BufferedReader(new StringReader(content)), ',');
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.CurrencyProperties;
+import com.example.venteEnLigne.ProduitService.dto.ProduitResponse;
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CurrencyConverterTest {
+
+    private CurrencyProperties properties;
+    private CurrencyConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CurrencyProperties();
+        properties.setStaticRates(Map.of("CDF", new BigDecimal("2800")));
+        converter = new CurrencyConverter(properties, new StaticExchangeRateProvider(properties));
+        converter.refresh();
+    }
+
+    @Test
+    void convertPrices_ConvertsOnlyOtherCurrenciesAndKeepsOriginal() {
+        ProduitResponse usd = ProduitResponse.builder().prix(new BigDecimal("10.00")).currency("USD").build();
+        ProduitResponse cdf = ProduitResponse.builder().prix(new BigDecimal("5600")).currency("CDF").build();
+
+        converter.convertPrices(List.of(usd, cdf), "cdf");
+
+        assertEquals(new BigDecimal("28000.00"), usd.getPrix());
+        assertEquals("CDF", usd.getCurrency());
+        assertEquals(new BigDecimal("10.00"), usd.getPrixOrigine());
+        assertEquals("USD", usd.getCurrencyOrigine());
+        assertEquals(new BigDecimal("5600"), cdf.getPrix());
+        assertNull(cdf.getPrixOrigine());
+    }
+
+    @Test
+    void convertViews_ConvertsProjectedPricesLikeFullResponses() {
+        ProduitFields fields = ProduitFields.parse("titre,prix").withCurrency();
+        Map<String, Object> usd = fields.view(Produit.builder().id("1").prix(new BigDecimal("10.00")).currency("USD").build());
+        Map<String, Object> cdf = fields.view(Produit.builder().id("2").prix(new BigDecimal("5600")).currency("CDF").build());
+
+        converter.convertViews(List.of(usd, cdf), "cdf");
+
+        assertEquals(new BigDecimal("28000.00"), usd.get("prix"));
+        assertEquals("CDF", usd.get("currency"));
+        assertEquals(new BigDecimal("10.00"), usd.get("prixOrigine"));
+        assertEquals("USD", usd.get("currencyOrigine"));
+        assertEquals(new BigDecimal("5600"), cdf.get("prix"));
+        assertFalse(cdf.containsKey("prixOrigine"));
+    }
+
+    @Test
+    void rates_CrossFactorsAreConsistent() {
+        CurrencyConverter.RateTable rates = converter.rates();
+
+        assertEquals(new BigDecimal("2.00"), rates.convert(new BigDecimal("5600"), "CDF", "USD"));
+        assertEquals(0, BigDecimal.ONE.compareTo(rates.factor("USD", "USD")));
+    }
+
+    @Test
+    void refresh_KeepsPreviousTableWhenProviderFails() {
+        AtomicBoolean disponible = new AtomicBoolean(true);
+        converter = new CurrencyConverter(properties, () -> {
+            if (!disponible.get()) {
+                throw new IllegalStateException("service de taux indisponible");
+            }
+            return Map.of("CDF", new BigDecimal("2800"));
+        });
+        converter.refresh();
+        disponible.set(false);
+        converter.refresh();
+
+        assertEquals("CDF", converter.requireSupported("cdf"));
+        assertEquals(new BigDecimal("2800.00"), converter.rates().convert(BigDecimal.ONE, "USD", "CDF"));
+    }
+
+    @Test
+    void requireSupported_FailsFastUntilFirstTableLoaded() {
+        converter = new CurrencyConverter(properties, () -> {
+            throw new IllegalStateException("service de taux indisponible");
+        });
+        converter.loadRates();
+
+        assertEquals("USD", converter.requireSupported("usd"));
+        assertThrows(IllegalStateException.class, () -> converter.requireSupported("CDF"));
+    }
+
+    @Test
+    void requireSupported_RejectsUnknownCurrency() {
+        assertThrows(IllegalArgumentException.class, () -> converter.requireSupported("EUR"));
+    }
+}
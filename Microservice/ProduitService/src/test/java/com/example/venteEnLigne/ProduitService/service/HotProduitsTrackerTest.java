@@ -0,0 +1,218 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.HotProduitsProperties;
+import com.example.venteEnLigne.ProduitService.dto.OrderBasket;
+import com.example.venteEnLigne.ProduitService.dto.OrderBasketPage;
+import com.example.venteEnLigne.ProduitService.model.ClassementType;
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class HotProduitsTrackerTest {
+
+    private final List<OrderBasket> commandes = new ArrayList<>();
+    private final Map<Object, Object> redis = new HashMap<>();
+    private HotProduitsProperties properties;
+    private MongoTemplate mongoTemplate;
+    private StringRedisTemplate stringRedisTemplate;
+    private OrderServiceClient client;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        properties = new HotProduitsProperties();
+        properties.setTopK(3);
+
+        // Faux OrderService : tous les paniers au premier appel, plus rien ensuite
+        client = (afterCreatedAt, afterId, limit) -> {
+            List<OrderBasket> baskets = afterId == null ? List.copyOf(commandes) : List.of();
+            OrderBasket last = baskets.isEmpty() ? null : baskets.get(baskets.size() - 1);
+            return OrderBasketPage.builder()
+                    .baskets(baskets)
+                    .nextCreatedAt(last == null ? afterCreatedAt : last.getCreatedAt())
+                    .nextId(last == null ? afterId : last.getOrderId())
+                    .build();
+        };
+
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.find(any(Query.class), eq(Produit.class))).thenReturn(List.of(
+                Produit.builder().id("A").categorie("Mode").build(),
+                Produit.builder().id("B").categorie("Mode").build(),
+                Produit.builder().id("C").categorie("Maison").build()));
+
+        // Hash Redis en mémoire (une seule clé : celle des sauvegardes)
+        HashOperations<String, Object, Object> hashes = mock(HashOperations.class);
+        doAnswer(invocation -> redis.put(invocation.getArgument(1), invocation.getArgument(2)))
+                .when(hashes).put(anyString(), any(), any());
+        when(hashes.get(anyString(), any())).thenAnswer(invocation -> redis.get(invocation.getArgument(1)));
+        when(hashes.entries(anyString())).thenAnswer(invocation -> new HashMap<>(redis));
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.opsForHash()).thenReturn(hashes);
+    }
+
+    private HotProduitsTracker startTracker() {
+        HotProduitsTracker tracker = new HotProduitsTracker(properties, client, mongoTemplate, stringRedisTemplate);
+        tracker.start();
+        return tracker;
+    }
+
+    @Test
+    void recordView_RanksGloballyAndPerCategorie() {
+        HotProduitsTracker tracker = startTracker();
+        view(tracker, "A", "Mode", 5);
+        view(tracker, "B", "Mode", 2);
+        view(tracker, "C", "Maison", 3);
+        view(tracker, "D", "Maison", 1);
+
+        tracker.publish();
+
+        assertEquals(List.of("A", "C", "B"), keys(tracker.top(ClassementType.VUES, null, 10)));
+        assertEquals(List.of("C", "D"), keys(tracker.top(ClassementType.VUES, "Maison", 10)));
+        assertEquals(5, tracker.top(ClassementType.VUES, "Mode", 1).get(0).score(), 1e-9);
+        assertTrue(tracker.top(ClassementType.VENTES, null, 10).isEmpty());
+    }
+
+    @Test
+    void top_ReadsLastPublishedRanking() {
+        HotProduitsTracker tracker = startTracker();
+        view(tracker, "A", "Mode", 1);
+
+        assertTrue(tracker.top(ClassementType.VUES, null, 10).isEmpty());
+        tracker.publish();
+        assertEquals(List.of("A"), keys(tracker.top(ClassementType.VUES, null, 10)));
+    }
+
+    @Test
+    void refreshVentes_WeightsOrdersByAge() {
+        LocalDateTime now = LocalDateTime.now();
+        commandes.add(basket("1", now.minusHours(24), "A", "B"));
+        commandes.add(basket("2", now, "A", "A", "C"));
+        commandes.add(basket("3", now, "C"));
+        HotProduitsTracker tracker = startTracker();
+
+        tracker.refreshVentes();
+        tracker.publish();
+
+        // A : une commande récente + une d'une demi-vie (0,5) ; un doublon dans un panier ne compte qu'une fois
+        List<TopK.Entry> ventes = tracker.top(ClassementType.VENTES, null, 10);
+        assertEquals(List.of("C", "A", "B"), keys(ventes));
+        assertEquals(1.5, ventes.get(1).score(), 0.01);
+        assertEquals(0.5, ventes.get(2).score(), 0.01);
+        assertEquals(List.of("A", "B"), keys(tracker.top(ClassementType.VENTES, "Mode", 10)));
+    }
+
+    @Test
+    void maintain_SnapshotIsRestoredAfterRestart() {
+        commandes.add(basket("1", LocalDateTime.now(), "A"));
+        HotProduitsTracker tracker = startTracker();
+        tracker.refreshVentes();
+        view(tracker, "B", "Mode", 4);
+        tracker.maintain();
+
+        HotProduitsTracker restarted = startTracker();
+        // La position est restaurée : le panier déjà compté n'est pas relu
+        restarted.refreshVentes();
+
+        assertEquals(List.of("B"), keys(restarted.top(ClassementType.VUES, "Mode", 10)));
+        List<TopK.Entry> ventes = restarted.top(ClassementType.VENTES, null, 10);
+        assertEquals(List.of("A"), keys(ventes));
+        assertEquals(1.0, ventes.get(0).score(), 0.01);
+    }
+
+    @Test
+    void maintain_SumsViewsOfOtherInstancesButNotVentes() {
+        commandes.add(basket("1", LocalDateTime.now(), "C"));
+        properties.setInstanceId("instance-1");
+        HotProduitsTracker premiere = startTracker();
+        properties.setInstanceId("instance-2");
+        HotProduitsTracker seconde = startTracker();
+        premiere.refreshVentes();
+        seconde.refreshVentes();
+        view(premiere, "A", "Mode", 3);
+        view(seconde, "A", "Mode", 2);
+        view(seconde, "B", "Mode", 4);
+
+        premiere.maintain();
+        seconde.maintain();
+        premiere.maintain();
+        premiere.publish();
+        seconde.publish();
+
+        // Chaque instance sauvegarde dans son champ, aucune n'écrase l'autre
+        assertEquals(2, redis.size());
+        for (HotProduitsTracker tracker : List.of(premiere, seconde)) {
+            List<TopK.Entry> vues = tracker.top(ClassementType.VUES, "Mode", 10);
+            assertEquals(List.of("A", "B"), keys(vues));
+            assertEquals(5, vues.get(0).score(), 0.01);
+            // Les deux instances ont lu le même panier : compté une fois
+            assertEquals(1.0, tracker.top(ClassementType.VENTES, null, 10).get(0).score(), 0.01);
+        }
+    }
+
+    @Test
+    void restore_IgnoresSnapshotWithOtherSketchSize() {
+        HotProduitsTracker tracker = startTracker();
+        view(tracker, "A", "Mode", 2);
+        tracker.maintain();
+
+        properties.setSketchWidth(1024);
+        HotProduitsTracker restarted = startTracker();
+
+        assertTrue(restarted.top(ClassementType.VUES, null, 10).isEmpty());
+    }
+
+    @Test
+    void countMinSketch_NeverUnderestimatesAndStaysClose() {
+        CountMinSketch sketch = new CountMinSketch(4, 8192);
+        Map<String, Integer> exact = new HashMap<>();
+        Random random = new Random(42);
+        int total = 200_000;
+        for (int i = 0; i < total; i++) {
+            // Distribution biaisée : quelques produits très vus, une longue traîne
+            String key = "produit-" + random.nextInt(1000) * random.nextInt(1000) / 100;
+            exact.merge(key, 1, Integer::sum);
+            sketch.add(key, 1);
+        }
+
+        double maxError = Math.E / 8192 * total;
+        int horsBorne = 0;
+        for (Map.Entry<String, Integer> entry : exact.entrySet()) {
+            double estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), entry.getKey());
+            if (estimate - entry.getValue() > maxError) {
+                horsBorne++;
+            }
+        }
+        // Borne garantie avec une probabilité 1 - e^-4 (98 %) par clé
+        assertTrue(horsBorne < exact.size() * 0.02, "Clés hors borne: " + horsBorne);
+    }
+
+    private static void view(HotProduitsTracker tracker, String produitId, String categorie, int fois) {
+        for (int i = 0; i < fois; i++) {
+            tracker.recordView(produitId, categorie);
+        }
+    }
+
+    private static OrderBasket basket(String orderId, LocalDateTime createdAt, String... produitIds) {
+        return OrderBasket.builder().orderId(orderId).createdAt(createdAt).produitIds(List.of(produitIds)).build();
+    }
+
+    private static List<String> keys(List<TopK.Entry> entries) {
+        return entries.stream().map(TopK.Entry::key).toList();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.ImageProcessingProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Débit du traitement d'images (photos 12 Mpx) sur le pool borné.
+ * Exécuté seulement si IMAGE_BENCHMARK=true.
+ */
+@EnabledIfEnvironmentVariable(named = "IMAGE_BENCHMARK", matches = "true")
+class ImageProcessorBenchmarkTest {
+
+    private static final int IMAGES = 40;
+    private static final int CLIENTS = 16;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void process_ThroughputOnBoundedPool() throws Exception {
+        Path source = tempDir.resolve("photo.jpg");
+        ImageIO.write(photo(4000, 3000), "jpeg", source.toFile());
+
+        ImageProcessingProperties properties = new ImageProcessingProperties();
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(properties.getThreads());
+        pool.setMaxPoolSize(properties.getThreads());
+        pool.setQueueCapacity(IMAGES);
+        pool.initialize();
+        ImageProcessor imageProcessor = new ImageProcessor(properties, pool);
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<?>> futures = new ArrayList<>();
+        long debut = System.nanoTime();
+        for (int i = 0; i < IMAGES; i++) {
+            futures.add(clients.submit(() -> {
+                imageProcessor.process(source).deleteFiles();
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        long dureeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - debut);
+        clients.shutdown();
+        pool.shutdown();
+
+        System.out.printf("%d images 4000x3000 traitées (%d threads) en %d ms, %.1f images/s%n",
+                IMAGES, properties.getThreads(), dureeMs, IMAGES * 1000.0 / Math.max(1, dureeMs));
+        assertTrue(dureeMs > 0);
+    }
+
+    private static BufferedImage photo(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, Color.BLUE));
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.ImageProcessingProperties;
+import com.example.venteEnLigne.ProduitService.model.ImageVariant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageProcessorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ImageProcessor imageProcessor = new ImageProcessor(new ImageProcessingProperties(), null);
+
+    @Test
+    void generate_ProducesEveryVariantWithinItsBounds() throws IOException {
+        ImageProcessor.ProcessedImage processed = imageProcessor.generate(image(5000, 2500, "png"));
+
+        assertEquals(ImageVariant.values().length, processed.files().size());
+        assertDimensions(processed, ImageVariant.DETAIL, 1200, 600);
+        assertDimensions(processed, ImageVariant.CARD, 480, 240);
+        assertDimensions(processed, ImageVariant.THUMBNAIL, 160, 80);
+
+        processed.deleteFiles();
+        processed.files().values().forEach(file -> assertFalse(Files.exists(file)));
+    }
+
+    @Test
+    void generate_NeverUpscalesSmallImages() throws IOException {
+        ImageProcessor.ProcessedImage processed = imageProcessor.generate(image(300, 200, "png"));
+
+        assertDimensions(processed, ImageVariant.DETAIL, 300, 200);
+        assertDimensions(processed, ImageVariant.CARD, 300, 200);
+        assertDimensions(processed, ImageVariant.THUMBNAIL, 160, 107);
+    }
+
+    @Test
+    void generate_RejectsImagesAboveThePixelLimit() throws IOException {
+        ImageProcessingProperties properties = new ImageProcessingProperties();
+        properties.setMaxPixels(1_000_000);
+        Path source = image(2000, 1000, "png");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new ImageProcessor(properties, null).generate(source));
+    }
+
+    @Test
+    void generate_RejectsUnreadableFiles() throws IOException {
+        Path source = Files.write(tempDir.resolve("photo.jpg"), "pas une image".getBytes());
+
+        assertThrows(IllegalArgumentException.class, () -> imageProcessor.generate(source));
+    }
+
+    @Test
+    void generate_AppliesExifOrientationBeforeScaling() throws IOException {
+        // Stockée paysage, gauche rouge / droite bleue, à afficher tournée de 90° horaire (Orientation = 6)
+        BufferedImage stored = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = stored.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, 200, 200);
+        g.setColor(Color.BLUE);
+        g.fillRect(200, 0, 200, 200);
+        g.dispose();
+        Path source = jpegWithOrientation(stored, 6);
+
+        ImageProcessor.ProcessedImage processed = imageProcessor.generate(source);
+
+        // Portrait, la moitié gauche stockée devient le haut
+        assertDimensions(processed, ImageVariant.DETAIL, 200, 400);
+        assertDimensions(processed, ImageVariant.THUMBNAIL, 80, 160);
+        BufferedImage detail = ImageIO.read(processed.files().get(ImageVariant.DETAIL).toFile());
+        assertTrue(isMostly(detail.getRGB(100, 50), Color.RED), "haut rouge");
+        assertTrue(isMostly(detail.getRGB(100, 350), Color.BLUE), "bas bleu");
+    }
+
+    @Test
+    void readOrientation_DefaultsToOneWithoutExif() throws IOException {
+        assertEquals(1, ImageProcessor.readOrientation(image(10, 10, "png")));
+        Path jpeg = tempDir.resolve("sans-exif.jpg");
+        ImageIO.write(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB), "jpg", jpeg.toFile());
+        assertEquals(1, ImageProcessor.readOrientation(jpeg));
+    }
+
+    private Path image(int width, int height, String format) throws IOException {
+        Path source = tempDir.resolve("source." + format);
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), format, source.toFile());
+        return source;
+    }
+
+    // Insère après SOI un APP1 Exif big-endian dont l'IFD0 ne porte que le tag Orientation
+    private Path jpegWithOrientation(BufferedImage image, int orientation) throws IOException {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", jpeg);
+        byte[] encoded = jpeg.toByteArray();
+        ByteBuffer app1 = ByteBuffer.allocate(36)
+                .putShort((short) 0xFFE1).putShort((short) 34)
+                .put("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1))
+                .put("MM".getBytes(StandardCharsets.ISO_8859_1)).putShort((short) 42).putInt(8)
+                .putShort((short) 1)
+                .putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0)
+                .putInt(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(encoded, 0, 2);
+        out.write(app1.array());
+        out.write(encoded, 2, encoded.length - 2);
+        return Files.write(tempDir.resolve("rotated.jpg"), out.toByteArray());
+    }
+
+    private static boolean isMostly(int rgb, Color expected) {
+        Color actual = new Color(rgb);
+        return Math.abs(actual.getRed() - expected.getRed()) < 60
+                && Math.abs(actual.getGreen() - expected.getGreen()) < 60
+                && Math.abs(actual.getBlue() - expected.getBlue()) < 60;
+    }
+
+    private static void assertDimensions(ImageProcessor.ProcessedImage processed, ImageVariant variant,
+                                         int width, int height) throws IOException {
+        BufferedImage image = ImageIO.read(processed.files().get(variant).toFile());
+        assertEquals(width, image.getWidth(), variant + " width");
+        assertEquals(height, image.getHeight(), variant + " height");
+    }
+}
@@ -1,26 +1,46 @@
 package com.example.venteEnLigne.ProduitService.service;
 
 import com.example.venteEnLigne.ProduitService.config.GitHubProperties;
+import com.example.venteEnLigne.ProduitService.config.ImageProcessingProperties;
+import com.example.venteEnLigne.ProduitService.config.ImageStorageProperties;
+import com.example.venteEnLigne.ProduitService.config.ImageUploadProperties;
+import com.example.venteEnLigne.ProduitService.dto.ImageUploadJobResponse;
 import com.example.venteEnLigne.ProduitService.dto.ImageUploadResponse;
+import com.example.venteEnLigne.ProduitService.model.ImageContent;
+import com.example.venteEnLigne.ProduitService.model.ImageUploadJob;
+import com.example.venteEnLigne.ProduitService.model.ImageUploadStatus;
+import com.example.venteEnLigne.ProduitService.repository.ImageUploadJobRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ImageUploadServiceTest {
@@ -34,7 +54,27 @@ class ImageUploadServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
-    @InjectMocks
+    @Mock
+    private ProduitService produitService;
+
+    @Mock
+    private ImageHashIndex imageHashIndex;
+
+    @Mock
+    private ImageUploadJobRepository imageUploadJobRepository;
+
+    @Mock
+    private ThreadPoolTaskExecutor imageUploadExecutor;
+
+    @TempDir
+    Path tempDir;
+
+    private ImageUploadProperties uploadProperties;
+
+    private ThreadPoolTaskExecutor processingExecutor;
+
+    private ImageProcessor imageProcessor;
+
     private ImageUploadService imageUploadService;
 
     @BeforeEach
@@ -45,17 +85,25 @@ class ImageUploadServiceTest {
         org.mockito.Mockito.lenient().when(gitHubProperties.getRepo()).thenReturn("repo");
         org.mockito.Mockito.lenient().when(gitHubProperties.getBranch()).thenReturn("main");
         org.mockito.Mockito.lenient().when(gitHubProperties.getToken()).thenReturn("token");
+
+        uploadProperties = new ImageUploadProperties();
+        uploadProperties.setSpoolDir(tempDir.resolve("spool").toString());
+        processingExecutor = new ThreadPoolTaskExecutor();
+        processingExecutor.initialize();
+        imageProcessor = new ImageProcessor(new ImageProcessingProperties(), processingExecutor);
+        imageUploadService = new ImageUploadService(
+                new GitHubImageStorage(gitHubProperties, restTemplate, objectMapper), imageProcessor,
+                imageHashIndex, produitService, imageUploadJobRepository, imageUploadExecutor, uploadProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processingExecutor.shutdown();
     }
 
     @Test
     void uploadImage_Success() throws IOException {
-        MockMultipartFile file = new MockMultipartFile("file", "test.jpg", "image/jpeg", "test".getBytes());
-        
-        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(String.class)))
-                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
-        
-        when(restTemplate.exchange(anyString(), eq(HttpMethod.PUT), any(), eq(String.class)))
-                .thenReturn(ResponseEntity.ok("success"));
+        MockMultipartFile file = new MockMultipartFile("file", "test.png", "image/png", png(800, 600));
 
         ImageUploadResponse response = imageUploadService.uploadImage(file);
 
@@ -63,19 +111,121 @@ class ImageUploadServiceTest {
         assertNotNull(response.getUrl());
         assertTrue(response.getUrl().contains("jsdelivr"));
         assertFalse(response.isReplaced());
+        assertEquals(3, response.getVariants().size());
+        assertTrue(response.getVariants().get("thumbnail").endsWith("/thumbnail.jpg"));
+        verify(restTemplate, times(3)).execute(any(URI.class), eq(HttpMethod.PUT), any(), any());
+        verify(imageHashIndex).record(eq(response.getFileName()), eq(response.getUrl()), eq(response.getVariants()), anyLong());
+        verify(restTemplate, never()).exchange(anyString(), eq(HttpMethod.GET), any(), eq(String.class));
+        assertSpoolEmpty();
+    }
+
+    @Test
+    void uploadImage_ExistingGitHubFileCountsAsStored() throws IOException {
+        MockMultipartFile file = new MockMultipartFile("file", "test.png", "image/png", png(800, 600));
+        // Réponse de GitHub à un PUT sans sha sur un chemin déjà présent
+        when(restTemplate.execute(any(URI.class), eq(HttpMethod.PUT), any(), any()))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.valueOf(422), "Unprocessable Entity", null,
+                        "{\"message\":\"Invalid request.\\n\\n\\\"sha\\\" wasn't supplied.\"}".getBytes(), null));
+
+        ImageUploadResponse response = imageUploadService.uploadImage(file);
+
+        assertTrue(response.isReplaced());
+        assertEquals(3, response.getVariants().size());
+        verify(restTemplate, times(3)).execute(any(URI.class), eq(HttpMethod.PUT), any(), any());
+        verify(imageHashIndex).record(eq(response.getFileName()), eq(response.getUrl()), eq(response.getVariants()), anyLong());
+        assertSpoolEmpty();
+    }
+
+    @Test
+    void uploadImage_DuplicateSkipsProcessingAndStorage() throws Exception {
+        byte[] content = png(800, 600);
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        when(imageHashIndex.lookup(sha256)).thenReturn(Optional.of(ImageContent.builder()
+                .id(sha256)
+                .url("https://cdn/images/" + sha256 + "/detail.jpg")
+                .variants(Map.of("detail", "https://cdn/images/" + sha256 + "/detail.jpg"))
+                .build()));
+
+        ImageUploadResponse response = imageUploadService.uploadImage(
+                new MockMultipartFile("file", "copie.png", "image/png", content));
+
+        assertTrue(response.isDeduplicated());
+        assertEquals(sha256, response.getFileName());
+        assertEquals("https://cdn/images/" + sha256 + "/detail.jpg", response.getUrl());
+        verifyNoInteractions(restTemplate);
+        verify(imageHashIndex, never()).record(any(), any(), any(), anyLong());
+        assertSpoolEmpty();
     }
 
     @Test
     void uploadImage_InvalidType() {
         MockMultipartFile file = new MockMultipartFile("file", "test.txt", "text/plain", "test".getBytes());
-        
+
+        assertThrows(IllegalArgumentException.class, () -> imageUploadService.uploadImage(file));
+    }
+
+    @Test
+    void uploadImage_UnreadableImage() {
+        MockMultipartFile file = new MockMultipartFile("file", "test.jpg", "image/jpeg", "test".getBytes());
+
         assertThrows(IllegalArgumentException.class, () -> imageUploadService.uploadImage(file));
     }
 
     @Test
     void uploadImage_EmptyFile() {
         MockMultipartFile file = new MockMultipartFile("file", "test.jpg", "image/jpeg", new byte[0]);
-        
+
         assertThrows(IllegalArgumentException.class, () -> imageUploadService.uploadImage(file));
     }
+
+    @Test
+    void submitUpload_StoresThroughLocalBackendOnWorker() throws IOException {
+        ImageStorageProperties storageProperties = new ImageStorageProperties();
+        storageProperties.setLocalRootDir(tempDir.resolve("store").toString());
+        storageProperties.setLocalBaseUrl("http://localhost/");
+        imageUploadService = new ImageUploadService(new LocalImageStorage(storageProperties), imageProcessor,
+                imageHashIndex, produitService, imageUploadJobRepository, imageUploadExecutor, uploadProperties);
+
+        ArgumentCaptor<Runnable> worker = ArgumentCaptor.forClass(Runnable.class);
+        when(imageUploadJobRepository.save(any(ImageUploadJob.class))).thenAnswer(invocation -> {
+            ImageUploadJob job = invocation.getArgument(0);
+            job.setId("job-1");
+            return job;
+        });
+
+        MockMultipartFile file = new MockMultipartFile("file", "photo.png", "image/png", png(2000, 1000));
+        ImageUploadJobResponse submitted = imageUploadService.submitUpload(file, null);
+
+        assertEquals("job-1", submitted.getJobId());
+        assertEquals(ImageUploadStatus.EN_ATTENTE, submitted.getStatus());
+        verify(imageUploadExecutor).execute(worker.capture());
+
+        ImageUploadJob stored = ImageUploadJob.builder().id("job-1")
+                .fileName(submitted.getFileName()).contentType("image/png").build();
+        when(imageUploadJobRepository.findById("job-1")).thenReturn(Optional.of(stored));
+        worker.getValue().run();
+
+        assertEquals(ImageUploadStatus.TERMINE, stored.getStatus());
+        assertEquals("http://localhost/images/" + submitted.getFileName() + "/detail.jpg", stored.getUrl());
+        Path card = tempDir.resolve("store/images").resolve(submitted.getFileName()).resolve("card.jpg");
+        BufferedImage cardImage = ImageIO.read(card.toFile());
+        assertEquals(480, cardImage.getWidth());
+        assertEquals(240, cardImage.getHeight());
+        assertEquals(Map.of("detail", stored.getUrl(),
+                "card", "http://localhost/images/" + submitted.getFileName() + "/card.jpg",
+                "thumbnail", "http://localhost/images/" + submitted.getFileName() + "/thumbnail.jpg"), stored.getVariants());
+        assertSpoolEmpty();
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", out);
+        return out.toByteArray();
+    }
+
+    private void assertSpoolEmpty() throws IOException {
+        try (var files = Files.list(tempDir.resolve("spool"))) {
+            assertEquals(0, files.count());
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import com.example.venteEnLigne.ProduitService.model.ProduitChangeType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProduitChangeFeedTest {
+
+    private static final String ID = "65f1a2b3c4d5e6f708192a3b";
+
+    @Test
+    void token_PollingPositionRoundTrip() {
+        ProduitChangeToken token = ProduitChangeToken.position(1_700_000_000_123L, ID, 1_700_000_000_000L,
+                ProduitChangeToken.MIN_ID);
+
+        assertEquals(token, ProduitChangeToken.decode(token.encode()));
+        assertFalse(token.isResume());
+    }
+
+    @Test
+    void token_ResumeTokenRoundTrip() {
+        ProduitChangeToken token = ProduitChangeToken.resume(new BsonDocument("_data", new BsonString("8265F1A2B3000000012B")));
+
+        ProduitChangeToken decoded = ProduitChangeToken.decode(token.encode());
+
+        assertTrue(decoded.isResume());
+        assertEquals(token.resumeToken(), decoded.resumeToken());
+    }
+
+    @Test
+    void token_RejectsGarbage() {
+        assertThrows(IllegalArgumentException.class, () -> ProduitChangeToken.decode("pas-un-jeton"));
+    }
+
+    @Test
+    void typeOf_DistinguishesCreationStockAndModification() {
+        LocalDateTime creation = LocalDateTime.of(2026, 1, 1, 10, 0);
+        LocalDateTime ecriture = creation.plusMinutes(5);
+
+        assertEquals(ProduitChangeType.CREATION, ProduitChangeFeed.typeOf(
+                Produit.builder().createdAt(creation).updatedAt(creation).build()));
+        assertEquals(ProduitChangeType.STOCK, ProduitChangeFeed.typeOf(
+                Produit.builder().createdAt(creation).updatedAt(ecriture).stockUpdatedAt(ecriture).build()));
+        assertEquals(ProduitChangeType.MODIFICATION, ProduitChangeFeed.typeOf(
+                Produit.builder().createdAt(creation).updatedAt(ecriture.plusSeconds(1)).stockUpdatedAt(ecriture).build()));
+    }
+
+    @Test
+    void stockOnly_TrueOnlyForStockFields() {
+        BsonDocument stock = new BsonDocument("stock", new BsonInt32(3)).append("version", new BsonInt32(8));
+        BsonDocument titre = new BsonDocument("titre", new BsonString("Nouveau")).append("version", new BsonInt32(8));
+
+        assertTrue(ProduitChangeFeed.stockOnly(new UpdateDescription(List.of(), stock)));
+        assertFalse(ProduitChangeFeed.stockOnly(new UpdateDescription(List.of(), titre)));
+        assertFalse(ProduitChangeFeed.stockOnly(null));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProduitCursorTest {
+
+    @Test
+    void encode_RoundTripsEachSortKeyType() {
+        Produit produit = Produit.builder()
+                .id("6650f0c2a1b2c3d4e5f60718")
+                .titre("Télé: 4K")
+                .prix(new BigDecimal("1299.90"))
+                .stock(7)
+                .createdAt(LocalDateTime.of(2024, 5, 24, 10, 15, 30))
+                .build();
+
+        for (String sortBy : ProduitCursor.SORTABLE_FIELDS) {
+            ProduitCursor cursor = ProduitCursor.of(produit, sortBy, false);
+
+            assertEquals(cursor, ProduitCursor.decode(cursor.encode(), sortBy, false), sortBy);
+        }
+    }
+
+    @Test
+    void decode_RejectsCursorOfAnotherSort() {
+        String token = ProduitCursor.of(Produit.builder().id("a").stock(3).build(), "stock", true).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> ProduitCursor.decode(token, "prix", true));
+        assertThrows(IllegalArgumentException.class, () -> ProduitCursor.decode(token, "stock", false));
+        assertThrows(IllegalArgumentException.class, () -> ProduitCursor.decode("pas-un-curseur", "stock", true));
+    }
+
+    @Test
+    void after_EqualKeysContinueOnIdOnly() {
+        ProduitCursor cursor = new ProduitCursor("stock", true, 5, "b");
+
+        Document criteria = cursor.after().getCriteriaObject();
+
+        // stock > 5, ou stock = 5 et _id > "b" : les ex aequo déjà renvoyés ne reviennent pas
+        assertEquals(List.of(
+                new Document("stock", new Document("$gt", 5)),
+                new Document("$and", List.of(new Document("stock", 5), new Document("id", new Document("$gt", "b"))))),
+                criteria.get("$or"));
+    }
+
+    @Test
+    void after_DescendingKeepsNullsLast() {
+        ProduitCursor cursor = new ProduitCursor("titre", false, "Radio", "b");
+
+        Document criteria = cursor.after().getCriteriaObject();
+
+        assertEquals(List.of(
+                new Document("titre", new Document("$lt", "Radio")),
+                new Document("$and", List.of(new Document("titre", "Radio"), new Document("id", new Document("$lt", "b")))),
+                new Document("titre", null)),
+                criteria.get("$or"));
+    }
+
+    @Test
+    void after_NullKeyAscendingMovesPastNulls() {
+        ProduitCursor cursor = new ProduitCursor("titre", true, null, "b");
+
+        Document criteria = cursor.after().getCriteriaObject();
+
+        assertEquals(List.of(
+                new Document("$and", List.of(new Document("titre", null), new Document("id", new Document("$gt", "b")))),
+                new Document("titre", new Document("$ne", null))),
+                criteria.get("$or"));
+    }
+}
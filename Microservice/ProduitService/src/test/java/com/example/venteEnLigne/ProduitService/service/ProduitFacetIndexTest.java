@@ -0,0 +1,140 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.CurrencyProperties;
+import com.example.venteEnLigne.ProduitService.model.ProductStatus;
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProduitFacetIndexTest {
+
+    private CurrencyProperties currencyProperties;
+    private CurrencyConverter currencyConverter;
+    private ProduitFacetIndex facetIndex;
+
+    @BeforeEach
+    void setUp() {
+        currencyProperties = new CurrencyProperties();
+        currencyProperties.setStaticRates(Map.of("CDF", new BigDecimal("2800")));
+        currencyConverter = new CurrencyConverter(currencyProperties, new StaticExchangeRateProvider(currencyProperties));
+        currencyConverter.refresh();
+        facetIndex = new ProduitFacetIndex(currencyConverter);
+        facetIndex.rebuild(List.of(
+                produit("1", "Informatique", "Dell", "450", Map.of("ram", "8Go")),
+                produit("2", "Informatique", "HP", "80", Map.of("ram", "4Go", "couleur", "noir")),
+                produit("3", "Téléphonie", "Samsung", "300", Map.of("couleur", "bleu")),
+                produit("4", "Informatique", "Dell", "1200", Map.of())
+        ).iterator());
+    }
+
+    @Test
+    void browse_CombinesFieldsWithAndAndValuesWithOr() {
+        ProduitFacetIndex.BrowseResult result = facetIndex.browse(
+                Map.of(ProduitFacetIndex.CATEGORIE, List.of("Informatique"),
+                        ProduitFacetIndex.MARQUE, List.of("Dell", "HP")),
+                null, null, 0, 10);
+
+        assertEquals(3, result.total());
+        assertEquals(List.of("4", "2", "1"), result.produitIds()); // Plus récents d'abord
+    }
+
+    @Test
+    void browse_CountsIgnoreTheirOwnFieldFilter() {
+        ProduitFacetIndex.BrowseResult result = facetIndex.browse(
+                Map.of(ProduitFacetIndex.MARQUE, List.of("Dell")), null, null, 0, 10);
+
+        assertEquals(Map.of("Dell", 2, "HP", 1, "Samsung", 1), result.facettes().get(ProduitFacetIndex.MARQUE));
+        assertEquals(Map.of("Informatique", 2), result.facettes().get(ProduitFacetIndex.CATEGORIE));
+    }
+
+    @Test
+    void browse_FiltersByPriceRangeAndSpecificationKey() {
+        ProduitFacetIndex.BrowseResult result = facetIndex.browse(
+                Map.of(ProduitFacetIndex.SPECIFICATION, List.of("couleur")),
+                new BigDecimal("100"), new BigDecimal("500"), 0, 10);
+
+        assertEquals(List.of("3"), result.produitIds());
+        assertEquals(Map.of("50-100", 1, "100-500", 1), result.facettes().get(ProduitFacetIndex.PRIX));
+    }
+
+    @Test
+    void index_UpdatesBitsetsInPlace() {
+        Produit rupture = produit("1", "Informatique", "Dell", "450", Map.of());
+        rupture.setStatus(ProductStatus.RUPTURE_STOCK);
+        facetIndex.index(rupture);
+        facetIndex.remove("4");
+
+        ProduitFacetIndex.BrowseResult result = facetIndex.browse(
+                Map.of(ProduitFacetIndex.STATUS, List.of("DISPONIBLE")), null, null, 0, 10);
+
+        assertEquals(List.of("3", "2"), result.produitIds());
+        assertEquals(Map.of("DISPONIBLE", 2, "RUPTURE_STOCK", 1), result.facettes().get(ProduitFacetIndex.STATUS));
+        assertEquals(Map.of("Informatique", 1, "Téléphonie", 1), result.facettes().get(ProduitFacetIndex.CATEGORIE));
+    }
+
+    @Test
+    void remove_CompactsFreedDocIdsKeepingRecencyOrder() {
+        for (int i = 0; i < 5_000; i++) {
+            facetIndex.index(produit("tmp" + i, "Audio", "Sony", "20", Map.of()));
+            facetIndex.remove("tmp" + i);
+        }
+        facetIndex.index(produit("5", "Audio", "Sony", "25", Map.of()));
+
+        assertTrue(facetIndex.allocatedDocIds() < 3_000, "docIds alloués: " + facetIndex.allocatedDocIds());
+        ProduitFacetIndex.BrowseResult result = facetIndex.browse(Map.of(), null, new BigDecimal("500"), 0, 10);
+        assertEquals(List.of("5", "3", "2", "1"), result.produitIds());
+        assertEquals(Map.of("Informatique", 2, "Téléphonie", 1, "Audio", 1),
+                result.facettes().get(ProduitFacetIndex.CATEGORIE));
+        assertEquals(Map.of("Dell", 1, "HP", 1, "Samsung", 1, "Sony", 1),
+                result.facettes().get(ProduitFacetIndex.MARQUE));
+    }
+
+    @Test
+    void browse_BucketsAndFiltersPricesInBaseCurrency() {
+        Produit cdf = produit("5", "Téléphonie", "Tecno", "280000", Map.of());
+        cdf.setCurrency("CDF"); // 100 USD
+        facetIndex.index(cdf);
+
+        ProduitFacetIndex.BrowseResult result = facetIndex.browse(
+                Map.of(ProduitFacetIndex.CATEGORIE, List.of("Téléphonie")),
+                new BigDecimal("50"), new BigDecimal("150"), 0, 10);
+
+        assertEquals(List.of("5"), result.produitIds());
+        assertEquals(Map.of("100-500", 2), result.facettes().get(ProduitFacetIndex.PRIX));
+
+        // Nouveau taux : 280000 CDF valent 50 USD
+        currencyProperties.setStaticRates(Map.of("CDF", new BigDecimal("5600")));
+        currencyConverter.refresh();
+        result = facetIndex.browse(Map.of(), new BigDecimal("50"), new BigDecimal("50"), 0, 10);
+
+        assertEquals(List.of("5"), result.produitIds());
+        assertEquals(Map.of("50-100", 2, "100-500", 2, "1000+", 1), result.facettes().get(ProduitFacetIndex.PRIX));
+    }
+
+    @Test
+    void browse_PriceRangeFollowsPriceUpdates() {
+        facetIndex.index(produit("4", "Informatique", "Dell", "90", Map.of()));
+
+        ProduitFacetIndex.BrowseResult result = facetIndex.browse(
+                Map.of(), new BigDecimal("80"), new BigDecimal("100"), 0, 10);
+
+        assertEquals(List.of("4", "2"), result.produitIds());
+        assertEquals(0, facetIndex.browse(Map.of(), new BigDecimal("1000"), null, 0, 10).total());
+    }
+
+    private static Produit produit(String id, String categorie, String marque, String prix, Map<String, String> specs) {
+        return Produit.builder()
+                .id(id)
+                .categorie(categorie)
+                .marque(marque)
+                .prix(new BigDecimal(prix))
+                .specifications(specs)
+                .build();
+    }
+}
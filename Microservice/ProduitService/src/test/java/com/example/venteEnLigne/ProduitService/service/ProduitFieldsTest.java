@@ -0,0 +1,55 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProduitFieldsTest {
+
+    @Test
+    void parse_AlwaysIncludesIdAndIgnoresBlanks() {
+        ProduitFields fields = ProduitFields.parse(" stock, titre,,prix ,image");
+
+        assertEquals(5, fields.names().size());
+        assertTrue(fields.names().containsAll(List.of("id", "titre", "prix", "image", "stock")));
+    }
+
+    @Test
+    void parse_RejectsUnknownField() {
+        assertThrows(IllegalArgumentException.class, () -> ProduitFields.parse("titre,version"));
+        assertThrows(IllegalArgumentException.class, () -> ProduitFields.parse("reservationsEnCours"));
+    }
+
+    @Test
+    void applyTo_IncludesRequestedAndExtraFields() {
+        Query query = ProduitFields.parse("titre,prix").applyTo(new Query(), "createdAt");
+
+        assertEquals(new Document(Map.of("id", 1, "titre", 1, "prix", 1, "createdAt", 1)),
+                query.getFieldsObject());
+    }
+
+    @Test
+    void view_KeepsOnlyRequestedFieldsInResponseOrder() {
+        Produit produit = Produit.builder()
+                .id("p1")
+                .titre("Laptop")
+                .description("Écran 15 pouces")
+                .prix(new BigDecimal("450.00"))
+                .stock(3)
+                .specifications(Map.of("ram", "16 Go"))
+                .build();
+
+        Map<String, Object> view = ProduitFields.parse("stock,prix,titre").view(produit);
+
+        assertEquals(List.of("id", "titre", "prix", "stock"), List.copyOf(view.keySet()));
+        assertEquals(new BigDecimal("450.00"), view.get("prix"));
+        assertEquals(3, view.get("stock"));
+    }
+}
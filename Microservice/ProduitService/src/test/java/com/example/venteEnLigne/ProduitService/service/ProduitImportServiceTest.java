@@ -0,0 +1,132 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.ImportProperties;
+import com.example.venteEnLigne.ProduitService.model.ImportFormat;
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import com.example.venteEnLigne.ProduitService.model.ProduitImportJob;
+import com.example.venteEnLigne.ProduitService.repository.ProduitImportJobRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.validation.Validation;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProduitImportServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ProduitImportJobRepository importJobRepository;
+
+    @Mock
+    private ProduitSearchIndex searchIndex;
+
+    @Mock
+    private ProduitFacetIndex facetIndex;
+
+    @Mock
+    private ThreadPoolTaskExecutor importExecutor;
+
+    @TempDir
+    Path tempDir;
+
+    private ProduitImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        ImportProperties properties = new ImportProperties();
+        properties.setSpoolDir(tempDir.toString());
+        importService = new ProduitImportService(mongoTemplate, importJobRepository, searchIndex, facetIndex,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), importExecutor, properties);
+
+        when(importJobRepository.save(any(ProduitImportJob.class))).thenAnswer(invocation -> {
+            ProduitImportJob job = invocation.getArgument(0);
+            job.setId("job-1");
+            return job;
+        });
+        // Import exécuté dans le thread du test
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(importExecutor).execute(any(Runnable.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.shutdown();
+    }
+
+    @Test
+    void soumettre_OrderedInsertFailure_KeepsPrefixAndRejectsOnlyFailedRow() throws Exception {
+        BulkOperationException doublon = mock(BulkOperationException.class);
+        when(doublon.getErrors()).thenReturn(List.of(
+                new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1)));
+        List<List<String>> envois = new ArrayList<>();
+        when(mongoTemplate.insert(anyCollection(), eq(Produit.class))).thenAnswer(invocation -> {
+            Collection<Produit> produits = invocation.getArgument(0);
+            envois.add(produits.stream().map(Produit::getTitre).toList());
+            if (envois.size() == 1) {
+                throw doublon; // Le 2e document échoue : seul le 1er est inséré
+            }
+            return produits;
+        });
+
+        importService.soumettre("vendeur-1", ImportFormat.NDJSON, ndjson("A", "B", "C", "D"));
+
+        // Reprise après la ligne en échec
+        assertEquals(List.of(List.of("A", "B", "C", "D"), List.of("C", "D")), envois);
+        ArgumentCaptor<Produit> indexes = ArgumentCaptor.forClass(Produit.class);
+        verify(searchIndex, times(3)).index(indexes.capture());
+        assertEquals(List.of("A", "C", "D"), indexes.getAllValues().stream().map(Produit::getTitre).toList());
+        assertTrue(indexes.getAllValues().stream().allMatch(produit -> produit.getId() != null));
+
+        Update lot = updateLot();
+        Document inc = lot.getUpdateObject().get("$inc", Document.class);
+        assertEquals(4, ((Number) inc.get("lignesLues")).intValue());
+        assertEquals(3, ((Number) inc.get("lignesImportees")).intValue());
+        assertEquals(1, ((Number) inc.get("lignesRejetees")).intValue());
+    }
+
+    private Update updateLot() {
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).updateFirst(any(Query.class), updates.capture(), eq(ProduitImportJob.class));
+        return updates.getAllValues().stream()
+                .filter(update -> update.getUpdateObject().containsKey("$inc"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static ByteArrayInputStream ndjson(String... titres) {
+        StringBuilder body = new StringBuilder();
+        for (String titre : titres) {
+            body.append("{\"titre\":\"").append(titre).append("\",\"prix\":10,\"categorie\":\"test\",\"stock\":1}\n");
+        }
+        return new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
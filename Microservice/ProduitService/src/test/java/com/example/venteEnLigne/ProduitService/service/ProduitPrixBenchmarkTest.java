@@ -0,0 +1,129 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compare une plage de prix triée (index {prix: 1, _id: 1}) selon que le prix est
+ * stocké en chaîne ou en Decimal128. Nécessite un MongoDB réel :
+ * exécuté seulement si PRIX_BENCHMARK=true (avec SPRING_DATA_MONGODB_URI).
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "PRIX_BENCHMARK", matches = "true")
+class ProduitPrixBenchmarkTest {
+
+    private static final int PRODUITS = 100_000;
+    private static final int REQUETES = 500;
+    private static final BigDecimal MIN = new BigDecimal("100");
+    private static final BigDecimal MAX = new BigDecimal("500");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @AfterEach
+    void tearDown() {
+        mongoTemplate.dropCollection("bench_prix_chaine");
+        mongoTemplate.dropCollection("bench_prix_decimal");
+    }
+
+    @Test
+    void prixRange_Decimal128VersString() {
+        Random random = new Random(42);
+        List<BigDecimal> prix = new ArrayList<>(PRODUITS);
+        for (int i = 0; i < PRODUITS; i++) {
+            prix.add(BigDecimal.valueOf(random.nextInt(1_000_000), 2)); // 0.00 à 9999.99
+        }
+        long attendus = prix.stream().filter(p -> p.compareTo(MIN) >= 0 && p.compareTo(MAX) <= 0).count();
+
+        MongoCollection<Document> chaine = load("bench_prix_chaine", prix, BigDecimal::toPlainString);
+        MongoCollection<Document> decimal = load("bench_prix_decimal", prix, Decimal128::new);
+
+        Document filtreChaine = range(MIN.toPlainString(), MAX.toPlainString());
+        Document filtreDecimal = range(new Decimal128(MIN), new Decimal128(MAX));
+
+        long trouvesChaine = chaine.countDocuments(filtreChaine);
+        long trouvesDecimal = decimal.countDocuments(filtreDecimal);
+        double[] chaineMs = latencies(chaine, filtreChaine);
+        double[] decimalMs = latencies(decimal, filtreDecimal);
+
+        System.out.printf("Plage [%s, %s] sur %d produits, %d attendus%n", MIN, MAX, PRODUITS, attendus);
+        System.out.printf("  chaîne     : %d trouvés, p50 %.2f ms, p95 %.2f ms%n",
+                trouvesChaine, percentile(chaineMs, 50), percentile(chaineMs, 95));
+        System.out.printf("  Decimal128 : %d trouvés, p50 %.2f ms, p95 %.2f ms%n",
+                trouvesDecimal, percentile(decimalMs, 50), percentile(decimalMs, 95));
+
+        // La comparaison lexicographique des chaînes inclut par exemple "1000.00" et "4999.99"
+        assertEquals(attendus, trouvesDecimal);
+        assertNotEquals(attendus, trouvesChaine);
+        assertSorted(decimal.find(filtreDecimal).sort(new Document("prix", 1).append("_id", 1)).limit(200));
+    }
+
+    private MongoCollection<Document> load(String name, List<BigDecimal> prix, Function<BigDecimal, Object> encode) {
+        mongoTemplate.dropCollection(name);
+        MongoCollection<Document> collection = mongoTemplate.getCollection(name);
+        List<Document> batch = new ArrayList<>();
+        for (int i = 0; i < prix.size(); i++) {
+            batch.add(new Document("titre", "Produit " + i).append("prix", encode.apply(prix.get(i))));
+            if (batch.size() == 5_000) {
+                collection.insertMany(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            collection.insertMany(batch);
+        }
+        collection.createIndex(new Document("prix", 1).append("_id", 1));
+        return collection;
+    }
+
+    private static Document range(Object min, Object max) {
+        return new Document("prix", new Document("$gte", min).append("$lte", max));
+    }
+
+    private static double[] latencies(MongoCollection<Document> collection, Document filtre) {
+        double[] ms = new double[REQUETES];
+        for (int i = 0; i < REQUETES; i++) {
+            int page = i % 10;
+            long debut = System.nanoTime();
+            collection.find(filtre)
+                    .sort(new Document("prix", 1).append("_id", 1))
+                    .skip(page * 20)
+                    .limit(20)
+                    .into(new ArrayList<>());
+            ms[i] = (System.nanoTime() - debut) / 1_000_000.0;
+        }
+        Arrays.sort(ms);
+        return ms;
+    }
+
+    private static double percentile(double[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    private static void assertSorted(Iterable<Document> documents) {
+        BigDecimal precedent = null;
+        for (Document document : documents) {
+            BigDecimal courant = document.get("prix", Decimal128.class).bigDecimalValue();
+            if (precedent != null) {
+                assertTrue(precedent.compareTo(courant) <= 0, precedent + " > " + courant);
+            }
+            precedent = courant;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.dto.ProduitChangeEvent;
+import com.example.venteEnLigne.ProduitService.dto.ProduitResponse;
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import com.example.venteEnLigne.ProduitService.model.ProduitChangeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProduitSearchIndexTest {
+
+    private ProduitSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new ProduitSearchIndex();
+        searchIndex.rebuild(List.of(
+                produit("1", "Ordinateur portable", "Un ordinateur léger pour l'école"),
+                produit("2", "Téléphone Samsung", "Écran AMOLED, idéal pour les photos"),
+                produit("3", "Sac à dos", "Sac pour ordinateur portable")
+        ).iterator());
+    }
+
+    @Test
+    void analyze_FoldsAccentsAndElisions() {
+        assertEquals(List.of("ecole", "telephone"), ProduitSearchIndex.analyze("L'École du téléphone"));
+        assertEquals(List.of("ordinateur"), ProduitSearchIndex.analyze("ordinateurs"));
+    }
+
+    @Test
+    void search_RanksTitleMatchesFirst() {
+        ProduitSearchIndex.SearchResult result = searchIndex.search("ordinateur", 0, 10);
+
+        assertEquals(2, result.total());
+        assertEquals(List.of("1", "3"), result.produitIds());
+    }
+
+    @Test
+    void search_IntersectsTermsAndExpandsLastPrefix() {
+        assertEquals(List.of("3"), searchIndex.search("sac ordi", 0, 10).produitIds());
+        assertEquals(List.of("2"), searchIndex.search("telephone ecran", 0, 10).produitIds());
+        assertEquals(0, searchIndex.search("sac telephone", 0, 10).total());
+    }
+
+    @Test
+    void search_PaginatesResults() {
+        ProduitSearchIndex.SearchResult result = searchIndex.search("portable", 1, 1);
+
+        assertEquals(2, result.total());
+        assertEquals(1, result.produitIds().size());
+    }
+
+    @Test
+    void search_PagesOfTiedScoresFollowIndexingOrder() {
+        for (int i = 10; i < 40; i++) {
+            searchIndex.index(produit(String.valueOf(i), "Casque audio", "Casque"));
+        }
+        List<String> all = searchIndex.search("casque", 0, 100).produitIds();
+
+        // Scores égaux : ordre d'indexation, et les pages se recollent sans trou ni doublon
+        assertEquals(30, all.size());
+        assertEquals("10", all.get(0));
+        assertEquals("39", all.get(29));
+        for (int offset = 0; offset < 30; offset += 7) {
+            assertEquals(all.subList(offset, Math.min(30, offset + 7)),
+                    searchIndex.search("casque", offset, 7).produitIds());
+        }
+        assertEquals(List.of(), searchIndex.search("casque", 30, 7).produitIds());
+        assertEquals(30, searchIndex.search("casque", 0, 0).total());
+    }
+
+    @Test
+    void index_ReplacesAndRemovesDocuments() {
+        searchIndex.index(produit("2", "Tablette", "Écran tactile"));
+        assertEquals(0, searchIndex.search("samsung", 0, 10).total());
+        assertEquals(List.of("2"), searchIndex.search("tablette", 0, 10).produitIds());
+
+        searchIndex.remove("1");
+        assertEquals(List.of("3"), searchIndex.search("ordinateur", 0, 10).produitIds());
+        assertEquals(2, searchIndex.size());
+    }
+
+    @Test
+    void apply_IndexesChangesFromFeedAndIgnoresStockWrites() {
+        searchIndex.apply(List.of(
+                ProduitChangeEvent.builder().type(ProduitChangeType.MODIFICATION).produitId("2")
+                        .produit(ProduitResponse.builder().id("2").titre("Tablette").description("Écran tactile").build())
+                        .build(),
+                ProduitChangeEvent.builder().type(ProduitChangeType.SUPPRESSION).produitId("1").build(),
+                ProduitChangeEvent.builder().type(ProduitChangeType.STOCK).produitId("3")
+                        .produit(ProduitResponse.builder().id("3").build())
+                        .build()));
+
+        assertEquals(List.of("2"), searchIndex.search("tablette", 0, 10).produitIds());
+        assertEquals(0, searchIndex.search("samsung", 0, 10).total());
+        assertEquals(List.of("3"), searchIndex.search("ordinateur", 0, 10).produitIds());
+        assertEquals(2, searchIndex.size());
+    }
+
+    @Test
+    void index_CompactsFreedDocIds() {
+        for (int i = 0; i < 10_000; i++) {
+            searchIndex.index(produit("4", "Casque audio " + i, "Réduction de bruit"));
+        }
+
+        assertTrue(searchIndex.allocatedDocIds() < 3_000, "docIds alloués: " + searchIndex.allocatedDocIds());
+        assertEquals(4, searchIndex.size());
+        assertEquals(List.of("1", "3"), searchIndex.search("ordinateur", 0, 10).produitIds());
+        assertEquals(List.of("4"), searchIndex.search("casque 9999", 0, 10).produitIds());
+        assertEquals(0, searchIndex.search("casque 42", 0, 10).total());
+    }
+
+    private static Produit produit(String id, String titre, String description) {
+        return Produit.builder().id(id).titre(titre).description(description).build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.dto.ProduitCreateRequest;
+import com.example.venteEnLigne.ProduitService.dto.ProduitResponse;
+import com.example.venteEnLigne.ProduitService.exception.InsufficientStockException;
+import com.example.venteEnLigne.ProduitService.model.ProductStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie l'absence de survente sous forte contention. Nécessite un MongoDB réel :
+ * exécuté seulement si SPRING_DATA_MONGODB_URI est défini.
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "SPRING_DATA_MONGODB_URI", matches = ".+")
+class ProduitStockConcurrencyTest {
+
+    private static final int STOCK_INITIAL = 500;
+    private static final int DECREMENTS = 5000;
+    private static final int THREADS = 64;
+
+    @Autowired
+    private ProduitService produitService;
+
+    private String produitId;
+
+    @AfterEach
+    void tearDown() {
+        if (produitId != null) {
+            produitService.deleteProduit(produitId);
+        }
+    }
+
+    @Test
+    void decrementStock_NeverOversellsUnderContention() throws Exception {
+        produitId = produitService.createProduit(ProduitCreateRequest.builder()
+                .vendeurId("bench-vendeur")
+                .titre("Produit flash")
+                .prix(BigDecimal.TEN)
+                .categorie("bench")
+                .stock(STOCK_INITIAL)
+                .build()).getId();
+
+        AtomicInteger succes = new AtomicInteger();
+        AtomicInteger refus = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < DECREMENTS; i++) {
+            futures.add(executor.submit(() -> {
+                depart.await();
+                try {
+                    produitService.decrementStock(produitId, 1);
+                    succes.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    refus.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long debut = System.nanoTime();
+        depart.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        long dureeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - debut);
+        executor.shutdown();
+
+        System.out.printf("%d décréments concurrents (%d threads) en %d ms, %.0f ops/s%n",
+                DECREMENTS, THREADS, dureeMs, DECREMENTS * 1000.0 / Math.max(1, dureeMs));
+
+        ProduitResponse produit = produitService.getProduitById(produitId);
+        assertEquals(STOCK_INITIAL, succes.get());
+        assertEquals(DECREMENTS - STOCK_INITIAL, refus.get());
+        assertEquals(0, produit.getStock());
+        assertEquals(ProductStatus.RUPTURE_STOCK, produit.getStatus());
+    }
+}
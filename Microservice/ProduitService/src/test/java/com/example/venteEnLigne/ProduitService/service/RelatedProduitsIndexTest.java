@@ -0,0 +1,96 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.config.RelatedProduitsProperties;
+import com.example.venteEnLigne.ProduitService.dto.OrderBasket;
+import com.example.venteEnLigne.ProduitService.dto.OrderBasketPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RelatedProduitsIndexTest {
+
+    private final List<List<String>> commandes = new ArrayList<>();
+    private final List<String> positions = new ArrayList<>();
+    private final RelatedProduitsProperties properties = new RelatedProduitsProperties();
+    private RelatedProduitsIndex index;
+
+    @BeforeEach
+    void setUp() {
+        properties.setBatchSize(2);
+        properties.setMinCoAchats(1);
+        // Faux OrderService : renvoie les commandes qui suivent la position reçue
+        OrderServiceClient client = (afterCreatedAt, afterId, limit) -> {
+            positions.add(afterId);
+            int debut = afterId == null ? 0 : Integer.parseInt(afterId) + 1;
+            List<OrderBasket> baskets = new ArrayList<>();
+            for (int i = debut; i < commandes.size() && baskets.size() < limit; i++) {
+                baskets.add(OrderBasket.builder()
+                        .orderId(String.valueOf(i))
+                        .createdAt(LocalDateTime.of(2026, 1, 1, 0, 0).plusMinutes(i))
+                        .produitIds(commandes.get(i))
+                        .build());
+            }
+            OrderBasket last = baskets.isEmpty() ? null : baskets.get(baskets.size() - 1);
+            return OrderBasketPage.builder()
+                    .baskets(baskets)
+                    .nextCreatedAt(last == null ? afterCreatedAt : last.getCreatedAt())
+                    .nextId(last == null ? afterId : last.getOrderId())
+                    .build();
+        };
+        index = new RelatedProduitsIndex(client, properties);
+    }
+
+    @Test
+    void refresh_RanksNeighborsByCosineSimilarity() {
+        commandes.add(List.of("A", "B"));
+        commandes.add(List.of("A", "B", "C"));
+        commandes.add(List.of("A", "C"));
+        commandes.add(List.of("C", "D"));
+        commandes.add(List.of("C", "E"));
+
+        index.refresh();
+
+        // co(A,B)=2 sur n(A)=3, n(B)=2 ; co(A,C)=2 sur n(C)=4 : B est plus proche de A
+        List<RelatedProduitsIndex.Related> related = index.related("A", 10);
+        assertEquals(List.of("B", "C"), related.stream().map(RelatedProduitsIndex.Related::produitId).toList());
+        assertEquals(2, related.get(0).coAchats());
+        assertEquals(1, index.related("A", 1).size());
+        assertTrue(index.related("inconnu", 10).isEmpty());
+    }
+
+    @Test
+    void refresh_ReadsOnlyNewBasketsFromLastPosition() {
+        commandes.add(List.of("A", "B"));
+        index.refresh();
+        commandes.add(List.of("A", "B"));
+        positions.clear();
+
+        index.refresh();
+
+        assertEquals("0", positions.get(0));
+        assertEquals(2, index.related("B", 10).get(0).coAchats());
+    }
+
+    @Test
+    void refresh_BoundsNeighborsWhenAllTied() {
+        properties.setMaxNeighbors(5);
+        properties.setBatchSize(100);
+        for (int i = 0; i < 3; i++) {
+            commandes.add(List.of("A", "X"));
+        }
+        // Longue traîne d'ex aequo : chaque voisin n'est vu qu'une fois
+        for (int i = 0; i < 200; i++) {
+            commandes.add(List.of("A", "V" + i));
+        }
+
+        index.refresh();
+
+        assertTrue(index.voisinsSuivis("A") <= 2 * properties.getMaxNeighbors());
+        assertEquals("X", index.related("A", 1).get(0).produitId());
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.venteEnLigne.ProduitService.service;
+
+import com.example.venteEnLigne.ProduitService.dto.ProduitCreateRequest;
+import com.example.venteEnLigne.ProduitService.dto.StockReservationLine;
+import com.example.venteEnLigne.ProduitService.dto.StockReservationLineResult;
+import com.example.venteEnLigne.ProduitService.dto.StockReservationRequest;
+import com.example.venteEnLigne.ProduitService.dto.StockReservationResponse;
+import com.example.venteEnLigne.ProduitService.model.LigneReservation;
+import com.example.venteEnLigne.ProduitService.model.Produit;
+import com.example.venteEnLigne.ProduitService.model.ReservationStatus;
+import com.example.venteEnLigne.ProduitService.model.ReservationStock;
+import com.example.venteEnLigne.ProduitService.repository.ReservationStockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Réservations groupées : tout ou rien, compensation d'un échec partiel, expiration et
+ * reprise après un arrêt en cours d'application. Nécessite un MongoDB réel : exécuté
+ * seulement si SPRING_DATA_MONGODB_URI est défini.
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "SPRING_DATA_MONGODB_URI", matches = ".+")
+class ReservationStockServiceTest {
+
+    @Autowired
+    private ReservationStockService reservationStockService;
+
+    @Autowired
+    private ReservationStockRepository reservationStockRepository;
+
+    @Autowired
+    private ProduitService produitService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final List<String> produitIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        produitIds.forEach(produitService::deleteProduit);
+    }
+
+    @Test
+    void reserver_AllLinesAvailable_HoldsStock() {
+        String a = produit(10);
+        String b = produit(5);
+
+        StockReservationResponse response = reservationStockService.reserver(request(null, Map.of(a, 3, b, 5)));
+
+        assertTrue(response.isReservee());
+        assertEquals(ReservationStatus.EN_ATTENTE, response.getStatut());
+        assertStock(a, 7, 3);
+        assertStock(b, 0, 5);
+        assertNoMarker(a, b);
+    }
+
+    @Test
+    void reserver_OneLineShort_ReservesNothingAndReportsEachLine() {
+        String a = produit(10);
+        String b = produit(2);
+        String absent = UUID.randomUUID().toString();
+
+        StockReservationResponse response = reservationStockService.reserver(request(null, Map.of(a, 3, b, 5, absent, 1)));
+
+        assertFalse(response.isReservee());
+        Map<String, String> statuts = response.getLignes().stream()
+                .collect(Collectors.toMap(StockReservationLineResult::getProduitId, StockReservationLineResult::getStatut));
+        assertEquals("ANNULE", statuts.get(a));
+        assertEquals("STOCK_INSUFFISANT", statuts.get(b));
+        assertEquals("PRODUIT_INTROUVABLE", statuts.get(absent));
+        // La ligne appliquée a été compensée
+        assertStock(a, 10, 0);
+        assertStock(b, 2, 0);
+        assertNoMarker(a, b);
+        assertEquals(ReservationStatus.LIBEREE,
+                reservationStockRepository.findById(response.getReservationId()).orElseThrow().getStatut());
+    }
+
+    @Test
+    void expirerReservations_ReturnsStockOfExpiredReservation() throws Exception {
+        String a = produit(10);
+        StockReservationResponse response = reservationStockService.reserver(request(1L, Map.of(a, 4)));
+        assertStock(a, 6, 4);
+
+        Thread.sleep(1_100);
+        reservationStockService.expirerReservations();
+
+        assertStock(a, 10, 0);
+        assertEquals(ReservationStatus.EXPIREE,
+                reservationStockRepository.findById(response.getReservationId()).orElseThrow().getStatut());
+    }
+
+    @Test
+    void expirerReservations_CompensatesOnlyMarkedLinesOfInterruptedReservation() {
+        String appliquee = produit(10);
+        String jamaisAppliquee = produit(10);
+        String reservationId = UUID.randomUUID().toString();
+        // Arrêt simulé entre l'enregistrement et la fin du bulkWrite : une seule ligne appliquée
+        reservationStockRepository.save(ReservationStock.builder()
+                .id(reservationId)
+                .lignes(List.of(new LigneReservation(appliquee, 4), new LigneReservation(jamaisAppliquee, 4)))
+                .statut(ReservationStatus.EN_PREPARATION)
+                .expiresAt(LocalDateTime.now().minusSeconds(1))
+                .build());
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(appliquee)),
+                StockUpdates.reservation(4, reservationId), Produit.class);
+        assertStock(appliquee, 6, 4);
+
+        reservationStockService.expirerReservations();
+        reservationStockService.expirerReservations(); // Déjà réclamée : sans effet
+
+        assertStock(appliquee, 10, 0);
+        assertStock(jamaisAppliquee, 10, 0);
+        assertNoMarker(appliquee, jamaisAppliquee);
+        assertEquals(ReservationStatus.EXPIREE, reservationStockRepository.findById(reservationId).orElseThrow().getStatut());
+    }
+
+    @Test
+    void decrementStock_StaysAtomicWithoutReservation() {
+        String a = produit(10);
+
+        produitService.decrementStock(a, 4);
+
+        assertStock(a, 6, 0);
+        assertNoMarker(a);
+        // Décrémentation directe : aucune réservation enregistrée
+        assertTrue(mongoTemplate.find(
+                new Query(Criteria.where("lignes.produitId").is(a)), ReservationStock.class).isEmpty());
+    }
+
+    private String produit(int stock) {
+        String id = produitService.createProduit(ProduitCreateRequest.builder()
+                .vendeurId("test-vendeur")
+                .titre("Produit réservé")
+                .prix(BigDecimal.TEN)
+                .categorie("test")
+                .stock(stock)
+                .build()).getId();
+        produitIds.add(id);
+        return id;
+    }
+
+    private static StockReservationRequest request(Long ttlSeconds, Map<String, Integer> quantites) {
+        return StockReservationRequest.builder()
+                .reference("commande-test")
+                .ttlSeconds(ttlSeconds)
+                .lignes(quantites.entrySet().stream()
+                        .map(e -> new StockReservationLine(e.getKey(), e.getValue()))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private void assertStock(String produitId, int stock, int stockReserve) {
+        // Lu en base : le cache n'est pas concerné par l'arrêt simulé
+        Produit produit = mongoTemplate.findById(produitId, Produit.class);
+        assertEquals(stock, produit.getStock());
+        assertEquals(stockReserve, produit.getStockReserve());
+    }
+
+    private void assertNoMarker(String... ids) {
+        for (String id : ids) {
+            Produit produit = mongoTemplate.findById(id, Produit.class);
+            assertTrue(produit.getReservationsEnCours() == null || produit.getReservationsEnCours().isEmpty());
+        }
+    }
+}
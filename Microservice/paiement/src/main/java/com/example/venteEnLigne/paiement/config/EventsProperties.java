@@ -0,0 +1,28 @@
+package com.example.venteEnLigne.paiement.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Événements de domaine : outbox, relais vers le broker et consommation
+ */
+@Configuration
+@ConfigurationProperties(prefix = "events")
+@Data
+public class EventsProperties {
+    private String broker = "redis";                   // redis (Redis Streams) ou memory (tests, local)
+    private String publishStream = "paiements.events";
+    private String subscribeStream = "orders.events";
+    private String consumerGroup = "paiement";
+    private String consumerName = "local";             // Stable par instance : reprend ses messages non acquittés
+    private long claimMinIdleMs = 60_000;              // Messages d'un autre consommateur repris après ce délai
+    private int maxDeliveries = 5;                     // Au-delà, message écarté vers deadLetterStream
+    private String deadLetterStream = "orders.events.dlq";
+    private int batchSize = 200;
+    private long relayIntervalMs = 500;
+    private long pollIntervalMs = 1000;
+    private long maxStreamLength = 100_000;            // Taille approximative conservée par flux
+    private long outboxRetentionHours = 24;
+    private long processedRetentionDays = 7;
+}
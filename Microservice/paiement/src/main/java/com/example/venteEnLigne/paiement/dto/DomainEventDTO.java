@@ -0,0 +1,24 @@
+package com.example.venteEnLigne.paiement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Événement de domaine échangé entre services par le broker
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DomainEventDTO {
+    private String id;              // Identifiant de la ligne d'outbox, clé d'idempotence
+    private String type;            // PAIEMENT_CONFIRME, COMMANDE_ANNULEE...
+    private String aggregateType;
+    private String aggregateId;
+    private String payload;         // JSON
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,43 @@
+package com.example.venteEnLigne.paiement.service;
+
+import com.example.venteEnLigne.paiement.dto.DomainEventDTO;
+
+import java.util.List;
+
+/**
+ * Broker des événements de domaine : flux ordonnés, lus par groupes de consommateurs.
+ * Livraison au moins une fois : un message non acquitté est relivré, au même consommateur
+ * ou, après events.claim-min-idle-ms, à un autre consommateur du groupe.
+ */
+public interface EventBroker {
+
+    /**
+     * Message reçu, à acquitter par son {@code deliveryId} une fois traité ;
+     * {@code deliveryCount} compte cette livraison (1 à la première)
+     */
+    record Delivery(String deliveryId, DomainEventDTO event, long deliveryCount) {
+    }
+
+    /**
+     * Publier un lot d'événements sur un flux, dans l'ordre
+     */
+    void publish(String stream, List<DomainEventDTO> events);
+
+    /**
+     * Recevoir au plus {@code max} messages pour le groupe : d'abord ceux laissés en attente
+     * par un autre consommateur inactif et ceux déjà reçus par ce consommateur et non
+     * acquittés, puis les suivants
+     */
+    List<Delivery> poll(String stream, String group, String consumer, int max);
+
+    /**
+     * Acquitter des messages traités
+     */
+    void ack(String stream, String group, List<String> deliveryIds);
+
+    /**
+     * Écarter un message qui échoue à chaque livraison : copié sur {@code deadLetterStream}
+     * puis acquitté, pour ne plus bloquer les suivants
+     */
+    void deadLetter(String stream, String group, Delivery delivery, String deadLetterStream);
+}
@@ -0,0 +1,133 @@
+package com.example.venteEnLigne.paiement.service;
+
+import com.example.venteEnLigne.paiement.config.EventsProperties;
+import com.example.venteEnLigne.paiement.dto.DomainEventDTO;
+import com.example.venteEnLigne.paiement.repository.ProcessedEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Suit les commandes publiées par OrderService : les paiements en attente d'une commande
+ * annulée sont abandonnés. Chaque événement est appliqué dans sa propre transaction
+ * puis acquitté.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderEventConsumer {
+
+    public static final String COMMANDE_ANNULEE = "COMMANDE_ANNULEE";
+
+    private final EventBroker eventBroker;
+    private final PaiementService paiementService;
+    private final ProcessedEventRepository processedEventRepository;
+    private final EventsProperties eventsProperties;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Traiter les prochains événements du flux des commandes
+     */
+    @Scheduled(fixedDelayString = "${events.poll-interval-ms:1000}")
+    public void poll() {
+        String stream = eventsProperties.getSubscribeStream();
+        String group = eventsProperties.getConsumerGroup();
+        List<EventBroker.Delivery> deliveries;
+        try {
+            deliveries = eventBroker.poll(stream, group, eventsProperties.getConsumerName(),
+                    eventsProperties.getBatchSize());
+        } catch (DataAccessException e) {
+            log.warn("Lecture du flux {} impossible: {}", stream, e.getMessage());
+            return;
+        }
+
+        List<String> traites = new ArrayList<>(deliveries.size());
+        for (EventBroker.Delivery delivery : deliveries) {
+            try {
+                handle(delivery.event());
+            } catch (IllegalArgumentException e) {
+                // Message illisible : le relivrer n'y changerait rien
+                log.warn("Événement {} ignoré: {}", delivery.event().getId(), e.getMessage());
+            } catch (DataIntegrityViolationException e) {
+                // Événement déjà enregistré par une autre livraison : rien n'a été appliqué
+                if (!processedEventRepository.existsById(delivery.event().getId())) {
+                    if (!ecarter(stream, group, delivery, e)) {
+                        break;
+                    }
+                    continue;
+                }
+                log.debug("Événement {} déjà traité", delivery.event().getId());
+            } catch (RuntimeException e) {
+                if (!ecarter(stream, group, delivery, e)) {
+                    break;
+                }
+                continue;
+            }
+            traites.add(delivery.deliveryId());
+        }
+        if (!traites.isEmpty()) {
+            eventBroker.ack(stream, group, traites);
+        }
+    }
+
+    // Échec : après events.max-deliveries livraisons le message est écarté vers le flux
+    // des messages en échec, sinon les suivants restent en attente et seront relivrés
+    // dans l'ordre
+    private boolean ecarter(String stream, String group, EventBroker.Delivery delivery, RuntimeException e) {
+        String eventId = delivery.event().getId();
+        if (delivery.deliveryCount() < eventsProperties.getMaxDeliveries()) {
+            log.error("Traitement de l'événement {} impossible (livraison {}), nouvel essai au prochain passage",
+                eventId, delivery.deliveryCount(), e);
+            return false;
+        }
+        log.error("Événement {} en échec après {} livraisons, déplacé vers {}",
+                eventId, delivery.deliveryCount(), eventsProperties.getDeadLetterStream(), e);
+        try {
+            eventBroker.deadLetter(stream, group, delivery, eventsProperties.getDeadLetterStream());
+            return true;
+        } catch (DataAccessException ex) {
+            log.warn("Événement {} non déplacé vers {}: {}", eventId, eventsProperties.getDeadLetterStream(),
+                ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Oublier les événements traités depuis plus de events.processed-retention-days
+     */
+    @Scheduled(fixedDelay = 3_600_000, initialDelay = 3_600_000)
+    @Transactional
+    public void purge() {
+        processedEventRepository.deleteProcessedBefore(
+                LocalDateTime.now().minusDays(eventsProperties.getProcessedRetentionDays()));
+    }
+
+    private void handle(DomainEventDTO event) {
+        // Autres événements du flux des commandes ignorés
+        if (COMMANDE_ANNULEE.equals(event.getType())) {
+            paiementService.cancelPendingPaiements(event.getId(), readOrderId(event));
+        }
+    }
+
+    private String readOrderId(DomainEventDTO event) {
+        try {
+            String orderId = objectMapper.readTree(event.getPayload()).path("orderId").asText(null);
+            if (orderId == null) {
+                throw new IllegalArgumentException("orderId absent de l'événement " + event.getType());
+            }
+            return orderId;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Contenu JSON invalide: " + e.getOriginalMessage());
+        }
+    }
+}
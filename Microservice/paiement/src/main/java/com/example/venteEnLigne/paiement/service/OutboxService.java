@@ -0,0 +1,72 @@
+package com.example.venteEnLigne.paiement.service;
+
+import com.example.venteEnLigne.paiement.model.OutboxEvent;
+import com.example.venteEnLigne.paiement.model.Paiement;
+import com.example.venteEnLigne.paiement.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Événements publiés par les paiements, écrits dans l'outbox au sein de la transaction
+ * de la modification : ils partent (OutboxRelay) si et seulement si elle est validée
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    public static final String AGGREGATE_PAIEMENT = "Paiement";
+    public static final String PAIEMENT_CONFIRME = "PAIEMENT_CONFIRME";
+    public static final String PAIEMENT_ECHOUE = "PAIEMENT_ECHOUE";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Annoncer le nouveau statut d'un paiement, s'il est définitif (SUCCES ou ECHOUE)
+     */
+    public void paiementStatusChanged(Paiement paiement) {
+        String eventType = switch (paiement.getStatus()) {
+            case SUCCES -> PAIEMENT_CONFIRME;
+            case ECHOUE -> PAIEMENT_ECHOUE;
+            case EN_ATTENTE -> null;
+        };
+        if (eventType == null) {
+            return;
+        }
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("paiementId", paiement.getId());
+        payload.put("orderId", paiement.getOrderId());
+        payload.put("userId", paiement.getUserId());
+        payload.put("montant", paiement.getMontant());
+        payload.put("currency", paiement.getCurrency());
+        payload.put("methode", paiement.getMethode());
+        payload.put("status", paiement.getStatus());
+        payload.put("transactionReference", paiement.getTransactionReference());
+
+        outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateType(AGGREGATE_PAIEMENT)
+                .aggregateId(paiement.getId())
+                .eventType(eventType)
+                .payload(toJson(payload))
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    private String toJson(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Événement non sérialisable", e);
+        }
+    }
+}
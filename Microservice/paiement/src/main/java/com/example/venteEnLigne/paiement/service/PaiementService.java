@@ -4,7 +4,9 @@ import com.example.venteEnLigne.paiement.dto.*;
 import com.example.venteEnLigne.paiement.model.MethodePaiement;
 import com.example.venteEnLigne.paiement.model.Paiement;
 import com.example.venteEnLigne.paiement.model.PaiementStatus;
+import com.example.venteEnLigne.paiement.model.ProcessedEvent;
 import com.example.venteEnLigne.paiement.repository.PaiementRepository;
+import com.example.venteEnLigne.paiement.repository.ProcessedEventRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
@@ -14,6 +16,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,6 +27,8 @@ import java.util.stream.Collectors;
 public class PaiementService {
 
     private final PaiementRepository paiementRepository;
+    private final ProcessedEventRepository processedEventRepository;
+    private final OutboxService outboxService;
     private final ObjectMapper objectMapper;
 
     /**
@@ -100,6 +105,7 @@ public class PaiementService {
         Paiement paiement = paiementRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Paiement non trouvé avec l'ID: " + id));
 
+        PaiementStatus before = paiement.getStatus();
         paiement.setStatus(request.getStatus());
 
         if (request.getTransactionReference() != null) {
@@ -111,6 +117,9 @@ public class PaiementService {
         }
 
         Paiement updatedPaiement = paiementRepository.save(paiement);
+        if (before != updatedPaiement.getStatus()) {
+            outboxService.paiementStatusChanged(updatedPaiement);
+        }
         log.info("Statut du paiement {} mis à jour: {}", id, request.getStatus());
 
         return mapToResponse(updatedPaiement);
@@ -125,10 +134,15 @@ public class PaiementService {
         Paiement paiement = paiementRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Paiement non trouvé avec l'ID: " + id));
 
+        PaiementStatus before = paiement.getStatus();
         paiement.setStatus(PaiementStatus.SUCCES);
         paiement.setProviderResponse(providerResponse);
 
         Paiement updatedPaiement = paiementRepository.save(paiement);
+        // La commande passe à PAYE à la réception de l'événement (OrderService)
+        if (before != PaiementStatus.SUCCES) {
+            outboxService.paiementStatusChanged(updatedPaiement);
+        }
         log.info("Paiement {} confirmé avec succès", id);
 
         return mapToResponse(updatedPaiement);
@@ -143,6 +157,7 @@ public class PaiementService {
         Paiement paiement = paiementRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Paiement non trouvé avec l'ID: " + id));
 
+        PaiementStatus before = paiement.getStatus();
         paiement.setStatus(PaiementStatus.ECHOUE);
 
         try {
@@ -155,11 +170,30 @@ public class PaiementService {
         }
 
         Paiement updatedPaiement = paiementRepository.save(paiement);
+        if (before != PaiementStatus.ECHOUE) {
+            outboxService.paiementStatusChanged(updatedPaiement);
+        }
         log.info("Paiement {} marqué comme échoué", id);
 
         return mapToResponse(updatedPaiement);
     }
 
+    /**
+     * Abandonner les paiements en attente d'une commande annulée (événement d'OrderService).
+     * Idempotent : l'événement est inséré avant tout effet, une livraison répétée ou
+     * concurrente viole la clé primaire et lève DataIntegrityViolationException
+     * (transaction annulée, voir OrderEventConsumer).
+     */
+    public void cancelPendingPaiements(String eventId, String orderId) {
+        processedEventRepository.saveAndFlush(new ProcessedEvent(eventId, LocalDateTime.now()));
+
+        for (Paiement paiement : paiementRepository.findByOrderId(orderId)) {
+            if (paiement.getStatus() == PaiementStatus.EN_ATTENTE) {
+                failPaiement(paiement.getId(), "Commande annulée");
+            }
+        }
+    }
+
     /**
      * Vérifier si une commande a un paiement réussi
      */